@@ -13,9 +13,6 @@
 
 package com.ibm.watson.developer_cloud.alchemy.v1;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
 
 import com.ibm.watson.developer_cloud.alchemy.v1.model.AlchemyGenericModel;
@@ -37,12 +34,13 @@ import com.ibm.watson.developer_cloud.alchemy.v1.model.Microformats;
 import com.ibm.watson.developer_cloud.alchemy.v1.model.SAORelations;
 import com.ibm.watson.developer_cloud.alchemy.v1.model.Taxonomies;
 import com.ibm.watson.developer_cloud.alchemy.v1.model.TypedRelations;
-import com.ibm.watson.developer_cloud.alchemy.v1.util.AlchemyEndPoints;
 import com.ibm.watson.developer_cloud.alchemy.v1.util.AlchemyEndPoints.AlchemyAPI;
-import com.ibm.watson.developer_cloud.http.RequestBuilder;
+import com.ibm.watson.developer_cloud.http.ResponseConverter;
 import com.ibm.watson.developer_cloud.http.ServiceCall;
 import com.ibm.watson.developer_cloud.service.AlchemyService;
-import com.ibm.watson.developer_cloud.util.ResponseConverterUtils;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okhttp3.Request;
 
 /**
  * The Alchemy Language service uses offers 12 text analysis services, each of which uses sophisticated natural language
@@ -145,9 +143,7 @@ public class AlchemyLanguage extends AlchemyService {
 
   private LanguageSelection language = LanguageSelection.DETECT;
 
-  private static final SimpleDateFormat anchorDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-
-  private static final String LANGUAGE = "language";
+  static final String LANGUAGE = "language";
 
   /**
    * Instantiates a new alchemy data news service.
@@ -178,36 +174,57 @@ public class AlchemyLanguage extends AlchemyService {
   private <T extends AlchemyGenericModel> ServiceCall<T> createServiceCall(final Map<String, Object> params,
       AlchemyAPI operation, Class<T> returnType, String... acceptedFormats) {
 
-    // clone params, to prevent errors if the user continues to use the provided Map, or it is
-    // immutable
-    final Map<String, Object> paramsCopy = new HashMap<String, Object>(params);
-
     // Get the input format and check for missing parameters
-    final String format = getInputFormat(paramsCopy, acceptedFormats);
-
-    // Get the path that represent this operation based on the operation and format
-    final String path = AlchemyEndPoints.getPath(operation, format);
-
-    // Return json
-    paramsCopy.put(OUTPUT_MODE, "json");
+    final String format = getInputFormat(params, acceptedFormats);
 
-    if (!paramsCopy.containsKey(LANGUAGE) && (language != LanguageSelection.DETECT)) {
-      paramsCopy.put(LANGUAGE, language.toString().toLowerCase());
-    }
-
-    // Prevent jsonp to be returned
-    paramsCopy.remove(JSONP);
+    return new AlchemyRequestTemplate<T>(this, operation, format, params, getLanguageParam(), returnType)
+        .bind(String.valueOf(params.get(format)));
+  }
 
-    final RequestBuilder requestBuilder = RequestBuilder.post(path);
-    for (final String param : paramsCopy.keySet()) {
-      requestBuilder.form(param, paramsCopy.get(param));
+  /**
+   * Compiles a request for an operation and a set of fixed parameters into an immutable
+   * {@link AlchemyRequestTemplate}. The path, query and form encoding of the fixed parameters are resolved once, each
+   * call to {@link AlchemyRequestTemplate#bind(String)} only encodes the input. Use it when the same analysis is run on
+   * many documents.
+   *
+   * @param <T> The POJO that represents the response object
+   * @param operation the alchemy operation
+   * @param inputFormat the format bound on each call: {@link #TEXT}, {@link #HTML} or {@link #URL}
+   * @param params the fixed request parameters, may be null
+   * @param returnType the POJO class to be parsed from the response, e.g. {@link Entities}
+   * @return the compiled request
+   * @throws IllegalArgumentException if the operation does not accept the input format or the parameters contain an
+   *         input
+   */
+  public <T extends AlchemyGenericModel> AlchemyRequestTemplate<T> prepare(AlchemyAPI operation, String inputFormat,
+      Map<String, Object> params, Class<T> returnType) {
+    if (params != null) {
+      for (final String input : new String[] { TEXT, HTML, URL }) {
+        Validator.isTrue(!params.containsKey(input), input + " is bound on each call and cannot be a fixed parameter");
+      }
     }
+    return new AlchemyRequestTemplate<T>(this, operation, inputFormat, params, getLanguageParam(), returnType);
+  }
 
-    if ((operation == AlchemyAPI.TYPED) && params.containsKey(MODEL_ID)) {
-      requestBuilder.query(MODEL_ID, params.get(MODEL_ID));
-    }
+  /**
+   * Creates the service call for a request built by an {@link AlchemyRequestTemplate}.
+   *
+   * @param <T> the response type
+   * @param request the request
+   * @param converter the response converter
+   * @return the service call
+   */
+  <T> ServiceCall<T> newServiceCall(Request request, ResponseConverter<T> converter) {
+    return createServiceCall(request, converter);
+  }
 
-    return createServiceCall(requestBuilder.build(), ResponseConverterUtils.getObject(returnType));
+  /**
+   * Gets the language to send, or null when the service should detect it.
+   *
+   * @return the language parameter value
+   */
+  private String getLanguageParam() {
+    return language != LanguageSelection.DETECT ? language.toString().toLowerCase() : null;
   }
 
 
@@ -269,14 +286,7 @@ public class AlchemyLanguage extends AlchemyService {
    * @return {@link Microformats}
    */
   public ServiceCall<CombinedResults> getCombinedResults(Map<String, Object> params) {
-    Map<String, Object> paramsCopy = new HashMap<String, Object>(params);
-
-    if (params.containsKey(ANCHOR_DATE) && (params.get(ANCHOR_DATE) instanceof Date)) {
-      String anchorDate = formatDate((Date) params.get(ANCHOR_DATE));
-      paramsCopy.put(ANCHOR_DATE, anchorDate);
-    }
-
-    return createServiceCall(paramsCopy, AlchemyAPI.COMBINED, CombinedResults.class, TEXT, HTML, URL);
+    return createServiceCall(params, AlchemyAPI.COMBINED, CombinedResults.class, TEXT, HTML, URL);
   }
 
   /**
@@ -408,23 +418,6 @@ public class AlchemyLanguage extends AlchemyService {
    * @return {@link Dates}
    */
   public ServiceCall<Dates> getDates(final Map<String, Object> params) {
-    Map<String, Object> paramsCopy = new HashMap<String, Object>(params);
-
-    if (params.containsKey(ANCHOR_DATE) && (params.get(ANCHOR_DATE) instanceof Date)) {
-      String anchorDate = formatDate((Date) params.get(ANCHOR_DATE));
-      paramsCopy.put(ANCHOR_DATE, anchorDate);
-    }
-
-    return createServiceCall(paramsCopy, AlchemyAPI.DATES, Dates.class, TEXT, HTML, URL);
-  }
-
-  /**
-   * Format date.
-   *
-   * @param anchorDate the anchor date
-   * @return the formatted date as string
-   */
-  private synchronized String formatDate(final Date anchorDate) {
-    return anchorDateFormat.format(anchorDate);
+    return createServiceCall(params, AlchemyAPI.DATES, Dates.class, TEXT, HTML, URL);
   }
 }
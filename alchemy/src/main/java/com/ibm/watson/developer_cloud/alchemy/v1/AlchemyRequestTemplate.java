@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.alchemy.v1;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+
+import com.ibm.watson.developer_cloud.alchemy.v1.model.AlchemyGenericModel;
+import com.ibm.watson.developer_cloud.alchemy.v1.util.AlchemyEndPoints;
+import com.ibm.watson.developer_cloud.alchemy.v1.util.AlchemyEndPoints.AlchemyAPI;
+import com.ibm.watson.developer_cloud.http.HttpMediaType;
+import com.ibm.watson.developer_cloud.http.ResponseConverter;
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.util.DateParser;
+import com.ibm.watson.developer_cloud.util.RequestUtils;
+import com.ibm.watson.developer_cloud.util.ResponseConverterUtils;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * An immutable, compiled {@link AlchemyLanguage} request. The operation, input format and fixed parameters are resolved
+ * and form-encoded once; each call to {@link #bind(String)} only encodes the text, HTML or URL being analyzed and
+ * appends it to the pre-encoded form body.
+ *
+ * <pre>
+ * Map&lt;String, Object&gt; params = new HashMap&lt;String, Object&gt;();
+ * params.put(AlchemyLanguage.SENTIMENT, 1);
+ * AlchemyRequestTemplate&lt;Entities&gt; entities =
+ *     service.prepare(AlchemyAPI.ENTITIES, AlchemyLanguage.TEXT, params, Entities.class);
+ *
+ * for (String text : documents) {
+ *   Entities result = entities.bind(text).execute();
+ * }
+ * </pre>
+ *
+ * Templates are thread-safe and can be shared.
+ *
+ * @param <T> the response type
+ * @see AlchemyLanguage#prepare(AlchemyAPI, String, Map, Class)
+ */
+public final class AlchemyRequestTemplate<T extends AlchemyGenericModel> {
+  private static final MediaType FORM = MediaType.parse(HttpMediaType.APPLICATION_FORM_URLENCODED);
+  private static final String JSONP = "jsonp";
+  private static final String OUTPUT_MODE = "outputMode";
+  private static final ByteString HEX_DIGITS = ByteString.encodeUtf8("0123456789ABCDEF");
+
+  private final AlchemyLanguage service;
+  private final AlchemyAPI operation;
+  private final String inputFormat;
+  private final HttpUrl url;
+  private final ByteString fixedFields;
+  private final ResponseConverter<T> converter;
+
+  /**
+   * Compiles a new request template.
+   *
+   * @param service the service used to execute the calls
+   * @param operation the alchemy operation
+   * @param inputFormat the format bound on each call, e.g. "text", "html" or "url"
+   * @param params the fixed parameters, the <code>inputFormat</code> key is ignored
+   * @param language the language to send when <code>params</code> does not have one, or null to let the service detect
+   *        it
+   * @param returnType the POJO class to be parsed from the response
+   */
+  AlchemyRequestTemplate(AlchemyLanguage service, AlchemyAPI operation, String inputFormat, Map<String, Object> params,
+      String language, Class<T> returnType) {
+    Validator.notNull(operation, "operation cannot be null");
+    Validator.notNull(inputFormat, "inputFormat cannot be null");
+    Validator.notNull(returnType, "returnType cannot be null");
+
+    this.service = service;
+    this.operation = operation;
+    this.inputFormat = inputFormat;
+    converter = ResponseConverterUtils.getObject(returnType);
+
+    // Get the path that represent this operation based on the operation and format
+    final HttpUrl.Builder urlBuilder =
+        HttpUrl.parse(RequestUtils.DEFAULT_ENDPOINT + AlchemyEndPoints.getPath(operation, inputFormat)).newBuilder();
+
+    final Buffer fields = new Buffer();
+    if (params != null) {
+      for (final Map.Entry<String, Object> param : params.entrySet()) {
+        final String name = param.getKey();
+        if ((param.getValue() == null) || name.equals(inputFormat) || name.equals(OUTPUT_MODE)
+            || name.equals(JSONP)) {
+          continue;
+        }
+        final String value = toFormValue(name, param.getValue());
+        writeField(fields, name, value);
+
+        if ((operation == AlchemyAPI.TYPED) && name.equals(AlchemyLanguage.MODEL_ID)) {
+          urlBuilder.addQueryParameter(name, value);
+        }
+      }
+    }
+
+    // Return json, never jsonp
+    writeField(fields, OUTPUT_MODE, "json");
+
+    if ((language != null) && ((params == null) || !params.containsKey(AlchemyLanguage.LANGUAGE))) {
+      writeField(fields, AlchemyLanguage.LANGUAGE, language);
+    }
+
+    encode(inputFormat, fields);
+    fields.writeByte('=');
+
+    url = urlBuilder.build();
+    fixedFields = fields.readByteString();
+  }
+
+  /**
+   * Binds the text, HTML or URL to analyze and returns the call for it.
+   *
+   * @param input the text, HTML or URL, depending on {@link #getInputFormat()}
+   * @return the service call
+   */
+  public ServiceCall<T> bind(String input) {
+    Validator.notNull(input, inputFormat + " cannot be null");
+
+    final Buffer encoded = new Buffer();
+    encode(input, encoded);
+    final ByteString value = encoded.readByteString();
+
+    final RequestBody body = new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return FORM;
+      }
+
+      @Override
+      public long contentLength() {
+        return fixedFields.size() + value.size();
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        sink.write(fixedFields);
+        sink.write(value);
+      }
+    };
+
+    return service.newServiceCall(new Request.Builder().url(url).post(body).build(), converter);
+  }
+
+  /**
+   * Gets the operation.
+   *
+   * @return the operation
+   */
+  public AlchemyAPI getOperation() {
+    return operation;
+  }
+
+  /**
+   * Gets the input format bound on each call.
+   *
+   * @return the input format, e.g. "text", "html" or "url"
+   */
+  public String getInputFormat() {
+    return inputFormat;
+  }
+
+  /**
+   * Converts a parameter value to the string sent in the form.
+   *
+   * @param name the parameter name
+   * @param value the parameter value
+   * @return the form value
+   */
+  private static String toFormValue(String name, Object value) {
+    if (name.equals(AlchemyLanguage.ANCHOR_DATE) && (value instanceof Date)) {
+      return DateParser.format((Date) value, DateParser.Style.DATE_TIME);
+    }
+    return value.toString();
+  }
+
+  /**
+   * Writes <code>name=value&amp;</code> to the form.
+   *
+   * @param form the form
+   * @param name the name
+   * @param value the value
+   */
+  private static void writeField(Buffer form, String name, String value) {
+    encode(name, form);
+    form.writeByte('=');
+    encode(value, form);
+    form.writeByte('&');
+  }
+
+  /**
+   * Writes the <code>application/x-www-form-urlencoded</code> encoding of a string. Everything but the unreserved
+   * characters is percent-encoded, spaces become <code>+</code>.
+   *
+   * @param value the value to encode
+   * @param sink the buffer to write to
+   */
+  static void encode(String value, Buffer sink) {
+    Buffer utf8 = null;
+    for (int i = 0; i < value.length();) {
+      final int codePoint = value.codePointAt(i);
+      i += Character.charCount(codePoint);
+
+      if (((codePoint >= 'a') && (codePoint <= 'z')) || ((codePoint >= 'A') && (codePoint <= 'Z'))
+          || ((codePoint >= '0') && (codePoint <= '9')) || (codePoint == '-') || (codePoint == '.')
+          || (codePoint == '_') || (codePoint == '*')) {
+        sink.writeByte(codePoint);
+      } else if (codePoint == ' ') {
+        sink.writeByte('+');
+      } else {
+        if (utf8 == null) {
+          utf8 = new Buffer();
+        }
+        utf8.writeUtf8CodePoint(codePoint);
+        while (!utf8.exhausted()) {
+          final int b = utf8.readByte() & 0xff;
+          sink.writeByte('%');
+          sink.writeByte(HEX_DIGITS.getByte(b >> 4));
+          sink.writeByte(HEX_DIGITS.getByte(b & 0xf));
+        }
+      }
+    }
+  }
+}
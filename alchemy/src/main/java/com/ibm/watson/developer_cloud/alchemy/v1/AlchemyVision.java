@@ -24,6 +24,7 @@ import com.ibm.watson.developer_cloud.alchemy.v1.model.ImageLink;
 import com.ibm.watson.developer_cloud.alchemy.v1.model.ImageSceneText;
 import com.ibm.watson.developer_cloud.alchemy.v1.util.AlchemyEndPoints;
 import com.ibm.watson.developer_cloud.alchemy.v1.util.AlchemyEndPoints.AlchemyAPI;
+import com.ibm.watson.developer_cloud.http.FileChannelRequestBody;
 import com.ibm.watson.developer_cloud.http.HttpMediaType;
 import com.ibm.watson.developer_cloud.http.RequestBuilder;
 import com.ibm.watson.developer_cloud.http.ServiceCall;
@@ -31,7 +32,6 @@ import com.ibm.watson.developer_cloud.service.AlchemyService;
 import com.ibm.watson.developer_cloud.util.ResponseConverterUtils;
 import com.ibm.watson.developer_cloud.util.Validator;
 
-import okhttp3.RequestBody;
 
 /**
  * The Alchemy Vision service uses deep learning innovations to understand a picture’s content and context. It sees
@@ -91,7 +91,7 @@ public class AlchemyVision extends AlchemyService {
         if (!image.exists()) {
           throw new IllegalArgumentException("The file: " + image.getAbsolutePath() + " does not exist.");
         } else {
-          requestBuilder.body(RequestBody.create(HttpMediaType.BINARY_FILE, (File) params.get(IMAGE)));
+          requestBuilder.body(FileChannelRequestBody.create(HttpMediaType.BINARY_FILE, image));
           params.remove(IMAGE);
         }
       }
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.alchemy.v1.batch;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.ibm.watson.developer_cloud.alchemy.v1.AlchemyLanguage;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.AlchemyLanguageGenericModel;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.CombinedResults;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.Concepts;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.DocumentSentiment;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.Entities;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.Keywords;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.Taxonomies;
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.http.ServiceCallback;
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.FutureUtils;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * Drop-in replacement for the single feature methods of {@link AlchemyLanguage} that merges the calls made on the same
+ * document into one {@link AlchemyLanguage#getCombinedResults(Map)} call.
+ * <p>
+ * A call joins a batch when it is executed, enqueued or turned into a future. The first call on a document opens a
+ * window of {@value #DEFAULT_WINDOW_MILLIS} ms by default; every call made on the same document with the same
+ * parameters during the window is added to the batch. When the window closes, one combined call extracts all the
+ * features of the batch and each caller receives its part of the results.
+ *
+ * <pre>
+ * CombinedFeatureBatcher batcher = new CombinedFeatureBatcher.Builder(service).build();
+ * CompletableFuture&lt;Entities&gt; entities = batcher.getEntities(params).rx();
+ * CompletableFuture&lt;Keywords&gt; keywords = batcher.getKeywords(params).rx();
+ * // one round trip
+ * </pre>
+ *
+ * Calls that the combined call cannot answer, such as targeted sentiment, are sent on their own. Every part gets the
+ * transaction count of the combined call it came from.
+ */
+public class CombinedFeatureBatcher {
+
+  /** The default time a batch waits for more features, in milliseconds. */
+  public static final long DEFAULT_WINDOW_MILLIS = 10;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final AlchemyLanguage service;
+    private long windowMillis = DEFAULT_WINDOW_MILLIS;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param service the service used to send the combined calls
+     */
+    public Builder(AlchemyLanguage service) {
+      this.service = service;
+    }
+
+    /**
+     * Set how long a batch waits for more features after its first call, in milliseconds. Defaults to
+     * {@value CombinedFeatureBatcher#DEFAULT_WINDOW_MILLIS}.
+     *
+     * @param windowMillis the window
+     * @return the builder
+     */
+    public Builder windowMillis(long windowMillis) {
+      this.windowMillis = windowMillis;
+      return this;
+    }
+
+    /**
+     * Builds the batcher.
+     *
+     * @return the combined feature batcher
+     */
+    public CombinedFeatureBatcher build() {
+      return new CombinedFeatureBatcher(this);
+    }
+  }
+
+  /**
+   * The features extracted by a combined call, with the value of the <code>extract</code> parameter that requests them.
+   */
+  private enum Feature {
+    CONCEPTS("concept"), DOC_SENTIMENT("doc-sentiment"), ENTITIES("entity"), KEYWORDS("keyword"), TAXONOMY("taxonomy");
+
+    private final String extract;
+
+    Feature(String extract) {
+      this.extract = extract;
+    }
+  }
+
+  /**
+   * The features requested on a document during a window.
+   */
+  private static final class Batch {
+    private final Map<String, Object> params;
+    private final EnumSet<Feature> features = EnumSet.noneOf(Feature.class);
+    private final CompletableFuture<CombinedResults> results = new CompletableFuture<CombinedResults>();
+
+    private Batch(Map<String, Object> params) {
+      this.params = params;
+    }
+  }
+
+  private final AlchemyLanguage service;
+  private final long windowMillis;
+  private final ScheduledExecutorService scheduler;
+  private final Map<Map<String, Object>, Batch> open = new HashMap<Map<String, Object>, Batch>();
+
+  /**
+   * Instantiates a new combined feature batcher.
+   *
+   * @param builder the builder
+   */
+  protected CombinedFeatureBatcher(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.isTrue(builder.windowMillis >= 0, "windowMillis cannot be negative");
+    service = builder.service;
+    windowMillis = builder.windowMillis;
+    scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("alchemy-combined-batcher"));
+  }
+
+  /**
+   * Extracts the concepts of a text, a URL or HTML, see {@link AlchemyLanguage#getConcepts(Map)}.
+   *
+   * @param params The parameters to be used in the service call, text, html or url should be specified.
+   * @return {@link Concepts}
+   */
+  public ServiceCall<Concepts> getConcepts(Map<String, Object> params) {
+    return call(Feature.CONCEPTS, params, new CompletableFuture.Fun<CombinedResults, Concepts>() {
+      @Override
+      public Concepts apply(CombinedResults results) {
+        final Concepts part = copyCommon(results, new Concepts());
+        part.setConcepts(results.getConcepts());
+        return part;
+      }
+    });
+  }
+
+  /**
+   * Extracts the entities of a text, a URL or HTML, see {@link AlchemyLanguage#getEntities(Map)}.
+   *
+   * @param params The parameters to be used in the service call, text, html or url should be specified.
+   * @return {@link Entities}
+   */
+  public ServiceCall<Entities> getEntities(Map<String, Object> params) {
+    return call(Feature.ENTITIES, params, new CompletableFuture.Fun<CombinedResults, Entities>() {
+      @Override
+      public Entities apply(CombinedResults results) {
+        final Entities part = copyCommon(results, new Entities());
+        part.setEntities(results.getEntities());
+        return part;
+      }
+    });
+  }
+
+  /**
+   * Extracts the keywords of a text, a URL or HTML, see {@link AlchemyLanguage#getKeywords(Map)}.
+   *
+   * @param params The parameters to be used in the service call, text, html or url should be specified.
+   * @return {@link Keywords}
+   */
+  public ServiceCall<Keywords> getKeywords(Map<String, Object> params) {
+    return call(Feature.KEYWORDS, params, new CompletableFuture.Fun<CombinedResults, Keywords>() {
+      @Override
+      public Keywords apply(CombinedResults results) {
+        final Keywords part = copyCommon(results, new Keywords());
+        part.setKeywords(results.getKeywords());
+        part.setText(results.getText());
+        return part;
+      }
+    });
+  }
+
+  /**
+   * Calculates the sentiment of a text, a URL or HTML, see {@link AlchemyLanguage#getSentiment(Map)}. Targeted
+   * sentiment is not part of the combined call and is sent on its own.
+   *
+   * @param params The parameters to be used in the service call, text, html or url should be specified.
+   * @return {@link DocumentSentiment}
+   */
+  public ServiceCall<DocumentSentiment> getSentiment(Map<String, Object> params) {
+    if (params.containsKey(AlchemyLanguage.TARGET) || params.containsKey(AlchemyLanguage.TARGETS)) {
+      return service.getSentiment(params);
+    }
+    return call(Feature.DOC_SENTIMENT, params, new CompletableFuture.Fun<CombinedResults, DocumentSentiment>() {
+      @Override
+      public DocumentSentiment apply(CombinedResults results) {
+        final DocumentSentiment part = copyCommon(results, new DocumentSentiment());
+        part.setSentiment(results.getSentiment());
+        part.setText(results.getText());
+        return part;
+      }
+    });
+  }
+
+  /**
+   * Categorizes a text, a URL or HTML into a taxonomy, see {@link AlchemyLanguage#getTaxonomy(Map)}.
+   *
+   * @param params The parameters to be used in the service call, text, html or url should be specified.
+   * @return {@link Taxonomies}
+   */
+  public ServiceCall<Taxonomies> getTaxonomy(Map<String, Object> params) {
+    return call(Feature.TAXONOMY, params, new CompletableFuture.Fun<CombinedResults, Taxonomies>() {
+      @Override
+      public Taxonomies apply(CombinedResults results) {
+        final Taxonomies part = copyCommon(results, new Taxonomies());
+        part.setTaxonomy(results.getTaxonomy());
+        return part;
+      }
+    });
+  }
+
+  /**
+   * Stops the batcher. The open batches are still sent when their window closes, and later calls are sent on their
+   * own.
+   */
+  public void shutdown() {
+    scheduler.shutdown();
+  }
+
+  /**
+   * Creates a call that joins a batch when it is sent and extracts its part from the combined results.
+   *
+   * @param <T> the type of the part
+   * @param feature the feature
+   * @param params the request parameters
+   * @param extractor the function that extracts the part
+   * @return the service call
+   */
+  private <T> ServiceCall<T> call(final Feature feature, Map<String, Object> params,
+      final CompletableFuture.Fun<CombinedResults, T> extractor) {
+    Validator.notNull(params, "params cannot be null");
+    if (params.containsKey(AlchemyLanguage.EXTRACT)) {
+      throw new IllegalArgumentException(AlchemyLanguage.EXTRACT + " is set by the batcher");
+    }
+    final Map<String, Object> key = new HashMap<String, Object>(params);
+
+    return new ServiceCall<T>() {
+      @Override
+      public T execute() {
+        try {
+          return rx().get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+          throw FutureUtils.asRuntimeException(e.getCause());
+        }
+      }
+
+      @Override
+      public void enqueue(final ServiceCallback<? super T> callback) {
+        rx().handle(new CompletableFuture.BiFun<T, Throwable, Void>() {
+          @Override
+          public Void apply(T response, Throwable error) {
+            if (error == null) {
+              callback.onResponse(response);
+            } else {
+              callback.onFailure(FutureUtils.asException(error));
+            }
+            return null;
+          }
+        });
+      }
+
+      @Override
+      public CompletableFuture<T> rx() {
+        return join(feature, key).thenApply(extractor);
+      }
+    };
+  }
+
+  /**
+   * Adds a feature to the open batch of a document, opening one if needed.
+   *
+   * @param feature the feature
+   * @param params the request parameters, which identify the document
+   * @return the future of the combined results
+   */
+  private CompletableFuture<CombinedResults> join(Feature feature, Map<String, Object> params) {
+    final Batch batch;
+    synchronized (open) {
+      final Batch existing = open.get(params);
+      if (existing != null) {
+        existing.features.add(feature);
+        return existing.results;
+      }
+      batch = new Batch(params);
+      batch.features.add(feature);
+      try {
+        scheduler.schedule(new Runnable() {
+          @Override
+          public void run() {
+            send(batch);
+          }
+        }, windowMillis, TimeUnit.MILLISECONDS);
+        open.put(params, batch);
+        return batch.results;
+      } catch (RejectedExecutionException e) {
+        // the batcher is shut down, send the feature on its own
+      }
+    }
+    send(batch);
+    return batch.results;
+  }
+
+  /**
+   * Closes a batch and sends its combined call.
+   *
+   * @param batch the batch
+   */
+  private void send(final Batch batch) {
+    final StringBuilder extract = new StringBuilder();
+    synchronized (open) {
+      open.remove(batch.params);
+      for (Feature feature : batch.features) {
+        if (extract.length() > 0) {
+          extract.append(',');
+        }
+        extract.append(feature.extract);
+      }
+    }
+
+    final Map<String, Object> params = new HashMap<String, Object>(batch.params);
+    params.put(AlchemyLanguage.EXTRACT, extract.toString());
+    try {
+      service.getCombinedResults(params).enqueue(new ServiceCallback<CombinedResults>() {
+        @Override
+        public void onResponse(CombinedResults response) {
+          batch.results.complete(response);
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+          batch.results.completeExceptionally(e);
+        }
+      });
+    } catch (RuntimeException e) {
+      batch.results.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Copies the fields every response has.
+   *
+   * @param <T> the type of the part
+   * @param results the combined results
+   * @param part the part
+   * @return the part
+   */
+  private static <T extends AlchemyLanguageGenericModel> T copyCommon(CombinedResults results, T part) {
+    part.setLanguage(results.getLanguage());
+    part.setUrl(results.getUrl());
+    part.setTotalTransactions(results.getTotalTransactions());
+    return part;
+  }
+}
@@ -76,15 +76,11 @@ public abstract class AlchemyService extends WatsonService {
    * Adds the Alchemy API key to HTTP request.
    *
    * @param builder the builder
-   * @param apiKey the API key token
+   * @param apiKey the API key
    */
   private void addApiKeyToRequest(Builder builder, String apiKey) {
-    final HttpUrl url = HttpUrl.parse(builder.build().url().toString());
-    if ((url.query() == null) || url.query().isEmpty()) {
-      builder.url(builder.build().url() + "?" + apiKey);
-    } else {
-      builder.url(builder.build().url() + "&" + apiKey);
-    }
+    final HttpUrl url = builder.build().url();
+    builder.url(url.newBuilder().addQueryParameter(PARAM_APIKEY, apiKey).build());
   }
 
   /**
@@ -213,6 +209,6 @@ public abstract class AlchemyService extends WatsonService {
     if (getApiKey() == null) {
       throw new IllegalArgumentException("apiKey not specified");
     }
-    addApiKeyToRequest(builder, PARAM_APIKEY + "=" + getApiKey());
+    addApiKeyToRequest(builder, getApiKey());
   }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.alchemy.v1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.Entities;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.LanguageSelection;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.TypedRelations;
+import com.ibm.watson.developer_cloud.alchemy.v1.util.AlchemyEndPoints.AlchemyAPI;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * Unit tests for {@link AlchemyRequestTemplate}.
+ */
+public class AlchemyRequestTemplateTest extends WatsonServiceUnitTest {
+
+  private static final String API_KEY = "abc123";
+  private static final String RESPONSE = "{\"status\":\"OK\",\"language\":\"english\",\"entities\":[]}";
+
+  private AlchemyLanguage service;
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new AlchemyLanguage(API_KEY);
+    service.setEndPoint(getMockWebServerUrl());
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  private MockResponse okResponse() {
+    return new MockResponse().setHeader("Content-Type", "application/json").setBody(RESPONSE);
+  }
+
+  /**
+   * Test that a template encodes the fixed parameters once and binds each input.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testBind() throws Exception {
+    server.enqueue(okResponse());
+    server.enqueue(okResponse());
+
+    final Map<String, Object> params = new HashMap<String, Object>();
+    params.put(AlchemyLanguage.SENTIMENT, 1);
+    params.put("jsonp", "callback");
+    final AlchemyRequestTemplate<Entities> template =
+        service.prepare(AlchemyAPI.ENTITIES, AlchemyLanguage.TEXT, params, Entities.class);
+
+    final Entities entities = template.bind("hello world!").execute();
+    assertNotNull(entities.getEntities());
+    template.bind("café & co").execute();
+
+    RecordedRequest request = server.takeRequest();
+    assertEquals("/text/TextGetRankedNamedEntities?apikey=" + API_KEY, request.getPath());
+    assertEquals("application/x-www-form-urlencoded", request.getHeader("Content-Type"));
+    assertEquals("sentiment=1&outputMode=json&text=hello+world%21", request.getBody().readUtf8());
+
+    request = server.takeRequest();
+    final String body = request.getBody().readUtf8();
+    assertEquals("sentiment=1&outputMode=json&text=caf%C3%A9+%26+co", body);
+    assertEquals("text=café & co", URLDecoder.decode(body.substring(body.lastIndexOf('&') + 1), "UTF-8"));
+  }
+
+  /**
+   * Test that the language and the model id are part of the template.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testLanguageAndModelId() throws Exception {
+    server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody("{\"status\":\"OK\"}"));
+
+    service.setLanguage(LanguageSelection.ENGLISH);
+    final Map<String, Object> params = new HashMap<String, Object>();
+    params.put(AlchemyLanguage.MODEL_ID, "my model");
+    final AlchemyRequestTemplate<TypedRelations> template =
+        service.prepare(AlchemyAPI.TYPED, AlchemyLanguage.URL, params, TypedRelations.class);
+    assertEquals(AlchemyAPI.TYPED, template.getOperation());
+    assertEquals(AlchemyLanguage.URL, template.getInputFormat());
+
+    template.bind("http://www.ibm.com/?a=b").execute();
+
+    final RecordedRequest request = server.takeRequest();
+    assertEquals("/url/URLGetTypedRelations?model_id=my%20model&apikey=" + API_KEY, request.getPath());
+    assertEquals("model_id=my+model&outputMode=json&language=english&url=http%3A%2F%2Fwww.ibm.com%2F%3Fa%3Db",
+        request.getBody().readUtf8());
+  }
+
+  /**
+   * Test that the map based methods still send every parameter.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testGetEntities() throws Exception {
+    server.enqueue(okResponse());
+
+    final Map<String, Object> params = new HashMap<String, Object>();
+    params.put(AlchemyLanguage.TEXT, "IBM Watson");
+    params.put(AlchemyLanguage.MAX_RETRIEVE, 5);
+    service.getEntities(params).execute();
+
+    final RecordedRequest request = server.takeRequest();
+    assertEquals("/text/TextGetRankedNamedEntities?apikey=" + API_KEY, request.getPath());
+    final Buffer body = request.getBody();
+    final String form = URLDecoder.decode(body.readUtf8(), "UTF-8");
+    assertTrue(form, form.contains("maxRetrieve=5"));
+    assertTrue(form, form.contains("outputMode=json"));
+    assertTrue(form, form.endsWith("text=IBM Watson"));
+  }
+
+  /**
+   * Test that the input cannot be a fixed parameter.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testPrepareWithInput() {
+    final Map<String, Object> params = new HashMap<String, Object>();
+    params.put(AlchemyLanguage.HTML, "<html/>");
+    service.prepare(AlchemyAPI.ENTITIES, AlchemyLanguage.TEXT, params, Entities.class);
+  }
+
+  /**
+   * Test that unsupported input formats are rejected when the template is compiled.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testPrepareWithUnsupportedFormat() {
+    service.prepare(AlchemyAPI.AUTHORS, AlchemyLanguage.TEXT, null, Entities.class);
+  }
+}
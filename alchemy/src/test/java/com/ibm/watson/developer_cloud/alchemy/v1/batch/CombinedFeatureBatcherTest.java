@@ -0,0 +1,219 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.alchemy.v1.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.alchemy.v1.AlchemyLanguage;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.Concepts;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.DocumentSentiment;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.Entities;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.Keywords;
+import com.ibm.watson.developer_cloud.alchemy.v1.model.Sentiment.SentimentType;
+import com.ibm.watson.developer_cloud.http.ServiceCallback;
+import com.ibm.watson.developer_cloud.service.exception.BadRequestException;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for {@link CombinedFeatureBatcher}.
+ */
+public class CombinedFeatureBatcherTest extends WatsonServiceUnitTest {
+
+  private static final String COMBINED = "{\"status\":\"OK\",\"language\":\"english\",\"totalTransactions\":3,"
+      + "\"docSentiment\":{\"type\":\"positive\",\"score\":0.5},\"entities\":[{\"type\":\"Company\",\"text\":\"IBM\"}],"
+      + "\"keywords\":[{\"text\":\"Watson\",\"relevance\":0.9}]}";
+
+  private AlchemyLanguage service;
+  private CombinedFeatureBatcher batcher;
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new AlchemyLanguage("abc123");
+    service.setEndPoint(getMockWebServerUrl());
+    batcher = new CombinedFeatureBatcher.Builder(service).windowMillis(200).build();
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    batcher.shutdown();
+    server.shutdown();
+  }
+
+  private static Map<String, Object> text(String text) {
+    final Map<String, Object> params = new HashMap<String, Object>();
+    params.put(AlchemyLanguage.TEXT, text);
+    return params;
+  }
+
+  private static Map<String, String> form(RecordedRequest request) throws IOException {
+    final Map<String, String> form = new HashMap<String, String>();
+    for (String field : request.getBody().readUtf8().split("&")) {
+      final int equals = field.indexOf('=');
+      form.put(URLDecoder.decode(field.substring(0, equals), "UTF-8"),
+          URLDecoder.decode(field.substring(equals + 1), "UTF-8"));
+    }
+    return form;
+  }
+
+  /**
+   * Test that the features requested on the same document are sent in one combined call.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testMergesFeatures() throws Exception {
+    server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody(COMBINED));
+
+    final CompletableFuture<Entities> entities = batcher.getEntities(text("IBM Watson")).rx();
+    final CompletableFuture<Keywords> keywords = batcher.getKeywords(text("IBM Watson")).rx();
+    final DocumentSentiment sentiment = batcher.getSentiment(text("IBM Watson")).execute();
+
+    assertEquals(SentimentType.POSITIVE, sentiment.getSentiment().getType());
+    assertEquals("IBM", entities.get().getEntities().get(0).getText());
+    assertEquals("english", entities.get().getLanguage());
+    assertEquals("Watson", keywords.get().getKeywords().get(0).getText());
+
+    assertEquals(1, server.getRequestCount());
+    final RecordedRequest request = server.takeRequest();
+    assertTrue(request.getPath(), request.getPath().startsWith("/text/TextGetCombinedData"));
+    final Map<String, String> form = form(request);
+    assertEquals("doc-sentiment,entity,keyword", form.get(AlchemyLanguage.EXTRACT));
+    assertEquals("IBM Watson", form.get(AlchemyLanguage.TEXT));
+  }
+
+  /**
+   * Test that different documents are sent in different calls.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testSeparatesDocuments() throws Exception {
+    server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody(COMBINED));
+    server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody(COMBINED));
+
+    final CompletableFuture<Entities> first = batcher.getEntities(text("first")).rx();
+    final CompletableFuture<Entities> second = batcher.getEntities(text("second")).rx();
+    first.get();
+    second.get();
+
+    final Set<String> texts = new HashSet<String>();
+    texts.add(form(server.takeRequest()).get(AlchemyLanguage.TEXT));
+    texts.add(form(server.takeRequest()).get(AlchemyLanguage.TEXT));
+    assertEquals(2, texts.size());
+  }
+
+  /**
+   * Test that targeted sentiment is sent on its own.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testTargetedSentiment() throws Exception {
+    server.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+        .setBody("{\"status\":\"OK\",\"docSentiment\":{\"type\":\"negative\"}}"));
+
+    final Map<String, Object> params = text("IBM Watson");
+    params.put(AlchemyLanguage.TARGET, "Watson");
+    batcher.getSentiment(params).execute();
+
+    assertTrue(server.takeRequest().getPath().startsWith("/text/TextGetTargetedSentiment"));
+  }
+
+  /**
+   * Test that calls made after the batcher is shut down are still sent.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testAfterShutdown() throws Exception {
+    server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody(COMBINED));
+    server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody(COMBINED));
+    batcher.shutdown();
+
+    assertEquals("IBM", batcher.getEntities(text("IBM Watson")).execute().getEntities().get(0).getText());
+    assertEquals("Watson", batcher.getKeywords(text("IBM Watson")).execute().getKeywords().get(0).getText());
+    assertEquals(2, server.getRequestCount());
+    assertEquals("entity", form(server.takeRequest()).get(AlchemyLanguage.EXTRACT));
+  }
+
+  /**
+   * Test that the failure of a combined call reaches every caller.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testFailure() throws Exception {
+    server.enqueue(new MockResponse().setHeader("X-AlchemyAPI-Status", "ERROR")
+        .setHeader("X-AlchemyAPI-Error-Msg", "content-is-empty").setBody("{}"));
+
+    final CompletableFuture<Keywords> keywords = batcher.getKeywords(text("")).rx();
+    final BlockingQueue<Exception> failures = new LinkedBlockingQueue<Exception>();
+    batcher.getConcepts(text("")).enqueue(new ServiceCallback<Concepts>() {
+      @Override
+      public void onResponse(Concepts response) {
+      }
+
+      @Override
+      public void onFailure(Exception e) {
+        failures.add(e);
+      }
+    });
+    try {
+      batcher.getEntities(text("")).execute();
+      fail("BadRequestException expected");
+    } catch (BadRequestException e) {
+      assertEquals("content-is-empty", e.getMessage());
+    }
+    try {
+      keywords.get();
+      fail("ExecutionException expected");
+    } catch (ExecutionException e) {
+      assertNotNull(e.getCause());
+    }
+    assertTrue(failures.poll(5, TimeUnit.SECONDS) instanceof BadRequestException);
+    assertEquals(1, server.getRequestCount());
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.conversation.v1.logs;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import com.google.gson.Gson;
+import com.ibm.watson.developer_cloud.util.GsonSingleton;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * {@link LogCheckpointStore} that keeps the checkpoint as JSON in a local file. The file is replaced atomically on
+ * every save, so a crash never leaves a partially written checkpoint behind.
+ */
+public class FileLogCheckpointStore implements LogCheckpointStore {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final File file;
+  private final Gson gson = GsonSingleton.getGsonWithoutPrettyPrinting();
+
+  /**
+   * Instantiates a new file checkpoint store.
+   *
+   * @param file the checkpoint file. It is created on the first save.
+   */
+  public FileLogCheckpointStore(File file) {
+    Validator.notNull(file, "file cannot be null");
+    this.file = file;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.conversation.v1.logs.LogCheckpointStore#load()
+   */
+  @Override
+  public synchronized LogCheckpoint load() {
+    if (!file.exists()) {
+      return null;
+    }
+    Reader reader = null;
+    try {
+      reader = new InputStreamReader(new FileInputStream(file), UTF_8);
+      return gson.fromJson(reader, LogCheckpoint.class);
+    } catch (IOException e) {
+      throw new RuntimeException("Error reading the checkpoint from " + file, e);
+    } finally {
+      closeQuietly(reader);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.conversation.v1.logs.LogCheckpointStore#save(LogCheckpoint)
+   */
+  @Override
+  public synchronized void save(LogCheckpoint checkpoint) {
+    final File parent = file.getAbsoluteFile().getParentFile();
+    Writer writer = null;
+    try {
+      final File temp = File.createTempFile(file.getName(), ".tmp", parent);
+      try {
+        writer = new OutputStreamWriter(new FileOutputStream(temp), UTF_8);
+        gson.toJson(checkpoint, writer);
+        writer.close();
+        writer = null;
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        closeQuietly(writer);
+        if (temp.exists()) {
+          temp.delete();
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Error writing the checkpoint to " + file, e);
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.conversation.v1.logs;
+
+import java.util.List;
+
+import com.ibm.watson.developer_cloud.conversation.v1.model.LogExport;
+
+/**
+ * Receives the batches of new log events found by a {@link LogTailer}.
+ * <p>
+ * Batches are delivered on the thread that polls the service and the tailer does not fetch the next page until
+ * {@link #onBatch(List)} returns, so a slow consumer naturally throttles the tailer. The checkpoint is saved only after
+ * a batch has been accepted, which gives at-least-once delivery across restarts.
+ */
+public interface LogBatchConsumer {
+
+  /**
+   * Called with a batch of log events that have not been delivered before.
+   *
+   * @param logs the new log events, never empty
+   */
+  void onBatch(List<LogExport> logs);
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.conversation.v1.logs;
+
+import java.util.List;
+
+import com.google.gson.annotations.SerializedName;
+import com.ibm.watson.developer_cloud.service.model.GenericModel;
+
+/**
+ * The progress of a {@link LogTailer}.
+ * <p>
+ * The high-water mark is the greatest <code>response_timestamp</code> delivered so far, together with the ids of the
+ * log events delivered at exactly that timestamp. A new scan window starts at the high-water mark (inclusive) and those
+ * ids are skipped, so no event is delivered twice at the window boundary. While a window is being paged through, its
+ * start and the service cursor are recorded as well so an interrupted scan resumes on the same page.
+ */
+public class LogCheckpoint extends GenericModel {
+
+  @SerializedName("high_water_mark")
+  private String highWaterMark;
+  @SerializedName("high_water_log_ids")
+  private List<String> highWaterLogIds;
+  @SerializedName("window_start")
+  private String windowStart;
+  @SerializedName("window_start_log_ids")
+  private List<String> windowStartLogIds;
+  private String cursor;
+
+  /**
+   * Gets the high-water mark.
+   *
+   * The greatest response timestamp delivered so far.
+   *
+   * @return the highWaterMark
+   */
+  public String getHighWaterMark() {
+    return highWaterMark;
+  }
+
+  /**
+   * Gets the high-water log ids.
+   *
+   * The ids of the log events delivered with a response timestamp equal to the high-water mark.
+   *
+   * @return the highWaterLogIds
+   */
+  public List<String> getHighWaterLogIds() {
+    return highWaterLogIds;
+  }
+
+  /**
+   * Gets the window start.
+   *
+   * The lower bound of the scan window being paged through, or null if no scan is in progress.
+   *
+   * @return the windowStart
+   */
+  public String getWindowStart() {
+    return windowStart;
+  }
+
+  /**
+   * Gets the window start log ids.
+   *
+   * The ids to skip at the lower bound of the scan window being paged through.
+   *
+   * @return the windowStartLogIds
+   */
+  public List<String> getWindowStartLogIds() {
+    return windowStartLogIds;
+  }
+
+  /**
+   * Gets the cursor.
+   *
+   * The cursor of the next page of the scan window, or null if no scan is in progress.
+   *
+   * @return the cursor
+   */
+  public String getCursor() {
+    return cursor;
+  }
+
+  /**
+   * Sets the high-water mark.
+   *
+   * @param highWaterMark the new highWaterMark
+   */
+  public void setHighWaterMark(final String highWaterMark) {
+    this.highWaterMark = highWaterMark;
+  }
+
+  /**
+   * Sets the high-water log ids.
+   *
+   * @param highWaterLogIds the new highWaterLogIds
+   */
+  public void setHighWaterLogIds(final List<String> highWaterLogIds) {
+    this.highWaterLogIds = highWaterLogIds;
+  }
+
+  /**
+   * Sets the window start.
+   *
+   * @param windowStart the new windowStart
+   */
+  public void setWindowStart(final String windowStart) {
+    this.windowStart = windowStart;
+  }
+
+  /**
+   * Sets the window start log ids.
+   *
+   * @param windowStartLogIds the new windowStartLogIds
+   */
+  public void setWindowStartLogIds(final List<String> windowStartLogIds) {
+    this.windowStartLogIds = windowStartLogIds;
+  }
+
+  /**
+   * Sets the cursor.
+   *
+   * @param cursor the new cursor
+   */
+  public void setCursor(final String cursor) {
+    this.cursor = cursor;
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.conversation.v1.logs;
+
+/**
+ * Persists the progress of a {@link LogTailer} so that tailing can resume where it stopped.
+ */
+public interface LogCheckpointStore {
+
+  /**
+   * Loads the last saved checkpoint.
+   *
+   * @return the checkpoint, or null if nothing has been saved yet
+   */
+  LogCheckpoint load();
+
+  /**
+   * Saves the checkpoint, replacing any previous one.
+   *
+   * @param checkpoint the checkpoint
+   */
+  void save(LogCheckpoint checkpoint);
+}
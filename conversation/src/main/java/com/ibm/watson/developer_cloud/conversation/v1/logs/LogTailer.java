@@ -0,0 +1,305 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.conversation.v1.logs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ibm.watson.developer_cloud.conversation.v1.Conversation;
+import com.ibm.watson.developer_cloud.conversation.v1.model.ListAllLogsOptions;
+import com.ibm.watson.developer_cloud.conversation.v1.model.LogCollection;
+import com.ibm.watson.developer_cloud.conversation.v1.model.LogExport;
+import com.ibm.watson.developer_cloud.service.exception.TooManyRequestsException;
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * Incrementally follows the log events returned by {@link Conversation#listAllLogs(ListAllLogsOptions)}.
+ * <p>
+ * Every poll only asks the service for events at or after the <code>response_timestamp</code> high-water mark and
+ * pages through them with the service cursor, instead of re-scanning an overlapping time window. Events are
+ * de-duplicated by <code>log_id</code> at the window boundary, handed to a {@link LogBatchConsumer} one page at a time
+ * and the progress is saved to a {@link LogCheckpointStore} after every page.
+ *
+ * <pre>
+ * LogTailer tailer = new LogTailer.Builder(service, "language::en,workspace_id::" + workspaceId, consumer)
+ *     .checkpointStore(new FileLogCheckpointStore(new File("logs.checkpoint")))
+ *     .build();
+ * tailer.start(30, TimeUnit.SECONDS);
+ * </pre>
+ */
+public class LogTailer {
+
+  private static final Logger LOG = Logger.getLogger(LogTailer.class.getName());
+  private static final String RESPONSE_TIMESTAMP_FILTER = "response_timestamp>=";
+  private static final int DEFAULT_MAX_PAGES_PER_POLL = 10;
+
+  private final Conversation service;
+  private final String filter;
+  private final String sort;
+  private final Long pageLimit;
+  private final int maxPagesPerPoll;
+  private final LogCheckpointStore checkpointStore;
+  private final LogBatchConsumer consumer;
+
+  private volatile boolean caughtUp;
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final Conversation service;
+    private final String filter;
+    private final LogBatchConsumer consumer;
+    private String sort;
+    private Long pageLimit;
+    private int maxPagesPerPoll = DEFAULT_MAX_PAGES_PER_POLL;
+    private LogCheckpointStore checkpointStore;
+
+    /**
+     * Instantiates a new builder with required properties.
+     *
+     * @param service the Conversation service
+     * @param filter the base filter, as used by {@link ListAllLogsOptions#filter()}. The tailer appends the
+     *        <code>response_timestamp</code> condition to it.
+     * @param consumer the consumer of the new log events
+     */
+    public Builder(Conversation service, String filter, LogBatchConsumer consumer) {
+      this.service = service;
+      this.filter = filter;
+      this.consumer = consumer;
+    }
+
+    /**
+     * Set the sort.
+     *
+     * @param sort the sort, as used by {@link ListAllLogsOptions#sort()}
+     * @return the LogTailer builder
+     */
+    public Builder sort(String sort) {
+      this.sort = sort;
+      return this;
+    }
+
+    /**
+     * Set the pageLimit.
+     *
+     * @param pageLimit the number of log events to request per page
+     * @return the LogTailer builder
+     */
+    public Builder pageLimit(long pageLimit) {
+      this.pageLimit = pageLimit;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of pages fetched in a single {@link LogTailer#poll()}.
+     *
+     * @param maxPagesPerPoll the maximum number of pages per poll
+     * @return the LogTailer builder
+     */
+    public Builder maxPagesPerPoll(int maxPagesPerPoll) {
+      this.maxPagesPerPoll = maxPagesPerPoll;
+      return this;
+    }
+
+    /**
+     * Set the checkpoint store. Defaults to a {@link MemoryLogCheckpointStore}.
+     *
+     * @param checkpointStore the checkpoint store
+     * @return the LogTailer builder
+     */
+    public Builder checkpointStore(LogCheckpointStore checkpointStore) {
+      this.checkpointStore = checkpointStore;
+      return this;
+    }
+
+    /**
+     * Builds a LogTailer.
+     *
+     * @return the log tailer
+     */
+    public LogTailer build() {
+      return new LogTailer(this);
+    }
+  }
+
+  private LogTailer(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.notEmpty(builder.filter, "filter cannot be empty");
+    Validator.notNull(builder.consumer, "consumer cannot be null");
+    Validator.isTrue(builder.maxPagesPerPoll > 0, "maxPagesPerPoll must be greater than 0");
+    service = builder.service;
+    filter = builder.filter;
+    consumer = builder.consumer;
+    sort = builder.sort;
+    pageLimit = builder.pageLimit;
+    maxPagesPerPoll = builder.maxPagesPerPoll;
+    checkpointStore = (builder.checkpointStore != null) ? builder.checkpointStore : new MemoryLogCheckpointStore();
+  }
+
+  /**
+   * Fetches the log events recorded since the last checkpoint and hands them to the consumer. At most
+   * <code>maxPagesPerPoll</code> pages are fetched; use {@link #isCaughtUp()} to find out whether more are pending.
+   *
+   * @return the number of log events delivered to the consumer
+   */
+  public synchronized int poll() {
+    LogCheckpoint checkpoint = checkpointStore.load();
+    if (checkpoint == null) {
+      checkpoint = new LogCheckpoint();
+    }
+
+    String highWaterMark = checkpoint.getHighWaterMark();
+    final Set<String> highWaterLogIds = toSet(checkpoint.getHighWaterLogIds());
+    final String windowStart;
+    final Set<String> windowStartLogIds;
+    String cursor = checkpoint.getCursor();
+    if (cursor != null) {
+      // resume the scan that was interrupted
+      windowStart = checkpoint.getWindowStart();
+      windowStartLogIds = toSet(checkpoint.getWindowStartLogIds());
+    } else {
+      windowStart = highWaterMark;
+      windowStartLogIds = new HashSet<String>(highWaterLogIds);
+    }
+
+    int delivered = 0;
+    int pages = 0;
+    do {
+      final ListAllLogsOptions.Builder options = new ListAllLogsOptions.Builder(windowFilter(windowStart));
+      if (sort != null) {
+        options.sort(sort);
+      }
+      if (pageLimit != null) {
+        options.pageLimit(pageLimit);
+      }
+      if (cursor != null) {
+        options.cursor(cursor);
+      }
+      final LogCollection collection = service.listAllLogs(options.build()).execute();
+
+      final List<LogExport> batch = new ArrayList<LogExport>();
+      if (collection.getLogs() != null) {
+        for (LogExport log : collection.getLogs()) {
+          final String timestamp = log.getResponseTimestamp();
+          final String logId = log.getLogId();
+          if (isDuplicate(log, windowStart, windowStartLogIds) || isDuplicate(log, highWaterMark, highWaterLogIds)) {
+            continue;
+          }
+          batch.add(log);
+          if (timestamp != null) {
+            final int compare = (highWaterMark == null) ? 1 : timestamp.compareTo(highWaterMark);
+            if (compare > 0) {
+              highWaterMark = timestamp;
+              highWaterLogIds.clear();
+            }
+            if ((compare >= 0) && (logId != null)) {
+              highWaterLogIds.add(logId);
+            }
+          }
+        }
+      }
+      cursor = (collection.getPagination() != null) ? collection.getPagination().getCursor() : null;
+
+      if (!batch.isEmpty()) {
+        consumer.onBatch(Collections.unmodifiableList(batch));
+        delivered += batch.size();
+      }
+
+      final LogCheckpoint next = new LogCheckpoint();
+      next.setHighWaterMark(highWaterMark);
+      next.setHighWaterLogIds(new ArrayList<String>(highWaterLogIds));
+      if (cursor != null) {
+        next.setWindowStart(windowStart);
+        next.setWindowStartLogIds(new ArrayList<String>(windowStartLogIds));
+        next.setCursor(cursor);
+      }
+      checkpointStore.save(next);
+      pages++;
+    } while ((cursor != null) && (pages < maxPagesPerPoll));
+
+    caughtUp = cursor == null;
+    return delivered;
+  }
+
+  /**
+   * Checks if the last {@link #poll()} reached the end of the available log events.
+   *
+   * @return true, if there were no more pages to fetch
+   */
+  public boolean isCaughtUp() {
+    return caughtUp;
+  }
+
+  /**
+   * Starts polling on a background thread. A new poll starts <code>delay</code> after the previous one finished, or
+   * immediately if the previous one stopped at <code>maxPagesPerPoll</code> with more pages pending. Failed polls are
+   * logged and retried on the next cycle from the last checkpoint.
+   *
+   * @param delay the delay between polls
+   * @param unit the time unit of the delay
+   */
+  public synchronized void start(long delay, TimeUnit unit) {
+    Validator.isNull(scheduler, "the tailer is already started");
+    scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("conversation-log-tailer"));
+    final ScheduledExecutorService executor = scheduler;
+    scheduler.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          do {
+            poll();
+          } while (!isCaughtUp() && !executor.isShutdown());
+        } catch (TooManyRequestsException e) {
+          LOG.log(Level.WARNING, "Rate limited while tailing the logs, retrying on the next poll", e);
+        } catch (RuntimeException e) {
+          LOG.log(Level.SEVERE, "Error tailing the logs, retrying on the next poll", e);
+        }
+      }
+    }, 0, delay, unit);
+  }
+
+  /**
+   * Stops the background polling started with {@link #start(long, TimeUnit)}. A poll in progress is allowed to finish.
+   */
+  public synchronized void stop() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+      scheduler = null;
+    }
+  }
+
+  private String windowFilter(String windowStart) {
+    return (windowStart == null) ? filter : filter + "," + RESPONSE_TIMESTAMP_FILTER + windowStart;
+  }
+
+  private static boolean isDuplicate(LogExport log, String timestamp, Set<String> logIds) {
+    return (timestamp != null) && (log.getLogId() != null) && timestamp.equals(log.getResponseTimestamp())
+        && logIds.contains(log.getLogId());
+  }
+
+  private static Set<String> toSet(List<String> values) {
+    return (values == null) ? new LinkedHashSet<String>() : new LinkedHashSet<String>(values);
+  }
+}
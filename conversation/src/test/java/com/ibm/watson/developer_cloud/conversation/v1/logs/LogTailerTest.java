@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.conversation.v1.logs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.conversation.v1.Conversation;
+import com.ibm.watson.developer_cloud.conversation.v1.model.LogExport;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for the {@link LogTailer}.
+ */
+public class LogTailerTest extends WatsonServiceUnitTest {
+  private static final String FILTER = "language::en,workspace_id::123";
+
+  private Conversation service;
+  private MemoryLogCheckpointStore store;
+  private List<String> delivered;
+  private LogTailer tailer;
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new Conversation(Conversation.VERSION_DATE_2017_05_26);
+    service.setApiKey("");
+    service.setEndPoint(getMockWebServerUrl());
+
+    store = new MemoryLogCheckpointStore();
+    delivered = new ArrayList<String>();
+    tailer = new LogTailer.Builder(service, FILTER, new LogBatchConsumer() {
+      @Override
+      public void onBatch(List<LogExport> logs) {
+        for (LogExport log : logs) {
+          delivered.add(log.getLogId());
+        }
+      }
+    }).checkpointStore(store).build();
+  }
+
+  private static JsonObject page(String cursor, String... idAndTimestamps) {
+    final JsonArray logs = new JsonArray();
+    for (int i = 0; i < idAndTimestamps.length; i += 2) {
+      final JsonObject log = new JsonObject();
+      log.addProperty("log_id", idAndTimestamps[i]);
+      log.addProperty("response_timestamp", idAndTimestamps[i + 1]);
+      logs.add(log);
+    }
+    final JsonObject pagination = new JsonObject();
+    if (cursor != null) {
+      pagination.addProperty("next_url", "/v1/logs?version=2017-05-26&cursor=" + cursor);
+    }
+    final JsonObject collection = new JsonObject();
+    collection.add("logs", logs);
+    collection.add("pagination", pagination);
+    return collection;
+  }
+
+  private static String filterOf(RecordedRequest request) {
+    return HttpUrl.parse("http://localhost" + request.getPath()).queryParameter("filter");
+  }
+
+  /**
+   * Test that a poll follows the cursor and that the next poll starts at the high-water mark.
+   *
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testPollFollowsCursorAndHighWaterMark() throws InterruptedException {
+    server.enqueue(jsonResponse(page("c1", "a", "2017-09-13T10:00:00.000Z", "b", "2017-09-13T10:00:01.000Z")));
+    server.enqueue(jsonResponse(page(null, "c", "2017-09-13T10:00:02.000Z", "d", "2017-09-13T10:00:02.000Z")));
+
+    assertEquals(4, tailer.poll());
+    assertTrue(tailer.isCaughtUp());
+
+    RecordedRequest request = server.takeRequest();
+    assertEquals(FILTER, filterOf(request));
+    request = server.takeRequest();
+    assertTrue(request.getPath().contains("cursor=c1"));
+
+    final LogCheckpoint checkpoint = store.load();
+    assertEquals("2017-09-13T10:00:02.000Z", checkpoint.getHighWaterMark());
+    assertEquals(2, checkpoint.getHighWaterLogIds().size());
+    assertNull(checkpoint.getCursor());
+
+    // the boundary events are returned again and must not be delivered twice
+    server.enqueue(jsonResponse(page(null, "c", "2017-09-13T10:00:02.000Z", "d", "2017-09-13T10:00:02.000Z", "e",
+        "2017-09-13T10:00:03.000Z")));
+    assertEquals(1, tailer.poll());
+    request = server.takeRequest();
+    assertEquals(FILTER + ",response_timestamp>=2017-09-13T10:00:02.000Z", filterOf(request));
+
+    assertEquals(5, delivered.size());
+    assertEquals("e", delivered.get(4));
+  }
+
+  /**
+   * Test that an interrupted scan resumes from the saved cursor.
+   *
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testPollResumesFromCursor() throws InterruptedException {
+    tailer = new LogTailer.Builder(service, FILTER, new LogBatchConsumer() {
+      @Override
+      public void onBatch(List<LogExport> logs) {
+        delivered.add(logs.get(0).getLogId());
+      }
+    }).checkpointStore(store).maxPagesPerPoll(1).build();
+
+    server.enqueue(jsonResponse(page("c1", "a", "2017-09-13T10:00:00.000Z")));
+    assertEquals(1, tailer.poll());
+    assertFalse(tailer.isCaughtUp());
+    assertEquals("c1", store.load().getCursor());
+
+    server.enqueue(jsonResponse(page(null, "b", "2017-09-13T10:00:01.000Z")));
+    assertEquals(1, tailer.poll());
+    assertTrue(tailer.isCaughtUp());
+
+    server.takeRequest();
+    final RecordedRequest request = server.takeRequest();
+    assertTrue(request.getPath().contains("cursor=c1"));
+    assertEquals(FILTER, filterOf(request));
+    assertEquals("2017-09-13T10:00:01.000Z", store.load().getHighWaterMark());
+  }
+}
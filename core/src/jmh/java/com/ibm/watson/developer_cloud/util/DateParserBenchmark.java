@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.util;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Compares date parsing under contention: the previous synchronized deserializer, which tried each
+ * {@link SimpleDateFormat} in turn, against {@link DateParser} and the {@link DateDeserializer} built on it. Every
+ * benchmark shares one instance between all the threads, as {@link GsonSingleton} does.
+ *
+ * <pre>
+ * ./gradlew :core:jmh
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class DateParserBenchmark {
+
+  /** Dates in the formats returned by the services, the last ones being the most expensive to reach. */
+  private static final String[] DATES = { "2017-04-23T19:09:46.712Z", "2015-05-28T18:01:57Z",
+      "2016-09-30T16:51:47.558", "2013-12-16 20:06:18", "20160620T042516", "1478097789" };
+
+  private final JsonElement[] elements = new JsonElement[DATES.length];
+  private final DateDeserializer deserializer = new DateDeserializer();
+  private final SynchronizedFormats synchronizedFormats = new SynchronizedFormats();
+
+  /**
+   * Instantiates a new date parser benchmark.
+   */
+  public DateParserBenchmark() {
+    for (int i = 0; i < DATES.length; i++) {
+      elements[i] = new JsonPrimitive(DATES[i]);
+    }
+  }
+
+  /**
+   * The previous approach: a shared, synchronized list of {@link SimpleDateFormat}s tried in order.
+   *
+   * @return the parsed dates, so they are not optimized away
+   */
+  @Benchmark
+  public Date[] synchronizedSimpleDateFormat() {
+    final Date[] dates = new Date[DATES.length];
+    for (int i = 0; i < DATES.length; i++) {
+      dates[i] = synchronizedFormats.parse(DATES[i]);
+    }
+    return dates;
+  }
+
+  /**
+   * {@link DateParser#parse(String)}.
+   *
+   * @return the parsed dates, so they are not optimized away
+   */
+  @Benchmark
+  public Date[] dateParser() {
+    final Date[] dates = new Date[DATES.length];
+    for (int i = 0; i < DATES.length; i++) {
+      dates[i] = DateParser.parse(DATES[i]);
+    }
+    return dates;
+  }
+
+  /**
+   * {@link DateDeserializer}, as used by {@link GsonSingleton}.
+   *
+   * @return the parsed dates, so they are not optimized away
+   */
+  @Benchmark
+  public Date[] dateDeserializer() {
+    final Date[] dates = new Date[DATES.length];
+    for (int i = 0; i < DATES.length; i++) {
+      dates[i] = deserializer.deserialize(elements[i], Date.class, null);
+    }
+    return dates;
+  }
+
+  /**
+   * A copy of the parsing loop the deserializer used before {@link DateParser}.
+   */
+  private static class SynchronizedFormats {
+    private final List<SimpleDateFormat> rfc822Formatters = Arrays.asList(
+        new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ"), new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ"));
+    private final List<SimpleDateFormat> dateFormatters = Arrays.asList(
+        new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS"), new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ"),
+        new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"), new SimpleDateFormat("yyyyMMdd'T'HHmmss"),
+        new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss"));
+
+    synchronized Date parse(String date) {
+      if (date.endsWith("Z")) {
+        final String dateWithTz = date.replaceAll("Z$", "+0000");
+        for (SimpleDateFormat format : rfc822Formatters) {
+          try {
+            return format.parse(dateWithTz);
+          } catch (ParseException e) {
+            // try the next format
+          }
+        }
+      }
+      for (SimpleDateFormat format : dateFormatters) {
+        try {
+          return format.parse(date);
+        } catch (ParseException e) {
+          // try the next format
+        }
+      }
+      if (date.matches("^\\d+$")) {
+        final long time = Long.parseLong(date);
+        return new Date(time < 100000000000L ? time * 1000 : time);
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.http;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.internal.Util;
+import okio.BufferedSink;
+
+/**
+ * RequestBody that reads a file through memory-mapped {@link FileChannel} regions.
+ * <p>
+ * Unlike {@link InputStreamRequestBody}, the content length is known up front, so the request is not sent with chunked
+ * encoding, and the body can be written more than once, so OkHttp can retry the request. The file is mapped in
+ * regions of up to {@value #REGION_SIZE} bytes, which avoids a read system call per buffer and supports files larger
+ * than 2GB.
+ */
+public class FileChannelRequestBody extends RequestBody {
+
+  /** The maximum size of a mapped region. */
+  static final int REGION_SIZE = 64 * 1024 * 1024;
+
+  private static final int CHUNK_SIZE = 8192;
+
+  private final MediaType mediaType;
+  private final File file;
+  private final long contentLength;
+  private final List<ByteBuffer> regions;
+
+  /**
+   * Creates the {@link RequestBody} from a {@link File}. The file is opened and mapped every time the body is written.
+   *
+   * @param mediaType the media type
+   * @param file the file
+   * @return the request body
+   */
+  public static RequestBody create(final MediaType mediaType, final File file) {
+    Validator.notNull(file, "file cannot be null");
+    return new FileChannelRequestBody(mediaType, file, file.length(), null);
+  }
+
+  /**
+   * Creates the {@link RequestBody} from the remaining content of a {@link FileInputStream}. The content is mapped
+   * immediately and the stream is closed, so the body does not hold a file descriptor and can be replayed.
+   *
+   * @param mediaType the media type
+   * @param inputStream the input stream
+   * @return the request body
+   * @throws IOException if the stream is not backed by a regular file that can be mapped, or has no content left to
+   *         map. Pipes, devices and files such as those of <code>/proc</code> report a size of 0 whatever they hold, so
+   *         they are refused rather than sent empty. The stream is left open and unread in that case.
+   */
+  public static RequestBody create(final MediaType mediaType, final FileInputStream inputStream) throws IOException {
+    final FileChannel channel = inputStream.getChannel();
+    final long position = channel.position();
+    final long contentLength = channel.size() - position;
+    if (contentLength <= 0) {
+      throw new IOException("The stream has no content to map at position " + position);
+    }
+    final List<ByteBuffer> regions = map(channel, position, contentLength);
+    Util.closeQuietly(inputStream);
+    return new FileChannelRequestBody(mediaType, null, contentLength, regions);
+  }
+
+  private FileChannelRequestBody(MediaType mediaType, File file, long contentLength, List<ByteBuffer> regions) {
+    this.mediaType = mediaType;
+    this.file = file;
+    this.contentLength = contentLength;
+    this.regions = regions;
+  }
+
+  private static List<ByteBuffer> map(FileChannel channel, long position, long length) throws IOException {
+    final List<ByteBuffer> regions = new ArrayList<ByteBuffer>();
+    for (long offset = 0; offset < length; offset += REGION_SIZE) {
+      final MappedByteBuffer region =
+          channel.map(FileChannel.MapMode.READ_ONLY, position + offset, Math.min(REGION_SIZE, length - offset));
+      regions.add(region);
+    }
+    return regions;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see okhttp3.RequestBody#contentType()
+   */
+  @Override
+  public MediaType contentType() {
+    return mediaType;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see okhttp3.RequestBody#contentLength()
+   */
+  @Override
+  public long contentLength() {
+    return contentLength;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see okhttp3.RequestBody#writeTo(okio.BufferedSink)
+   */
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    if (regions != null) {
+      write(regions, sink);
+      return;
+    }
+
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      write(map(randomAccessFile.getChannel(), 0, contentLength), sink);
+    } finally {
+      Util.closeQuietly(randomAccessFile);
+    }
+  }
+
+  private static void write(List<ByteBuffer> regions, BufferedSink sink) throws IOException {
+    final byte[] chunk = new byte[CHUNK_SIZE];
+    for (ByteBuffer region : regions) {
+      // duplicate so that concurrent or repeated writes do not share a position
+      final ByteBuffer buffer = region.duplicate();
+      while (buffer.hasRemaining()) {
+        final int count = Math.min(chunk.length, buffer.remaining());
+        buffer.get(chunk, 0, count);
+        sink.write(chunk, 0, count);
+      }
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.util;
+
+import java.io.IOException;
+
+import com.ibm.watson.developer_cloud.service.exception.InternalServerErrorException;
+import com.ibm.watson.developer_cloud.service.exception.ServiceResponseException;
+import com.ibm.watson.developer_cloud.service.exception.ServiceUnavailableException;
+import com.ibm.watson.developer_cloud.service.exception.TooManyRequestsException;
+
+/**
+ * Limits the number of concurrent requests sent to a service and adapts that limit to what the service accepts.
+ * <p>
+ * The limit grows by one after a full limit's worth of successful requests and is halved every time the service
+ * answers with a {@link TooManyRequestsException} (additive increase, multiplicative decrease). Callers
+ * {@link #acquire()} a permit before sending a request and release it with exactly one of {@link #onSuccess()},
+ * {@link #onThrottled()} or {@link #onFailure()}.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private static final String RETRY_AFTER = "Retry-After";
+  private static final long INITIAL_BACKOFF_MILLIS = 500;
+  private static final long MAX_BACKOFF_MILLIS = 30000;
+
+  private final int maxLimit;
+  private int limit;
+  private int inFlight;
+  private int successes;
+
+  /**
+   * Instantiates a new adaptive concurrency limiter.
+   *
+   * @param initialLimit the initial number of concurrent requests
+   * @param maxLimit the maximum number of concurrent requests
+   */
+  public AdaptiveConcurrencyLimiter(int initialLimit, int maxLimit) {
+    Validator.isTrue(initialLimit > 0, "initialLimit must be greater than 0");
+    Validator.isTrue(maxLimit >= initialLimit, "maxLimit must be greater than or equal to initialLimit");
+    this.limit = initialLimit;
+    this.maxLimit = maxLimit;
+  }
+
+  /**
+   * Waits until a request can be sent without exceeding the current limit.
+   *
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public synchronized void acquire() throws InterruptedException {
+    while (inFlight >= limit) {
+      wait();
+    }
+    inFlight++;
+  }
+
+  /**
+   * Releases a permit after a successful request, possibly raising the limit.
+   */
+  public synchronized void onSuccess() {
+    release();
+    if ((++successes >= limit) && (limit < maxLimit)) {
+      limit++;
+      successes = 0;
+    }
+  }
+
+  /**
+   * Releases a permit after the service rejected a request with HTTP 429, halving the limit.
+   */
+  public synchronized void onThrottled() {
+    release();
+    limit = Math.max(1, limit / 2);
+    successes = 0;
+  }
+
+  /**
+   * Releases a permit after a request failed for any other reason, leaving the limit unchanged.
+   */
+  public synchronized void onFailure() {
+    release();
+  }
+
+  /**
+   * Gets the current limit.
+   *
+   * @return the number of requests allowed to run concurrently
+   */
+  public synchronized int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Gets the number of requests in flight.
+   *
+   * @return the number of acquired permits
+   */
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  private void release() {
+    inFlight--;
+    notifyAll();
+  }
+
+  /**
+   * Returns whether a request that failed with the given exception may succeed if it is sent again: the service
+   * throttled it or had a transient error, or the connection failed. Connection failures are thrown by
+   * {@link com.ibm.watson.developer_cloud.http.ServiceCall#execute()} as a {@link RuntimeException} caused by an
+   * {@link IOException}, and by the futures of the asynchronous calls as the {@link IOException} itself.
+   *
+   * @param e the exception thrown by the request
+   * @return true if the request can be retried
+   */
+  public static boolean isRetryable(Throwable e) {
+    return (e instanceof TooManyRequestsException) || (e instanceof ServiceUnavailableException)
+        || (e instanceof InternalServerErrorException) || (e instanceof IOException)
+        || ((e instanceof RuntimeException) && (e.getCause() instanceof IOException));
+  }
+
+  /**
+   * Returns how long to wait before retrying a request that failed with the given exception. The
+   * <code>Retry-After</code> header of the response is honoured when present, otherwise the delay doubles with every
+   * attempt up to 30 seconds.
+   *
+   * @param e the exception thrown by the request
+   * @param attempt the number of the failed attempt, starting at 0
+   * @return the delay in milliseconds
+   */
+  public static long backoffMillis(Throwable e, int attempt) {
+    if ((e instanceof ServiceResponseException) && (((ServiceResponseException) e).getResponse() != null)) {
+      final String retryAfter = ((ServiceResponseException) e).getResponse().header(RETRY_AFTER);
+      if (retryAfter != null) {
+        try {
+          return Math.min(MAX_BACKOFF_MILLIS, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException nfe) {
+          // an HTTP date, fall back to the exponential backoff
+        }
+      }
+    }
+    return Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(attempt, 16));
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.util;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ThreadFactory} that creates numbered daemon threads, so that the worker pools of the helpers in this SDK
+ * never keep the JVM alive.
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+
+  private final String name;
+  private final AtomicInteger count = new AtomicInteger();
+
+  /**
+   * Creates the worker pool of a helper that sends its requests with
+   * {@link com.ibm.watson.developer_cloud.http.ServiceCall#execute()}: a fixed number of daemon threads fed by an
+   * unbounded queue. Blocking calls are not subject to the per-host limit of the asynchronous OkHttp dispatcher, so
+   * the number of threads is the number of requests in flight. Idle threads end after a minute, so a helper that is
+   * not shut down does not hold on to them.
+   *
+   * @param name the prefix of the thread names
+   * @param threads the number of threads
+   * @return the thread pool
+   */
+  public static ThreadPoolExecutor newThreadPool(String name, int threads) {
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory(name));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Instantiates a new daemon thread factory.
+   *
+   * @param name the prefix of the thread names
+   */
+  public DaemonThreadFactory(String name) {
+    Validator.notNull(name, "name cannot be null");
+    this.name = name;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+   */
+  @Override
+  public Thread newThread(Runnable runnable) {
+    final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+}
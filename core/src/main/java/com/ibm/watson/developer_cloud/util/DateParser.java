@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.util;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Thread safe parser and formatter for the date formats used across the Watson APIs.
+ * <p>
+ * Unlike {@link java.text.SimpleDateFormat}, the parser holds no state, so it can be shared by any number of threads
+ * without locking. It detects the format from the shape of the string instead of trying formats one after another, and
+ * reports strings it does not recognize by returning null rather than by throwing. The recognized formats are:
+ * <ul>
+ * <li>ISO 8601, <code>yyyy-MM-dd'T'HH:mm:ss</code>, with optional fraction of a second and an optional <code>Z</code>,
+ * <code>+hh</code>, <code>+hhmm</code> or <code>+hh:mm</code> offset</li>
+ * <li><code>yyyy-MM-dd HH:mm:ss</code>, used by Dialog and AlchemyLanguage</li>
+ * <li><code>yyyyMMdd'T'HHmmss</code>, used by AlchemyAPI</li>
+ * <li>seconds or milliseconds since the epoch; numbers under 100000000000 are seconds</li>
+ * </ul>
+ * Dates without an offset are in the default time zone of the JVM, as with {@link java.text.SimpleDateFormat}, and text
+ * after a recognized date is ignored.
+ */
+public final class DateParser {
+
+  /**
+   * The formats {@link DateParser#format(Date, Style)} can produce.
+   */
+  public enum Style {
+    /** <code>yyyy-MM-dd'T'HH:mm:ss.SSS</code> in the default time zone. */
+    ISO_MILLIS,
+    /** <code>yyyy-MM-dd'T'HH:mm:ss'Z'</code> in UTC. */
+    ISO_UTC,
+    /** <code>yyyy-MM-dd HH:mm:ss</code> in the default time zone. */
+    DATE_TIME
+  }
+
+  private static final long SECONDS_THRESHOLD = 100000000000L;
+  private static final long MILLIS_PER_SECOND = 1000L;
+  private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+  private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+  private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+  private static final int MAX_EPOCH_DIGITS = 18;
+  private static final int NO_OFFSET = Integer.MIN_VALUE;
+
+  private DateParser() {
+    // This is a utility class - no instantiation allowed.
+  }
+
+  /**
+   * Parses a date in any of the recognized formats.
+   *
+   * @param date the date as a string
+   * @return the date, or null if the string is null or not in a recognized format
+   */
+  public static Date parse(String date) {
+    if (date == null) {
+      return null;
+    }
+    final int length = date.length();
+    if ((length == 0) || !isDigit(date, 0)) {
+      return null;
+    }
+    if (isDigits(date, 0, length)) {
+      return (length <= MAX_EPOCH_DIGITS) ? fromEpoch(Long.parseLong(date)) : null;
+    }
+    if ((length >= 19) && (date.charAt(4) == '-') && (date.charAt(7) == '-') && (date.charAt(13) == ':')
+        && (date.charAt(16) == ':')) {
+      final char separator = date.charAt(10);
+      if (separator == 'T') {
+        return parseIso(date);
+      }
+      if (separator == ' ') {
+        return toDate(digits(date, 0, 4), digits(date, 5, 2), digits(date, 8, 2), digits(date, 11, 2),
+            digits(date, 14, 2), digits(date, 17, 2), 0, NO_OFFSET);
+      }
+      return null;
+    }
+    if ((length >= 15) && (date.charAt(8) == 'T') && isDigits(date, 0, 8) && isDigits(date, 9, 15)) {
+      return toDate(digits(date, 0, 4), digits(date, 4, 2), digits(date, 6, 2), digits(date, 9, 2),
+          digits(date, 11, 2), digits(date, 13, 2), 0, NO_OFFSET);
+    }
+    return null;
+  }
+
+  /**
+   * Formats a date.
+   *
+   * @param date the date
+   * @param style the format
+   * @return the formatted date
+   */
+  public static String format(Date date, Style style) {
+    Validator.notNull(date, "date cannot be null");
+    Validator.notNull(style, "style cannot be null");
+    long millis = date.getTime();
+    if (style != Style.ISO_UTC) {
+      millis += TimeZone.getDefault().getOffset(millis);
+    }
+    final long days = floorDiv(millis, MILLIS_PER_DAY);
+    final long time = millis - (days * MILLIS_PER_DAY);
+
+    // days to civil date, from http://howardhinnant.github.io/date_algorithms.html
+    final long z = days + 719468;
+    final long era = floorDiv(z, 146097);
+    final long dayOfEra = z - (era * 146097);
+    final long yearOfEra = (dayOfEra - (dayOfEra / 1460) + (dayOfEra / 36524) - (dayOfEra / 146096)) / 365;
+    final long dayOfYear = dayOfEra - ((365 * yearOfEra) + (yearOfEra / 4) - (yearOfEra / 100));
+    final long mp = ((5 * dayOfYear) + 2) / 153;
+    final int day = (int) (dayOfYear - (((153 * mp) + 2) / 5) + 1);
+    final int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+    final int year = (int) (yearOfEra + (era * 400) + (month <= 2 ? 1 : 0));
+
+    final char[] chars = new char[style == Style.ISO_MILLIS ? 23 : style == Style.ISO_UTC ? 20 : 19];
+    write(chars, 0, year, 4);
+    chars[4] = '-';
+    write(chars, 5, month, 2);
+    chars[7] = '-';
+    write(chars, 8, day, 2);
+    chars[10] = style == Style.DATE_TIME ? ' ' : 'T';
+    write(chars, 11, (int) (time / MILLIS_PER_HOUR), 2);
+    chars[13] = ':';
+    write(chars, 14, (int) ((time / MILLIS_PER_MINUTE) % 60), 2);
+    chars[16] = ':';
+    write(chars, 17, (int) ((time / MILLIS_PER_SECOND) % 60), 2);
+    if (style == Style.ISO_MILLIS) {
+      chars[19] = '.';
+      write(chars, 20, (int) (time % MILLIS_PER_SECOND), 3);
+    } else if (style == Style.ISO_UTC) {
+      chars[19] = 'Z';
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Parses <code>yyyy-MM-dd'T'HH:mm:ss[.fraction][offset]</code>, the shape of which was checked by the caller.
+   */
+  private static Date parseIso(String date) {
+    final int length = date.length();
+    int position = 19;
+    int millis = 0;
+    if ((position < length) && (date.charAt(position) == '.')) {
+      position++;
+      int scale = 100;
+      while ((position < length) && isDigit(date, position)) {
+        millis += scale * (date.charAt(position) - '0');
+        scale /= 10;
+        position++;
+      }
+    }
+
+    int offset = NO_OFFSET;
+    if (position < length) {
+      final char sign = date.charAt(position);
+      if (sign == 'Z') {
+        offset = 0;
+      } else if (((sign == '+') || (sign == '-')) && ((position + 3) <= length) && isDigits(date, position + 1,
+          position + 3)) {
+        int minutes = 60 * digits(date, position + 1, 2);
+        int next = position + 3;
+        if ((next < length) && (date.charAt(next) == ':')) {
+          next++;
+        }
+        if (((next + 2) <= length) && isDigits(date, next, next + 2)) {
+          minutes += digits(date, next, 2);
+        }
+        offset = (sign == '-' ? -minutes : minutes);
+      }
+    }
+    return toDate(digits(date, 0, 4), digits(date, 5, 2), digits(date, 8, 2), digits(date, 11, 2),
+        digits(date, 14, 2), digits(date, 17, 2), millis, offset);
+  }
+
+  /**
+   * Converts date fields to a {@link Date}.
+   *
+   * @param offset the offset from UTC in minutes, or {@link #NO_OFFSET} for the default time zone
+   * @return the date, or null if a field is out of range or not a number
+   */
+  private static Date toDate(int year, int month, int day, int hour, int minute, int second, int millis, int offset) {
+    if ((year < 0) || (month < 1) || (month > 12) || (day < 1) || (day > 31) || (hour < 0) || (hour > 23)
+        || (minute < 0) || (minute > 59) || (second < 0) || (second > 60)) {
+      return null;
+    }
+
+    // civil date to days, from http://howardhinnant.github.io/date_algorithms.html
+    final long y = month <= 2 ? year - 1 : year;
+    final long era = floorDiv(y, 400);
+    final long yearOfEra = y - (era * 400);
+    final long dayOfYear = (((153 * (month > 2 ? month - 3 : month + 9)) + 2) / 5) + day - 1;
+    final long dayOfEra = (yearOfEra * 365) + (yearOfEra / 4) - (yearOfEra / 100) + dayOfYear;
+    final long days = (era * 146097) + dayOfEra - 719468;
+
+    final long local = (days * MILLIS_PER_DAY) + (hour * MILLIS_PER_HOUR) + (minute * MILLIS_PER_MINUTE)
+        + (second * MILLIS_PER_SECOND) + millis;
+    if (offset != NO_OFFSET) {
+      return new Date(local - (offset * MILLIS_PER_MINUTE));
+    }
+    final TimeZone zone = TimeZone.getDefault();
+    return new Date(local - zone.getOffset(local - zone.getRawOffset()));
+  }
+
+  private static Date fromEpoch(long time) {
+    return new Date(time < SECONDS_THRESHOLD ? time * MILLIS_PER_SECOND : time);
+  }
+
+  private static boolean isDigit(String string, int index) {
+    final char c = string.charAt(index);
+    return (c >= '0') && (c <= '9');
+  }
+
+  private static boolean isDigits(String string, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (!isDigit(string, i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads a number of a fixed width.
+   *
+   * @return the number, or -1 if a character is not a digit
+   */
+  private static int digits(String string, int from, int width) {
+    int value = 0;
+    for (int i = from; i < (from + width); i++) {
+      if (!isDigit(string, i)) {
+        return -1;
+      }
+      value = (value * 10) + (string.charAt(i) - '0');
+    }
+    return value;
+  }
+
+  private static void write(char[] chars, int from, int value, int width) {
+    for (int i = (from + width) - 1; i >= from; i--) {
+      chars[i] = (char) ('0' + (value % 10));
+      value /= 10;
+    }
+  }
+
+  private static long floorDiv(long x, long y) {
+    final long q = x / y;
+    return ((x % y) != 0) && ((x ^ y) < 0) ? q - 1 : q;
+  }
+}
@@ -13,7 +13,6 @@
 package com.ibm.watson.developer_cloud.util;
 
 import java.lang.reflect.Type;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import com.google.gson.JsonElement;
@@ -23,13 +22,10 @@ import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 
 /**
- * Date serializer.
+ * Date serializer, writing dates as {@value DateDeserializer#DATE_UTC} in the default time zone.
  */
 public class DateSerializer implements JsonSerializer<Date> {
 
-  // SimpleDateFormat is NOT thread safe - they require private visibility and synchronized access
-  private final SimpleDateFormat utc = new SimpleDateFormat(DateDeserializer.DATE_UTC);
-
   /*
    * (non-Javadoc)
    *
@@ -37,8 +33,7 @@ public class DateSerializer implements JsonSerializer<Date> {
    * com.google.gson.JsonSerializationContext)
    */
   @Override
-  // DateSerializer.serialize() is NOT thread safe because of the underlying SimpleDateFormats.
-  public synchronized JsonElement serialize(Date src, Type typeOfSrc, JsonSerializationContext context) {
-    return src == null ? JsonNull.INSTANCE : new JsonPrimitive(utc.format(src));
+  public JsonElement serialize(Date src, Type typeOfSrc, JsonSerializationContext context) {
+    return src == null ? JsonNull.INSTANCE : new JsonPrimitive(DateParser.format(src, DateParser.Style.ISO_MILLIS));
   }
 }
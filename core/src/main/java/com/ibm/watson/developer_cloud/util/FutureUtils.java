@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.util;
+
+import java.util.concurrent.ExecutionException;
+
+import jersey.repackaged.jsr166e.CompletionException;
+
+/**
+ * Utility class to report the failures of the futures returned by
+ * {@link com.ibm.watson.developer_cloud.http.ServiceCall#rx()}.
+ * <p>
+ * A future that depends on another one, for example through <code>thenApply</code> or <code>thenCompose</code>, fails
+ * with a {@link CompletionException} wrapping the exception of the service, and
+ * {@link java.util.concurrent.Future#get()} wraps it again in an {@link ExecutionException}.
+ */
+public final class FutureUtils {
+
+  private FutureUtils() {
+    // This is a utility class - no instantiation allowed.
+  }
+
+  /**
+   * Gets the exception a future failed with, without the wrappers added by the futures.
+   *
+   * @param error the error
+   * @return the cause
+   */
+  public static Throwable unwrap(Throwable error) {
+    Throwable cause = error;
+    while (((cause instanceof CompletionException) || (cause instanceof ExecutionException))
+        && (cause.getCause() != null)) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+
+  /**
+   * Gets the exception a future failed with, as an exception to report to a
+   * {@link com.ibm.watson.developer_cloud.http.ServiceCallback}.
+   *
+   * @param error the error
+   * @return the exception
+   */
+  public static Exception asException(Throwable error) {
+    final Throwable cause = unwrap(error);
+    return cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+  }
+
+  /**
+   * Gets the exception a future failed with, as an exception to throw from
+   * {@link com.ibm.watson.developer_cloud.http.ServiceCall#execute()}.
+   *
+   * @param error the error
+   * @return the runtime exception
+   */
+  public static RuntimeException asRuntimeException(Throwable error) {
+    final Throwable cause = unwrap(error);
+    return cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+  }
+}
@@ -13,6 +13,8 @@
 package com.ibm.watson.developer_cloud.util;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
@@ -25,6 +27,7 @@ import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.ibm.watson.developer_cloud.http.FileChannelRequestBody;
 import com.ibm.watson.developer_cloud.http.HttpMediaType;
 import com.ibm.watson.developer_cloud.http.InputStreamRequestBody;
 import com.ibm.watson.developer_cloud.service.WatsonService;
@@ -212,7 +215,8 @@ public final class RequestUtils {
   }
 
   /**
-   * Returns a request body that encapsulates the specified file qualified with the specified content type.
+   * Returns a request body that encapsulates the specified file qualified with the specified content type. The body has
+   * a known length and can be replayed.
    *
    * @param file the file content to POST/PUT
    * @param contentType the HTTP contentType to use.
@@ -221,11 +225,15 @@ public final class RequestUtils {
    */
   public static RequestBody fileBody(File file, String contentType) {
     MediaType mediaType = (contentType != null) ? MediaType.parse(contentType) : HttpMediaType.BINARY_FILE;
-    return RequestBody.create(mediaType, file);
+    return FileChannelRequestBody.create(mediaType, file);
   }
 
   /**
    * Returns a request body the encapsulates the specified input stream qualified with the specified content type.
+   * <p>
+   * When the stream is a {@link FileInputStream}, for example the one created by the <code>file(File)</code> methods of
+   * the options builders, the body is backed by the file itself: it has a known length and can be replayed. Any other
+   * stream is copied to the request as it is read.
    *
    * @param stream the input stream content to POST/PUT
    * @param contentType the HTTP contentType to use.
@@ -234,6 +242,14 @@ public final class RequestUtils {
    */
   public static RequestBody inputStreamBody(InputStream stream, String contentType) {
     MediaType mediaType = (contentType != null) ? MediaType.parse(contentType) : HttpMediaType.BINARY_FILE;
+    if (stream instanceof FileInputStream) {
+      try {
+        return FileChannelRequestBody.create(mediaType, (FileInputStream) stream);
+      } catch (IOException e) {
+        // not a regular file (a pipe or a device), stream it instead
+        LOG.log(Level.FINE, "Could not map the input stream, streaming it instead", e);
+      }
+    }
     return InputStreamRequestBody.create(mediaType, stream);
   }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.watson.developer_cloud.util.RequestUtils;
+
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+/**
+ * The Class FileChannelRequestBodyTest.
+ */
+public class FileChannelRequestBodyTest {
+
+  private File file;
+  private byte[] content;
+
+  /**
+   * Sets the up.
+   *
+   * @throws Exception the exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    content = new byte[20000];
+    new Random(42).nextBytes(content);
+    file = File.createTempFile("file-channel", ".bin");
+    final FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Tear down.
+   */
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  /**
+   * Test that a file body has a known length and can be written more than once.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testFileBodyIsReplayable() throws IOException {
+    final RequestBody body = FileChannelRequestBody.create(HttpMediaType.BINARY_FILE, file);
+    assertEquals(content.length, body.contentLength());
+    assertArrayEquals(content, write(body));
+    assertArrayEquals(content, write(body));
+  }
+
+  /**
+   * Test that a file input stream body starts at the current position of the stream.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testInputStreamBodyStartsAtPosition() throws IOException {
+    final FileInputStream in = new FileInputStream(file);
+    assertEquals(100, in.skip(100));
+    final RequestBody body = FileChannelRequestBody.create(HttpMediaType.BINARY_FILE, in);
+
+    final byte[] expected = new byte[content.length - 100];
+    System.arraycopy(content, 100, expected, 0, expected.length);
+    assertEquals(expected.length, body.contentLength());
+    assertArrayEquals(expected, write(body));
+    assertArrayEquals(expected, write(body));
+  }
+
+  /**
+   * Test that a stream reporting no content, such as a file of <code>/proc</code>, is refused instead of sent empty,
+   * and that request bodies stream it instead.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testInputStreamWithoutSizeIsStreamed() throws IOException {
+    final File proc = new File("/proc/self/status");
+    Assume.assumeTrue(proc.isFile() && (proc.length() == 0));
+    final FileInputStream in = new FileInputStream(proc);
+    try {
+      FileChannelRequestBody.create(HttpMediaType.BINARY_FILE, in);
+      fail("a stream without a size should not be mapped");
+    } catch (IOException e) {
+      // expected
+    }
+
+    final RequestBody body = RequestUtils.inputStreamBody(in, HttpMediaType.TEXT_PLAIN);
+    assertEquals(-1, body.contentLength());
+    assertTrue(write(body).length > 0);
+  }
+
+  private static byte[] write(RequestBody body) throws IOException {
+    final Buffer buffer = new Buffer();
+    body.writeTo(buffer);
+    return buffer.readByteArray();
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.ibm.watson.developer_cloud.service.exception.BadRequestException;
+import com.ibm.watson.developer_cloud.service.exception.InternalServerErrorException;
+import com.ibm.watson.developer_cloud.service.exception.ServiceUnavailableException;
+import com.ibm.watson.developer_cloud.service.exception.TooManyRequestsException;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * The Class AdaptiveConcurrencyLimiterTest.
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+  /**
+   * Test that the limit grows after a full limit of successes and is halved when throttled.
+   *
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testAdditiveIncreaseMultiplicativeDecrease() throws InterruptedException {
+    final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 4);
+    for (int i = 0; i < 2; i++) {
+      limiter.acquire();
+      limiter.onSuccess();
+    }
+    assertEquals(3, limiter.getLimit());
+
+    limiter.acquire();
+    limiter.acquire();
+    assertEquals(2, limiter.getInFlight());
+    limiter.onThrottled();
+    assertEquals(1, limiter.getLimit());
+    limiter.onFailure();
+    assertEquals(0, limiter.getInFlight());
+    assertEquals(1, limiter.getLimit());
+  }
+
+  /**
+   * Test the backoff honours the Retry-After header and doubles otherwise.
+   */
+  @Test
+  public void testBackoffMillis() {
+    final Response response = new Response.Builder().request(new Request.Builder().url("http://localhost").build())
+        .protocol(Protocol.HTTP_1_1).code(429).message("Too many requests").header("Retry-After", "3")
+        .body(ResponseBody.create(MediaType.parse("text/plain"), "")).build();
+    assertEquals(3000, AdaptiveConcurrencyLimiter.backoffMillis(new TooManyRequestsException("", response), 0));
+    assertEquals(500, AdaptiveConcurrencyLimiter.backoffMillis(new RuntimeException(), 0));
+    assertEquals(2000, AdaptiveConcurrencyLimiter.backoffMillis(new RuntimeException(), 2));
+    assertEquals(30000, AdaptiveConcurrencyLimiter.backoffMillis(new RuntimeException(), 20));
+  }
+
+  /**
+   * Test that throttling, transient service errors and connection failures are retryable.
+   */
+  @Test
+  public void testIsRetryable() {
+    final Response response = new Response.Builder().request(new Request.Builder().url("http://localhost").build())
+        .protocol(Protocol.HTTP_1_1).code(503).message("Service unavailable")
+        .body(ResponseBody.create(MediaType.parse("text/plain"), "")).build();
+    assertTrue(AdaptiveConcurrencyLimiter.isRetryable(new TooManyRequestsException("", response)));
+    assertTrue(AdaptiveConcurrencyLimiter.isRetryable(new ServiceUnavailableException("", response)));
+    assertTrue(AdaptiveConcurrencyLimiter.isRetryable(new InternalServerErrorException("", response)));
+    assertTrue(AdaptiveConcurrencyLimiter.isRetryable(new IOException()));
+    assertTrue(AdaptiveConcurrencyLimiter.isRetryable(new RuntimeException(new IOException())));
+    assertFalse(AdaptiveConcurrencyLimiter.isRetryable(new BadRequestException("", response)));
+    assertFalse(AdaptiveConcurrencyLimiter.isRetryable(new IllegalArgumentException()));
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DateParser}.
+ */
+public class DateParserTest {
+
+  private final TimeZone defaultZone = TimeZone.getDefault();
+
+  /**
+   * Restores the default time zone.
+   */
+  @After
+  public void tearDown() {
+    TimeZone.setDefault(defaultZone);
+  }
+
+  private static Date simpleParse(String pattern, String date) throws Exception {
+    return new SimpleDateFormat(pattern).parse(date);
+  }
+
+  /**
+   * Test that every format gives the same date as {@link SimpleDateFormat}, in a zone with daylight saving time.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testParseMatchesSimpleDateFormat() throws Exception {
+    TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+
+    assertEquals(simpleParse("yyyy-MM-dd'T'HH:mm:ss.SSSX", "2017-04-23T19:09:46.712Z"),
+        DateParser.parse("2017-04-23T19:09:46.712Z"));
+    assertEquals(simpleParse("yyyy-MM-dd'T'HH:mm:ssX", "2015-05-28T18:01:57Z"),
+        DateParser.parse("2015-05-28T18:01:57Z"));
+    assertEquals(simpleParse("yyyy-MM-dd'T'HH:mm:ssZ", "2016-01-20T04:25:16+0530"),
+        DateParser.parse("2016-01-20T04:25:16+0530"));
+    assertEquals(simpleParse("yyyy-MM-dd'T'HH:mm:ssXXX", "2016-01-20T04:25:16-02:00"),
+        DateParser.parse("2016-01-20T04:25:16-02:00"));
+    assertEquals(simpleParse("yyyy-MM-dd'T'HH:mm:ss.SSS", "2016-09-30T16:51:47.558"),
+        DateParser.parse("2016-09-30T16:51:47.558"));
+    assertEquals(simpleParse("yyyy-MM-dd'T'HH:mm:ss", "2016-01-20T04:25:16"), DateParser.parse("2016-01-20T04:25:16"));
+    assertEquals(simpleParse("yyyy-MM-dd HH:mm:ss", "2013-12-16 20:06:18"), DateParser.parse("2013-12-16 20:06:18"));
+    assertEquals(simpleParse("yyyyMMdd'T'HHmmss", "20160620T042516"), DateParser.parse("20160620T042516"));
+  }
+
+  /**
+   * Test fractions of a second and epoch numbers.
+   */
+  @Test
+  public void testParseFractionsAndEpoch() {
+    assertEquals(1492974586500L, DateParser.parse("2017-04-23T19:09:46.5Z").getTime());
+    assertEquals(1492974586712L, DateParser.parse("2017-04-23T19:09:46.712345Z").getTime());
+    assertEquals(1466396716218L, DateParser.parse("2016-06-20T04:25:16.218+000").getTime());
+    assertEquals(1478097789000L, DateParser.parse("1478097789").getTime());
+    assertEquals(1478097789123L, DateParser.parse("1478097789123").getTime());
+  }
+
+  /**
+   * Test that unrecognized strings give null.
+   */
+  @Test
+  public void testParseInvalid() {
+    assertNull(DateParser.parse(null));
+    assertNull(DateParser.parse(""));
+    assertNull(DateParser.parse("yesterday"));
+    assertNull(DateParser.parse("2016-13-20T04:25:16"));
+    assertNull(DateParser.parse("2016-06-20X04:25:16"));
+    assertNull(DateParser.parse("2016-06-2aT04:25:16"));
+    assertNull(DateParser.parse("2016-06-20"));
+  }
+
+  /**
+   * Test that every style gives the same string as {@link SimpleDateFormat}.
+   */
+  @Test
+  public void testFormat() {
+    TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kolkata"));
+    final Date date = new Date(1492974586012L);
+
+    assertEquals(new SimpleDateFormat(DateDeserializer.DATE_UTC).format(date),
+        DateParser.format(date, DateParser.Style.ISO_MILLIS));
+    assertEquals(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(date),
+        DateParser.format(date, DateParser.Style.DATE_TIME));
+    assertEquals("2017-04-23T19:09:46Z", DateParser.format(date, DateParser.Style.ISO_UTC));
+    assertEquals(date.getTime() - 12, DateParser.parse(DateParser.format(date, DateParser.Style.ISO_UTC)).getTime());
+    assertEquals("1969-12-31T23:59:59Z", DateParser.format(new Date(-1000), DateParser.Style.ISO_UTC));
+  }
+
+  /**
+   * Test that the parser can be shared by several threads.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testConcurrentParse() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    final List<Future<Long>> futures = new ArrayList<Future<Long>>();
+    for (int i = 0; i < 8; i++) {
+      final int second = i;
+      futures.add(executor.submit(new Callable<Long>() {
+        @Override
+        public Long call() {
+          long sum = 0;
+          for (int j = 0; j < 10000; j++) {
+            sum += DateParser.parse("2017-04-23T19:09:0" + second + ".000Z").getTime();
+          }
+          return sum;
+        }
+      }));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      assertEquals(10000L * (1492974540000L + (i * 1000)), futures.get(i).get().longValue());
+    }
+    executor.shutdown();
+  }
+}
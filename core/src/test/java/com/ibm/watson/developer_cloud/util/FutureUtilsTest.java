@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.util;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * The Class FutureUtilsTest.
+ */
+public class FutureUtilsTest {
+
+  /**
+   * Test that the exception of a dependent future is unwrapped.
+   *
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testUnwrapDependentFuture() throws InterruptedException {
+    final CompletableFuture<String> call = new CompletableFuture<String>();
+    final CompletableFuture<Integer> length = call.thenApply(new CompletableFuture.Fun<String, Integer>() {
+      @Override
+      public Integer apply(String value) {
+        return value.length();
+      }
+    });
+    final RuntimeException throttled = new RuntimeException("429");
+    call.completeExceptionally(throttled);
+
+    try {
+      length.get();
+      fail("the future should fail");
+    } catch (ExecutionException e) {
+      assertSame(throttled, FutureUtils.unwrap(e));
+      assertSame(throttled, FutureUtils.asRuntimeException(e.getCause()));
+    }
+  }
+
+  /**
+   * Test that checked exceptions are wrapped only to be thrown.
+   */
+  @Test
+  public void testCheckedException() {
+    final IOException error = new IOException();
+    assertSame(error, FutureUtils.asException(error));
+    assertSame(error, FutureUtils.asRuntimeException(error).getCause());
+  }
+}
@@ -16,6 +16,7 @@ import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
 import com.ibm.watson.developer_cloud.util.RequestUtils;
 import com.google.gson.JsonObject;
+import com.ibm.watson.developer_cloud.discovery.v1.cache.QueryCache;
 import com.ibm.watson.developer_cloud.discovery.v1.model.AddDocumentOptions;
 import com.ibm.watson.developer_cloud.discovery.v1.model.AddTrainingDataOptions;
 import com.ibm.watson.developer_cloud.discovery.v1.model.Collection;
@@ -94,6 +95,7 @@ public class Discovery extends WatsonService {
   private static final String URL = "https://gateway.watsonplatform.net/discovery/api";
 
   private String versionDate;
+  private volatile QueryCache queryCache;
 
   /** The Constant VERSION_DATE_2017_11_07. */
   public static final String VERSION_DATE_2017_11_07 = "2017-11-07";
@@ -139,6 +141,26 @@ public class Discovery extends WatsonService {
     setUsernameAndPassword(username, password);
   }
 
+  /**
+   * Sets the cache used by {@link #query(QueryOptions)}. Documents added, updated or deleted through this instance, and
+   * document count changes seen by {@link #getCollection(GetCollectionOptions)}, invalidate the cached responses of
+   * their collection.
+   *
+   * @param queryCache the query cache, or <code>null</code> to stop caching
+   */
+  public void setQueryCache(QueryCache queryCache) {
+    this.queryCache = queryCache;
+  }
+
+  /**
+   * Gets the cache used by {@link #query(QueryOptions)}.
+   *
+   * @return the query cache, or <code>null</code> if queries are not cached
+   */
+  public QueryCache getQueryCache() {
+    return queryCache;
+  }
+
   /**
    * Add an environment.
    *
@@ -473,7 +495,8 @@ public class Discovery extends WatsonService {
     RequestBuilder builder = RequestBuilder.delete(String.format("/v1/environments/%s/collections/%s",
         deleteCollectionOptions.environmentId(), deleteCollectionOptions.collectionId()));
     builder.query(VERSION, versionDate);
-    return createServiceCall(builder.build(), ResponseConverterUtils.getVoid());
+    return invalidateOnSuccess(deleteCollectionOptions.environmentId(), deleteCollectionOptions.collectionId(),
+        createServiceCall(builder.build(), ResponseConverterUtils.getVoid()));
   }
 
   /**
@@ -487,7 +510,11 @@ public class Discovery extends WatsonService {
     RequestBuilder builder = RequestBuilder.get(String.format("/v1/environments/%s/collections/%s", getCollectionOptions
         .environmentId(), getCollectionOptions.collectionId()));
     builder.query(VERSION, versionDate);
-    return createServiceCall(builder.build(), ResponseConverterUtils.getObject(Collection.class));
+    final ServiceCall<Collection> call = createServiceCall(builder.build(), ResponseConverterUtils.getObject(
+        Collection.class));
+    final QueryCache cache = queryCache;
+    return (cache != null) ? cache.observeDocumentCounts(getCollectionOptions.environmentId(), getCollectionOptions
+        .collectionId(), call) : call;
   }
 
   /**
@@ -585,7 +612,8 @@ public class Discovery extends WatsonService {
       multipartBuilder.addFormDataPart("metadata", addDocumentOptions.metadata());
     }
     builder.body(multipartBuilder.build());
-    return createServiceCall(builder.build(), ResponseConverterUtils.getObject(DocumentAccepted.class));
+    return invalidateOnSuccess(addDocumentOptions.environmentId(), addDocumentOptions.collectionId(),
+        createServiceCall(builder.build(), ResponseConverterUtils.getObject(DocumentAccepted.class)));
   }
 
   /**
@@ -603,7 +631,8 @@ public class Discovery extends WatsonService {
         deleteDocumentOptions.environmentId(), deleteDocumentOptions.collectionId(), deleteDocumentOptions
             .documentId()));
     builder.query(VERSION, versionDate);
-    return createServiceCall(builder.build(), ResponseConverterUtils.getVoid());
+    return invalidateOnSuccess(deleteDocumentOptions.environmentId(), deleteDocumentOptions.collectionId(),
+        createServiceCall(builder.build(), ResponseConverterUtils.getVoid()));
   }
 
   /**
@@ -652,7 +681,8 @@ public class Discovery extends WatsonService {
       multipartBuilder.addFormDataPart("metadata", updateDocumentOptions.metadata());
     }
     builder.body(multipartBuilder.build());
-    return createServiceCall(builder.build(), ResponseConverterUtils.getObject(DocumentAccepted.class));
+    return invalidateOnSuccess(updateDocumentOptions.environmentId(), updateDocumentOptions.collectionId(),
+        createServiceCall(builder.build(), ResponseConverterUtils.getObject(DocumentAccepted.class)));
   }
 
   /**
@@ -768,6 +798,13 @@ public class Discovery extends WatsonService {
    */
   public ServiceCall<QueryResponse> query(QueryOptions queryOptions) {
     Validator.notNull(queryOptions, "queryOptions cannot be null");
+    final QueryCache cache = queryCache;
+    if (cache != null) {
+      final ServiceCall<QueryResponse> cached = cache.lookup(queryOptions);
+      if (cached != null) {
+        return cached;
+      }
+    }
     RequestBuilder builder = RequestBuilder.get(String.format("/v1/environments/%s/collections/%s/query", queryOptions
         .environmentId(), queryOptions.collectionId()));
     builder.query(VERSION, versionDate);
@@ -816,7 +853,9 @@ public class Discovery extends WatsonService {
     if (queryOptions.deduplicateField() != null) {
       builder.query("deduplicate.field", queryOptions.deduplicateField());
     }
-    return createServiceCall(builder.build(), ResponseConverterUtils.getObject(QueryResponse.class));
+    final ServiceCall<QueryResponse> call = createServiceCall(builder.build(), ResponseConverterUtils.getObject(
+        QueryResponse.class));
+    return (cache != null) ? cache.store(queryOptions, call) : call;
   }
 
   /**
@@ -1126,4 +1165,17 @@ public class Discovery extends WatsonService {
     return createServiceCall(builder.build(), ResponseConverterUtils.getObject(TrainingExample.class));
   }
 
+  /**
+   * Invalidates the cached query responses of a collection when the call succeeds.
+   *
+   * @param <T> the generic type
+   * @param environmentId the environment id
+   * @param collectionId the collection id
+   * @param call the call that changes the collection
+   * @return the service call
+   */
+  private <T> ServiceCall<T> invalidateOnSuccess(String environmentId, String collectionId, ServiceCall<T> call) {
+    final QueryCache cache = queryCache;
+    return (cache != null) ? cache.invalidateOnSuccess(environmentId, collectionId, call) : call;
+  }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.cache;
+
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.http.ServiceCallback;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * A {@link ServiceCall} that returns a result which is already known, without sending a request.
+ *
+ * @param <T> the generic type
+ */
+class CachedServiceCall<T> implements ServiceCall<T> {
+
+  private final T result;
+
+  /**
+   * Instantiates a new cached service call.
+   *
+   * @param result the result
+   */
+  CachedServiceCall(T result) {
+    this.result = result;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.http.ServiceCall#execute()
+   */
+  @Override
+  public T execute() {
+    return result;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.http.ServiceCall#enqueue(com.ibm.watson.developer_cloud.http.ServiceCallback)
+   */
+  @Override
+  public void enqueue(ServiceCallback<? super T> callback) {
+    callback.onResponse(result);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.http.ServiceCall#rx()
+   */
+  @Override
+  public CompletableFuture<T> rx() {
+    return CompletableFuture.completedFuture(result);
+  }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.cache;
+
+/**
+ * Decides which entry a {@link QueryCache} evicts when it is full.
+ */
+public enum EvictionPolicy {
+
+  /** Evict the entry that was used least recently. */
+  LRU,
+
+  /** Evict the entry that was used least often. Ties are broken by evicting the least recently used entry. */
+  LFU
+}
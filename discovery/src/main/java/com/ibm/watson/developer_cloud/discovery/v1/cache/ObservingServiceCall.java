@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.cache;
+
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.http.ServiceCallback;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * A {@link ServiceCall} that delegates to another call and is told about every successful response.
+ *
+ * @param <T> the generic type
+ */
+abstract class ObservingServiceCall<T> implements ServiceCall<T> {
+
+  private final ServiceCall<T> delegate;
+
+  /**
+   * Instantiates a new observing service call.
+   *
+   * @param delegate the call that sends the request
+   */
+  ObservingServiceCall(ServiceCall<T> delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Called with the response of a successful request, before it is returned to the caller.
+   *
+   * @param response the response
+   */
+  abstract void onSuccess(T response);
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.http.ServiceCall#execute()
+   */
+  @Override
+  public T execute() {
+    final T response = delegate.execute();
+    onSuccess(response);
+    return response;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.http.ServiceCall#enqueue(com.ibm.watson.developer_cloud.http.ServiceCallback)
+   */
+  @Override
+  public void enqueue(final ServiceCallback<? super T> callback) {
+    delegate.enqueue(new ServiceCallback<T>() {
+      @Override
+      public void onResponse(T response) {
+        onSuccess(response);
+        callback.onResponse(response);
+      }
+
+      @Override
+      public void onFailure(Exception e) {
+        callback.onFailure(e);
+      }
+    });
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.http.ServiceCall#rx()
+   */
+  @Override
+  public CompletableFuture<T> rx() {
+    return delegate.rx().thenApply(new CompletableFuture.Fun<T, T>() {
+      @Override
+      public T apply(T response) {
+        onSuccess(response);
+        return response;
+      }
+    });
+  }
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import com.ibm.watson.developer_cloud.discovery.v1.model.Collection;
+import com.ibm.watson.developer_cloud.discovery.v1.model.DocumentCounts;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryOptions;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryResponse;
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.util.GsonSingleton;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okio.ByteString;
+
+/**
+ * A size-bounded cache of {@link QueryResponse}s, used by
+ * {@link com.ibm.watson.developer_cloud.discovery.v1.Discovery#setQueryCache(QueryCache)}.
+ * <p>
+ * Entries are keyed on a hash of the normalized {@link QueryOptions}, so options that only differ in whitespace around
+ * the query strings or in the order of the return and passage fields share an entry. The entries of a collection are
+ * dropped when a document is added, updated or deleted through the {@code Discovery} instance that uses the cache, and
+ * when a call to {@code getCollection} returns different document counts than the previous call. Documents are
+ * processed asynchronously after they are accepted, so use {@code getCollection} or {@link Builder#maxAge(long,
+ * TimeUnit)} to drop results cached while an ingestion is still in progress.
+ * <p>
+ * Cached responses are shared between callers and must not be modified.
+ */
+public class QueryCache {
+
+  /** The default maximum number of entries. */
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+    private long maxAgeNanos;
+
+    /**
+     * Instantiates a new builder.
+     */
+    public Builder() {
+    }
+
+    /**
+     * Set the maximum number of cached responses. Defaults to {@value QueryCache#DEFAULT_MAX_ENTRIES}.
+     *
+     * @param maxEntries the maximum number of entries
+     * @return the builder
+     */
+    public Builder maxEntries(int maxEntries) {
+      this.maxEntries = maxEntries;
+      return this;
+    }
+
+    /**
+     * Set the policy used to evict an entry when the cache is full. Defaults to {@link EvictionPolicy#LRU}.
+     *
+     * @param evictionPolicy the eviction policy
+     * @return the builder
+     */
+    public Builder evictionPolicy(EvictionPolicy evictionPolicy) {
+      this.evictionPolicy = evictionPolicy;
+      return this;
+    }
+
+    /**
+     * Set how long a response is kept after it was cached. By default, responses are kept until they are evicted or
+     * invalidated.
+     *
+     * @param maxAge the maximum age
+     * @param unit the unit of the maximum age
+     * @return the builder
+     */
+    public Builder maxAge(long maxAge, TimeUnit unit) {
+      this.maxAgeNanos = unit.toNanos(maxAge);
+      return this;
+    }
+
+    /**
+     * Builds the cache.
+     *
+     * @return the query cache
+     */
+    public QueryCache build() {
+      return new QueryCache(this);
+    }
+  }
+
+  /**
+   * A cached response.
+   */
+  private static final class Entry {
+    private final String collection;
+    private final QueryResponse response;
+    private final long created;
+    private int frequency = 1;
+
+    Entry(String collection, QueryResponse response, long created) {
+      this.collection = collection;
+      this.response = response;
+      this.created = created;
+    }
+  }
+
+  private final int maxEntries;
+  private final EvictionPolicy evictionPolicy;
+  private final long maxAgeNanos;
+
+  private final LinkedHashMap<String, Entry> entries;
+  private final TreeMap<Integer, LinkedHashSet<String>> frequencies = new TreeMap<Integer, LinkedHashSet<String>>();
+  private final Map<String, Long> versions = new HashMap<String, Long>();
+  private long epoch;
+  private final Map<String, List<Long>> documentCounts = new HashMap<String, List<Long>>();
+
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * Instantiates a new query cache.
+   *
+   * @param builder the builder
+   */
+  protected QueryCache(Builder builder) {
+    Validator.isTrue(builder.maxEntries > 0, "maxEntries must be greater than 0");
+    Validator.notNull(builder.evictionPolicy, "evictionPolicy cannot be null");
+    Validator.isTrue(builder.maxAgeNanos >= 0, "maxAge cannot be negative");
+    maxEntries = builder.maxEntries;
+    evictionPolicy = builder.evictionPolicy;
+    maxAgeNanos = builder.maxAgeNanos;
+    entries = new LinkedHashMap<String, Entry>(16, 0.75f, evictionPolicy == EvictionPolicy.LRU);
+  }
+
+  /**
+   * Returns the cache key of a query: the SHA-256 hash of its normalized options, serialized as a JSON object so that
+   * the value of one option cannot be mistaken for another option.
+   *
+   * @param options the query options
+   * @return the cache key
+   */
+  public static String key(QueryOptions options) {
+    // null values are left out of the JSON
+    final Map<String, Object> normalized = new LinkedHashMap<String, Object>();
+    normalized.put("environment_id", options.environmentId());
+    normalized.put("collection_id", options.collectionId());
+    normalized.put("filter", trim(options.filter()));
+    normalized.put("query", trim(options.query()));
+    normalized.put("natural_language_query", trim(options.naturalLanguageQuery()));
+    normalized.put("passages", options.passages());
+    normalized.put("aggregation", trim(options.aggregation()));
+    normalized.put("count", options.count());
+    normalized.put("return", sorted(options.returnFields()));
+    normalized.put("offset", options.offset());
+    normalized.put("sort", options.sort());
+    normalized.put("highlight", options.highlight());
+    normalized.put("passages.fields", sorted(options.passagesFields()));
+    normalized.put("passages.count", options.passagesCount());
+    normalized.put("passages.characters", options.passagesCharacters());
+    normalized.put("deduplicate", options.deduplicate());
+    normalized.put("deduplicate.field", trim(options.deduplicateField()));
+    final String json = GsonSingleton.getGsonWithoutPrettyPrinting().toJson(normalized);
+    return ByteString.encodeUtf8(json).sha256().hex();
+  }
+
+  /**
+   * Returns a {@link ServiceCall} that returns the cached response of a query, or <code>null</code> if the response is
+   * not cached.
+   *
+   * @param options the query options
+   * @return the service call, or <code>null</code>
+   */
+  public ServiceCall<QueryResponse> lookup(QueryOptions options) {
+    final QueryResponse response = get(key(options));
+    return response != null ? new CachedServiceCall<QueryResponse>(response) : null;
+  }
+
+  /**
+   * Returns a {@link ServiceCall} that caches the response of a query when the call succeeds. The response is not
+   * cached if the collection was invalidated after this method was called.
+   *
+   * @param options the query options
+   * @param call the call that sends the query
+   * @return the service call
+   */
+  public ServiceCall<QueryResponse> store(QueryOptions options, ServiceCall<QueryResponse> call) {
+    final String key = key(options);
+    final String collection = collection(options.environmentId(), options.collectionId());
+    final long version = version(collection);
+    return new ObservingServiceCall<QueryResponse>(call) {
+      @Override
+      void onSuccess(QueryResponse response) {
+        put(key, collection, version, response);
+      }
+    };
+  }
+
+  /**
+   * Returns a {@link ServiceCall} that invalidates a collection when the call succeeds.
+   *
+   * @param <T> the generic type
+   * @param environmentId the environment id
+   * @param collectionId the collection id
+   * @param call the call that changes the collection
+   * @return the service call
+   */
+  public <T> ServiceCall<T> invalidateOnSuccess(final String environmentId, final String collectionId,
+      ServiceCall<T> call) {
+    return new ObservingServiceCall<T>(call) {
+      @Override
+      void onSuccess(T response) {
+        invalidate(environmentId, collectionId);
+      }
+    };
+  }
+
+  /**
+   * Returns a {@link ServiceCall} that invalidates a collection when the call returns different document counts than
+   * the previous call for the same collection.
+   *
+   * @param environmentId the environment id
+   * @param collectionId the collection id
+   * @param call the call that gets the collection
+   * @return the service call
+   */
+  public ServiceCall<Collection> observeDocumentCounts(final String environmentId, final String collectionId,
+      ServiceCall<Collection> call) {
+    return new ObservingServiceCall<Collection>(call) {
+      @Override
+      void onSuccess(Collection response) {
+        if ((response != null) && (response.getDocumentCounts() != null)) {
+          updateDocumentCounts(environmentId, collectionId, response.getDocumentCounts());
+        }
+      }
+    };
+  }
+
+  /**
+   * Drops the cached responses of a collection.
+   *
+   * @param environmentId the environment id
+   * @param collectionId the collection id
+   */
+  public synchronized void invalidate(String environmentId, String collectionId) {
+    final String collection = collection(environmentId, collectionId);
+    final Long version = versions.get(collection);
+    versions.put(collection, (version != null ? version : 0) + 1);
+    final Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+    while (it.hasNext()) {
+      final Map.Entry<String, Entry> e = it.next();
+      if (e.getValue().collection.equals(collection)) {
+        it.remove();
+        removeFrequency(e.getKey(), e.getValue());
+      }
+    }
+  }
+
+  /**
+   * Drops all cached responses.
+   */
+  public synchronized void invalidateAll() {
+    epoch++;
+    entries.clear();
+    frequencies.clear();
+  }
+
+  /**
+   * Gets the number of cached responses.
+   *
+   * @return the size
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Gets the number of lookups that returned a cached response.
+   *
+   * @return the hit count
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Gets the number of lookups that did not return a cached response.
+   *
+   * @return the miss count
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Gets the number of responses evicted because the cache was full.
+   *
+   * @return the eviction count
+   */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Gets the fraction of lookups that returned a cached response, or 0 if there were no lookups.
+   *
+   * @return the hit rate
+   */
+  public synchronized double getHitRate() {
+    final long lookups = hitCount + missCount;
+    return lookups == 0 ? 0 : (double) hitCount / lookups;
+  }
+
+  private synchronized QueryResponse get(String key) {
+    final Entry entry = entries.get(key);
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+    if ((maxAgeNanos > 0) && ((System.nanoTime() - entry.created) >= maxAgeNanos)) {
+      entries.remove(key);
+      removeFrequency(key, entry);
+      missCount++;
+      return null;
+    }
+    if (evictionPolicy == EvictionPolicy.LFU) {
+      removeFrequency(key, entry);
+      entry.frequency++;
+      addFrequency(key, entry);
+    }
+    hitCount++;
+    return entry.response;
+  }
+
+  private synchronized void put(String key, String collection, long version, QueryResponse response) {
+    if ((response == null) || (version != version(collection))) {
+      return;
+    }
+    final Entry previous = entries.remove(key);
+    if (previous != null) {
+      removeFrequency(key, previous);
+    }
+    while (entries.size() >= maxEntries) {
+      evict();
+    }
+    final Entry entry = new Entry(collection, response, System.nanoTime());
+    entries.put(key, entry);
+    if (evictionPolicy == EvictionPolicy.LFU) {
+      addFrequency(key, entry);
+    }
+  }
+
+  private synchronized void updateDocumentCounts(String environmentId, String collectionId, DocumentCounts counts) {
+    final List<Long> current = Arrays.asList(counts.getAvailable(), counts.getProcessing(), counts.getFailed());
+    final List<Long> previous = documentCounts.put(collection(environmentId, collectionId), current);
+    if ((previous != null) && !previous.equals(current)) {
+      invalidate(environmentId, collectionId);
+    }
+  }
+
+  private void evict() {
+    final String key;
+    if (evictionPolicy == EvictionPolicy.LFU) {
+      key = frequencies.firstEntry().getValue().iterator().next();
+    } else {
+      key = entries.keySet().iterator().next();
+    }
+    removeFrequency(key, entries.remove(key));
+    evictionCount++;
+  }
+
+  private void addFrequency(String key, Entry entry) {
+    LinkedHashSet<String> keys = frequencies.get(entry.frequency);
+    if (keys == null) {
+      keys = new LinkedHashSet<String>();
+      frequencies.put(entry.frequency, keys);
+    }
+    keys.add(key);
+  }
+
+  private void removeFrequency(String key, Entry entry) {
+    if (evictionPolicy != EvictionPolicy.LFU) {
+      return;
+    }
+    final LinkedHashSet<String> keys = frequencies.get(entry.frequency);
+    if (keys != null) {
+      keys.remove(key);
+      if (keys.isEmpty()) {
+        frequencies.remove(entry.frequency);
+      }
+    }
+  }
+
+  /**
+   * Gets the version of a collection, which changes whenever the collection or the whole cache is invalidated. The
+   * epoch and the version of the collection only grow, so their sum changes when either does, including for
+   * collections that were never invalidated on their own.
+   */
+  private synchronized long version(String collection) {
+    final Long version = versions.get(collection);
+    return epoch + (version != null ? version : 0);
+  }
+
+  private static String collection(String environmentId, String collectionId) {
+    return environmentId + '/' + collectionId;
+  }
+
+  private static String trim(String value) {
+    return value != null ? value.trim() : null;
+  }
+
+  private static List<String> sorted(List<String> values) {
+    if (values == null) {
+      return null;
+    }
+    return new ArrayList<String>(new TreeSet<String>(values));
+  }
+}
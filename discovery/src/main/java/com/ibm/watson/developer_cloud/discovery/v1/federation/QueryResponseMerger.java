@@ -0,0 +1,371 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.federation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.ibm.watson.developer_cloud.discovery.v1.model.AggregationResult;
+import com.ibm.watson.developer_cloud.discovery.v1.model.Calculation;
+import com.ibm.watson.developer_cloud.discovery.v1.model.Histogram;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryAggregation;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryPassages;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryResponse;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryResult;
+import com.ibm.watson.developer_cloud.discovery.v1.model.Term;
+import com.ibm.watson.developer_cloud.discovery.v1.query.AggregationType;
+
+/**
+ * Merges the {@link QueryResponse}s of several shards into one.
+ * <p>
+ * Results are merged by score with a k-way merge, which assumes that every shard returns its results in descending
+ * score order. Aggregations are merged by position, so every shard must be queried with the same aggregation. Buckets
+ * with the same key are combined, so term counts are exact only for terms that are in the top terms of every shard.
+ */
+final class QueryResponseMerger {
+
+  /** Orders shard cursors by the score of their current result, highest first, then by shard. */
+  private static final Comparator<Cursor> BY_SCORE = new Comparator<Cursor>() {
+    @Override
+    public int compare(Cursor a, Cursor b) {
+      final int byScore = Double.compare(b.score(), a.score());
+      return byScore != 0 ? byScore : a.shard - b.shard;
+    }
+  };
+
+  /** Orders buckets by matching results, highest first. */
+  private static final Comparator<AggregationResult> BY_MATCHING_RESULTS = new Comparator<AggregationResult>() {
+    @Override
+    public int compare(AggregationResult a, AggregationResult b) {
+      return Long.compare(matchingResults(b.getMatchingResults()), matchingResults(a.getMatchingResults()));
+    }
+  };
+
+  /** Orders buckets by their numeric key, lowest first. */
+  private static final Comparator<AggregationResult> BY_NUMERIC_KEY = new Comparator<AggregationResult>() {
+    @Override
+    public int compare(AggregationResult a, AggregationResult b) {
+      return Double.compare(Double.parseDouble(a.getKey()), Double.parseDouble(b.getKey()));
+    }
+  };
+
+  /** Orders passages by score, highest first. */
+  private static final Comparator<QueryPassages> BY_PASSAGE_SCORE = new Comparator<QueryPassages>() {
+    @Override
+    public int compare(QueryPassages a, QueryPassages b) {
+      return Double.compare(score(b.getPassageScore()), score(a.getPassageScore()));
+    }
+  };
+
+  /**
+   * The position of the merge in the results of a shard.
+   */
+  private static final class Cursor {
+    private final List<QueryResult> results;
+    private final int shard;
+    private int position;
+
+    Cursor(List<QueryResult> results, int shard) {
+      this.results = results;
+      this.shard = shard;
+    }
+
+    QueryResult current() {
+      return results.get(position);
+    }
+
+    double score() {
+      return QueryResponseMerger.score(current().getScore());
+    }
+  }
+
+  private QueryResponseMerger() {
+    // This is a utility class - no instantiation allowed.
+  }
+
+  /**
+   * Merges the responses of the shards.
+   *
+   * @param responses the responses, in shard order
+   * @param count the maximum number of results, or <code>null</code> to keep all of them
+   * @return the merged response
+   */
+  static QueryResponse merge(List<QueryResponse> responses, Integer count) {
+    final QueryResponse merged = new QueryResponse();
+    final List<List<QueryResult>> results = new ArrayList<List<QueryResult>>();
+    final List<List<QueryAggregation>> aggregations = new ArrayList<List<QueryAggregation>>();
+    final List<Long> weights = new ArrayList<Long>();
+    final List<QueryPassages> passages = new ArrayList<QueryPassages>();
+    long matchingResults = 0;
+    long duplicatesRemoved = 0;
+    boolean hasAggregations = false;
+    boolean hasPassages = false;
+    boolean hasDuplicatesRemoved = false;
+
+    for (QueryResponse response : responses) {
+      matchingResults += matchingResults(response.getMatchingResults());
+      results.add(response.getResults());
+      aggregations.add(response.getAggregations());
+      weights.add(matchingResults(response.getMatchingResults()));
+      hasAggregations |= response.getAggregations() != null;
+      if (response.getPassages() != null) {
+        passages.addAll(response.getPassages());
+        hasPassages = true;
+      }
+      if (response.getDuplicatesRemoved() != null) {
+        duplicatesRemoved += response.getDuplicatesRemoved();
+        hasDuplicatesRemoved = true;
+      }
+    }
+
+    merged.setMatchingResults(matchingResults);
+    merged.setResults(mergeByScore(results, count));
+    if (hasAggregations) {
+      merged.setAggregations(mergeAggregations(aggregations, weights));
+    }
+    if (hasPassages) {
+      Collections.sort(passages, BY_PASSAGE_SCORE);
+      merged.setPassages(passages);
+    }
+    if (hasDuplicatesRemoved) {
+      merged.setDuplicatesRemoved(duplicatesRemoved);
+    }
+    return merged;
+  }
+
+  /**
+   * Merges the results of the shards, highest score first, using a heap of one cursor per shard.
+   *
+   * @param shards the results of every shard, each in descending score order. Entries can be <code>null</code>.
+   * @param limit the maximum number of results, or <code>null</code> to keep all of them
+   * @return the merged results
+   */
+  static List<QueryResult> mergeByScore(List<List<QueryResult>> shards, Integer limit) {
+    final PriorityQueue<Cursor> heap = new PriorityQueue<Cursor>(Math.max(1, shards.size()), BY_SCORE);
+    int total = 0;
+    for (int i = 0; i < shards.size(); i++) {
+      final List<QueryResult> results = shards.get(i);
+      if ((results != null) && !results.isEmpty()) {
+        heap.add(new Cursor(results, i));
+        total += results.size();
+      }
+    }
+
+    final int size = limit != null ? Math.min(limit, total) : total;
+    final List<QueryResult> merged = new ArrayList<QueryResult>(size);
+    while ((merged.size() < size) && !heap.isEmpty()) {
+      final Cursor cursor = heap.poll();
+      merged.add(cursor.current());
+      cursor.position++;
+      if (cursor.position < cursor.results.size()) {
+        heap.add(cursor);
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Merges the aggregations of the shards by position.
+   *
+   * @param shards the aggregations of every shard. Entries can be <code>null</code>.
+   * @param weights the number of matching documents of every shard, used to merge averages
+   * @return the merged aggregations
+   */
+  static List<QueryAggregation> mergeAggregations(List<List<QueryAggregation>> shards, List<Long> weights) {
+    int size = 0;
+    for (List<QueryAggregation> aggregations : shards) {
+      if (aggregations != null) {
+        size = Math.max(size, aggregations.size());
+      }
+    }
+
+    final List<QueryAggregation> merged = new ArrayList<QueryAggregation>(size);
+    for (int i = 0; i < size; i++) {
+      final List<QueryAggregation> aggregations = new ArrayList<QueryAggregation>();
+      final List<Long> aggregationWeights = new ArrayList<Long>();
+      for (int shard = 0; shard < shards.size(); shard++) {
+        final List<QueryAggregation> shardAggregations = shards.get(shard);
+        if ((shardAggregations != null) && (i < shardAggregations.size()) && (shardAggregations.get(i) != null)) {
+          aggregations.add(shardAggregations.get(i));
+          aggregationWeights.add(weights.get(shard));
+        }
+      }
+      merged.add(mergeAggregation(aggregations, aggregationWeights));
+    }
+    return merged;
+  }
+
+  private static QueryAggregation mergeAggregation(List<QueryAggregation> aggregations, List<Long> weights) {
+    final QueryAggregation first = aggregations.get(0);
+    final QueryAggregation merged;
+    if (first instanceof Term) {
+      final Term term = new Term();
+      if (((Term) first).getCount() != null) {
+        term.setCount(((Term) first).getCount());
+      }
+      merged = term;
+    } else if (first instanceof Histogram) {
+      final Histogram histogram = new Histogram();
+      if (((Histogram) first).getInterval() != null) {
+        histogram.setInterval(((Histogram) first).getInterval());
+      }
+      merged = histogram;
+    } else if (first instanceof Calculation) {
+      final Calculation calculation = new Calculation();
+      calculation.setValue(mergeValue(first.getType(), aggregations, weights));
+      merged = calculation;
+    } else {
+      merged = new QueryAggregation();
+    }
+    merged.setType(first.getType());
+    merged.setField(first.getField());
+    merged.setMatch(first.getMatch());
+
+    boolean hasMatchingResults = false;
+    boolean hasResults = false;
+    boolean hasAggregations = false;
+    long matchingResults = 0;
+    final List<Long> nestedWeights = new ArrayList<Long>();
+    final List<List<QueryAggregation>> nested = new ArrayList<List<QueryAggregation>>();
+    for (int i = 0; i < aggregations.size(); i++) {
+      final QueryAggregation aggregation = aggregations.get(i);
+      if (aggregation.getMatchingResults() != null) {
+        matchingResults += aggregation.getMatchingResults();
+        hasMatchingResults = true;
+      }
+      hasResults |= aggregation.getResults() != null;
+      hasAggregations |= aggregation.getAggregations() != null;
+      nested.add(aggregation.getAggregations());
+      nestedWeights.add(aggregation.getMatchingResults() != null ? aggregation.getMatchingResults() : weights.get(i));
+    }
+    if (hasMatchingResults) {
+      merged.setMatchingResults(matchingResults);
+    }
+    if (hasResults) {
+      merged.setResults(mergeBuckets(merged, aggregations));
+    }
+    if (hasAggregations) {
+      merged.setAggregations(mergeAggregations(nested, nestedWeights));
+    }
+    return merged;
+  }
+
+  private static List<AggregationResult> mergeBuckets(QueryAggregation merged, List<QueryAggregation> aggregations) {
+    final Map<String, List<AggregationResult>> byKey = new LinkedHashMap<String, List<AggregationResult>>();
+    for (QueryAggregation aggregation : aggregations) {
+      if (aggregation.getResults() == null) {
+        continue;
+      }
+      for (AggregationResult bucket : aggregation.getResults()) {
+        List<AggregationResult> buckets = byKey.get(bucket.getKey());
+        if (buckets == null) {
+          buckets = new ArrayList<AggregationResult>();
+          byKey.put(bucket.getKey(), buckets);
+        }
+        buckets.add(bucket);
+      }
+    }
+
+    boolean numericKeys = true;
+    final List<AggregationResult> results = new ArrayList<AggregationResult>(byKey.size());
+    for (Map.Entry<String, List<AggregationResult>> entry : byKey.entrySet()) {
+      final AggregationResult bucket = new AggregationResult();
+      bucket.setKey(entry.getKey());
+      numericKeys &= isNumber(entry.getKey());
+
+      long matchingResults = 0;
+      boolean hasAggregations = false;
+      final List<List<QueryAggregation>> nested = new ArrayList<List<QueryAggregation>>();
+      final List<Long> weights = new ArrayList<Long>();
+      for (AggregationResult shardBucket : entry.getValue()) {
+        matchingResults += matchingResults(shardBucket.getMatchingResults());
+        hasAggregations |= shardBucket.getAggregations() != null;
+        nested.add(shardBucket.getAggregations());
+        weights.add(matchingResults(shardBucket.getMatchingResults()));
+      }
+      bucket.setMatchingResults(matchingResults);
+      if (hasAggregations) {
+        bucket.setAggregations(mergeAggregations(nested, weights));
+      }
+      results.add(bucket);
+    }
+
+    if (merged instanceof Term) {
+      Collections.sort(results, BY_MATCHING_RESULTS);
+      final Long count = ((Term) merged).getCount();
+      if ((count != null) && (results.size() > count)) {
+        return new ArrayList<AggregationResult>(results.subList(0, count.intValue()));
+      }
+    } else if (numericKeys) {
+      Collections.sort(results, BY_NUMERIC_KEY);
+    }
+    return results;
+  }
+
+  private static Double mergeValue(String type, List<QueryAggregation> aggregations, List<Long> weights) {
+    Double merged = null;
+    double weightedSum = 0;
+    long totalWeight = 0;
+    int values = 0;
+    for (int i = 0; i < aggregations.size(); i++) {
+      final Double value = ((Calculation) aggregations.get(i)).getValue();
+      if (value == null) {
+        continue;
+      }
+      values++;
+      weightedSum += value * weights.get(i);
+      totalWeight += weights.get(i);
+      if (merged == null) {
+        merged = value;
+      } else if (AggregationType.MIN.getName().equals(type)) {
+        merged = Math.min(merged, value);
+      } else if (AggregationType.MAX.getName().equals(type)) {
+        merged = Math.max(merged, value);
+      } else if (AggregationType.SUM.getName().equals(type)) {
+        merged = merged + value;
+      } else if (AggregationType.AVERAGE.getName().equals(type)) {
+        // the plain sum is kept as a fallback for shards that report no matching documents
+        merged = merged + value;
+      }
+    }
+    if (AggregationType.AVERAGE.getName().equals(type) && (merged != null)) {
+      return totalWeight > 0 ? weightedSum / totalWeight : merged / values;
+    }
+    return merged;
+  }
+
+  private static boolean isNumber(String key) {
+    if (key == null) {
+      return false;
+    }
+    try {
+      Double.parseDouble(key);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  private static long matchingResults(Long matchingResults) {
+    return matchingResults != null ? matchingResults : 0;
+  }
+
+  private static double score(Double score) {
+    return score != null ? score : Double.NEGATIVE_INFINITY;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.federation;
+
+import com.ibm.watson.developer_cloud.discovery.v1.Discovery;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryOptions;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * A collection queried by the {@link ScatterGatherExecutor}. Shards can use different {@link Discovery} instances, so a
+ * single scatter can span environments and service instances.
+ */
+public class QueryShard {
+
+  private final String name;
+  private final Discovery discovery;
+  private final QueryOptions queryOptions;
+
+  /**
+   * Instantiates a new query shard named after its environment and collection.
+   *
+   * @param discovery the service used to query the shard
+   * @param queryOptions the query options, including the environment and collection ids
+   */
+  public QueryShard(Discovery discovery, QueryOptions queryOptions) {
+    this(queryOptions != null ? queryOptions.environmentId() + "/" + queryOptions.collectionId() : null, discovery,
+        queryOptions);
+  }
+
+  /**
+   * Instantiates a new query shard.
+   *
+   * @param name the name used to report failures of the shard
+   * @param discovery the service used to query the shard
+   * @param queryOptions the query options, including the environment and collection ids
+   */
+  public QueryShard(String name, Discovery discovery, QueryOptions queryOptions) {
+    Validator.notNull(discovery, "discovery cannot be null");
+    Validator.notNull(queryOptions, "queryOptions cannot be null");
+    this.name = name;
+    this.discovery = discovery;
+    this.queryOptions = queryOptions;
+  }
+
+  /**
+   * Gets the name.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the service used to query the shard.
+   *
+   * @return the discovery service
+   */
+  public Discovery getDiscovery() {
+    return discovery;
+  }
+
+  /**
+   * Gets the query options.
+   *
+   * @return the query options
+   */
+  public QueryOptions getQueryOptions() {
+    return queryOptions;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return name;
+  }
+}
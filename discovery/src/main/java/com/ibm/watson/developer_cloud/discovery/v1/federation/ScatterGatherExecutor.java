@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.federation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryResponse;
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * Queries many collections concurrently and merges their responses on the client. Unlike
+ * {@link com.ibm.watson.developer_cloud.discovery.v1.Discovery#federatedQuery}, the collections can be in different
+ * environments and service instances.
+ * <p>
+ * Every shard must answer within the timeout, measured from the start of the query, so the latency of a query follows
+ * the slowest shard up to the timeout. Shards that fail or time out are reported in
+ * {@link ScatterGatherResponse#getFailures()} and the response is merged from the others.
+ * <p>
+ * Results are merged by score, so every shard must return its results in descending score order. Aggregations are
+ * combined by position, so every shard must be queried with the same aggregation. Term counts are exact only for the
+ * terms that are in the top terms of every shard.
+ *
+ * <pre>
+ * ScatterGatherExecutor executor = new ScatterGatherExecutor.Builder().timeout(2, TimeUnit.SECONDS).count(10).build();
+ * ScatterGatherResponse response = executor.query(Arrays.asList(
+ *     new QueryShard(discoveryUs, usOptions),
+ *     new QueryShard(discoveryEu, euOptions)));
+ * </pre>
+ *
+ * Each shard query takes a thread of the pool for as long as its request runs. Interrupting a thread does not abort
+ * an OkHttp call: a shard that times out is reported at once, but its request keeps the thread until the shard answers
+ * or the read timeout of its HTTP client expires, 90 seconds by default. Only the shard queries still waiting for a
+ * thread are cancelled. Size {@link Builder#maxConcurrency(int)} for the shards that can hang at the same time on top
+ * of the regular load, or lower the read timeout of their services by overriding
+ * {@link com.ibm.watson.developer_cloud.service.WatsonService#configureHttpClient()}.
+ */
+public class ScatterGatherExecutor {
+  private static final Logger LOG = Logger.getLogger(ScatterGatherExecutor.class.getName());
+
+  /** The default timeout, in milliseconds. */
+  public static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+
+  /** The default maximum number of concurrent shard queries. */
+  public static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private Integer count;
+
+    /**
+     * Instantiates a new builder.
+     */
+    public Builder() {
+    }
+
+    /**
+     * Set how long to wait for the shards, measured from the start of the query. Defaults to
+     * {@value ScatterGatherExecutor#DEFAULT_TIMEOUT_MILLIS} milliseconds.
+     *
+     * @param timeout the timeout
+     * @param unit the unit of the timeout
+     * @return the builder
+     */
+    public Builder timeout(long timeout, TimeUnit unit) {
+      this.timeoutMillis = unit.toMillis(timeout);
+      return this;
+    }
+
+    /**
+     * Set the maximum number of shards queried at the same time. Queries with more shards than this wait for a free
+     * thread, and the wait counts against the timeout. A shard that timed out still holds its thread until its request
+     * ends, so leave room for the shards that can hang. Defaults to
+     * {@value ScatterGatherExecutor#DEFAULT_MAX_CONCURRENCY}.
+     *
+     * @param maxConcurrency the maximum concurrency
+     * @return the builder
+     */
+    public Builder maxConcurrency(int maxConcurrency) {
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * Set the number of merged results to return. By default, all the results returned by the shards are kept.
+     *
+     * @param count the count
+     * @return the builder
+     */
+    public Builder count(int count) {
+      this.count = count;
+      return this;
+    }
+
+    /**
+     * Builds the executor.
+     *
+     * @return the scatter gather executor
+     */
+    public ScatterGatherExecutor build() {
+      return new ScatterGatherExecutor(this);
+    }
+  }
+
+  private final long timeoutMillis;
+  private final Integer count;
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Instantiates a new scatter gather executor.
+   *
+   * @param builder the builder
+   */
+  protected ScatterGatherExecutor(Builder builder) {
+    Validator.isTrue(builder.timeoutMillis > 0, "timeout must be greater than 0");
+    Validator.isTrue(builder.maxConcurrency > 0, "maxConcurrency must be greater than 0");
+    Validator.isTrue((builder.count == null) || (builder.count >= 0), "count cannot be negative");
+    timeoutMillis = builder.timeoutMillis;
+    count = builder.count;
+    executor = DaemonThreadFactory.newThreadPool("discovery-scatter-gather", builder.maxConcurrency);
+  }
+
+  /**
+   * Queries the shards and merges their responses.
+   *
+   * @param shards the shards
+   * @return the merged response, with the shards that failed or timed out
+   * @throws InterruptedException if the calling thread is interrupted while waiting for the shards
+   */
+  public ScatterGatherResponse query(List<QueryShard> shards) throws InterruptedException {
+    Validator.notEmpty(shards, "shards cannot be empty");
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+    final List<Future<QueryResponse>> futures = new ArrayList<Future<QueryResponse>>(shards.size());
+    for (final QueryShard shard : shards) {
+      Validator.notNull(shard, "shards cannot contain null");
+      futures.add(executor.submit(new Callable<QueryResponse>() {
+        @Override
+        public QueryResponse call() {
+          return shard.getDiscovery().query(shard.getQueryOptions()).execute();
+        }
+      }));
+    }
+
+    final List<QueryResponse> responses = new ArrayList<QueryResponse>(shards.size());
+    final List<ShardFailure> failures = new ArrayList<ShardFailure>();
+    try {
+      for (int i = 0; i < shards.size(); i++) {
+        final QueryShard shard = shards.get(i);
+        try {
+          final QueryResponse response = futures.get(i).get(Math.max(0, deadline - System.nanoTime()),
+              TimeUnit.NANOSECONDS);
+          if (response != null) {
+            responses.add(response);
+          }
+        } catch (ExecutionException e) {
+          final Throwable cause = e.getCause();
+          LOG.log(Level.FINE, "Query of shard " + shard + " failed", cause);
+          failures.add(new ShardFailure(shard, cause instanceof Exception ? (Exception) cause : e, false));
+        } catch (TimeoutException e) {
+          LOG.fine("Query of shard " + shard + " timed out");
+          // removes the query if it is still queued; a running request is not aborted by the interrupt
+          futures.get(i).cancel(true);
+          failures.add(new ShardFailure(shard, null, true));
+        }
+      }
+    } finally {
+      for (Future<QueryResponse> future : futures) {
+        future.cancel(true);
+      }
+    }
+
+    return new ScatterGatherResponse(QueryResponseMerger.merge(responses, count), shards.size(),
+        Collections.unmodifiableList(failures));
+  }
+
+  /**
+   * Stops the threads of the executor. Queued shard queries are dropped; requests already sent run until they end.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
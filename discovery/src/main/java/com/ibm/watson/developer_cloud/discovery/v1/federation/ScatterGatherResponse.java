@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.federation;
+
+import java.util.List;
+
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryResponse;
+
+/**
+ * The merged response of a {@link ScatterGatherExecutor} query.
+ */
+public class ScatterGatherResponse {
+
+  private final QueryResponse response;
+  private final int shardCount;
+  private final List<ShardFailure> failures;
+
+  /**
+   * Instantiates a new scatter gather response.
+   *
+   * @param response the merged response
+   * @param shardCount the number of shards queried
+   * @param failures the shards that did not contribute
+   */
+  ScatterGatherResponse(QueryResponse response, int shardCount, List<ShardFailure> failures) {
+    this.response = response;
+    this.shardCount = shardCount;
+    this.failures = failures;
+  }
+
+  /**
+   * Gets the response merged from the shards that answered in time.
+   *
+   * @return the merged response
+   */
+  public QueryResponse getResponse() {
+    return response;
+  }
+
+  /**
+   * Gets the number of shards queried.
+   *
+   * @return the shard count
+   */
+  public int getShardCount() {
+    return shardCount;
+  }
+
+  /**
+   * Gets the shards that failed or timed out.
+   *
+   * @return the failures
+   */
+  public List<ShardFailure> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Checks whether some shards did not contribute to the response.
+   *
+   * @return true if the response is partial
+   */
+  public boolean isPartial() {
+    return !failures.isEmpty();
+  }
+}
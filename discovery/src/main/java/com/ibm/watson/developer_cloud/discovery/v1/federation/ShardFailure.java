@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.federation;
+
+/**
+ * A shard that did not contribute to a {@link ScatterGatherResponse}.
+ */
+public class ShardFailure {
+
+  private final QueryShard shard;
+  private final Exception error;
+  private final boolean timedOut;
+
+  /**
+   * Instantiates a new shard failure.
+   *
+   * @param shard the shard
+   * @param error the error, or <code>null</code> if the shard timed out
+   * @param timedOut whether the shard did not answer in time
+   */
+  ShardFailure(QueryShard shard, Exception error, boolean timedOut) {
+    this.shard = shard;
+    this.error = error;
+    this.timedOut = timedOut;
+  }
+
+  /**
+   * Gets the shard.
+   *
+   * @return the shard
+   */
+  public QueryShard getShard() {
+    return shard;
+  }
+
+  /**
+   * Gets the error returned by the shard.
+   *
+   * @return the error, or <code>null</code> if the shard timed out
+   */
+  public Exception getError() {
+    return error;
+  }
+
+  /**
+   * Checks whether the shard did not answer before the timeout.
+   *
+   * @return true if the shard timed out
+   */
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return shard + ": " + (timedOut ? "timed out" : String.valueOf(error));
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.ingest;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ibm.watson.developer_cloud.discovery.v1.model.DocumentAccepted;
+import com.ibm.watson.developer_cloud.discovery.v1.model.DocumentStatus;
+
+/**
+ * An empty implementation of {@link IngestionListener} interface.
+ */
+public class BaseIngestionListener implements IngestionListener {
+
+  private static final Logger LOG = Logger.getLogger(BaseIngestionListener.class.getName());
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.IngestionListener#onAccepted(DocumentSource,
+   * DocumentAccepted)
+   */
+  @Override
+  public void onAccepted(DocumentSource source, DocumentAccepted accepted) { }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.IngestionListener#onStatus(DocumentStatus)
+   */
+  @Override
+  public void onStatus(DocumentStatus status) { }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.IngestionListener#onFailure(DocumentSource, Exception)
+   */
+  @Override
+  public void onFailure(DocumentSource source, Exception e) {
+    LOG.log(Level.SEVERE, "Error adding " + source.getId(), e);
+  }
+}
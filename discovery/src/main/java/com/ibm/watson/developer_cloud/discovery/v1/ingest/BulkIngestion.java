@@ -0,0 +1,485 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ibm.watson.developer_cloud.discovery.v1.Discovery;
+import com.ibm.watson.developer_cloud.discovery.v1.model.AddDocumentOptions;
+import com.ibm.watson.developer_cloud.discovery.v1.model.DocumentAccepted;
+import com.ibm.watson.developer_cloud.discovery.v1.model.DocumentStatus;
+import com.ibm.watson.developer_cloud.discovery.v1.model.GetDocumentStatusOptions;
+import com.ibm.watson.developer_cloud.service.exception.TooManyRequestsException;
+import com.ibm.watson.developer_cloud.util.AdaptiveConcurrencyLimiter;
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * Adds large numbers of documents to a Discovery collection.
+ * <p>
+ * Sources are read lazily from an {@link Iterator} and each one is streamed to {@link Discovery#addDocument} without
+ * being buffered in memory. Uploads run concurrently under an {@link AdaptiveConcurrencyLimiter}, so the number of
+ * requests in flight grows while the service keeps up and is halved when it answers with HTTP 429; throttled and
+ * other {@link AdaptiveConcurrencyLimiter#isRetryable(Throwable) retryable} uploads are retried with backoff. The
+ * producer blocks while the limit is reached, so no more sources are opened than can be sent.
+ * <p>
+ * Accepted documents are then followed with {@link Discovery#getDocumentStatus} from a single background poller that
+ * checks a batch of processing documents per round. When an {@link IngestionJournal} is configured, an interrupted run
+ * can be resumed: sources already accepted are skipped and documents still processing are tracked again.
+ *
+ * <pre>
+ * BulkIngestion ingestion = new BulkIngestion.Builder(discovery, environmentId, collectionId)
+ *     .journal(new IngestionJournal(new File("ingestion.journal")))
+ *     .build();
+ * IngestionSummary summary = ingestion.run(DocumentSources.fromDirectory(new File("corpus")));
+ * </pre>
+ */
+public class BulkIngestion {
+
+  private static final Logger LOG = Logger.getLogger(BulkIngestion.class.getName());
+  private static final int DEFAULT_INITIAL_CONCURRENCY = 4;
+  private static final int DEFAULT_MAX_CONCURRENCY = 16;
+  private static final int DEFAULT_MAX_RETRIES = 5;
+  private static final int DEFAULT_STATUS_BATCH_SIZE = 50;
+  private static final long DEFAULT_STATUS_POLL_INTERVAL_MILLIS = 5000;
+  private static final long DEFAULT_STATUS_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+  private final Discovery discovery;
+  private final String environmentId;
+  private final String collectionId;
+  private final String metadata;
+  private final int initialConcurrency;
+  private final int maxConcurrency;
+  private final int maxRetries;
+  private final boolean trackStatus;
+  private final int statusBatchSize;
+  private final long statusPollIntervalMillis;
+  private final long statusTimeoutMillis;
+  private final IngestionJournal journal;
+  private final IngestionListener listener;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final Discovery discovery;
+    private final String environmentId;
+    private final String collectionId;
+    private String metadata;
+    private int initialConcurrency = DEFAULT_INITIAL_CONCURRENCY;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private boolean trackStatus = true;
+    private int statusBatchSize = DEFAULT_STATUS_BATCH_SIZE;
+    private long statusPollIntervalMillis = DEFAULT_STATUS_POLL_INTERVAL_MILLIS;
+    private long statusTimeoutMillis = DEFAULT_STATUS_TIMEOUT_MILLIS;
+    private IngestionJournal journal;
+    private IngestionListener listener;
+
+    /**
+     * Instantiates a new builder with required properties.
+     *
+     * @param discovery the Discovery service
+     * @param environmentId the environment id
+     * @param collectionId the collection id
+     */
+    public Builder(Discovery discovery, String environmentId, String collectionId) {
+      this.discovery = discovery;
+      this.environmentId = environmentId;
+      this.collectionId = collectionId;
+    }
+
+    /**
+     * Set the metadata added to every document.
+     *
+     * @param metadata the metadata, as a JSON object
+     * @return the BulkIngestion builder
+     */
+    public Builder metadata(String metadata) {
+      this.metadata = metadata;
+      return this;
+    }
+
+    /**
+     * Set the initial and maximum number of concurrent requests.
+     *
+     * @param initialConcurrency the number of concurrent requests to start with
+     * @param maxConcurrency the maximum number of concurrent requests
+     * @return the BulkIngestion builder
+     */
+    public Builder concurrency(int initialConcurrency, int maxConcurrency) {
+      this.initialConcurrency = initialConcurrency;
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of times an upload that failed with a
+     * {@link AdaptiveConcurrencyLimiter#isRetryable(Throwable) retryable} error is retried.
+     *
+     * @param maxRetries the maximum number of retries
+     * @return the BulkIngestion builder
+     */
+    public Builder maxRetries(int maxRetries) {
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    /**
+     * Set whether the processing status of the accepted documents is followed until they are available or failed.
+     * Defaults to true.
+     *
+     * @param trackStatus true to follow the processing status
+     * @return the BulkIngestion builder
+     */
+    public Builder trackStatus(boolean trackStatus) {
+      this.trackStatus = trackStatus;
+      return this;
+    }
+
+    /**
+     * Set how the processing status is polled.
+     *
+     * @param batchSize the maximum number of documents checked per round
+     * @param interval the delay between rounds
+     * @param timeout how long to wait for the documents to finish processing once all of them are uploaded
+     * @param unit the time unit of the interval and the timeout
+     * @return the BulkIngestion builder
+     */
+    public Builder statusPolling(int batchSize, long interval, long timeout, TimeUnit unit) {
+      this.statusBatchSize = batchSize;
+      this.statusPollIntervalMillis = unit.toMillis(interval);
+      this.statusTimeoutMillis = unit.toMillis(timeout);
+      return this;
+    }
+
+    /**
+     * Set the journal used to resume an interrupted run.
+     *
+     * @param journal the journal
+     * @return the BulkIngestion builder
+     */
+    public Builder journal(IngestionJournal journal) {
+      this.journal = journal;
+      return this;
+    }
+
+    /**
+     * Set the listener notified of the progress of the run.
+     *
+     * @param listener the listener
+     * @return the BulkIngestion builder
+     */
+    public Builder listener(IngestionListener listener) {
+      this.listener = listener;
+      return this;
+    }
+
+    /**
+     * Builds a BulkIngestion.
+     *
+     * @return the bulk ingestion
+     */
+    public BulkIngestion build() {
+      return new BulkIngestion(this);
+    }
+  }
+
+  private BulkIngestion(Builder builder) {
+    Validator.notNull(builder.discovery, "discovery cannot be null");
+    Validator.notEmpty(builder.environmentId, "environmentId cannot be empty");
+    Validator.notEmpty(builder.collectionId, "collectionId cannot be empty");
+    Validator.isTrue(builder.initialConcurrency > 0, "initialConcurrency must be greater than 0");
+    Validator.isTrue(builder.maxConcurrency >= builder.initialConcurrency,
+        "maxConcurrency must be greater than or equal to initialConcurrency");
+    Validator.isTrue(builder.statusBatchSize > 0, "statusBatchSize must be greater than 0");
+    discovery = builder.discovery;
+    environmentId = builder.environmentId;
+    collectionId = builder.collectionId;
+    metadata = builder.metadata;
+    initialConcurrency = builder.initialConcurrency;
+    maxConcurrency = builder.maxConcurrency;
+    maxRetries = builder.maxRetries;
+    trackStatus = builder.trackStatus;
+    statusBatchSize = builder.statusBatchSize;
+    statusPollIntervalMillis = builder.statusPollIntervalMillis;
+    statusTimeoutMillis = builder.statusTimeoutMillis;
+    journal = builder.journal;
+    listener = (builder.listener != null) ? builder.listener : new BaseIngestionListener();
+  }
+
+  /**
+   * Uploads all the sources and, unless disabled, waits for the accepted documents to finish processing.
+   *
+   * @param sources the sources to add to the collection
+   * @return the summary of the run
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public IngestionSummary run(Iterator<DocumentSource> sources) throws InterruptedException {
+    Validator.notNull(sources, "sources cannot be null");
+    return new Run().execute(sources);
+  }
+
+  /**
+   * The state of a single run.
+   */
+  private final class Run {
+    private final AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(initialConcurrency, maxConcurrency);
+    private final Phaser uploads = new Phaser(1);
+    private final Queue<String> processing = new ConcurrentLinkedQueue<String>();
+    private final AtomicInteger processingCount = new AtomicInteger();
+    private final AtomicInteger accepted = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger available = new AtomicInteger();
+    private final AtomicInteger processingFailed = new AtomicInteger();
+    private final List<String> failedSourceIds = Collections.synchronizedList(new ArrayList<String>());
+
+    IngestionSummary execute(Iterator<DocumentSource> sources) throws InterruptedException {
+      final ExecutorService workers = Executors.newFixedThreadPool(maxConcurrency,
+          new DaemonThreadFactory("discovery-ingestion"));
+      ScheduledExecutorService poller = null;
+      try {
+        if (trackStatus) {
+          if (journal != null) {
+            for (String documentId : journal.getProcessingDocumentIds()) {
+              track(documentId);
+            }
+          }
+          poller = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("discovery-ingestion-status"));
+          poller.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+              pollStatus();
+            }
+          }, statusPollIntervalMillis, statusPollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        while (sources.hasNext()) {
+          final DocumentSource source = sources.next();
+          if ((journal != null) && journal.isAccepted(source.getId())) {
+            skipped.incrementAndGet();
+            continue;
+          }
+          limiter.acquire();
+          uploads.register();
+          workers.execute(new Runnable() {
+            @Override
+            public void run() {
+              try {
+                upload(source);
+              } finally {
+                uploads.arriveAndDeregister();
+              }
+            }
+          });
+        }
+        uploads.awaitAdvanceInterruptibly(uploads.arrive());
+
+        final long deadline = System.currentTimeMillis() + statusTimeoutMillis;
+        while (trackStatus && (processingCount.get() > 0) && (System.currentTimeMillis() < deadline)) {
+          Thread.sleep(Math.min(statusPollIntervalMillis, Math.max(1, deadline - System.currentTimeMillis())));
+        }
+      } finally {
+        workers.shutdownNow();
+        if (poller != null) {
+          poller.shutdownNow();
+        }
+      }
+      return summary();
+    }
+
+    /**
+     * Uploads a source. Called with a permit of the limiter already acquired.
+     */
+    private void upload(DocumentSource source) {
+      for (int attempt = 0;; attempt++) {
+        final DocumentAccepted response;
+        InputStream content = null;
+        try {
+          content = source.openStream();
+          final AddDocumentOptions.Builder options = new AddDocumentOptions.Builder(environmentId, collectionId)
+              .file(content).filename(source.getFilename()).fileContentType(source.getContentType());
+          if (metadata != null) {
+            options.metadata(metadata);
+          }
+          response = discovery.addDocument(options.build()).execute();
+        } catch (RuntimeException e) {
+          if (e instanceof TooManyRequestsException) {
+            limiter.onThrottled();
+          } else {
+            limiter.onFailure();
+          }
+          if (!AdaptiveConcurrencyLimiter.isRetryable(e) || !source.isReplayable() || (attempt >= maxRetries)
+              || !retryAfter(AdaptiveConcurrencyLimiter.backoffMillis(e, attempt))) {
+            fail(source, e);
+            return;
+          }
+          continue;
+        } catch (IOException e) {
+          limiter.onFailure();
+          fail(source, e);
+          return;
+        } finally {
+          closeQuietly(content);
+        }
+        limiter.onSuccess();
+        accept(source, response);
+        return;
+      }
+    }
+
+    /**
+     * Records a document accepted by the service. The document is accepted whatever happens here, so errors of the
+     * journal and the listener are logged rather than counted as failures.
+     */
+    private void accept(DocumentSource source, DocumentAccepted response) {
+      accepted.incrementAndGet();
+      if (trackStatus) {
+        track(response.getDocumentId());
+      }
+      try {
+        if (journal != null) {
+          journal.recordAccepted(source.getId(), response.getDocumentId());
+        }
+        listener.onAccepted(source, response);
+      } catch (RuntimeException e) {
+        LOG.log(Level.WARNING, "Error recording the acceptance of source " + source.getId(), e);
+      }
+    }
+
+    /**
+     * Waits for the backoff delay and acquires a new permit.
+     *
+     * @return false if the thread was interrupted
+     */
+    private boolean retryAfter(long delayMillis) {
+      try {
+        Thread.sleep(delayMillis);
+        limiter.acquire();
+        return true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    private void fail(DocumentSource source, Exception e) {
+      failedSourceIds.add(source.getId());
+      try {
+        listener.onFailure(source, e);
+      } catch (RuntimeException listenerError) {
+        LOG.log(Level.WARNING, "Error reporting the failure of source " + source.getId(), listenerError);
+      }
+    }
+
+    private void track(String documentId) {
+      processingCount.incrementAndGet();
+      processing.add(documentId);
+    }
+
+    /**
+     * Checks the status of up to a batch of processing documents. Runs on the poller thread.
+     */
+    private void pollStatus() {
+      final int batch = Math.min(statusBatchSize, processing.size());
+      for (int i = 0; i < batch; i++) {
+        final String documentId = processing.poll();
+        if (documentId == null) {
+          return;
+        }
+        try {
+          limiter.acquire();
+        } catch (InterruptedException e) {
+          processing.add(documentId);
+          Thread.currentThread().interrupt();
+          return;
+        }
+        final DocumentStatus status;
+        try {
+          status = discovery.getDocumentStatus(new GetDocumentStatusOptions.Builder(environmentId, collectionId,
+              documentId).build()).execute();
+        } catch (TooManyRequestsException e) {
+          limiter.onThrottled();
+          processing.add(documentId);
+          return;
+        } catch (RuntimeException e) {
+          limiter.onFailure();
+          processing.add(documentId);
+          LOG.log(Level.WARNING, "Error getting the status of document " + documentId, e);
+          continue;
+        }
+        limiter.onSuccess();
+        if (DocumentStatus.Status.PROCESSING.equals(status.getStatus())) {
+          processing.add(documentId);
+        } else {
+          finish(documentId, status);
+        }
+      }
+    }
+
+    private void finish(String documentId, DocumentStatus status) {
+      if (DocumentStatus.Status.FAILED.equals(status.getStatus())) {
+        processingFailed.incrementAndGet();
+      } else {
+        available.incrementAndGet();
+      }
+      processingCount.decrementAndGet();
+      try {
+        if (journal != null) {
+          journal.recordStatus(documentId, status.getStatus());
+        }
+        listener.onStatus(status);
+      } catch (RuntimeException e) {
+        LOG.log(Level.WARNING, "Error recording the status of document " + documentId, e);
+      }
+    }
+
+    private IngestionSummary summary() {
+      final IngestionSummary summary = new IngestionSummary();
+      summary.setAccepted(accepted.get());
+      summary.setSkipped(skipped.get());
+      summary.setFailed(failedSourceIds.size());
+      summary.setAvailable(available.get());
+      summary.setProcessingFailed(processingFailed.get());
+      summary.setProcessing(processingCount.get());
+      summary.setFailedSourceIds(new ArrayList<String>(failedSourceIds));
+      return summary;
+    }
+  }
+
+  private static void closeQuietly(InputStream stream) {
+    if (stream != null) {
+      try {
+        stream.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+}
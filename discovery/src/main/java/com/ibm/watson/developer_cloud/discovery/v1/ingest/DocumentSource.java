@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A document to be added to a collection by a {@link BulkIngestion}.
+ */
+public interface DocumentSource {
+
+  /**
+   * Gets the id that identifies this source in the ingestion journal. It must be stable across runs for an interrupted
+   * run to be resumed.
+   *
+   * @return the id
+   */
+  String getId();
+
+  /**
+   * Gets the filename sent to the service.
+   *
+   * @return the filename
+   */
+  String getFilename();
+
+  /**
+   * Gets the media type of the document, or null to let the service detect it.
+   *
+   * @return the content type
+   */
+  String getContentType();
+
+  /**
+   * Opens the content of the document. The stream is closed by the caller once the document has been uploaded.
+   *
+   * @return the content
+   * @throws IOException if the content cannot be opened
+   */
+  InputStream openStream() throws IOException;
+
+  /**
+   * Checks if {@link #openStream()} can be called more than once, which is required to retry a rejected upload.
+   *
+   * @return true, if the content can be read again
+   */
+  boolean isReplayable();
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.ingest;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * Utility methods to create the {@link DocumentSource}s of a {@link BulkIngestion}.
+ */
+public final class DocumentSources {
+
+  private DocumentSources() {
+    // This is a utility class - no instantiation allowed.
+  }
+
+  /**
+   * Returns the files of a directory and its sub-directories as document sources. The directory tree is walked lazily,
+   * one directory listing at a time, so very large trees are not loaded into memory up front.
+   *
+   * @param directory the directory
+   * @return an iterator over the files, in name order within each directory
+   */
+  public static Iterator<DocumentSource> fromDirectory(final File directory) {
+    Validator.isTrue((directory != null) && directory.isDirectory(), "directory must be a directory");
+    return new DirectoryIterator(directory);
+  }
+
+  /**
+   * Returns the given files as document sources.
+   *
+   * @param files the files
+   * @return an iterator over the files
+   */
+  public static Iterator<DocumentSource> fromFiles(final Iterable<File> files) {
+    Validator.notNull(files, "files cannot be null");
+    final Iterator<File> iterator = files.iterator();
+    return new Iterator<DocumentSource>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public DocumentSource next() {
+        return new FileDocumentSource(iterator.next());
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Depth-first walk of a directory tree.
+   */
+  private static class DirectoryIterator implements Iterator<DocumentSource> {
+    private final Deque<Iterator<File>> stack = new ArrayDeque<Iterator<File>>();
+    private File next;
+
+    DirectoryIterator(File directory) {
+      push(directory);
+    }
+
+    private void push(File directory) {
+      final File[] children = directory.listFiles();
+      if (children != null) {
+        Arrays.sort(children);
+        stack.push(Arrays.asList(children).iterator());
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      while ((next == null) && !stack.isEmpty()) {
+        final Iterator<File> current = stack.peek();
+        if (!current.hasNext()) {
+          stack.pop();
+          continue;
+        }
+        final File file = current.next();
+        if (file.isDirectory()) {
+          push(file);
+        } else if (file.isFile()) {
+          next = file;
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public DocumentSource next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final DocumentSource source = new FileDocumentSource(next);
+      next = null;
+      return source;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
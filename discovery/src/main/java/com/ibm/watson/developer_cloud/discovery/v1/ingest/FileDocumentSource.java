@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.ingest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * {@link DocumentSource} backed by a local file. The file is only opened when it is uploaded.
+ */
+public class FileDocumentSource implements DocumentSource {
+
+  private final File file;
+  private final String contentType;
+
+  /**
+   * Instantiates a new file document source, letting the service detect the media type.
+   *
+   * @param file the file
+   */
+  public FileDocumentSource(File file) {
+    this(file, null);
+  }
+
+  /**
+   * Instantiates a new file document source.
+   *
+   * @param file the file
+   * @param contentType the media type of the file
+   */
+  public FileDocumentSource(File file, String contentType) {
+    Validator.notNull(file, "file cannot be null");
+    this.file = file;
+    this.contentType = contentType;
+  }
+
+  /**
+   * Gets the file.
+   *
+   * @return the file
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.DocumentSource#getId()
+   */
+  @Override
+  public String getId() {
+    return file.getAbsolutePath();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.DocumentSource#getFilename()
+   */
+  @Override
+  public String getFilename() {
+    return file.getName();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.DocumentSource#getContentType()
+   */
+  @Override
+  public String getContentType() {
+    return contentType;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.DocumentSource#openStream()
+   */
+  @Override
+  public InputStream openStream() throws IOException {
+    return new FileInputStream(file);
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.DocumentSource#isReplayable()
+   */
+  @Override
+  public boolean isReplayable() {
+    return true;
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.ingest;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ibm.watson.developer_cloud.util.RequestUtils;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * Append-only local journal of a {@link BulkIngestion}. It records which sources have been accepted by the service,
+ * with their document id, and which documents reached a final processing status. A run that uses the same journal
+ * skips the accepted sources and resumes tracking the documents that were still processing.
+ * <p>
+ * Every line is flushed as soon as it is written, so at most the document being uploaded when the process died is
+ * sent again.
+ */
+public class IngestionJournal implements Closeable {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String ACCEPTED = "A";
+  private static final String STATUS = "S";
+  private static final String SEPARATOR = "\t";
+
+  private final File file;
+  private final Map<String, String> acceptedSources = new HashMap<String, String>();
+  private final Set<String> finishedDocuments = new HashSet<String>();
+  private Writer writer;
+
+  /**
+   * Opens a journal, loading its entries if the file already exists.
+   *
+   * @param file the journal file
+   * @throws IOException if the journal cannot be read or opened for writing
+   */
+  public IngestionJournal(File file) throws IOException {
+    Validator.notNull(file, "file cannot be null");
+    this.file = file;
+    if (file.exists()) {
+      load();
+    }
+    writer = new OutputStreamWriter(new FileOutputStream(file, true), UTF_8);
+  }
+
+  private void load() throws IOException {
+    final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        final String[] parts = line.split(SEPARATOR);
+        if ((parts.length == 3) && ACCEPTED.equals(parts[0])) {
+          acceptedSources.put(decode(parts[1]), decode(parts[2]));
+        } else if ((parts.length == 3) && STATUS.equals(parts[0])) {
+          finishedDocuments.add(decode(parts[1]));
+        }
+        // ignore a truncated last line
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Checks if a source has already been accepted by the service.
+   *
+   * @param sourceId the id of the source
+   * @return true, if the source was accepted in this or a previous run
+   */
+  public synchronized boolean isAccepted(String sourceId) {
+    return acceptedSources.containsKey(sourceId);
+  }
+
+  /**
+   * Gets the ids of the documents that were accepted but have not reached a final status.
+   *
+   * @return the document ids
+   */
+  public synchronized List<String> getProcessingDocumentIds() {
+    final List<String> ids = new ArrayList<String>();
+    for (String documentId : acceptedSources.values()) {
+      if (!finishedDocuments.contains(documentId)) {
+        ids.add(documentId);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Records that a source has been accepted by the service.
+   *
+   * @param sourceId the id of the source
+   * @param documentId the id of the document created by the service
+   */
+  public synchronized void recordAccepted(String sourceId, String documentId) {
+    acceptedSources.put(sourceId, documentId);
+    append(ACCEPTED, sourceId, documentId);
+  }
+
+  /**
+   * Records that a document reached a final processing status.
+   *
+   * @param documentId the id of the document
+   * @param status the status
+   */
+  public synchronized void recordStatus(String documentId, String status) {
+    finishedDocuments.add(documentId);
+    append(STATUS, documentId, status);
+  }
+
+  private void append(String type, String first, String second) {
+    Validator.notNull(writer, "the journal is closed");
+    try {
+      writer.write(type + SEPARATOR + RequestUtils.encode(first) + SEPARATOR + RequestUtils.encode(second) + "\n");
+      writer.flush();
+    } catch (IOException e) {
+      throw new RuntimeException("Error writing to the ingestion journal " + file, e);
+    }
+  }
+
+  private static String decode(String value) {
+    try {
+      return URLDecoder.decode(value, "UTF-8");
+    } catch (final UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.ingest;
+
+import com.ibm.watson.developer_cloud.discovery.v1.model.DocumentAccepted;
+import com.ibm.watson.developer_cloud.discovery.v1.model.DocumentStatus;
+
+/**
+ * Receives the progress of a {@link BulkIngestion}. Methods are called from the ingestion worker threads, so
+ * implementations must be thread-safe.
+ */
+public interface IngestionListener {
+
+  /**
+   * Called when the service accepted a document for processing.
+   *
+   * @param source the source of the document
+   * @param accepted the response of the service
+   */
+  void onAccepted(DocumentSource source, DocumentAccepted accepted);
+
+  /**
+   * Called when a document reached a final processing status (available, available with notices or failed).
+   *
+   * @param status the status of the document
+   */
+  void onStatus(DocumentStatus status);
+
+  /**
+   * Called when a document could not be uploaded.
+   *
+   * @param source the source of the document
+   * @param e the exception
+   */
+  void onFailure(DocumentSource source, Exception e);
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.ingest;
+
+import java.util.List;
+
+import com.ibm.watson.developer_cloud.service.model.GenericModel;
+
+/**
+ * The outcome of a {@link BulkIngestion} run.
+ */
+public class IngestionSummary extends GenericModel {
+
+  private int accepted;
+  private int skipped;
+  private int failed;
+  private int available;
+  private int processingFailed;
+  private int processing;
+  private List<String> failedSourceIds;
+
+  /**
+   * Gets the accepted.
+   *
+   * The number of documents accepted by the service in this run.
+   *
+   * @return the accepted
+   */
+  public int getAccepted() {
+    return accepted;
+  }
+
+  /**
+   * Gets the skipped.
+   *
+   * The number of sources skipped because the journal shows they were accepted in a previous run.
+   *
+   * @return the skipped
+   */
+  public int getSkipped() {
+    return skipped;
+  }
+
+  /**
+   * Gets the failed.
+   *
+   * The number of sources that could not be uploaded.
+   *
+   * @return the failed
+   */
+  public int getFailed() {
+    return failed;
+  }
+
+  /**
+   * Gets the available.
+   *
+   * The number of documents that became available, with or without notices.
+   *
+   * @return the available
+   */
+  public int getAvailable() {
+    return available;
+  }
+
+  /**
+   * Gets the processingFailed.
+   *
+   * The number of documents the service failed to process.
+   *
+   * @return the processingFailed
+   */
+  public int getProcessingFailed() {
+    return processingFailed;
+  }
+
+  /**
+   * Gets the processing.
+   *
+   * The number of documents still processing when the run ended.
+   *
+   * @return the processing
+   */
+  public int getProcessing() {
+    return processing;
+  }
+
+  /**
+   * Gets the failedSourceIds.
+   *
+   * The ids of the sources that could not be uploaded.
+   *
+   * @return the failedSourceIds
+   */
+  public List<String> getFailedSourceIds() {
+    return failedSourceIds;
+  }
+
+  /**
+   * Sets the accepted.
+   *
+   * @param accepted the new accepted
+   */
+  public void setAccepted(final int accepted) {
+    this.accepted = accepted;
+  }
+
+  /**
+   * Sets the skipped.
+   *
+   * @param skipped the new skipped
+   */
+  public void setSkipped(final int skipped) {
+    this.skipped = skipped;
+  }
+
+  /**
+   * Sets the failed.
+   *
+   * @param failed the new failed
+   */
+  public void setFailed(final int failed) {
+    this.failed = failed;
+  }
+
+  /**
+   * Sets the available.
+   *
+   * @param available the new available
+   */
+  public void setAvailable(final int available) {
+    this.available = available;
+  }
+
+  /**
+   * Sets the processingFailed.
+   *
+   * @param processingFailed the new processingFailed
+   */
+  public void setProcessingFailed(final int processingFailed) {
+    this.processingFailed = processingFailed;
+  }
+
+  /**
+   * Sets the processing.
+   *
+   * @param processing the new processing
+   */
+  public void setProcessing(final int processing) {
+    this.processing = processing;
+  }
+
+  /**
+   * Sets the failedSourceIds.
+   *
+   * @param failedSourceIds the new failedSourceIds
+   */
+  public void setFailedSourceIds(final List<String> failedSourceIds) {
+    this.failedSourceIds = failedSourceIds;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.ingest;
+
+import java.io.InputStream;
+
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * {@link DocumentSource} backed by an {@link InputStream}. The stream can only be read once, so a rejected upload is
+ * reported as a failure instead of being retried.
+ */
+public class InputStreamDocumentSource implements DocumentSource {
+
+  private final String id;
+  private final String filename;
+  private final String contentType;
+  private InputStream stream;
+
+  /**
+   * Instantiates a new input stream document source.
+   *
+   * @param id the id of the source in the ingestion journal
+   * @param filename the filename sent to the service
+   * @param stream the content
+   * @param contentType the media type of the content, or null to let the service detect it
+   */
+  public InputStreamDocumentSource(String id, String filename, InputStream stream, String contentType) {
+    Validator.notEmpty(id, "id cannot be empty");
+    Validator.notEmpty(filename, "filename cannot be empty");
+    Validator.notNull(stream, "stream cannot be null");
+    this.id = id;
+    this.filename = filename;
+    this.stream = stream;
+    this.contentType = contentType;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.DocumentSource#getId()
+   */
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.DocumentSource#getFilename()
+   */
+  @Override
+  public String getFilename() {
+    return filename;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.DocumentSource#getContentType()
+   */
+  @Override
+  public String getContentType() {
+    return contentType;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.DocumentSource#openStream()
+   */
+  @Override
+  public synchronized InputStream openStream() {
+    Validator.notNull(stream, "the stream of " + id + " has already been consumed");
+    final InputStream result = stream;
+    stream = null;
+    return result;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.discovery.v1.ingest.DocumentSource#isReplayable()
+   */
+  @Override
+  public boolean isReplayable() {
+    return false;
+  }
+}
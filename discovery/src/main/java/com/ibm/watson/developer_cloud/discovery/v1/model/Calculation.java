@@ -29,4 +29,13 @@ public class Calculation extends QueryAggregation {
   public Double getValue() {
     return value;
   }
+
+  /**
+   * Sets the value.
+   *
+   * @param value the new value
+   */
+  public void setValue(final Double value) {
+    this.value = value;
+  }
 }
@@ -29,4 +29,13 @@ public class Histogram extends QueryAggregation {
   public Long getInterval() {
     return interval;
   }
+
+  /**
+   * Sets the interval.
+   *
+   * @param interval the new interval
+   */
+  public void setInterval(final long interval) {
+    this.interval = interval;
+  }
 }
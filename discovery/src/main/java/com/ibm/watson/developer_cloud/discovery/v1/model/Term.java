@@ -27,4 +27,13 @@ public class Term extends QueryAggregation {
   public Long getCount() {
     return count;
   }
+
+  /**
+   * Sets the count.
+   *
+   * @param count the new count
+   */
+  public void setCount(final long count) {
+    this.count = count;
+  }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.discovery.v1.Discovery;
+import com.ibm.watson.developer_cloud.discovery.v1.model.AddDocumentOptions;
+import com.ibm.watson.developer_cloud.discovery.v1.model.GetCollectionOptions;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryOptions;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryResponse;
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+
+import okhttp3.mockwebserver.MockResponse;
+
+/**
+ * Unit tests for the {@link QueryCache}.
+ */
+public class QueryCacheTest extends WatsonServiceUnitTest {
+  private static final String ENVIRONMENT_ID = "mock_envid";
+  private static final String COLLECTION_ID = "mock_collid";
+  private static final String QUERY_RESPONSE = "{\"matching_results\":1,\"results\":[{\"id\":\"doc1\"}]}";
+
+  private Discovery discovery;
+  private QueryCache cache;
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    discovery = new Discovery(Discovery.VERSION_DATE_2017_09_01);
+    discovery.setApiKey("");
+    discovery.setEndPoint(getMockWebServerUrl());
+    cache = new QueryCache.Builder().build();
+    discovery.setQueryCache(cache);
+  }
+
+  /**
+   * Test that queries with equivalent options are served from the cache.
+   */
+  @Test
+  public void testEquivalentQueriesHitCache() {
+    server.enqueue(new MockResponse().setBody(QUERY_RESPONSE));
+
+    final QueryResponse first = discovery.query(new QueryOptions.Builder(ENVIRONMENT_ID, COLLECTION_ID)
+        .query("enriched_text.concepts.text:water ").addReturnField("title").addReturnField("id").build()).execute();
+    final QueryResponse second = discovery.query(new QueryOptions.Builder(ENVIRONMENT_ID, COLLECTION_ID)
+        .query("enriched_text.concepts.text:water").addReturnField("id").addReturnField("title").build()).execute();
+
+    assertSame(first, second);
+    assertEquals(1, server.getRequestCount());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(0.5, cache.getHitRate(), 0);
+  }
+
+  /**
+   * Test that an option value cannot be mistaken for another option in the cache key.
+   */
+  @Test
+  public void testKeyDoesNotMixUpOptions() {
+    final QueryOptions injected = new QueryOptions.Builder(ENVIRONMENT_ID, COLLECTION_ID)
+        .query("a\nnatural_language_query=b").build();
+    final QueryOptions separate = new QueryOptions.Builder(ENVIRONMENT_ID, COLLECTION_ID)
+        .query("a").naturalLanguageQuery("b").build();
+
+    assertNotEquals(QueryCache.key(separate), QueryCache.key(injected));
+  }
+
+  /**
+   * Test that adding a document invalidates the collection.
+   */
+  @Test
+  public void testAddDocumentInvalidatesCollection() {
+    final QueryOptions options = new QueryOptions.Builder(ENVIRONMENT_ID, COLLECTION_ID).query("a").build();
+    server.enqueue(new MockResponse().setBody(QUERY_RESPONSE));
+    server.enqueue(new MockResponse().setBody("{\"document_id\":\"doc2\",\"status\":\"processing\"}"));
+    server.enqueue(new MockResponse().setBody(QUERY_RESPONSE));
+
+    discovery.query(options).execute();
+    discovery.addDocument(new AddDocumentOptions.Builder(ENVIRONMENT_ID, COLLECTION_ID).metadata("{}").build())
+        .execute();
+    assertEquals(0, cache.size());
+    discovery.query(options).execute();
+
+    assertEquals(3, server.getRequestCount());
+    assertEquals(0, cache.getHitCount());
+  }
+
+  /**
+   * Test that a change in the document counts returned by getCollection invalidates the collection.
+   */
+  @Test
+  public void testDocumentCountChangeInvalidatesCollection() {
+    final QueryOptions options = new QueryOptions.Builder(ENVIRONMENT_ID, COLLECTION_ID).query("a").build();
+    final GetCollectionOptions getCollection = new GetCollectionOptions.Builder(ENVIRONMENT_ID, COLLECTION_ID).build();
+    server.enqueue(new MockResponse().setBody(collection(10)));
+    server.enqueue(new MockResponse().setBody(QUERY_RESPONSE));
+    server.enqueue(new MockResponse().setBody(collection(10)));
+    server.enqueue(new MockResponse().setBody(collection(11)));
+    server.enqueue(new MockResponse().setBody(QUERY_RESPONSE));
+
+    discovery.getCollection(getCollection).execute();
+    discovery.query(options).execute();
+    discovery.getCollection(getCollection).execute();
+    discovery.query(options).execute();
+    assertEquals(1, cache.getHitCount());
+
+    discovery.getCollection(getCollection).execute();
+    discovery.query(options).execute();
+    assertEquals(1, cache.getHitCount());
+    assertEquals(5, server.getRequestCount());
+  }
+
+  /**
+   * Test that a response is not cached if the collection was invalidated while the query was in flight.
+   */
+  @Test
+  public void testInvalidationDuringQueryIsNotCached() {
+    final QueryOptions options = new QueryOptions.Builder(ENVIRONMENT_ID, COLLECTION_ID).query("a").build();
+    final QueryCache queryCache = new QueryCache.Builder().build();
+
+    final CachedServiceCall<QueryResponse> call = new CachedServiceCall<QueryResponse>(new QueryResponse());
+    final ServiceCall<QueryResponse> storing = queryCache.store(options, call);
+    queryCache.invalidate(ENVIRONMENT_ID, COLLECTION_ID);
+    storing.execute();
+
+    assertNull(queryCache.lookup(options));
+  }
+
+  /**
+   * Test that a response is not cached if the whole cache was invalidated while the query was in flight, even for a
+   * collection that was never invalidated before.
+   */
+  @Test
+  public void testInvalidateAllDuringQueryIsNotCached() {
+    final QueryOptions options = new QueryOptions.Builder(ENVIRONMENT_ID, COLLECTION_ID).query("a").build();
+    final QueryCache queryCache = new QueryCache.Builder().build();
+
+    final CachedServiceCall<QueryResponse> call = new CachedServiceCall<QueryResponse>(new QueryResponse());
+    final ServiceCall<QueryResponse> storing = queryCache.store(options, call);
+    queryCache.invalidateAll();
+    storing.execute();
+
+    assertNull(queryCache.lookup(options));
+  }
+
+  /**
+   * Test that the least recently used entry is evicted.
+   */
+  @Test
+  public void testLruEviction() {
+    final QueryCache queryCache = new QueryCache.Builder().maxEntries(2).evictionPolicy(EvictionPolicy.LRU).build();
+    final QueryOptions a = query("a");
+    final QueryOptions b = query("b");
+    final QueryOptions c = query("c");
+
+    fill(queryCache, a);
+    fill(queryCache, b);
+    assertNotNull(queryCache.lookup(a));
+    fill(queryCache, c);
+
+    assertNotNull(queryCache.lookup(a));
+    assertNull(queryCache.lookup(b));
+    assertNotNull(queryCache.lookup(c));
+    assertEquals(1, queryCache.getEvictionCount());
+  }
+
+  /**
+   * Test that the least frequently used entry is evicted.
+   */
+  @Test
+  public void testLfuEviction() {
+    final QueryCache queryCache = new QueryCache.Builder().maxEntries(2).evictionPolicy(EvictionPolicy.LFU).build();
+    final QueryOptions a = query("a");
+    final QueryOptions b = query("b");
+    final QueryOptions c = query("c");
+
+    fill(queryCache, a);
+    fill(queryCache, b);
+    queryCache.lookup(b);
+    queryCache.lookup(b);
+    queryCache.lookup(a);
+    fill(queryCache, c);
+
+    assertNull(queryCache.lookup(a));
+    assertNotNull(queryCache.lookup(b));
+    assertNotNull(queryCache.lookup(c));
+  }
+
+  private static QueryOptions query(String query) {
+    return new QueryOptions.Builder(ENVIRONMENT_ID, COLLECTION_ID).query(query).build();
+  }
+
+  private static void fill(QueryCache queryCache, QueryOptions options) {
+    queryCache.store(options, new CachedServiceCall<QueryResponse>(new QueryResponse())).execute();
+  }
+
+  private static String collection(int available) {
+    return "{\"collection_id\":\"" + COLLECTION_ID + "\",\"document_counts\":{\"available\":" + available
+        + ",\"processing\":0,\"failed\":0}}";
+  }
+}
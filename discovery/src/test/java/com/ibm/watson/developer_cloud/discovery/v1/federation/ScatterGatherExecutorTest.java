@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.federation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.discovery.v1.Discovery;
+import com.ibm.watson.developer_cloud.discovery.v1.model.AggregationResult;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryAggregation;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryOptions;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryResponse;
+import com.ibm.watson.developer_cloud.discovery.v1.model.QueryResult;
+import com.ibm.watson.developer_cloud.discovery.v1.model.Term;
+import com.ibm.watson.developer_cloud.service.exception.InternalServerErrorException;
+import com.ibm.watson.developer_cloud.util.GsonSingleton;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for the {@link ScatterGatherExecutor}.
+ */
+public class ScatterGatherExecutorTest extends WatsonServiceUnitTest {
+  private static final String ENVIRONMENT_ID = "mock_envid";
+
+  private Discovery discovery;
+  private ScatterGatherExecutor executor;
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    discovery = new Discovery(Discovery.VERSION_DATE_2017_09_01);
+    discovery.setApiKey("");
+    discovery.setEndPoint(getMockWebServerUrl());
+
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        final String path = request.getPath();
+        if (path.contains("/collections/a/")) {
+          return new MockResponse().setBody(response(10, "a1", 0.9, "a2", 0.5, "x", 4, "y", 6));
+        } else if (path.contains("/collections/b/")) {
+          return new MockResponse().setBody(response(20, "b1", 0.7, "b2", 0.1, "x", 5, "z", 1));
+        } else if (path.contains("/collections/slow/")) {
+          return new MockResponse().setBody(response(1, "s1", 1.0, "x", 1, "y", 1)).setBodyDelay(2,
+              TimeUnit.SECONDS);
+        }
+        return new MockResponse().setResponseCode(500).setBody("{\"error\":\"Internal error\",\"code\":500}");
+      }
+    });
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    if (executor != null) {
+      executor.shutdown();
+    }
+    super.tearDown();
+  }
+
+  /**
+   * Test that results are merged by score and term aggregations are combined, even if a shard fails.
+   *
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testMergeWithFailedShard() throws InterruptedException {
+    executor = new ScatterGatherExecutor.Builder().count(3).build();
+
+    final ScatterGatherResponse response = executor.query(Arrays.asList(shard("a"), shard("b"), shard("broken")));
+
+    assertTrue(response.isPartial());
+    assertEquals(3, response.getShardCount());
+    assertEquals(1, response.getFailures().size());
+    assertEquals(ENVIRONMENT_ID + "/broken", response.getFailures().get(0).getShard().getName());
+    assertFalse(response.getFailures().get(0).isTimedOut());
+    assertTrue(response.getFailures().get(0).getError() instanceof InternalServerErrorException);
+
+    final QueryResponse merged = response.getResponse();
+    assertEquals(30, merged.getMatchingResults().longValue());
+    assertEquals(Arrays.asList("a1", "b1", "a2"), ids(merged.getResults()));
+
+    final Term term = (Term) merged.getAggregations().get(0);
+    assertEquals("term", term.getType());
+    final List<AggregationResult> buckets = term.getResults();
+    assertEquals(3, buckets.size());
+    assertEquals("x", buckets.get(0).getKey());
+    assertEquals(9, buckets.get(0).getMatchingResults().longValue());
+    assertEquals("y", buckets.get(1).getKey());
+    assertEquals("z", buckets.get(2).getKey());
+  }
+
+  /**
+   * Test that a slow shard is reported as timed out without delaying the response.
+   *
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testSlowShardTimesOut() throws InterruptedException {
+    executor = new ScatterGatherExecutor.Builder().timeout(300, TimeUnit.MILLISECONDS).build();
+
+    final long start = System.currentTimeMillis();
+    final ScatterGatherResponse response = executor.query(Arrays.asList(shard("a"), shard("slow")));
+
+    assertTrue(System.currentTimeMillis() - start < 1500);
+    assertEquals(1, response.getFailures().size());
+    assertTrue(response.getFailures().get(0).isTimedOut());
+    assertNull(response.getFailures().get(0).getError());
+    assertEquals(Arrays.asList("a1", "a2"), ids(response.getResponse().getResults()));
+  }
+
+  /**
+   * Test that histogram buckets are combined in key order.
+   */
+  @Test
+  public void testMergeHistogram() {
+    final QueryResponse first = GsonSingleton.getGson().fromJson(
+        "{\"aggregations\":[{\"type\":\"histogram\",\"field\":\"price\",\"interval\":10,\"results\":["
+            + "{\"key\":10,\"matching_results\":2},{\"key\":30,\"matching_results\":1}]}]}", QueryResponse.class);
+    final QueryResponse second = GsonSingleton.getGson().fromJson(
+        "{\"aggregations\":[{\"type\":\"histogram\",\"field\":\"price\",\"interval\":10,\"results\":["
+            + "{\"key\":0,\"matching_results\":4},{\"key\":10,\"matching_results\":3}]}]}", QueryResponse.class);
+
+    final QueryAggregation histogram = QueryResponseMerger.merge(Arrays.asList(first, second), null)
+        .getAggregations().get(0);
+
+    assertEquals(3, histogram.getResults().size());
+    assertEquals(4, histogram.getResults().get(0).getMatchingResults().longValue());
+    assertEquals(5, histogram.getResults().get(1).getMatchingResults().longValue());
+    assertEquals(1, histogram.getResults().get(2).getMatchingResults().longValue());
+  }
+
+  private QueryShard shard(String collectionId) {
+    return new QueryShard(discovery, new QueryOptions.Builder(ENVIRONMENT_ID, collectionId).query("q").build());
+  }
+
+  private static List<String> ids(List<QueryResult> results) {
+    final String[] ids = new String[results.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = results.get(i).getId();
+    }
+    return Arrays.asList(ids);
+  }
+
+  private static String response(long matchingResults, String id1, double score1, String id2, double score2,
+      String term1, long count1, String term2, long count2) {
+    return "{\"matching_results\":" + matchingResults + ",\"results\":[{\"id\":\"" + id1 + "\",\"score\":" + score1
+        + "},{\"id\":\"" + id2 + "\",\"score\":" + score2 + "}],\"aggregations\":[{\"type\":\"term\",\"field\":\"f\","
+        + "\"count\":3,\"results\":[{\"key\":\"" + term1 + "\",\"matching_results\":" + count1 + "},{\"key\":\""
+        + term2 + "\",\"matching_results\":" + count2 + "}]}]}";
+  }
+
+  private static String response(long matchingResults, String id, double score, String term1, long count1,
+      String term2, long count2) {
+    return response(matchingResults, id, score, id + "b", 0, term1, count1, term2, count2);
+  }
+}
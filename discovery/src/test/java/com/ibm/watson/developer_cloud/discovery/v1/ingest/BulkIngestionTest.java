@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.discovery.v1.ingest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.discovery.v1.Discovery;
+import com.ibm.watson.developer_cloud.discovery.v1.model.DocumentAccepted;
+import com.ibm.watson.developer_cloud.discovery.v1.model.DocumentStatus;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for the {@link BulkIngestion}.
+ */
+public class BulkIngestionTest extends WatsonServiceUnitTest {
+  private static final String ENVIRONMENT_ID = "mock_envid";
+  private static final String COLLECTION_ID = "mock_collid";
+
+  /** The temporary folder. */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Discovery discovery;
+  private final AtomicInteger uploads = new AtomicInteger();
+  private final List<String> uploadedBodies = new ArrayList<String>();
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    discovery = new Discovery(Discovery.VERSION_DATE_2017_09_01);
+    discovery.setApiKey("");
+    discovery.setEndPoint(getMockWebServerUrl());
+
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        final String path = request.getPath();
+        if (POST.equals(request.getMethod())) {
+          final int upload = uploads.incrementAndGet();
+          if (upload == 1) {
+            return new MockResponse().setResponseCode(429).addHeader("Retry-After", "0")
+                .setBody("{\"error\":\"Too many requests\"}");
+          }
+          synchronized (uploadedBodies) {
+            uploadedBodies.add(request.getBody().readUtf8());
+          }
+          return new MockResponse().setBody("{\"document_id\":\"doc" + upload + "\",\"status\":\"processing\"}");
+        }
+        final String documentId = path.substring(path.lastIndexOf('/') + 1, path.indexOf('?'));
+        return new MockResponse().setBody("{\"document_id\":\"" + documentId + "\",\"status\":\"available\"}");
+      }
+    });
+  }
+
+  private File createFile(String name, String content) throws IOException {
+    final File file = folder.newFile(name);
+    final FileOutputStream out = new FileOutputStream(file);
+    out.write(content.getBytes("UTF-8"));
+    out.close();
+    return file;
+  }
+
+  /**
+   * Test that throttled uploads are retried and that the status of every accepted document is followed.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testRunRetriesAndTracksStatus() throws Exception {
+    final File first = createFile("a.txt", "first document");
+    final File second = createFile("b.txt", "second document");
+
+    final BulkIngestion ingestion = new BulkIngestion.Builder(discovery, ENVIRONMENT_ID, COLLECTION_ID)
+        .concurrency(1, 2)
+        .statusPolling(10, 10, 10000, TimeUnit.MILLISECONDS)
+        .build();
+    final IngestionSummary summary = ingestion.run(DocumentSources.fromFiles(Arrays.asList(first, second)));
+
+    assertEquals(3, uploads.get());
+    assertEquals(2, summary.getAccepted());
+    assertEquals(0, summary.getFailed());
+    assertEquals(2, summary.getAvailable());
+    assertEquals(0, summary.getProcessing());
+    final String bodies = uploadedBodies.toString();
+    assertTrue(bodies.contains("first document"));
+    assertTrue(bodies.contains("second document"));
+  }
+
+  /**
+   * Test that a listener that throws neither fails accepted documents nor has their status counted twice.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testListenerErrorsAreNotFailures() throws Exception {
+    uploads.set(1);
+    final File file = createFile("a.txt", "a document");
+    final AtomicInteger statuses = new AtomicInteger();
+
+    final BulkIngestion ingestion = new BulkIngestion.Builder(discovery, ENVIRONMENT_ID, COLLECTION_ID)
+        .statusPolling(10, 10, 10000, TimeUnit.MILLISECONDS)
+        .listener(new BaseIngestionListener() {
+          @Override
+          public void onAccepted(DocumentSource source, DocumentAccepted accepted) {
+            throw new IllegalStateException("listener error");
+          }
+
+          @Override
+          public void onStatus(DocumentStatus status) {
+            statuses.incrementAndGet();
+            throw new IllegalStateException("listener error");
+          }
+        })
+        .build();
+    final IngestionSummary summary = ingestion.run(DocumentSources.fromFiles(Arrays.asList(file)));
+
+    assertEquals(1, summary.getAccepted());
+    assertEquals(0, summary.getFailed());
+    assertEquals(1, summary.getAvailable());
+    assertEquals(0, summary.getProcessing());
+    assertEquals(1, statuses.get());
+  }
+
+  /**
+   * Test that a run resumed from a journal skips the sources already accepted.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testRunResumesFromJournal() throws Exception {
+    final File directory = folder.newFolder("corpus");
+    final File first = new File(directory, "a.txt");
+    final File second = new File(directory, "b.txt");
+    new FileOutputStream(first).close();
+    new FileOutputStream(second).close();
+    uploads.set(1);
+
+    final File journalFile = folder.newFile("journal");
+    IngestionJournal journal = new IngestionJournal(journalFile);
+    journal.recordAccepted(new FileDocumentSource(first).getId(), "doc1");
+    journal.close();
+
+    journal = new IngestionJournal(journalFile);
+    final BulkIngestion ingestion = new BulkIngestion.Builder(discovery, ENVIRONMENT_ID, COLLECTION_ID)
+        .journal(journal)
+        .trackStatus(false)
+        .build();
+    final IngestionSummary summary = ingestion.run(DocumentSources.fromDirectory(directory));
+    journal.close();
+
+    assertEquals(1, summary.getSkipped());
+    assertEquals(1, summary.getAccepted());
+    assertEquals(2, uploads.get());
+
+    journal = new IngestionJournal(journalFile);
+    assertTrue(journal.isAccepted(new FileDocumentSource(second).getId()));
+    assertEquals(2, journal.getProcessingDocumentIds().size());
+    journal.close();
+  }
+}
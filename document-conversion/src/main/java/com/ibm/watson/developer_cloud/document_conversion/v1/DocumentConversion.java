@@ -17,7 +17,6 @@ import java.io.InputStream;
 import java.util.Map;
 
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.ibm.watson.developer_cloud.document_conversion.v1.model.Answers;
@@ -25,11 +24,13 @@ import com.ibm.watson.developer_cloud.document_conversion.v1.model.IndexConfigur
 import com.ibm.watson.developer_cloud.document_conversion.v1.model.IndexDocumentOptions;
 import com.ibm.watson.developer_cloud.document_conversion.v1.util.ConversionTarget;
 import com.ibm.watson.developer_cloud.document_conversion.v1.util.ConversionUtils;
+import com.ibm.watson.developer_cloud.http.FileChannelRequestBody;
 import com.ibm.watson.developer_cloud.http.HttpHeaders;
 import com.ibm.watson.developer_cloud.http.HttpMediaType;
 import com.ibm.watson.developer_cloud.http.RequestBuilder;
 import com.ibm.watson.developer_cloud.http.ServiceCall;
 import com.ibm.watson.developer_cloud.service.WatsonService;
+import com.ibm.watson.developer_cloud.util.RequestUtils;
 import com.ibm.watson.developer_cloud.util.ResponseConverterUtils;
 
 import okhttp3.Headers;
@@ -51,7 +52,6 @@ import okhttp3.RequestBody;
 @Deprecated
 public class DocumentConversion extends WatsonService {
 
-  private static final String CONVERSION_TARGET = "conversion_target";
   private static final String DRY_RUN = "dry_run";
   private static final String SERVICE_INSTANCE_ID = "service_instance_id";
   private static final String CLUSTER_ID = "cluster_id";
@@ -61,7 +61,6 @@ public class DocumentConversion extends WatsonService {
   private static final String CONVERT_DOCUMENT = "convert_document";
   private static final String CONVERT_DOCUMENT_PATH = "/v1/" + CONVERT_DOCUMENT;
   private static final String INDEX_DOCUMENT_PATH = "/v1/index_document";
-  private static final JsonObject EMPTY_CONFIG = new JsonParser().parse("{ }").getAsJsonObject();
   private static final String SERVICE_NAME = "document_conversion";
   private static final String URL = "https://gateway.watsonplatform.net/document-conversion/api";
 
@@ -114,33 +113,77 @@ public class DocumentConversion extends WatsonService {
       throw new IllegalArgumentException("document cannot be null and must exist");
     }
 
-    JsonObject config = null;
-
-    if (customConfig != null) {
-      config = customConfig;
-    } else {
-      config = EMPTY_CONFIG;
-    }
+    final MediaType mType = parseMediaType(document, mediaType);
+    return createConversionRequest(FileChannelRequestBody.create(mType, document), conversionTarget, customConfig);
+  }
 
-    final JsonObject configJson = new JsonObject();
-    // Do this since we shouldn't mutate customConfig
-    for (Map.Entry<String, JsonElement> entry : config.entrySet()) {
-      configJson.add(entry.getKey(), entry.getValue());
-    }
-    // Add or override the conversion target
-    configJson.addProperty(CONVERSION_TARGET, conversionTarget.toString());
+  /**
+   * Creates the conversion request for a document body.
+   *
+   * @param document the document body
+   * @param conversionTarget The conversion target to use
+   * @param customConfig The configuration parameters
+   * @return the request
+   */
+  private Request createConversionRequest(final RequestBody document, final ConversionTarget conversionTarget,
+      final JsonObject customConfig) {
+    final JsonObject configJson = ConversionUtils.withConversionTarget(customConfig, conversionTarget);
 
-    final MediaType mType = parseMediaType(document, mediaType);
     final RequestBody body = new MultipartBody.Builder().setType(MultipartBody.FORM)
         .addPart(Headers.of(HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"config\""),
             RequestBody.create(HttpMediaType.JSON, configJson.toString()))
-        .addPart(Headers.of(HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"file\""),
-            RequestBody.create(mType, document))
+        .addPart(Headers.of(HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"file\""), document)
         .build();
 
     return RequestBuilder.post(CONVERT_DOCUMENT_PATH).query(VERSION, versionDate).body(body).build();
   }
 
+  /**
+   * Converts a document and returns the converted document as an {@link InputStream}, so it can be read without
+   * holding it in memory. The stream must be closed once read.
+   *
+   * @param document the document
+   * @param mediaType the document media type. It will use the file extension if not provided.
+   * @param conversionTarget the conversion target
+   * @param customConfig the configuration parameters to customize the conversion, or <code>null</code>
+   * @return converted document as {@link InputStream}
+   * @see HttpMediaType HttpMediaType for available media types
+   */
+  public ServiceCall<InputStream> convertDocument(File document, String mediaType, ConversionTarget conversionTarget,
+      JsonObject customConfig) {
+    if (conversionTarget == null) {
+      throw new IllegalArgumentException("conversionTarget cannot be null");
+    }
+    Request request = createConversionRequest(document, mediaType, conversionTarget, customConfig);
+    return createServiceCall(request, ResponseConverterUtils.getInputStream());
+  }
+
+  /**
+   * Converts a document read from an {@link InputStream} and returns the converted document as an {@link InputStream}.
+   * The document is streamed to the service rather than read into memory; a {@link java.io.FileInputStream} is sent
+   * with its length and can be retried. The returned stream must be closed once read.
+   *
+   * @param document the document
+   * @param mediaType the document media type
+   * @param conversionTarget the conversion target
+   * @param customConfig the configuration parameters to customize the conversion, or <code>null</code>
+   * @return converted document as {@link InputStream}
+   * @see HttpMediaType HttpMediaType for available media types
+   */
+  public ServiceCall<InputStream> convertDocument(InputStream document, String mediaType,
+      ConversionTarget conversionTarget, JsonObject customConfig) {
+    if (document == null) {
+      throw new IllegalArgumentException("document cannot be null");
+    }
+    if (conversionTarget == null) {
+      throw new IllegalArgumentException("conversionTarget cannot be null");
+    }
+    final MediaType mType = parseMediaType(null, mediaType);
+    Request request = createConversionRequest(RequestUtils.inputStreamBody(document, mType.toString()),
+        conversionTarget, customConfig);
+    return createServiceCall(request, ResponseConverterUtils.getInputStream());
+  }
+
   /**
    * Converts a document to Answer Units. <br>
    * Use {@link DocumentConversion#convertDocumentToAnswer(File, String)} if you want to specify the media type
@@ -263,6 +306,22 @@ public class DocumentConversion extends WatsonService {
    * @return index document response as {@link String}
    */
   public ServiceCall<String> indexDocument(final IndexDocumentOptions indexDocumentOptions) {
+    return createServiceCall(createIndexRequest(indexDocumentOptions), ResponseConverterUtils.getString());
+  }
+
+  /**
+   * Converts and indexes the document and metadata provided, and returns the response as an {@link InputStream}. Use
+   * it with a dry run to read the converted document without holding it in memory. The stream must be closed once
+   * read.
+   *
+   * @param indexDocumentOptions Specifies the options for indexing the document
+   * @return index document response as {@link InputStream}
+   */
+  public ServiceCall<InputStream> indexDocumentAsStream(final IndexDocumentOptions indexDocumentOptions) {
+    return createServiceCall(createIndexRequest(indexDocumentOptions), ResponseConverterUtils.getInputStream());
+  }
+
+  private Request createIndexRequest(final IndexDocumentOptions indexDocumentOptions) {
     if (indexDocumentOptions != null) {
       File document = indexDocumentOptions.document();
       InputStream documentInputStream = indexDocumentOptions.getDocumentInputStream();
@@ -306,14 +365,13 @@ public class DocumentConversion extends WatsonService {
               RequestBody.create(HttpMediaType.JSON, config.toString()));
       if (documentInputStream != null) {
         final MediaType mType = parseMediaType(document, mediaType);
-        byte[] documentContent = ConversionUtils.writeInputStreamToString(documentInputStream).getBytes();
         multiPartBodyBuilder.addPart(Headers.of(HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"file\""),
-            RequestBody.create(mType, documentContent));
+            RequestUtils.inputStreamBody(documentInputStream, mType.toString()));
       }
       if (document != null) {
         final MediaType mType = parseMediaType(document, mediaType);
         multiPartBodyBuilder.addPart(Headers.of(HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"file\""),
-            RequestBody.create(mType, document));
+            FileChannelRequestBody.create(mType, document));
       }
       if (indexDocumentOptions.metadata() != null) {
         JsonObject metadataJson = metadataToJsonObject(indexDocumentOptions.metadata());
@@ -322,8 +380,7 @@ public class DocumentConversion extends WatsonService {
       }
       final RequestBody body = multiPartBodyBuilder.build();
 
-      Request request = RequestBuilder.post(INDEX_DOCUMENT_PATH).query(VERSION, versionDate).body(body).build();
-      return createServiceCall(request, ResponseConverterUtils.getString());
+      return RequestBuilder.post(INDEX_DOCUMENT_PATH).query(VERSION, versionDate).body(body).build();
     } else {
       throw new IllegalArgumentException(
           "The request does not contain a file or metadata. At least one of those is required.");
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.document_conversion.v1.batch;
+
+import java.util.List;
+
+/**
+ * The outcome of a {@link BatchConverter} run.
+ */
+public class BatchConversionResult {
+
+  private final int converted;
+  private final long bytes;
+  private final List<ConversionFailure> failures;
+
+  /**
+   * Instantiates a new batch conversion result.
+   *
+   * @param converted the number of converted documents
+   * @param bytes the total size of the converted source documents
+   * @param failures the failures
+   */
+  BatchConversionResult(int converted, long bytes, List<ConversionFailure> failures) {
+    this.converted = converted;
+    this.bytes = bytes;
+    this.failures = failures;
+  }
+
+  /**
+   * Gets the number of documents that were converted and accepted by the sink.
+   *
+   * @return the number of converted documents
+   */
+  public int getConverted() {
+    return converted;
+  }
+
+  /**
+   * Gets the total size of the source documents that were converted, in bytes.
+   *
+   * @return the number of bytes
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Gets the documents that could not be converted.
+   *
+   * @return the failures
+   */
+  public List<ConversionFailure> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Checks whether every document was converted.
+   *
+   * @return true if there were no failures
+   */
+  public boolean isSuccessful() {
+    return failures.isEmpty();
+  }
+}
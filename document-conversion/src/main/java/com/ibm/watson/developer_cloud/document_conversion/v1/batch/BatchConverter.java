@@ -0,0 +1,328 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.document_conversion.v1.batch;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.gson.JsonObject;
+import com.ibm.watson.developer_cloud.document_conversion.v1.DocumentConversion;
+import com.ibm.watson.developer_cloud.document_conversion.v1.util.ConversionTarget;
+import com.ibm.watson.developer_cloud.document_conversion.v1.util.ConversionUtils;
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * Converts many documents concurrently and streams the converted documents to a {@link ConversionSink}.
+ * <p>
+ * Two limits bound a run: the number of conversions in flight, and the total size of the source documents in flight.
+ * The caller thread waits for both before it sends the next document, so a corpus of any size is converted in a fixed
+ * amount of memory. A document larger than the byte budget is sent alone. Documents that fail are recorded in the
+ * {@link BatchConversionResult} instead of stopping the run, and can be sent again with {@link #retry}.
+ *
+ * <pre>
+ * BatchConverter converter = new BatchConverter.Builder(service, ConversionTarget.ANSWER_UNITS)
+ *     .maxConcurrency(16).build();
+ * BatchConversionResult result = converter.convert(corpusDir,
+ *     ConversionSinks.toDirectory(corpusDir, outputDir, ".json"));
+ * </pre>
+ */
+public class BatchConverter {
+  private static final Logger LOG = Logger.getLogger(BatchConverter.class.getName());
+
+  /** The default maximum number of conversions in flight. */
+  public static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+  /** The default maximum size of the source documents in flight, in bytes. */
+  public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 64L * 1024 * 1024;
+
+  private static final int KILOBYTE = 1024;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final DocumentConversion service;
+    private final ConversionTarget conversionTarget;
+    private String mediaType;
+    private JsonObject customConfig;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private long maxInFlightBytes = DEFAULT_MAX_IN_FLIGHT_BYTES;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param service the service used to convert the documents
+     * @param conversionTarget the conversion target
+     */
+    public Builder(DocumentConversion service, ConversionTarget conversionTarget) {
+      this.service = service;
+      this.conversionTarget = conversionTarget;
+    }
+
+    /**
+     * Set the media type of every document. By default, the media type is detected from the file extension.
+     *
+     * @param mediaType the media type
+     * @return the builder
+     */
+    public Builder mediaType(String mediaType) {
+      this.mediaType = mediaType;
+      return this;
+    }
+
+    /**
+     * Set the configuration parameters used to convert every document.
+     *
+     * @param customConfig the configuration parameters
+     * @return the builder
+     */
+    public Builder customConfig(JsonObject customConfig) {
+      this.customConfig = customConfig;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of conversions in flight. Defaults to {@value BatchConverter#DEFAULT_MAX_CONCURRENCY}.
+     *
+     * @param maxConcurrency the maximum concurrency
+     * @return the builder
+     */
+    public Builder maxConcurrency(int maxConcurrency) {
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * Set the maximum total size of the source documents in flight, in bytes. Defaults to
+     * {@value BatchConverter#DEFAULT_MAX_IN_FLIGHT_BYTES}.
+     *
+     * @param maxInFlightBytes the maximum number of bytes in flight
+     * @return the builder
+     */
+    public Builder maxInFlightBytes(long maxInFlightBytes) {
+      this.maxInFlightBytes = maxInFlightBytes;
+      return this;
+    }
+
+    /**
+     * Builds the converter.
+     *
+     * @return the batch converter
+     */
+    public BatchConverter build() {
+      return new BatchConverter(this);
+    }
+  }
+
+  private final DocumentConversion service;
+  private final ConversionTarget conversionTarget;
+  private final String mediaType;
+  private final JsonObject config;
+  private final int maxConcurrency;
+  private final int maxInFlightKilobytes;
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Instantiates a new batch converter.
+   *
+   * @param builder the builder
+   */
+  protected BatchConverter(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.notNull(builder.conversionTarget, "conversionTarget cannot be null");
+    Validator.isTrue(builder.maxConcurrency > 0, "maxConcurrency must be greater than 0");
+    Validator.isTrue(builder.maxInFlightBytes >= KILOBYTE, "maxInFlightBytes must be at least 1024");
+    Validator.isTrue((builder.mediaType == null) || ConversionUtils.isValidMediaType(builder.mediaType),
+        "mediaType is not supported");
+    service = builder.service;
+    conversionTarget = builder.conversionTarget;
+    mediaType = builder.mediaType;
+    // set the target once, so the configuration is not copied for every document
+    config = ConversionUtils.withConversionTarget(builder.customConfig, builder.conversionTarget);
+    maxConcurrency = builder.maxConcurrency;
+    maxInFlightKilobytes = (int) Math.min(Integer.MAX_VALUE, builder.maxInFlightBytes / KILOBYTE);
+    executor = DaemonThreadFactory.newThreadPool("document-conversion-batch", maxConcurrency);
+  }
+
+  /**
+   * Converts the documents in a directory and its subdirectories. Unless a media type was set, only the files with a
+   * supported extension are converted.
+   *
+   * @param directory the directory
+   * @param sink the sink that receives the converted documents
+   * @return the result of the run
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public BatchConversionResult convert(File directory, ConversionSink sink) throws InterruptedException {
+    Validator.notNull(directory, "directory cannot be null");
+    Validator.isTrue(directory.isDirectory(), "directory is not a directory");
+    return convert(new DirectoryIterator(directory), sink);
+  }
+
+  /**
+   * Converts the documents returned by an iterator. The iterator is consumed as the budget allows, so it can produce
+   * the documents lazily.
+   *
+   * @param documents the documents
+   * @param sink the sink that receives the converted documents
+   * @return the result of the run
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public BatchConversionResult convert(Iterator<File> documents, final ConversionSink sink)
+      throws InterruptedException {
+    Validator.notNull(documents, "documents cannot be null");
+    Validator.notNull(sink, "sink cannot be null");
+
+    final Semaphore slots = new Semaphore(maxConcurrency);
+    final Semaphore kilobytes = new Semaphore(maxInFlightKilobytes);
+    final AtomicInteger converted = new AtomicInteger();
+    final AtomicLong bytes = new AtomicLong();
+    final ConcurrentLinkedQueue<ConversionFailure> failures = new ConcurrentLinkedQueue<ConversionFailure>();
+
+    try {
+      while (documents.hasNext()) {
+        final File document = documents.next();
+        Validator.notNull(document, "documents cannot contain null");
+        final long length = document.length();
+        final int permits = (int) Math.max(1, Math.min(maxInFlightKilobytes, (length + KILOBYTE - 1) / KILOBYTE));
+
+        slots.acquire();
+        try {
+          kilobytes.acquire(permits);
+        } catch (InterruptedException e) {
+          slots.release();
+          throw e;
+        }
+
+        try {
+          executor.execute(new Runnable() {
+            @Override
+            public void run() {
+              try {
+                final InputStream in =
+                    service.convertDocument(document, mediaType, conversionTarget, config).execute();
+                try {
+                  sink.accept(document, in);
+                } finally {
+                  in.close();
+                }
+                converted.incrementAndGet();
+                bytes.addAndGet(length);
+              } catch (Exception e) {
+                LOG.log(Level.FINE, "Failed to convert " + document, e);
+                failures.add(new ConversionFailure(document, e));
+              } finally {
+                kilobytes.release(permits);
+                slots.release();
+              }
+            }
+          });
+        } catch (RejectedExecutionException e) {
+          kilobytes.release(permits);
+          slots.release();
+          throw e;
+        }
+      }
+    } finally {
+      // wait for the conversions in flight
+      slots.acquireUninterruptibly(maxConcurrency);
+    }
+
+    return new BatchConversionResult(converted.get(), bytes.get(), new ArrayList<ConversionFailure>(failures));
+  }
+
+  /**
+   * Converts the documents of earlier failures again.
+   *
+   * @param failures the failures
+   * @param sink the sink that receives the converted documents
+   * @return the result of the run
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public BatchConversionResult retry(List<ConversionFailure> failures, ConversionSink sink)
+      throws InterruptedException {
+    Validator.notNull(failures, "failures cannot be null");
+    final List<File> documents = new ArrayList<File>(failures.size());
+    for (ConversionFailure failure : failures) {
+      documents.add(failure.getDocument());
+    }
+    return convert(documents.iterator(), sink);
+  }
+
+  /**
+   * Stops the worker threads once the conversions in flight are done.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  /**
+   * Iterates over the files of a directory tree, listing one directory at a time.
+   */
+  private final class DirectoryIterator implements Iterator<File> {
+    private final Deque<File> directories = new ArrayDeque<File>();
+    private final Deque<File> files = new ArrayDeque<File>();
+
+    DirectoryIterator(File root) {
+      directories.add(root);
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (files.isEmpty() && !directories.isEmpty()) {
+        final File[] children = directories.pop().listFiles();
+        if (children == null) {
+          continue;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+          if (child.isDirectory()) {
+            directories.add(child);
+          } else if (child.isFile() && ((mediaType != null) || (ConversionUtils.getMediaTypeFromFile(child) != null))) {
+            files.add(child);
+          }
+        }
+      }
+      return !files.isEmpty();
+    }
+
+    @Override
+    public File next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return files.pop();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
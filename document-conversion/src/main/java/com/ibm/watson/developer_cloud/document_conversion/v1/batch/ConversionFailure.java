@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.document_conversion.v1.batch;
+
+import java.io.File;
+
+/**
+ * A document that a {@link BatchConverter} could not convert. Failed documents can be converted again with
+ * {@link BatchConverter#retry(java.util.List, ConversionSink)}.
+ */
+public class ConversionFailure {
+
+  private final File document;
+  private final Exception error;
+
+  /**
+   * Instantiates a new conversion failure.
+   *
+   * @param document the document
+   * @param error the error
+   */
+  ConversionFailure(File document, Exception error) {
+    this.document = document;
+    this.error = error;
+  }
+
+  /**
+   * Gets the document.
+   *
+   * @return the document
+   */
+  public File getDocument() {
+    return document;
+  }
+
+  /**
+   * Gets the error returned by the service or thrown by the sink.
+   *
+   * @return the error
+   */
+  public Exception getError() {
+    return error;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return document + ": " + error;
+  }
+}
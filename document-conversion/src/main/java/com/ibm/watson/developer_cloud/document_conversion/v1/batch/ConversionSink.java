@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.document_conversion.v1.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Receives the documents converted by a {@link BatchConverter}. The sink is called from the worker threads of the
+ * converter, so it must be thread safe.
+ *
+ * @see ConversionSinks
+ */
+public interface ConversionSink {
+
+  /**
+   * Receives a converted document. The stream reads the response of the service as it arrives and is closed by the
+   * converter once this method returns. A document is recorded as failed if this method throws.
+   *
+   * @param document the source document
+   * @param converted the converted document
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  void accept(File document, InputStream converted) throws IOException;
+}
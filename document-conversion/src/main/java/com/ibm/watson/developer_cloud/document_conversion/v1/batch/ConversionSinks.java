@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.document_conversion.v1.batch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.ibm.watson.developer_cloud.document_conversion.v1.model.Answers;
+import com.ibm.watson.developer_cloud.util.GsonSingleton;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * Factory methods for the common {@link ConversionSink}s.
+ */
+public final class ConversionSinks {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Receives the {@link Answers} of a converted document.
+   */
+  public interface AnswersConsumer {
+
+    /**
+     * Receives the answer units of a converted document.
+     *
+     * @param document the source document
+     * @param answers the answer units
+     */
+    void accept(File document, Answers answers);
+  }
+
+  private ConversionSinks() {
+    // This is a utility class - no instantiation allowed.
+  }
+
+  /**
+   * Returns a sink that writes every converted document to a file in the output directory. The file is named after
+   * the source document followed by the extension. Since the directories of the source documents are dropped, a
+   * document with the same name as one already written by the sink fails instead of overwriting it; use
+   * {@link #toDirectory(File, File, String)} to convert a directory tree.
+   *
+   * @param outputDirectory the output directory
+   * @param extension the extension appended to the name of the source document, for example <code>".json"</code>
+   * @return the conversion sink
+   */
+  public static ConversionSink toDirectory(final File outputDirectory, final String extension) {
+    Validator.notNull(outputDirectory, "outputDirectory cannot be null");
+    Validator.isTrue(outputDirectory.isDirectory(), "outputDirectory is not a directory");
+    Validator.notNull(extension, "extension cannot be null");
+    final Set<String> written = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    return new ConversionSink() {
+      @Override
+      public void accept(File document, InputStream converted) throws IOException {
+        final String name = document.getName() + extension;
+        if (!written.add(name)) {
+          throw new IOException("Another document named " + document.getName() + " was already written to "
+              + outputDirectory);
+        }
+        try {
+          write(new File(outputDirectory, name), converted);
+        } catch (IOException e) {
+          written.remove(name);
+          throw e;
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns a sink that writes every converted document to the output directory, at the path of the source document
+   * relative to the input directory followed by the extension. Subdirectories are created as needed, so the output
+   * mirrors the tree given to {@link BatchConverter#convert(File, ConversionSink)}.
+   *
+   * @param inputDirectory the directory the source documents are in
+   * @param outputDirectory the output directory
+   * @param extension the extension appended to the name of the source document, for example <code>".json"</code>
+   * @return the conversion sink
+   */
+  public static ConversionSink toDirectory(File inputDirectory, final File outputDirectory, final String extension) {
+    Validator.notNull(inputDirectory, "inputDirectory cannot be null");
+    Validator.notNull(outputDirectory, "outputDirectory cannot be null");
+    Validator.isTrue(outputDirectory.isDirectory(), "outputDirectory is not a directory");
+    Validator.notNull(extension, "extension cannot be null");
+    final String root = inputDirectory.getAbsolutePath() + File.separator;
+    return new ConversionSink() {
+      @Override
+      public void accept(File document, InputStream converted) throws IOException {
+        final String path = document.getAbsolutePath();
+        if (!path.startsWith(root)) {
+          throw new IOException(document + " is not in " + root);
+        }
+        final File target = new File(outputDirectory, path.substring(root.length()) + extension);
+        final File parent = target.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+          throw new IOException("Could not create " + parent);
+        }
+        write(target, converted);
+      }
+    };
+  }
+
+  /**
+   * Returns a sink that parses converted documents as {@link Answers}, for a {@link BatchConverter} that converts to
+   * answer units. The JSON is parsed as it is read from the response.
+   *
+   * @param consumer the consumer of the answer units
+   * @return the conversion sink
+   */
+  public static ConversionSink toAnswers(final AnswersConsumer consumer) {
+    Validator.notNull(consumer, "consumer cannot be null");
+    return new ConversionSink() {
+      @Override
+      public void accept(File document, InputStream converted) throws IOException {
+        final Answers answers = GsonSingleton.getGsonWithoutPrettyPrinting()
+            .fromJson(new InputStreamReader(converted, "UTF-8"), Answers.class);
+        consumer.accept(document, answers);
+      }
+    };
+  }
+
+  private static void write(File target, InputStream converted) throws IOException {
+    final OutputStream out = new FileOutputStream(target);
+    try {
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      int read;
+      while ((read = converted.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    } finally {
+      out.close();
+    }
+  }
+}
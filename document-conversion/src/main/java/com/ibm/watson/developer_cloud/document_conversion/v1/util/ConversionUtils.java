@@ -18,9 +18,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.ibm.watson.developer_cloud.document_conversion.v1.DocumentConversion;
@@ -33,6 +35,7 @@ import com.ibm.watson.developer_cloud.http.HttpMediaType;
  */
 public final class ConversionUtils {
 
+  private static final String CONVERSION_TARGET = "conversion_target";
   private static final Map<String, String> MEDIA_TYPES;
 
   static {
@@ -87,10 +90,36 @@ public final class ConversionUtils {
    * @return the custom configuration as a JsonObject
    */
   public static JsonObject loadCustomConfig(InputStream customConfig) {
-    final Reader reader = new InputStreamReader(customConfig);
+    final Reader reader = new InputStreamReader(customConfig, Charset.forName("UTF-8"));
     return new JsonParser().parse(reader).getAsJsonObject();
   }
 
+  /**
+   * Returns a conversion configuration with the conversion target set. The configuration is returned as is when it
+   * already has that target, otherwise a copy is returned and the configuration is left unchanged.
+   *
+   * @param customConfig the configuration parameters, or <code>null</code>
+   * @param conversionTarget the conversion target
+   * @return the configuration with the conversion target
+   */
+  public static JsonObject withConversionTarget(final JsonObject customConfig,
+      final ConversionTarget conversionTarget) {
+    final JsonElement target = customConfig != null ? customConfig.get(CONVERSION_TARGET) : null;
+    if ((target != null) && target.isJsonPrimitive() && conversionTarget.toString().equals(target.getAsString())) {
+      return customConfig;
+    }
+
+    final JsonObject config = new JsonObject();
+    if (customConfig != null) {
+      for (Map.Entry<String, JsonElement> entry : customConfig.entrySet()) {
+        config.add(entry.getKey(), entry.getValue());
+      }
+    }
+    // Add or override the conversion target
+    config.addProperty(CONVERSION_TARGET, conversionTarget.toString());
+    return config;
+  }
+
   /**
    * Write input stream to output stream.
    *
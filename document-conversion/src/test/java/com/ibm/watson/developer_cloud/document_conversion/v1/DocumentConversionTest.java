@@ -34,6 +34,7 @@ import com.ibm.watson.developer_cloud.document_conversion.v1.model.Answers;
 import com.ibm.watson.developer_cloud.document_conversion.v1.model.IndexConfiguration;
 import com.ibm.watson.developer_cloud.document_conversion.v1.model.IndexDocumentOptions;
 import com.ibm.watson.developer_cloud.document_conversion.v1.model.IndexFields;
+import com.ibm.watson.developer_cloud.document_conversion.v1.util.ConversionTarget;
 import com.ibm.watson.developer_cloud.document_conversion.v1.util.ConversionUtils;
 import com.ibm.watson.developer_cloud.http.HttpMediaType;
 
@@ -41,6 +42,7 @@ import okhttp3.HttpUrl;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.RecordedRequest;
 import okio.Buffer;
+import okio.ByteString;
 
 /**
  * Document Conversion unit tests.
@@ -241,4 +243,48 @@ public class DocumentConversionTest extends WatsonServiceUnitTest {
     assertTrue(body.contains("{\"name\":\"id\",\"value\":\"123\"}"));
     assertTrue(body.contains("{\"name\":\"SomeMetadataName\",\"value\":\"SomeMetadataValue\"}"));
   }
+
+  /**
+   * Test that a binary document read from an input stream is sent unchanged and that the dry run response can be read
+   * as a stream.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testIndexDocumentBinaryInputStream() throws Exception {
+    final ByteString pdf = new Buffer().readFrom(new FileInputStream(RESOURCE + "pdf-with-sections-input.pdf"))
+        .readByteString();
+    IndexDocumentOptions indexDocumentOptions = new IndexDocumentOptions.Builder()
+        .document(new ByteArrayInputStream(pdf.toByteArray()), HttpMediaType.APPLICATION_PDF).dryRun(true).build();
+    final ByteString dryRun = new Buffer().readFrom(expIndexDryRunResponse).readByteString();
+    server.enqueue(new MockResponse().setBody(new Buffer().write(dryRun)));
+
+    final InputStream response = service.indexDocumentAsStream(indexDocumentOptions).execute();
+    assertEquals(dryRun, new Buffer().readFrom(response).readByteString());
+    response.close();
+
+    RecordedRequest request = checkRequest(INDEX_DOCUMENT_PATH);
+    assertTrue(request.getBody().indexOf(pdf) > 0);
+  }
+
+  /**
+   * Test converting a document read from an input stream.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testConvertDocumentInputStream() throws Exception {
+    final ByteString answer = new Buffer().readFrom(expAnswer).readByteString();
+    server.enqueue(new MockResponse().setBody(new Buffer().write(answer)));
+
+    final InputStream converted = service.convertDocument(new FileInputStream(html), HttpMediaType.TEXT_HTML,
+        ConversionTarget.ANSWER_UNITS, null).execute();
+    assertEquals(answer, new Buffer().readFrom(converted).readByteString());
+    converted.close();
+
+    RecordedRequest request = checkRequest(CONVERT_DOCUMENT_PATH);
+    String body = request.getBody().readUtf8();
+    assertTrue(body.contains("{\"conversion_target\":\"ANSWER_UNITS\"}"));
+    assertTrue(body.contains("Content-Length: " + html.length()));
+  }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.document_conversion.v1.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.document_conversion.v1.DocumentConversion;
+import com.ibm.watson.developer_cloud.document_conversion.v1.model.Answers;
+import com.ibm.watson.developer_cloud.document_conversion.v1.util.ConversionTarget;
+import com.ibm.watson.developer_cloud.document_conversion.v1.util.ConversionUtils;
+import com.ibm.watson.developer_cloud.http.HttpMediaType;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+
+/**
+ * Unit tests for {@link BatchConverter}.
+ */
+public class BatchConverterTest extends WatsonServiceUnitTest {
+
+  private static final String RESOURCE = "src/test/resources/document_conversion/";
+  private static final String PDF = "pdf-with-sections-input.pdf";
+
+  /** The temporary folder. */
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private DocumentConversion service;
+  private BatchConverter converter;
+  private String answer;
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new DocumentConversion(DocumentConversion.VERSION_DATE_2015_12_01);
+    service.setApiKey("");
+    service.setEndPoint(getMockWebServerUrl());
+    answer = ConversionUtils.writeInputStreamToString(
+        new FileInputStream(RESOURCE + "html-with-extra-content-input-to-answer.json"));
+
+    // the PDF fails, every other document converts to the same answer units
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        if (request.getBody().readUtf8().contains(HttpMediaType.APPLICATION_PDF)) {
+          return new MockResponse().setResponseCode(500).setBody("{\"error\": \"cannot convert\"}");
+        }
+        return new MockResponse().setHeader("Content-Type", HttpMediaType.APPLICATION_JSON).setBody(answer);
+      }
+    });
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    if (converter != null) {
+      converter.shutdown();
+    }
+    super.tearDown();
+  }
+
+  /**
+   * Test that a directory is converted to answer units and that failures are recorded and can be retried.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testConvertDirectoryToAnswers() throws Exception {
+    converter = new BatchConverter.Builder(service, ConversionTarget.ANSWER_UNITS).maxConcurrency(3).build();
+    final Map<String, Answers> answers = new ConcurrentHashMap<String, Answers>();
+    final ConversionSink sink = ConversionSinks.toAnswers(new ConversionSinks.AnswersConsumer() {
+      @Override
+      public void accept(File document, Answers converted) {
+        answers.put(document.getName(), converted);
+      }
+    });
+
+    final BatchConversionResult result = converter.convert(new File(RESOURCE), sink);
+
+    assertEquals(3, result.getConverted());
+    assertEquals(3, answers.size());
+    assertFalse(answers.containsKey(PDF));
+    assertEquals(1, result.getFailures().size());
+    assertEquals(PDF, result.getFailures().get(0).getDocument().getName());
+    assertEquals(4, server.getRequestCount());
+
+    final BatchConversionResult retried = converter.retry(result.getFailures(), sink);
+    assertEquals(0, retried.getConverted());
+    assertEquals(1, retried.getFailures().size());
+  }
+
+  /**
+   * Test that the byte budget bounds the documents in flight and that documents are written to a directory.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testConvertUnderByteBudgetToDirectory() throws Exception {
+    converter = new BatchConverter.Builder(service, ConversionTarget.ANSWER_UNITS).maxConcurrency(4)
+        .maxInFlightBytes(1024).build();
+    final File output = folder.newFolder();
+    final ConversionSink directory = ConversionSinks.toDirectory(output, ".json");
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+
+    final BatchConversionResult result = converter.convert(Arrays.asList(
+        new File(RESOURCE + "html-with-extra-content-input.htm"),
+        new File(RESOURCE + "word-document-heading-input.doc"),
+        new File(RESOURCE + "word-docx-heading-input.docx")).iterator(), new ConversionSink() {
+          @Override
+          public void accept(File document, InputStream converted) throws IOException {
+            final int current = inFlight.incrementAndGet();
+            maxInFlight.set(Math.max(maxInFlight.get(), current));
+            try {
+              Thread.sleep(20);
+              directory.accept(document, converted);
+            } catch (InterruptedException e) {
+              throw new IOException(e);
+            } finally {
+              inFlight.decrementAndGet();
+            }
+          }
+        });
+
+    assertTrue(result.isSuccessful());
+    assertEquals(3, result.getConverted());
+    assertEquals(1, maxInFlight.get());
+    assertEquals(3, output.list().length);
+    final File converted = new File(output, "word-docx-heading-input.docx.json");
+    assertEquals(answer, new Buffer().readFrom(new FileInputStream(converted)).readUtf8());
+  }
+
+  /**
+   * Test that documents with the same name in different directories keep their relative path, and fail rather than
+   * overwrite each other in a flat output directory.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testConvertTreeToDirectory() throws Exception {
+    converter = new BatchConverter.Builder(service, ConversionTarget.ANSWER_UNITS).maxConcurrency(2).build();
+    final File input = folder.newFolder();
+    for (String directory : Arrays.asList("a", "b")) {
+      assertTrue(new File(input, directory).mkdir());
+      final BufferedSink document = Okio.buffer(Okio.sink(new File(input, directory + "/readme.htm")));
+      document.writeUtf8("<html><body>" + directory + "</body></html>").close();
+    }
+
+    final File tree = folder.newFolder();
+    final BatchConversionResult result = converter.convert(input, ConversionSinks.toDirectory(input, tree, ".json"));
+    assertTrue(result.isSuccessful());
+    assertEquals(2, result.getConverted());
+    assertTrue(new File(tree, "a/readme.htm.json").isFile());
+    assertTrue(new File(tree, "b/readme.htm.json").isFile());
+
+    final File flat = folder.newFolder();
+    final BatchConversionResult flattened = converter.convert(input, ConversionSinks.toDirectory(flat, ".json"));
+    assertEquals(1, flattened.getConverted());
+    assertEquals(1, flattened.getFailures().size());
+    assertEquals("[readme.htm.json]", Arrays.toString(flat.list()));
+  }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.language_translator.v2.batch;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import com.ibm.watson.developer_cloud.language_translator.v2.LanguageTranslator;
+import com.ibm.watson.developer_cloud.language_translator.v2.model.TranslateOptions;
+import com.ibm.watson.developer_cloud.language_translator.v2.model.Translation;
+import com.ibm.watson.developer_cloud.language_translator.v2.model.TranslationResult;
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.FutureUtils;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * Translates any number of texts of any length with {@link LanguageTranslator#translate(TranslateOptions)}, keeping
+ * every request under the payload limit of the service.
+ * <p>
+ * Texts longer than the maximum segment length are split into segments at sentence boundaries. Short texts and
+ * segments are packed into requests of up to the maximum request size, and the requests are sent concurrently. The
+ * translations are put back together in the order of the input. Each distinct segment is sent once per call, and
+ * segments found in the {@link TranslationMemory} are not sent at all.
+ *
+ * <pre>
+ * BatchTranslator translator = new BatchTranslator.Builder(service).maxConcurrency(8).build();
+ * TranslationResult result = translator.translate(new TranslateOptions.Builder(catalog)
+ *     .source(Language.ENGLISH).target(Language.SPANISH).build());
+ * </pre>
+ *
+ * The word and character counts of the result only cover the segments that were sent.
+ */
+public class BatchTranslator {
+
+  /** The default maximum size of the text in a request, in bytes. */
+  public static final int DEFAULT_MAX_REQUEST_BYTES = 48 * 1024;
+
+  /** The default maximum length of a segment, in characters. */
+  public static final int DEFAULT_MAX_SEGMENT_LENGTH = 2000;
+
+  /** The default maximum number of requests in flight. */
+  public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /** The JSON quotes and separator around a text in a request. */
+  private static final int TEXT_OVERHEAD = 3;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final LanguageTranslator service;
+    private int maxRequestBytes = DEFAULT_MAX_REQUEST_BYTES;
+    private int maxSegmentLength = DEFAULT_MAX_SEGMENT_LENGTH;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private TranslationMemory translationMemory = new TranslationMemory();
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param service the service used to translate
+     */
+    public Builder(LanguageTranslator service) {
+      this.service = service;
+    }
+
+    /**
+     * Set the maximum size of the text in a request, in UTF-8 bytes. Defaults to
+     * {@value BatchTranslator#DEFAULT_MAX_REQUEST_BYTES}.
+     *
+     * @param maxRequestBytes the maximum request size
+     * @return the builder
+     */
+    public Builder maxRequestBytes(int maxRequestBytes) {
+      this.maxRequestBytes = maxRequestBytes;
+      return this;
+    }
+
+    /**
+     * Set the length above which a text is split into segments, in characters. Defaults to
+     * {@value BatchTranslator#DEFAULT_MAX_SEGMENT_LENGTH}.
+     *
+     * @param maxSegmentLength the maximum segment length
+     * @return the builder
+     */
+    public Builder maxSegmentLength(int maxSegmentLength) {
+      this.maxSegmentLength = maxSegmentLength;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of requests in flight. Defaults to {@value BatchTranslator#DEFAULT_MAX_CONCURRENCY}.
+     *
+     * @param maxConcurrency the maximum concurrency
+     * @return the builder
+     */
+    public Builder maxConcurrency(int maxConcurrency) {
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * Set the translation memory. By default, every translator has its own memory of
+     * {@value TranslationMemory#DEFAULT_MAX_ENTRIES} segments.
+     *
+     * @param translationMemory the translation memory, or <code>null</code> to translate every segment
+     * @return the builder
+     */
+    public Builder translationMemory(TranslationMemory translationMemory) {
+      this.translationMemory = translationMemory;
+      return this;
+    }
+
+    /**
+     * Builds the translator.
+     *
+     * @return the batch translator
+     */
+    public BatchTranslator build() {
+      return new BatchTranslator(this);
+    }
+  }
+
+  /**
+   * A piece of a text: a segment to translate, with the whitespace around it kept as is.
+   */
+  private static final class Piece {
+    private final String prefix;
+    private final String segment;
+    private final String suffix;
+
+    Piece(String text) {
+      int start = 0;
+      int end = text.length();
+      while ((start < end) && Character.isWhitespace(text.charAt(start))) {
+        start++;
+      }
+      while ((end > start) && Character.isWhitespace(text.charAt(end - 1))) {
+        end--;
+      }
+      prefix = text.substring(0, start);
+      segment = text.substring(start, end);
+      suffix = text.substring(end);
+    }
+  }
+
+  private final LanguageTranslator service;
+  private final int maxRequestBytes;
+  private final int maxSegmentLength;
+  private final TranslationMemory translationMemory;
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Instantiates a new batch translator.
+   *
+   * @param builder the builder
+   */
+  protected BatchTranslator(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.isTrue(builder.maxRequestBytes > 0, "maxRequestBytes must be greater than 0");
+    Validator.isTrue(builder.maxSegmentLength > 0, "maxSegmentLength must be greater than 0");
+    Validator.isTrue(builder.maxConcurrency > 0, "maxConcurrency must be greater than 0");
+    service = builder.service;
+    maxRequestBytes = builder.maxRequestBytes;
+    maxSegmentLength = builder.maxSegmentLength;
+    translationMemory = builder.translationMemory;
+    executor = DaemonThreadFactory.newThreadPool("language-translator-batch", builder.maxConcurrency);
+  }
+
+  /**
+   * Translates the texts of the options. The model, source and target of the options are used for every request.
+   *
+   * @param translateOptions the translate options
+   * @return the translations, in the order of the texts
+   * @throws InterruptedException if the calling thread is interrupted while waiting for the requests
+   * @throws RuntimeException the exception of the first request that failed
+   */
+  public TranslationResult translate(final TranslateOptions translateOptions) throws InterruptedException {
+    Validator.notNull(translateOptions, "translateOptions cannot be null");
+    final String language = translateOptions.modelId() != null ? translateOptions.modelId()
+        : translateOptions.source() + '-' + translateOptions.target();
+    final Locale locale = translateOptions.source() != null ? new Locale(translateOptions.source()) : Locale.ROOT;
+
+    // split the texts and collect the distinct segments
+    final List<List<Piece>> texts = new ArrayList<List<Piece>>(translateOptions.text().size());
+    final Map<String, String> translations = new LinkedHashMap<String, String>();
+    for (String text : translateOptions.text()) {
+      Validator.notNull(text, "text cannot contain null");
+      final List<Piece> pieces = new ArrayList<Piece>();
+      for (String segment : TextSegmenter.split(text, maxSegmentLength, locale)) {
+        final Piece piece = new Piece(segment);
+        pieces.add(piece);
+        if (!piece.segment.isEmpty() && !translations.containsKey(piece.segment)) {
+          translations.put(piece.segment, translationMemory != null
+              ? translationMemory.get(language, piece.segment) : null);
+        }
+      }
+      texts.add(pieces);
+    }
+
+    final List<List<String>> batches = pack(translations);
+    final List<Future<TranslationResult>> futures = new ArrayList<Future<TranslationResult>>(batches.size());
+    for (final List<String> batch : batches) {
+      futures.add(executor.submit(new Callable<TranslationResult>() {
+        @Override
+        public TranslationResult call() {
+          return service.translate(translateOptions.newBuilder().text(batch).build()).execute();
+        }
+      }));
+    }
+
+    long wordCount = 0;
+    long characterCount = 0;
+    try {
+      for (int i = 0; i < batches.size(); i++) {
+        final List<String> batch = batches.get(i);
+        final TranslationResult result = futures.get(i).get();
+        final List<Translation> translated = result.getTranslations();
+        if ((translated == null) || (translated.size() != batch.size())) {
+          throw new IllegalStateException("Expected " + batch.size() + " translations, got "
+              + (translated == null ? 0 : translated.size()));
+        }
+        for (int j = 0; j < batch.size(); j++) {
+          translations.put(batch.get(j), translated.get(j).getTranslation());
+          if (translationMemory != null) {
+            translationMemory.put(language, batch.get(j), translated.get(j).getTranslation());
+          }
+        }
+        wordCount += result.getWordCount() != null ? result.getWordCount() : 0;
+        characterCount += result.getCharacterCount() != null ? result.getCharacterCount() : 0;
+      }
+    } catch (ExecutionException e) {
+      throw FutureUtils.asRuntimeException(e.getCause());
+    } finally {
+      for (Future<TranslationResult> future : futures) {
+        future.cancel(true);
+      }
+    }
+
+    final List<Translation> results = new ArrayList<Translation>(texts.size());
+    for (List<Piece> pieces : texts) {
+      final StringBuilder text = new StringBuilder();
+      for (Piece piece : pieces) {
+        text.append(piece.prefix);
+        if (!piece.segment.isEmpty()) {
+          text.append(translations.get(piece.segment));
+        }
+        text.append(piece.suffix);
+      }
+      final Translation translation = new Translation();
+      translation.setTranslation(text.toString());
+      results.add(translation);
+    }
+
+    final TranslationResult result = new TranslationResult();
+    result.setTranslations(results);
+    result.setWordCount(wordCount);
+    result.setCharacterCount(characterCount);
+    return result;
+  }
+
+  /**
+   * Stops the worker threads once the requests in flight are done.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  /**
+   * Packs the segments that have no translation yet into batches of up to the maximum request size. A segment larger
+   * than the maximum is sent alone.
+   *
+   * @param translations the segments and their known translations
+   * @return the batches
+   */
+  private List<List<String>> pack(Map<String, String> translations) {
+    final List<List<String>> batches = new ArrayList<List<String>>();
+    List<String> batch = new ArrayList<String>();
+    int size = 0;
+    for (Map.Entry<String, String> entry : translations.entrySet()) {
+      if (entry.getValue() != null) {
+        continue;
+      }
+      final int bytes = entry.getKey().getBytes(UTF_8).length + TEXT_OVERHEAD;
+      if (!batch.isEmpty() && ((size + bytes) > maxRequestBytes)) {
+        batches.add(batch);
+        batch = new ArrayList<String>();
+        size = 0;
+      }
+      batch.add(entry.getKey());
+      size += bytes;
+    }
+    if (!batch.isEmpty()) {
+      batches.add(batch);
+    }
+    return batches;
+  }
+}
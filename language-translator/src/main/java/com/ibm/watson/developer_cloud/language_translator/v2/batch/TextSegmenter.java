@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.language_translator.v2.batch;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits long texts into segments at sentence boundaries. The segments are contiguous, so concatenating them gives
+ * back the text.
+ */
+final class TextSegmenter {
+
+  private TextSegmenter() {
+    // This is a utility class - no instantiation allowed.
+  }
+
+  /**
+   * Splits a text into segments of at most <code>maxLength</code> characters. Whole sentences are packed into a
+   * segment while they fit; a sentence longer than the maximum is split at the last whitespace that fits, or at the
+   * maximum if it has none.
+   *
+   * @param text the text
+   * @param maxLength the maximum length of a segment
+   * @param locale the locale of the text, used to find the sentence boundaries
+   * @return the segments
+   */
+  static List<String> split(String text, int maxLength, Locale locale) {
+    final List<String> segments = new ArrayList<String>();
+    if (text.length() <= maxLength) {
+      segments.add(text);
+      return segments;
+    }
+
+    final BreakIterator sentences = BreakIterator.getSentenceInstance(locale);
+    sentences.setText(text);
+    int start = 0;
+    int end = start;
+    for (int boundary = sentences.next(); boundary != BreakIterator.DONE; boundary = sentences.next()) {
+      if ((boundary - start) <= maxLength) {
+        end = boundary;
+        continue;
+      }
+      if (end > start) {
+        segments.add(text.substring(start, end));
+        start = end;
+      }
+      // the sentence alone is too long
+      while ((boundary - start) > maxLength) {
+        final int cut = cut(text, start, maxLength);
+        segments.add(text.substring(start, cut));
+        start = cut;
+      }
+      end = boundary;
+    }
+    if (end > start) {
+      segments.add(text.substring(start, end));
+    }
+    return segments;
+  }
+
+  private static int cut(String text, int start, int maxLength) {
+    int cut = start + maxLength;
+    for (int i = cut; i > start; i--) {
+      if (Character.isWhitespace(text.charAt(i - 1))) {
+        return i;
+      }
+    }
+    if (Character.isHighSurrogate(text.charAt(cut - 1))) {
+      cut--;
+    }
+    return cut;
+  }
+}
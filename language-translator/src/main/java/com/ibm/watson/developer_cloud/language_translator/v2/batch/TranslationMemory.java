@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.language_translator.v2.batch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * A translation memory: a bounded cache of translated segments, evicting the least recently used. Segments are
+ * remembered per model, or per source and target language, so one memory can be shared by several
+ * {@link BatchTranslator}s.
+ */
+public class TranslationMemory {
+
+  /** The default maximum number of segments. */
+  public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+  private final Map<String, String> entries;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Instantiates a new translation memory with room for {@value #DEFAULT_MAX_ENTRIES} segments.
+   */
+  public TranslationMemory() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Instantiates a new translation memory.
+   *
+   * @param maxEntries the maximum number of segments
+   */
+  public TranslationMemory(final int maxEntries) {
+    Validator.isTrue(maxEntries > 0, "maxEntries must be greater than 0");
+    entries = new LinkedHashMap<String, String>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Gets the translation of a segment.
+   *
+   * @param language the model id, or the source and target languages
+   * @param segment the segment
+   * @return the translation, or <code>null</code> if the segment is not in the memory
+   */
+  public String get(String language, String segment) {
+    final String translation;
+    synchronized (entries) {
+      translation = entries.get(key(language, segment));
+    }
+    (translation != null ? hits : misses).incrementAndGet();
+    return translation;
+  }
+
+  /**
+   * Remembers the translation of a segment.
+   *
+   * @param language the model id, or the source and target languages
+   * @param segment the segment
+   * @param translation the translation
+   */
+  public void put(String language, String segment, String translation) {
+    synchronized (entries) {
+      entries.put(key(language, segment), translation);
+    }
+  }
+
+  /**
+   * Forgets every segment.
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Gets the number of segments in the memory.
+   *
+   * @return the size
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Gets the number of lookups that found a translation.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Gets the number of lookups that found no translation.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  private static String key(String language, String segment) {
+    return language + '\0' + segment;
+  }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.language_translator.v2.identification;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ibm.watson.developer_cloud.language_translator.v2.LanguageTranslator;
+import com.ibm.watson.developer_cloud.language_translator.v2.model.IdentifiedLanguage;
+import com.ibm.watson.developer_cloud.language_translator.v2.model.IdentifiedLanguages;
+import com.ibm.watson.developer_cloud.language_translator.v2.model.IdentifyOptions;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+import okio.ByteString;
+
+/**
+ * Identifies the language of texts with as few calls to {@link LanguageTranslator#identify(IdentifyOptions)} as
+ * possible.
+ * <p>
+ * A text is answered, in order, from:
+ * <ol>
+ * <li>a cache of earlier answers, keyed by the hash of the normalized text (trimmed, lower cased, with runs of
+ * whitespace collapsed)</li>
+ * <li>the local {@link NGramClassifier}, once it was trained with enough text in at least two languages, when the
+ * log-likelihood of its top language beats the runner-up by the minimum margin per n-gram</li>
+ * <li>the service. Confident answers of the service also train the local classifier, so it learns the traffic it
+ * sees.</li>
+ * </ol>
+ * Every time the service is called, its answer is compared with the guess of the local classifier to measure the
+ * agreement rate. Confident local answers can also be checked against the service in the background with
+ * {@link Builder#verifyEvery(int)}; when the service disagrees, its answer replaces the local one in the cache, trains
+ * the classifier, and the next texts go to the service again.
+ *
+ * <pre>
+ * LanguageIdentifier identifier = new LanguageIdentifier.Builder(service).build();
+ * String language = identifier.identify(message).getLanguages().get(0).getLanguage();
+ * </pre>
+ */
+public class LanguageIdentifier {
+  private static final Logger LOG = Logger.getLogger(LanguageIdentifier.class.getName());
+
+  /** The default confidence above which the answers of the service train the local classifier. */
+  public static final double DEFAULT_CONFIDENCE_THRESHOLD = 0.95;
+
+  /** The default minimum log-likelihood margin per n-gram of a local answer. */
+  public static final double DEFAULT_MIN_MARGIN = 0.2;
+
+  /** The default minimum number of n-grams a language is trained with before local answers are used. */
+  public static final long DEFAULT_MIN_TRAINING_NGRAMS = 500;
+
+  /** The default minimum length of a normalized text for a local answer. */
+  public static final int DEFAULT_MIN_LOCAL_LENGTH = 12;
+
+  /** The default maximum number of cached answers. */
+  public static final int DEFAULT_CACHE_SIZE = 10000;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final LanguageTranslator service;
+    private NGramClassifier classifier;
+    private double confidenceThreshold = DEFAULT_CONFIDENCE_THRESHOLD;
+    private double minMargin = DEFAULT_MIN_MARGIN;
+    private long minTrainingNGrams = DEFAULT_MIN_TRAINING_NGRAMS;
+    private int minLocalLength = DEFAULT_MIN_LOCAL_LENGTH;
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+    private boolean learn = true;
+    private int verifyEvery;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param service the service used when the local classifier is unsure
+     */
+    public Builder(LanguageTranslator service) {
+      this.service = service;
+    }
+
+    /**
+     * Set the local classifier, for example one trained up front. By default, an empty classifier is created and
+     * trained with the answers of the service.
+     *
+     * @param classifier the classifier
+     * @return the builder
+     */
+    public Builder classifier(NGramClassifier classifier) {
+      this.classifier = classifier;
+      return this;
+    }
+
+    /**
+     * Set the confidence above which the answers of the service train the classifier. Defaults to
+     * {@value LanguageIdentifier#DEFAULT_CONFIDENCE_THRESHOLD}.
+     *
+     * @param confidenceThreshold the confidence threshold, between 0 and 1
+     * @return the builder
+     */
+    public Builder confidenceThreshold(double confidenceThreshold) {
+      this.confidenceThreshold = confidenceThreshold;
+      return this;
+    }
+
+    /**
+     * Set the minimum {@link NGramClassifier#margin(String) margin} of a local answer, in log-likelihood per n-gram
+     * between the top language and the runner-up. Defaults to {@value LanguageIdentifier#DEFAULT_MIN_MARGIN}.
+     *
+     * @param minMargin the minimum margin
+     * @return the builder
+     */
+    public Builder minMargin(double minMargin) {
+      this.minMargin = minMargin;
+      return this;
+    }
+
+    /**
+     * Set the minimum number of n-grams a language is trained with to count towards the two languages the classifier
+     * needs before it answers locally. Defaults to {@value LanguageIdentifier#DEFAULT_MIN_TRAINING_NGRAMS}.
+     *
+     * @param minTrainingNGrams the minimum number of n-grams
+     * @return the builder
+     */
+    public Builder minTrainingNGrams(long minTrainingNGrams) {
+      this.minTrainingNGrams = minTrainingNGrams;
+      return this;
+    }
+
+    /**
+     * Set the minimum length of a normalized text for a local answer; shorter texts always go to the service. Defaults
+     * to {@value LanguageIdentifier#DEFAULT_MIN_LOCAL_LENGTH}.
+     *
+     * @param minLocalLength the minimum length
+     * @return the builder
+     */
+    public Builder minLocalLength(int minLocalLength) {
+      this.minLocalLength = minLocalLength;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of cached answers, or 0 to disable the cache. Defaults to
+     * {@value LanguageIdentifier#DEFAULT_CACHE_SIZE}.
+     *
+     * @param cacheSize the cache size
+     * @return the builder
+     */
+    public Builder cacheSize(int cacheSize) {
+      this.cacheSize = cacheSize;
+      return this;
+    }
+
+    /**
+     * Set whether confident answers of the service train the local classifier. Defaults to true.
+     *
+     * @param learn true to train the classifier with the answers of the service
+     * @return the builder
+     */
+    public Builder learn(boolean learn) {
+      this.learn = learn;
+      return this;
+    }
+
+    /**
+     * Check every n-th local answer against the service in the background, to measure the agreement rate on the
+     * traffic answered locally. When the service disagrees, the next n texts are sent to the service, which trains the
+     * classifier further. Defaults to 0, which never checks.
+     *
+     * @param verifyEvery the sampling interval
+     * @return the builder
+     */
+    public Builder verifyEvery(int verifyEvery) {
+      this.verifyEvery = verifyEvery;
+      return this;
+    }
+
+    /**
+     * Builds the language identifier.
+     *
+     * @return the language identifier
+     */
+    public LanguageIdentifier build() {
+      return new LanguageIdentifier(this);
+    }
+  }
+
+  private final LanguageTranslator service;
+  private final NGramClassifier classifier;
+  private final double confidenceThreshold;
+  private final double minMargin;
+  private final long minTrainingNGrams;
+  private final int minLocalLength;
+  private final boolean learn;
+  private final int verifyEvery;
+  private final Map<String, IdentifiedLanguages> cache;
+
+  private final AtomicLong cacheHits = new AtomicLong();
+  private final AtomicLong localAnswers = new AtomicLong();
+  private final AtomicLong serviceCalls = new AtomicLong();
+  private final AtomicLong comparisons = new AtomicLong();
+  private final AtomicLong agreements = new AtomicLong();
+  private final AtomicInteger fallbacks = new AtomicInteger();
+
+  /**
+   * Instantiates a new language identifier.
+   *
+   * @param builder the builder
+   */
+  protected LanguageIdentifier(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.isTrue((builder.confidenceThreshold > 0) && (builder.confidenceThreshold <= 1),
+        "confidenceThreshold must be greater than 0 and at most 1");
+    Validator.isTrue(builder.minMargin >= 0, "minMargin cannot be negative");
+    Validator.isTrue(builder.minTrainingNGrams >= 0, "minTrainingNGrams cannot be negative");
+    Validator.isTrue(builder.cacheSize >= 0, "cacheSize cannot be negative");
+    Validator.isTrue(builder.verifyEvery >= 0, "verifyEvery cannot be negative");
+    service = builder.service;
+    classifier = builder.classifier != null ? builder.classifier : new NGramClassifier();
+    confidenceThreshold = builder.confidenceThreshold;
+    minMargin = builder.minMargin;
+    minTrainingNGrams = builder.minTrainingNGrams;
+    minLocalLength = builder.minLocalLength;
+    learn = builder.learn;
+    verifyEvery = builder.verifyEvery;
+
+    final int cacheSize = builder.cacheSize;
+    cache = cacheSize == 0 ? null : new LinkedHashMap<String, IdentifiedLanguages>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, IdentifiedLanguages> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  /**
+   * Identifies the language of a text.
+   *
+   * @param text the text
+   * @return the identified languages, by decreasing confidence
+   */
+  public IdentifiedLanguages identify(final String text) {
+    Validator.notNull(text, "text cannot be null");
+    final String normalized = normalize(text);
+    final String key = ByteString.encodeUtf8(normalized).sha256().hex();
+
+    IdentifiedLanguages identified = getCached(key);
+    if (identified != null) {
+      cacheHits.incrementAndGet();
+      return identified;
+    }
+
+    final IdentifiedLanguages local = classifier.classify(normalized);
+    final IdentifiedLanguage localTop = top(local);
+    if ((localTop != null) && isConfident(normalized) && !takeFallback()) {
+      final long count = localAnswers.incrementAndGet();
+      if ((verifyEvery > 0) && ((count % verifyEvery) == 0)) {
+        verify(text, normalized, key, localTop.getLanguage());
+      }
+      identified = local;
+    } else {
+      serviceCalls.incrementAndGet();
+      identified = service.identify(new IdentifyOptions.Builder(text).build()).execute();
+      final IdentifiedLanguage serviceTop = top(identified);
+      if (localTop != null) {
+        compare(localTop.getLanguage(), serviceTop);
+      }
+      train(normalized, serviceTop);
+    }
+
+    putCached(key, identified);
+    return identified;
+  }
+
+  /**
+   * Gets the local classifier.
+   *
+   * @return the classifier
+   */
+  public NGramClassifier getClassifier() {
+    return classifier;
+  }
+
+  /**
+   * Gets the number of texts answered from the cache.
+   *
+   * @return the cache hit count
+   */
+  public long getCacheHitCount() {
+    return cacheHits.get();
+  }
+
+  /**
+   * Gets the number of texts answered by the local classifier.
+   *
+   * @return the local answer count
+   */
+  public long getLocalAnswerCount() {
+    return localAnswers.get();
+  }
+
+  /**
+   * Gets the number of texts sent to the service, not counting background checks.
+   *
+   * @return the service call count
+   */
+  public long getServiceCallCount() {
+    return serviceCalls.get();
+  }
+
+  /**
+   * Gets the number of times the top language of the local classifier was compared with the service.
+   *
+   * @return the comparison count
+   */
+  public long getComparisonCount() {
+    return comparisons.get();
+  }
+
+  /**
+   * Gets the share of comparisons where the local classifier and the service agreed on the top language.
+   *
+   * @return the agreement rate, or <code>NaN</code> before the first comparison
+   */
+  public double getAgreementRate() {
+    final long compared = comparisons.get();
+    return compared == 0 ? Double.NaN : (double) agreements.get() / compared;
+  }
+
+  /**
+   * Forgets the cached answers.
+   */
+  public void clearCache() {
+    if (cache != null) {
+      synchronized (cache) {
+        cache.clear();
+      }
+    }
+  }
+
+  /**
+   * Checks whether the local classifier can answer a normalized text on its own.
+   */
+  private boolean isConfident(String normalized) {
+    return (normalized.length() >= minLocalLength) && (classifier.getLanguages(minTrainingNGrams).size() >= 2)
+        && (classifier.margin(normalized) >= minMargin);
+  }
+
+  /**
+   * Takes one of the texts to send to the service after a local answer was found wrong.
+   */
+  private boolean takeFallback() {
+    int remaining;
+    do {
+      remaining = fallbacks.get();
+      if (remaining <= 0) {
+        return false;
+      }
+    } while (!fallbacks.compareAndSet(remaining, remaining - 1));
+    return true;
+  }
+
+  private void train(String normalized, IdentifiedLanguage serviceTop) {
+    if (learn && (serviceTop != null) && (serviceTop.getConfidence() != null)
+        && (serviceTop.getConfidence() >= confidenceThreshold)) {
+      classifier.train(serviceTop.getLanguage(), normalized);
+    }
+  }
+
+  private void verify(String text, final String normalized, final String key, final String localLanguage) {
+    service.identify(new IdentifyOptions.Builder(text).build()).rx().handle(
+        new CompletableFuture.BiFun<IdentifiedLanguages, Throwable, Void>() {
+          @Override
+          public Void apply(IdentifiedLanguages identified, Throwable error) {
+            if (error == null) {
+              final IdentifiedLanguage serviceTop = top(identified);
+              if ((serviceTop != null) && !localLanguage.equals(serviceTop.getLanguage())) {
+                putCached(key, identified);
+                train(normalized, serviceTop);
+                fallbacks.set(verifyEvery);
+              }
+              compare(localLanguage, serviceTop);
+            } else {
+              LOG.log(Level.FINE, "Could not verify a local language identification", error);
+            }
+            return null;
+          }
+        });
+  }
+
+  private void compare(String localLanguage, IdentifiedLanguage serviceTop) {
+    if (serviceTop != null) {
+      comparisons.incrementAndGet();
+      if (localLanguage.equals(serviceTop.getLanguage())) {
+        agreements.incrementAndGet();
+      }
+    }
+  }
+
+  private IdentifiedLanguages getCached(String key) {
+    if (cache == null) {
+      return null;
+    }
+    synchronized (cache) {
+      return cache.get(key);
+    }
+  }
+
+  private void putCached(String key, IdentifiedLanguages identified) {
+    if (cache != null) {
+      synchronized (cache) {
+        cache.put(key, identified);
+      }
+    }
+  }
+
+  private static IdentifiedLanguage top(IdentifiedLanguages identified) {
+    final List<IdentifiedLanguage> languages = identified != null ? identified.getLanguages() : null;
+    return (languages == null) || languages.isEmpty() ? null : languages.get(0);
+  }
+
+  private static String normalize(String text) {
+    return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.language_translator.v2.identification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.ibm.watson.developer_cloud.language_translator.v2.model.IdentifiedLanguage;
+import com.ibm.watson.developer_cloud.language_translator.v2.model.IdentifiedLanguages;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * A small character n-gram language classifier. Each language is a profile of the counts of the 1- to 3-character
+ * sequences of its training text, and a text is scored against every profile with naive Bayes. The classifier comes
+ * with no profiles: it is trained with {@link #train(String, String)}, for example with the texts the service has
+ * already identified.
+ * <p>
+ * This class is thread safe.
+ */
+public class NGramClassifier {
+
+  /** The default maximum number of distinct n-grams kept per language. */
+  public static final int DEFAULT_MAX_NGRAMS = 20000;
+
+  private static final int MAX_N = 3;
+
+  /**
+   * The n-gram counts of a language.
+   */
+  private static final class Profile {
+    private final Map<String, Integer> counts = new HashMap<String, Integer>();
+    private long total;
+  }
+
+  private final int maxNGrams;
+  private final Map<String, Profile> profiles = new HashMap<String, Profile>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Instantiates a new n-gram classifier that keeps up to {@value #DEFAULT_MAX_NGRAMS} n-grams per language.
+   */
+  public NGramClassifier() {
+    this(DEFAULT_MAX_NGRAMS);
+  }
+
+  /**
+   * Instantiates a new n-gram classifier.
+   *
+   * @param maxNGrams the maximum number of distinct n-grams kept per language
+   */
+  public NGramClassifier(int maxNGrams) {
+    Validator.isTrue(maxNGrams > 0, "maxNGrams must be greater than 0");
+    this.maxNGrams = maxNGrams;
+  }
+
+  /**
+   * Adds a text to the profile of a language.
+   *
+   * @param language the language code, for example <code>en</code>
+   * @param text the text
+   */
+  public void train(String language, String text) {
+    Validator.notNull(language, "language cannot be null");
+    Validator.notNull(text, "text cannot be null");
+    final List<String> ngrams = ngrams(text);
+    lock.writeLock().lock();
+    try {
+      Profile profile = profiles.get(language);
+      if (profile == null) {
+        profile = new Profile();
+        profiles.put(language, profile);
+      }
+      for (String ngram : ngrams) {
+        final Integer count = profile.counts.get(ngram);
+        if (count != null) {
+          profile.counts.put(ngram, count + 1);
+        } else if (profile.counts.size() < maxNGrams) {
+          profile.counts.put(ngram, 1);
+        } else {
+          continue;
+        }
+        profile.total++;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the languages the classifier was trained with.
+   *
+   * @return the language codes
+   */
+  public List<String> getLanguages() {
+    return getLanguages(0);
+  }
+
+  /**
+   * Gets the languages the classifier was trained with, leaving out those trained with too little text to be told
+   * apart reliably.
+   *
+   * @param minNGrams the minimum number of n-grams a language was trained with
+   * @return the language codes
+   */
+  public List<String> getLanguages(long minNGrams) {
+    final List<String> languages = new ArrayList<String>();
+    lock.readLock().lock();
+    try {
+      for (Map.Entry<String, Profile> entry : profiles.entrySet()) {
+        if (entry.getValue().total >= minNGrams) {
+          languages.add(entry.getKey());
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return languages;
+  }
+
+  /**
+   * Classifies a text. The confidences are the posterior probabilities of the trained languages, assuming they are
+   * equally likely, and add up to 1.
+   *
+   * @param text the text
+   * @return the languages by decreasing confidence; empty if the classifier is not trained or the text has no letters
+   */
+  public IdentifiedLanguages classify(String text) {
+    Validator.notNull(text, "text cannot be null");
+    final List<String> ngrams = ngrams(text);
+    final List<IdentifiedLanguage> languages = new ArrayList<IdentifiedLanguage>();
+
+    if (!ngrams.isEmpty()) {
+      final Map<String, Double> scores = score(ngrams);
+      double best = Double.NEGATIVE_INFINITY;
+      for (double score : scores.values()) {
+        best = Math.max(best, score);
+      }
+
+      double sum = 0;
+      for (Map.Entry<String, Double> entry : scores.entrySet()) {
+        final double likelihood = Math.exp(entry.getValue() - best);
+        entry.setValue(likelihood);
+        sum += likelihood;
+      }
+      for (Map.Entry<String, Double> entry : scores.entrySet()) {
+        final IdentifiedLanguage language = new IdentifiedLanguage();
+        language.setLanguage(entry.getKey());
+        language.setConfidence(entry.getValue() / sum);
+        languages.add(language);
+      }
+      Collections.sort(languages, new Comparator<IdentifiedLanguage>() {
+        @Override
+        public int compare(IdentifiedLanguage o1, IdentifiedLanguage o2) {
+          return o2.getConfidence().compareTo(o1.getConfidence());
+        }
+      });
+    }
+
+    final IdentifiedLanguages identified = new IdentifiedLanguages();
+    identified.setLanguages(languages);
+    return identified;
+  }
+
+  /**
+   * Gets how much more likely a text is in its top language than in the runner-up: the difference of their
+   * log-likelihoods, divided by the number of n-grams of the text. Unlike the confidences of {@link #classify(String)},
+   * which share the probability mass among the trained languages only, the margin does not grow because few languages
+   * are trained, and it does not grow with the length of the text.
+   *
+   * @param text the text
+   * @return the margin, or 0 if fewer than two languages are trained or the text has no letters
+   */
+  public double margin(String text) {
+    Validator.notNull(text, "text cannot be null");
+    final List<String> ngrams = ngrams(text);
+    if (ngrams.isEmpty()) {
+      return 0;
+    }
+    double best = Double.NEGATIVE_INFINITY;
+    double second = Double.NEGATIVE_INFINITY;
+    for (double score : score(ngrams).values()) {
+      if (score > best) {
+        second = best;
+        best = score;
+      } else if (score > second) {
+        second = score;
+      }
+    }
+    return second == Double.NEGATIVE_INFINITY ? 0 : (best - second) / ngrams.size();
+  }
+
+  /**
+   * Scores n-grams against every profile.
+   *
+   * @param ngrams the n-grams of a text
+   * @return the log-likelihood of the n-grams, by language
+   */
+  private Map<String, Double> score(List<String> ngrams) {
+    final Map<String, Double> scores = new HashMap<String, Double>();
+    lock.readLock().lock();
+    try {
+      for (Map.Entry<String, Profile> entry : profiles.entrySet()) {
+        final Profile profile = entry.getValue();
+        final double denominator = Math.log(profile.total + profile.counts.size() + 1);
+        double score = 0;
+        for (String ngram : ngrams) {
+          final Integer count = profile.counts.get(ngram);
+          // add-one smoothing, so unseen n-grams lower the score without ruling the language out
+          score += Math.log((count != null ? count : 0) + 1) - denominator;
+        }
+        scores.put(entry.getKey(), score);
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return scores;
+  }
+
+  /**
+   * Lists the 1- to 3-character n-grams of the words of a text. Words are lower cased runs of letters, padded with a
+   * space on each side so that n-grams at word boundaries are kept apart.
+   *
+   * @param text the text
+   * @return the n-grams
+   */
+  static List<String> ngrams(String text) {
+    final List<String> ngrams = new ArrayList<String>();
+    final String lower = text.toLowerCase(Locale.ROOT);
+    final StringBuilder word = new StringBuilder(" ");
+    for (int i = 0; i <= lower.length(); i++) {
+      final char c = i < lower.length() ? lower.charAt(i) : ' ';
+      if (Character.isLetter(c)) {
+        word.append(c);
+      } else if (word.length() > 1) {
+        word.append(' ');
+        for (int n = 1; n <= MAX_N; n++) {
+          for (int start = 0; (start + n) <= word.length(); start++) {
+            final String ngram = word.substring(start, start + n);
+            if (!" ".equals(ngram)) {
+              ngrams.add(ngram);
+            }
+          }
+        }
+        word.setLength(1);
+      }
+    }
+    return ngrams;
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.language_translator.v2.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.language_translator.v2.LanguageTranslator;
+import com.ibm.watson.developer_cloud.language_translator.v2.model.TranslateOptions;
+import com.ibm.watson.developer_cloud.language_translator.v2.model.Translation;
+import com.ibm.watson.developer_cloud.language_translator.v2.model.TranslationResult;
+import com.ibm.watson.developer_cloud.language_translator.v2.util.Language;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for {@link BatchTranslator}.
+ */
+public class BatchTranslatorTest extends WatsonServiceUnitTest {
+
+  private LanguageTranslator service;
+  private BatchTranslator translator;
+  private TranslationMemory memory;
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new LanguageTranslator();
+    service.setUsernameAndPassword("", "");
+    service.setEndPoint(getMockWebServerUrl());
+    memory = new TranslationMemory();
+
+    // "translates" every text to upper case
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        final JsonObject body = new JsonParser().parse(request.getBody().clone().readUtf8()).getAsJsonObject();
+        final JsonArray translations = new JsonArray();
+        for (JsonElement text : body.getAsJsonArray("text")) {
+          final JsonObject translation = new JsonObject();
+          translation.addProperty("translation", text.getAsString().toUpperCase(Locale.ENGLISH));
+          translations.add(translation);
+        }
+        final JsonObject response = new JsonObject();
+        response.addProperty("word_count", 1);
+        response.addProperty("character_count", 1);
+        response.add("translations", translations);
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(response.toString());
+      }
+    });
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    translator.shutdown();
+    super.tearDown();
+  }
+
+  private static List<String> translations(TranslationResult result) {
+    final List<String> translations = new ArrayList<String>();
+    for (Translation translation : result.getTranslations()) {
+      translations.add(translation.getTranslation());
+    }
+    return translations;
+  }
+
+  /**
+   * Test that short texts are packed into size-limited requests and come back in order.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testPacksTextsInOrder() throws Exception {
+    translator = new BatchTranslator.Builder(service).maxRequestBytes(20).maxConcurrency(3)
+        .translationMemory(memory).build();
+    final List<String> texts = Arrays.asList("one", "two", "three", "four", "five", "six", "seven", "two", "one");
+    final TranslateOptions options = new TranslateOptions.Builder(texts).source(Language.ENGLISH)
+        .target(Language.SPANISH).build();
+
+    final TranslationResult result = translator.translate(options);
+
+    assertEquals(Arrays.asList("ONE", "TWO", "THREE", "FOUR", "FIVE", "SIX", "SEVEN", "TWO", "ONE"),
+        translations(result));
+    // 7 distinct texts of 6 to 8 bytes each with their quotes, at most 20 bytes per request
+    assertEquals(3, server.getRequestCount());
+    assertEquals(3, result.getWordCount().longValue());
+    for (int i = 0; i < 3; i++) {
+      final JsonObject body = new JsonParser().parse(server.takeRequest().getBody().readUtf8()).getAsJsonObject();
+      assertEquals("en", body.get("source").getAsString());
+      assertEquals("es", body.get("target").getAsString());
+    }
+
+    // everything is in the translation memory now
+    assertEquals(texts.size(), translations(translator.translate(options)).size());
+    assertEquals(3, server.getRequestCount());
+    assertEquals(7, memory.size());
+  }
+
+  /**
+   * Test that long texts are split at sentence boundaries and joined back with their whitespace.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testSplitsLongTexts() throws Exception {
+    translator = new BatchTranslator.Builder(service).maxSegmentLength(30).translationMemory(memory).build();
+    final String text = "The first sentence is here. The second one follows.\n\nA third closes it.  ";
+    final TranslateOptions options = new TranslateOptions.Builder().addText(text).addText("Short.")
+        .modelId("en-es").build();
+
+    final TranslationResult result = translator.translate(options);
+
+    assertEquals(Arrays.asList(text.toUpperCase(Locale.ENGLISH), "SHORT."), translations(result));
+    final JsonObject body = new JsonParser().parse(server.takeRequest().getBody().readUtf8()).getAsJsonObject();
+    assertEquals(4, body.getAsJsonArray("text").size());
+    assertEquals("The first sentence is here.", body.getAsJsonArray("text").get(0).getAsString());
+    assertEquals("en-es", body.get("model_id").getAsString());
+  }
+
+  /**
+   * Test that segments are split within a sentence that is too long.
+   */
+  @Test
+  public void testSegmenterSplitsLongSentences() {
+    translator = new BatchTranslator.Builder(service).build();
+    final String text = "aaaa bbbb cccc dddd. ee";
+    final List<String> segments = TextSegmenter.split(text, 10, Locale.ENGLISH);
+    final StringBuilder joined = new StringBuilder();
+    for (String segment : segments) {
+      assertTrue(segment.length() <= 10);
+      joined.append(segment);
+    }
+    assertEquals(text, joined.toString());
+    assertEquals(Arrays.asList("aaaa bbbb ", "cccc ", "dddd. ee"), segments);
+  }
+}
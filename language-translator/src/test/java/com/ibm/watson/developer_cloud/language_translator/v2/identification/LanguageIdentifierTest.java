@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.language_translator.v2.identification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.language_translator.v2.LanguageTranslator;
+import com.ibm.watson.developer_cloud.language_translator.v2.model.IdentifiedLanguages;
+
+import okhttp3.mockwebserver.MockResponse;
+
+/**
+ * Unit tests for {@link LanguageIdentifier} and {@link NGramClassifier}.
+ */
+public class LanguageIdentifierTest extends WatsonServiceUnitTest {
+
+  private static final String ENGLISH = "The quick brown fox jumps over the lazy dog. We would like to know which "
+      + "language this message is written in, so that we can send it to the right team. Thank you for your help "
+      + "with this question, and have a wonderful day with your family and friends.";
+  private static final String SPANISH = "El veloz murciélago hindú comía feliz cardillo y kiwi. Queremos saber en "
+      + "qué idioma está escrito este mensaje, para poder enviarlo al equipo correcto. Gracias por su ayuda con "
+      + "esta pregunta, y que tenga un día maravilloso con su familia y sus amigos.";
+  private static final String ENGLISH_RESPONSE =
+      "{\"languages\": [{\"language\": \"en\", \"confidence\": 0.97}, {\"language\": \"nl\", \"confidence\": 0.03}]}";
+  private static final String SPANISH_RESPONSE =
+      "{\"languages\": [{\"language\": \"es\", \"confidence\": 0.98}, {\"language\": \"pt\", \"confidence\": 0.02}]}";
+
+  private LanguageTranslator service;
+  private NGramClassifier classifier;
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new LanguageTranslator();
+    service.setUsernameAndPassword("", "");
+    service.setEndPoint(getMockWebServerUrl());
+    classifier = new NGramClassifier();
+    classifier.train("en", ENGLISH);
+    classifier.train("es", SPANISH);
+  }
+
+  /**
+   * Test that the classifier tells the trained languages apart.
+   */
+  @Test
+  public void testClassifier() {
+    final IdentifiedLanguages english = classifier.classify("Thank you, we will send the message to the team");
+    assertEquals("en", english.getLanguages().get(0).getLanguage());
+    assertTrue(english.getLanguages().get(0).getConfidence() > 0.95);
+
+    final IdentifiedLanguages spanish = classifier.classify("Gracias, enviaremos el mensaje al equipo");
+    assertEquals("es", spanish.getLanguages().get(0).getLanguage());
+    assertEquals(2, spanish.getLanguages().size());
+
+    assertTrue(classifier.classify("1234 !!").getLanguages().isEmpty());
+    assertTrue(new NGramClassifier().classify("hello").getLanguages().isEmpty());
+  }
+
+  /**
+   * Test that the margin is low for a language the classifier was not trained with, and 0 with a single language.
+   */
+  @Test
+  public void testMargin() {
+    assertTrue(classifier.margin("Thank you, we will send the message to the team") > 0.2);
+    assertTrue(classifier.margin("Bonjour, nous allons envoyer le message") < 0.2);
+    assertEquals(0, classifier.margin("1234 !!"), 0);
+
+    final NGramClassifier english = new NGramClassifier();
+    english.train("en", ENGLISH);
+    assertEquals(1.0, english.classify("Thank you for the message").getLanguages().get(0).getConfidence(), 0);
+    assertEquals(0, english.margin("Thank you for the message"), 0);
+    assertEquals("[en]", english.getLanguages(500).toString());
+    assertTrue(english.getLanguages(1000).isEmpty());
+  }
+
+  /**
+   * Test that confident texts are answered locally, unsure texts by the service, and repeated texts from the cache.
+   *
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testIdentifyFallsBackToService() throws InterruptedException {
+    final LanguageIdentifier identifier = new LanguageIdentifier.Builder(service).classifier(classifier).build();
+
+    assertEquals("en", identifier.identify("Thank you, we will send the message to the team").getLanguages().get(0)
+        .getLanguage());
+    assertEquals(1, identifier.getLocalAnswerCount());
+    assertEquals(0, server.getRequestCount());
+
+    // too short to answer locally
+    server.enqueue(new MockResponse().setBody(SPANISH_RESPONSE));
+    assertEquals("es", identifier.identify("Hola amigo").getLanguages().get(0).getLanguage());
+    assertEquals(1, identifier.getServiceCallCount());
+    assertEquals("Hola amigo", server.takeRequest().getBody().readUtf8());
+    assertEquals(1, identifier.getComparisonCount());
+    assertEquals(1.0, identifier.getAgreementRate(), 0);
+
+    // normalized to the same text
+    assertEquals("es", identifier.identify("  HOLA   amigo ").getLanguages().get(0).getLanguage());
+    assertEquals(1, identifier.getCacheHitCount());
+    assertEquals(1, server.getRequestCount());
+  }
+
+  /**
+   * Test that a classifier trained with a single language does not answer locally.
+   */
+  @Test
+  public void testIdentifyNeedsTwoLanguages() {
+    final LanguageIdentifier identifier = new LanguageIdentifier.Builder(service).build();
+
+    server.enqueue(new MockResponse().setBody(SPANISH_RESPONSE));
+    identifier.identify(SPANISH);
+    server.enqueue(new MockResponse().setBody(ENGLISH_RESPONSE));
+    assertEquals("en", identifier.identify("Thank you, we will send the message to the team").getLanguages().get(0)
+        .getLanguage());
+    assertEquals(2, identifier.getServiceCallCount());
+    assertEquals(0, identifier.getLocalAnswerCount());
+  }
+
+  /**
+   * Test that a local answer the service disagrees with is replaced, and that the next texts go to the service.
+   *
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testVerifyDisagreement() throws InterruptedException {
+    final LanguageIdentifier identifier = new LanguageIdentifier.Builder(service).classifier(classifier)
+        .verifyEvery(1).build();
+
+    server.enqueue(new MockResponse().setBody(SPANISH_RESPONSE));
+    final String text = "Thank you, we will send the message to the team";
+    assertEquals("en", identifier.identify(text).getLanguages().get(0).getLanguage());
+    for (int i = 0; (i < 50) && (identifier.getComparisonCount() == 0); i++) {
+      Thread.sleep(100);
+    }
+    assertEquals(0.0, identifier.getAgreementRate(), 0);
+
+    assertEquals("es", identifier.identify(text).getLanguages().get(0).getLanguage());
+    assertEquals(1, identifier.getCacheHitCount());
+
+    server.enqueue(new MockResponse().setBody(ENGLISH_RESPONSE));
+    identifier.identify("Thank you for your help with the message");
+    assertEquals(1, identifier.getServiceCallCount());
+    assertEquals(1, identifier.getLocalAnswerCount());
+  }
+
+  /**
+   * Test that the answers of the service train the classifier.
+   */
+  @Test
+  public void testIdentifyLearnsFromService() {
+    final LanguageIdentifier identifier = new LanguageIdentifier.Builder(service).cacheSize(0).build();
+    assertTrue(Double.isNaN(identifier.getAgreementRate()));
+
+    server.enqueue(new MockResponse().setBody(SPANISH_RESPONSE));
+    identifier.identify(SPANISH);
+    assertEquals(1, identifier.getServiceCallCount());
+    assertEquals("es", identifier.getClassifier().getLanguages().get(0));
+  }
+}
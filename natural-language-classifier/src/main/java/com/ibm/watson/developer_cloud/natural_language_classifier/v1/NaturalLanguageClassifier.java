@@ -13,8 +13,10 @@
 package com.ibm.watson.developer_cloud.natural_language_classifier.v1;
 
 import java.io.File;
+import java.io.IOException;
 
 import com.google.gson.JsonObject;
+import com.ibm.watson.developer_cloud.http.FileChannelRequestBody;
 import com.ibm.watson.developer_cloud.http.HttpHeaders;
 import com.ibm.watson.developer_cloud.http.HttpMediaType;
 import com.ibm.watson.developer_cloud.http.RequestBuilder;
@@ -22,14 +24,17 @@ import com.ibm.watson.developer_cloud.http.ServiceCall;
 import com.ibm.watson.developer_cloud.natural_language_classifier.v1.model.Classification;
 import com.ibm.watson.developer_cloud.natural_language_classifier.v1.model.Classifier;
 import com.ibm.watson.developer_cloud.natural_language_classifier.v1.model.Classifiers;
+import com.ibm.watson.developer_cloud.natural_language_classifier.v1.training.TrainingData;
 import com.ibm.watson.developer_cloud.service.WatsonService;
 import com.ibm.watson.developer_cloud.util.ResponseConverterUtils;
 import com.ibm.watson.developer_cloud.util.Validator;
 
 import okhttp3.Headers;
+import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.Request;
 import okhttp3.RequestBody;
+import okio.BufferedSink;
 
 /**
  * The IBM Watson Natural Language Classifier service applies deep learning techniques to make predictions about the
@@ -105,6 +110,51 @@ public class NaturalLanguageClassifier extends WatsonService {
    */
   public ServiceCall<Classifier> createClassifier(final String name, final String language, final File trainingData) {
     Validator.isTrue((trainingData != null) && trainingData.exists(), "trainingData cannot be null or not be found");
+    return createClassifier(name, language, FileChannelRequestBody.create(HttpMediaType.BINARY_FILE, trainingData));
+  }
+
+  /**
+   * Sends data to create and train a classifier, and returns information about the new classifier. The training data
+   * is uploaded from memory; compare its {@link TrainingData#getContentHash() content hash} with the hash of the data
+   * an existing classifier was trained with to avoid retraining on unchanged data.
+   *
+   * @param name the classifier name
+   * @param language IETF primary language for the classifier. for example: 'en'
+   * @param trainingData the training data
+   * @return the classifier
+   * @see Classifier
+   */
+  public ServiceCall<Classifier> createClassifier(final String name, final String language,
+      final TrainingData trainingData) {
+    Validator.notNull(trainingData, "trainingData cannot be null");
+
+    return createClassifier(name, language, new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return HttpMediaType.BINARY_FILE;
+      }
+
+      @Override
+      public long contentLength() {
+        return trainingData.getSize();
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        trainingData.writeTo(sink);
+      }
+    });
+  }
+
+  /**
+   * Posts the training data and metadata of a new classifier.
+   *
+   * @param name the classifier name
+   * @param language the classifier language
+   * @param trainingData the body of the training data part
+   * @return the classifier
+   */
+  private ServiceCall<Classifier> createClassifier(String name, String language, RequestBody trainingData) {
     Validator.isTrue((language != null) && !language.isEmpty(), "language cannot be null or empty");
 
     final JsonObject contentJson = new JsonObject();
@@ -116,8 +166,7 @@ public class NaturalLanguageClassifier extends WatsonService {
     }
 
     final RequestBody body = new MultipartBody.Builder().setType(MultipartBody.FORM)
-        .addPart(Headers.of(HttpHeaders.CONTENT_DISPOSITION, FORM_DATA_TRAINING_DATA),
-            RequestBody.create(HttpMediaType.BINARY_FILE, trainingData))
+        .addPart(Headers.of(HttpHeaders.CONTENT_DISPOSITION, FORM_DATA_TRAINING_DATA), trainingData)
         .addFormDataPart(TRAINING_METADATA, contentJson.toString()).build();
 
     final Request request = RequestBuilder.post(PATH_CLASSIFIERS).body(body).build();
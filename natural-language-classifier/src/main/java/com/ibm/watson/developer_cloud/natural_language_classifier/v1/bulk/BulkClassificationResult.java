@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_classifier.v1.bulk;
+
+import java.util.SortedMap;
+
+/**
+ * The outcome of a {@link BulkClassifier} run.
+ */
+public class BulkClassificationResult {
+
+  private final long classified;
+  private final long requests;
+  private final long duplicates;
+  private final SortedMap<Long, Exception> failures;
+
+  /**
+   * Instantiates a new bulk classification result.
+   *
+   * @param classified the number of texts accepted by the sink
+   * @param requests the number of texts sent to the service
+   * @param duplicates the number of texts answered with the classification of an identical text
+   * @param failures the failures by position in the input
+   */
+  BulkClassificationResult(long classified, long requests, long duplicates, SortedMap<Long, Exception> failures) {
+    this.classified = classified;
+    this.requests = requests;
+    this.duplicates = duplicates;
+    this.failures = failures;
+  }
+
+  /**
+   * Gets the number of texts that were classified and accepted by the sink.
+   *
+   * @return the number of classified texts
+   */
+  public long getClassified() {
+    return classified;
+  }
+
+  /**
+   * Gets the number of distinct texts sent to the service, not counting retries.
+   *
+   * @return the number of requests
+   */
+  public long getRequests() {
+    return requests;
+  }
+
+  /**
+   * Gets the number of texts that were not sent because an identical text was.
+   *
+   * @return the number of duplicates
+   */
+  public long getDuplicates() {
+    return duplicates;
+  }
+
+  /**
+   * Gets the texts that could not be classified, by position in the input.
+   *
+   * @return the failures
+   */
+  public SortedMap<Long, Exception> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Checks whether every text was classified.
+   *
+   * @return true if there were no failures
+   */
+  public boolean isSuccessful() {
+    return failures.isEmpty();
+  }
+}
@@ -0,0 +1,435 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_classifier.v1.bulk;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ibm.watson.developer_cloud.natural_language_classifier.v1.NaturalLanguageClassifier;
+import com.ibm.watson.developer_cloud.natural_language_classifier.v1.model.Classification;
+import com.ibm.watson.developer_cloud.service.exception.TooManyRequestsException;
+import com.ibm.watson.developer_cloud.util.AdaptiveConcurrencyLimiter;
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.FutureUtils;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * Classifies any number of texts with {@link NaturalLanguageClassifier#classify(String, String)}, streaming the
+ * classifications to a {@link ClassificationSink}.
+ * <p>
+ * Texts are read from an iterator as the pipeline has room for them and sent with
+ * {@link com.ibm.watson.developer_cloud.http.ServiceCall#rx()}, so no thread is blocked per request. The number of
+ * requests in flight is adapted with an {@link AdaptiveConcurrencyLimiter}: it grows while the service keeps up and is
+ * halved when the service answers HTTP 429. Requests that fail with a
+ * {@link AdaptiveConcurrencyLimiter#isRetryable(Throwable) retryable} error are retried with a backoff. A text
+ * identical to one of the last {@value #DEFAULT_DEDUPLICATION_WINDOW} texts by default is not sent again.
+ * <p>
+ * By default the sink receives the classifications in the order of the input; at most
+ * {@value #DEFAULT_MAX_PENDING} texts wait to be delivered, which bounds the memory used behind a slow request.
+ * Unordered runs deliver each classification as soon as it arrives, tagged with the position of its text.
+ *
+ * <pre>
+ * BulkClassifier classifier = new BulkClassifier.Builder(service, classifierId).build();
+ * BulkClassificationResult result = classifier.run(tickets, new ClassificationSink() {
+ *   public void accept(long index, Classification classification) {
+ *     writer.println(index + "," + classification.getTopClass());
+ *   }
+ * });
+ * </pre>
+ *
+ * Asynchronous requests share the dispatcher of the HTTP client, which allows 5 concurrent requests per host unless
+ * the client is configured otherwise by overriding <code>configureHttpClient()</code> in the service.
+ */
+public class BulkClassifier {
+
+  /** The default number of concurrent requests at the start of a run. */
+  public static final int DEFAULT_INITIAL_CONCURRENCY = 2;
+
+  /** The default maximum number of concurrent requests. */
+  public static final int DEFAULT_MAX_CONCURRENCY = 5;
+
+  /** The default maximum number of texts read but not delivered yet. */
+  public static final int DEFAULT_MAX_PENDING = 1000;
+
+  /** The default number of recent texts checked for duplicates. */
+  public static final int DEFAULT_DEDUPLICATION_WINDOW = 10000;
+
+  /** The default number of retries of a request that failed with a retryable error. */
+  public static final int DEFAULT_MAX_RETRIES = 3;
+
+  private static final Logger LOG = Logger.getLogger(BulkClassifier.class.getName());
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final NaturalLanguageClassifier service;
+    private final String classifierId;
+    private int initialConcurrency = DEFAULT_INITIAL_CONCURRENCY;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private int maxPending = DEFAULT_MAX_PENDING;
+    private int deduplicationWindow = DEFAULT_DEDUPLICATION_WINDOW;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private boolean ordered = true;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param service the service used to classify
+     * @param classifierId the classifier id
+     */
+    public Builder(NaturalLanguageClassifier service, String classifierId) {
+      this.service = service;
+      this.classifierId = classifierId;
+    }
+
+    /**
+     * Set the number of concurrent requests at the start of a run. Defaults to
+     * {@value BulkClassifier#DEFAULT_INITIAL_CONCURRENCY}.
+     *
+     * @param initialConcurrency the initial concurrency
+     * @return the builder
+     */
+    public Builder initialConcurrency(int initialConcurrency) {
+      this.initialConcurrency = initialConcurrency;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of concurrent requests. Defaults to {@value BulkClassifier#DEFAULT_MAX_CONCURRENCY}.
+     *
+     * @param maxConcurrency the maximum concurrency
+     * @return the builder
+     */
+    public Builder maxConcurrency(int maxConcurrency) {
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of texts read from the input but not delivered to the sink yet. Defaults to
+     * {@value BulkClassifier#DEFAULT_MAX_PENDING}.
+     *
+     * @param maxPending the maximum number of pending texts
+     * @return the builder
+     */
+    public Builder maxPending(int maxPending) {
+      this.maxPending = maxPending;
+      return this;
+    }
+
+    /**
+     * Set the number of recent distinct texts whose classification is reused for identical texts, or 0 to send every
+     * text. Defaults to {@value BulkClassifier#DEFAULT_DEDUPLICATION_WINDOW}.
+     *
+     * @param deduplicationWindow the number of texts
+     * @return the builder
+     */
+    public Builder deduplicationWindow(int deduplicationWindow) {
+      this.deduplicationWindow = deduplicationWindow;
+      return this;
+    }
+
+    /**
+     * Set how many times a request that failed with a retryable error is retried. Defaults to
+     * {@value BulkClassifier#DEFAULT_MAX_RETRIES}.
+     *
+     * @param maxRetries the maximum number of retries
+     * @return the builder
+     */
+    public Builder maxRetries(int maxRetries) {
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    /**
+     * Set whether the sink receives the classifications in the order of the input. Defaults to true.
+     *
+     * @param ordered whether to keep the input order
+     * @return the builder
+     */
+    public Builder ordered(boolean ordered) {
+      this.ordered = ordered;
+      return this;
+    }
+
+    /**
+     * Builds the bulk classifier.
+     *
+     * @return the bulk classifier
+     */
+    public BulkClassifier build() {
+      return new BulkClassifier(this);
+    }
+  }
+
+  private final NaturalLanguageClassifier service;
+  private final String classifierId;
+  private final int initialConcurrency;
+  private final int maxConcurrency;
+  private final int maxPending;
+  private final int deduplicationWindow;
+  private final int maxRetries;
+  private final boolean ordered;
+
+  /**
+   * Instantiates a new bulk classifier.
+   *
+   * @param builder the builder
+   */
+  protected BulkClassifier(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.isTrue((builder.classifierId != null) && !builder.classifierId.isEmpty(),
+        "classifierId cannot be null or empty");
+    Validator.isTrue(builder.initialConcurrency > 0, "initialConcurrency must be greater than 0");
+    Validator.isTrue(builder.maxConcurrency >= builder.initialConcurrency,
+        "maxConcurrency must be greater than or equal to initialConcurrency");
+    Validator.isTrue(builder.maxPending > 0, "maxPending must be greater than 0");
+    Validator.isTrue(builder.deduplicationWindow >= 0, "deduplicationWindow cannot be negative");
+    Validator.isTrue(builder.maxRetries >= 0, "maxRetries cannot be negative");
+    service = builder.service;
+    classifierId = builder.classifierId;
+    initialConcurrency = builder.initialConcurrency;
+    maxConcurrency = builder.maxConcurrency;
+    maxPending = builder.maxPending;
+    deduplicationWindow = builder.deduplicationWindow;
+    maxRetries = builder.maxRetries;
+    ordered = builder.ordered;
+  }
+
+  /**
+   * Classifies every text of the input and waits until the sink received all of them.
+   *
+   * @param texts the texts to classify
+   * @param sink the sink that receives the classifications
+   * @return the result of the run
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public BulkClassificationResult run(Iterator<String> texts, ClassificationSink sink) throws InterruptedException {
+    Validator.notNull(texts, "texts cannot be null");
+    Validator.notNull(sink, "sink cannot be null");
+    return new Run(sink).execute(texts);
+  }
+
+  /**
+   * The state of a single run.
+   */
+  private final class Run {
+    private final ClassificationSink sink;
+    private final AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(initialConcurrency, maxConcurrency);
+    private final Semaphore pending = new Semaphore(maxPending);
+    private final ScheduledExecutorService retries =
+        Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("nlc-bulk-retry"));
+    private final Map<String, CompletableFuture<Classification>> recent;
+
+    /** The outcomes waiting for the outcomes before them, by position. */
+    private final Map<Long, Object> outOfOrder = new HashMap<Long, Object>();
+    private long nextToDeliver;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private long classified;
+    private final SortedMap<Long, Exception> failures = new TreeMap<Long, Exception>();
+
+    Run(ClassificationSink sink) {
+      this.sink = sink;
+      recent = new LinkedHashMap<String, CompletableFuture<Classification>>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<Classification>> eldest) {
+          return size() > deduplicationWindow;
+        }
+      };
+    }
+
+    BulkClassificationResult execute(Iterator<String> texts) throws InterruptedException {
+      try {
+        for (long index = 0; texts.hasNext(); index++) {
+          final String text = texts.next();
+          pending.acquire();
+          classify(text).handle(new Outcome(index));
+        }
+        // wait until every text was delivered
+        pending.acquire(maxPending);
+        pending.release(maxPending);
+      } finally {
+        retries.shutdownNow();
+      }
+      synchronized (outOfOrder) {
+        return new BulkClassificationResult(classified, requests.get(), duplicates.get(),
+            Collections.unmodifiableSortedMap(new TreeMap<Long, Exception>(failures)));
+      }
+    }
+
+    /**
+     * Gets the classification of a text, sending it unless an identical text was sent recently.
+     */
+    private CompletableFuture<Classification> classify(String text) throws InterruptedException {
+      CompletableFuture<Classification> future;
+      synchronized (recent) {
+        future = recent.get(text);
+        if (future != null) {
+          duplicates.incrementAndGet();
+          return future;
+        }
+        future = new CompletableFuture<Classification>();
+        if (deduplicationWindow > 0) {
+          recent.put(text, future);
+        }
+      }
+      requests.incrementAndGet();
+      limiter.acquire();
+      send(text, future, 0);
+      return future;
+    }
+
+    /**
+     * Sends a text. Called with a permit of the limiter already acquired.
+     */
+    private void send(final String text, final CompletableFuture<Classification> future, final int attempt) {
+      final CompletableFuture<Classification> call;
+      try {
+        call = service.classify(classifierId, text).rx();
+      } catch (RuntimeException e) {
+        limiter.onFailure();
+        future.completeExceptionally(e);
+        return;
+      }
+      call.handle(new CompletableFuture.BiFun<Classification, Throwable, Void>() {
+        @Override
+        public Void apply(Classification classification, Throwable error) {
+          if (error == null) {
+            limiter.onSuccess();
+            future.complete(classification);
+            return null;
+          }
+          final Throwable cause = FutureUtils.unwrap(error);
+          if (cause instanceof TooManyRequestsException) {
+            limiter.onThrottled();
+          } else {
+            limiter.onFailure();
+          }
+          if (!AdaptiveConcurrencyLimiter.isRetryable(cause) || (attempt >= maxRetries)
+              || !retry(text, future, attempt, cause)) {
+            future.completeExceptionally(cause);
+          }
+          return null;
+        }
+      });
+    }
+
+    /**
+     * Schedules a new attempt after the backoff delay.
+     *
+     * @return false if the run is over
+     */
+    private boolean retry(final String text, final CompletableFuture<Classification> future, final int attempt,
+        Throwable e) {
+      try {
+        retries.schedule(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              limiter.acquire();
+            } catch (InterruptedException ie) {
+              future.completeExceptionally(ie);
+              return;
+            }
+            send(text, future, attempt + 1);
+          }
+        }, AdaptiveConcurrencyLimiter.backoffMillis(e, attempt), TimeUnit.MILLISECONDS);
+        return true;
+      } catch (RejectedExecutionException ree) {
+        return false;
+      }
+    }
+
+    /**
+     * Delivers an outcome, and the outcomes that were waiting for it when the run is ordered.
+     */
+    private void deliver(long index, Object outcome) {
+      synchronized (outOfOrder) {
+        if (!ordered) {
+          accept(index, outcome);
+          return;
+        }
+        outOfOrder.put(index, outcome);
+        Object next;
+        while ((next = outOfOrder.remove(nextToDeliver)) != null) {
+          accept(nextToDeliver++, next);
+        }
+      }
+    }
+
+    /**
+     * Hands an outcome to the sink. Called while holding the delivery lock.
+     */
+    private void accept(long index, Object outcome) {
+      try {
+        if (outcome instanceof Classification) {
+          sink.accept(index, (Classification) outcome);
+          classified++;
+        } else {
+          failures.put(index, (Exception) outcome);
+        }
+      } catch (IOException e) {
+        LOG.log(Level.WARNING, "The sink could not accept text " + index, e);
+        failures.put(index, e);
+      } catch (RuntimeException e) {
+        LOG.log(Level.WARNING, "The sink could not accept text " + index, e);
+        failures.put(index, e);
+      } finally {
+        pending.release();
+      }
+    }
+
+    /**
+     * Delivers the outcome of the text at a position.
+     */
+    private final class Outcome implements CompletableFuture.BiFun<Classification, Throwable, Void> {
+      private final long index;
+
+      Outcome(long index) {
+        this.index = index;
+      }
+
+      @Override
+      public Void apply(Classification classification, Throwable error) {
+        if (error == null) {
+          deliver(index, classification);
+        } else {
+          deliver(index, FutureUtils.asException(error));
+        }
+        return null;
+      }
+    }
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_classifier.v1.bulk;
+
+import java.io.IOException;
+
+import com.ibm.watson.developer_cloud.natural_language_classifier.v1.model.Classification;
+
+/**
+ * Receives the classifications made by a {@link BulkClassifier}. The classifier never calls a sink from two threads at
+ * once, so it does not need to be thread safe.
+ */
+public interface ClassificationSink {
+
+  /**
+   * Receives the classification of a text. A text is recorded as failed if this method throws.
+   *
+   * @param index the position of the text in the input, starting at 0
+   * @param classification the classification
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  void accept(long index, Classification classification) throws IOException;
+}
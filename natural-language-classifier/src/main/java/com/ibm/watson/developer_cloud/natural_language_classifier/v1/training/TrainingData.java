@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_classifier.v1.training;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * Training data of a classifier, in the CSV format expected by
+ * {@link com.ibm.watson.developer_cloud.natural_language_classifier.v1.NaturalLanguageClassifier#createClassifier(
+ * String, String, TrainingData)}.
+ * <p>
+ * Rows are encoded as they are added, typically while reading them from a database, and the data is uploaded from
+ * memory without a training file on disk. Each row is hashed when it is added; the {@link #getContentHash() content
+ * hash} combines the hashes of the rows regardless of their order, so a classifier only needs to be retrained when
+ * the hash differs from the hash of the data it was trained with.
+ *
+ * <pre>
+ * TrainingData.Builder builder = new TrainingData.Builder();
+ * while (rows.next()) {
+ *   builder.add(rows.getString("text"), rows.getString("class"));
+ * }
+ * TrainingData trainingData = builder.build();
+ * if (!trainingData.getContentHash().equals(previousHash)) {
+ *   service.createClassifier(name, "en", trainingData).execute();
+ * }
+ * </pre>
+ */
+public class TrainingData {
+
+  /** The maximum length of a text, in characters. */
+  public static final int MAX_TEXT_LENGTH = 1024;
+
+  private static final ByteString CRLF = ByteString.encodeUtf8("\r\n");
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final Buffer csv = new Buffer();
+    private final List<ByteString> rowHashes = new ArrayList<ByteString>();
+
+    /**
+     * Adds a text and its classes.
+     *
+     * @param text the text, at most {@value TrainingData#MAX_TEXT_LENGTH} characters
+     * @param classes one or more classes
+     * @return the builder
+     */
+    public Builder add(String text, String... classes) {
+      return add(text, Arrays.asList(classes));
+    }
+
+    /**
+     * Adds a text and its classes.
+     *
+     * @param text the text, at most {@value TrainingData#MAX_TEXT_LENGTH} characters
+     * @param classes one or more classes
+     * @return the builder
+     */
+    public Builder add(String text, List<String> classes) {
+      Validator.isTrue((text != null) && !text.isEmpty(), "text cannot be null or empty");
+      Validator.isTrue(text.length() <= MAX_TEXT_LENGTH, "text cannot be longer than " + MAX_TEXT_LENGTH);
+      Validator.notEmpty(classes, "classes cannot be null or empty");
+
+      final Buffer row = new Buffer();
+      writeField(row, text);
+      for (String className : classes) {
+        Validator.isTrue((className != null) && !className.isEmpty(), "class cannot be null or empty");
+        row.writeByte(',');
+        writeField(row, className);
+      }
+      row.write(CRLF);
+
+      rowHashes.add(row.sha256());
+      csv.write(row, row.size());
+      return this;
+    }
+
+    /**
+     * Builds the training data.
+     *
+     * @return the training data
+     */
+    public TrainingData build() {
+      Validator.isTrue(!rowHashes.isEmpty(), "training data cannot be empty");
+      return new TrainingData(this);
+    }
+  }
+
+  private final ByteString csv;
+  private final int rows;
+  private final String contentHash;
+
+  /**
+   * Instantiates new training data.
+   *
+   * @param builder the builder
+   */
+  private TrainingData(Builder builder) {
+    csv = builder.csv.snapshot();
+    rows = builder.rowHashes.size();
+
+    final List<ByteString> hashes = new ArrayList<ByteString>(builder.rowHashes);
+    Collections.sort(hashes);
+    final Buffer combined = new Buffer();
+    for (ByteString hash : hashes) {
+      combined.write(hash);
+    }
+    contentHash = combined.sha256().hex();
+  }
+
+  /**
+   * Gets the number of rows.
+   *
+   * @return the number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Gets the size of the CSV, in bytes.
+   *
+   * @return the size
+   */
+  public long getSize() {
+    return csv.size();
+  }
+
+  /**
+   * Gets the hexadecimal SHA-256 of the rows, which does not depend on their order.
+   *
+   * @return the content hash
+   */
+  public String getContentHash() {
+    return contentHash;
+  }
+
+  /**
+   * Writes the CSV.
+   *
+   * @param sink the sink
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void writeTo(BufferedSink sink) throws IOException {
+    sink.write(csv);
+  }
+
+  /**
+   * Writes a CSV field, quoting it when it contains a comma, a quote or a line break.
+   *
+   * @param row the row
+   * @param field the field
+   */
+  private static void writeField(Buffer row, String field) {
+    if ((field.indexOf(',') < 0) && (field.indexOf('"') < 0) && (field.indexOf('\n') < 0)
+        && (field.indexOf('\r') < 0)) {
+      row.writeUtf8(field);
+      return;
+    }
+    row.writeByte('"');
+    row.writeUtf8(field.replace("\"", "\"\""));
+    row.writeByte('"');
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_classifier.v1.bulk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.natural_language_classifier.v1.NaturalLanguageClassifier;
+import com.ibm.watson.developer_cloud.natural_language_classifier.v1.model.Classification;
+import com.ibm.watson.developer_cloud.service.exception.BadRequestException;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for {@link BulkClassifier}.
+ */
+public class BulkClassifierTest extends WatsonServiceUnitTest {
+
+  private NaturalLanguageClassifier service;
+  private final AtomicInteger throttled = new AtomicInteger();
+
+  /**
+   * Collects the classifications in the order they are received.
+   */
+  private static class CollectingSink implements ClassificationSink {
+    private final List<Long> indexes = Collections.synchronizedList(new ArrayList<Long>());
+    private final List<String> topClasses = Collections.synchronizedList(new ArrayList<String>());
+
+    @Override
+    public void accept(long index, Classification classification) {
+      indexes.add(index);
+      topClasses.add(classification.getTopClass());
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new NaturalLanguageClassifier();
+    service.setApiKey("");
+    service.setEndPoint(getMockWebServerUrl());
+
+    // classifies every text as its upper case; "slow" answers late, "busy" is throttled once and "bad" fails
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        final JsonObject body = new JsonParser().parse(request.getBody().clone().readUtf8()).getAsJsonObject();
+        final String text = body.get("text").getAsString();
+        if ("bad".equals(text)) {
+          return new MockResponse().setResponseCode(400).setHeader("Content-Type", "application/json")
+              .setBody("{\"error\":\"bad text\",\"code\":400}");
+        }
+        if ("busy".equals(text) && (throttled.getAndIncrement() == 0)) {
+          return new MockResponse().setResponseCode(429).setHeader("Retry-After", "0")
+              .setHeader("Content-Type", "application/json").setBody("{\"error\":\"too many\",\"code\":429}");
+        }
+        final JsonObject classification = new JsonObject();
+        classification.addProperty("classifier_id", "foo");
+        classification.addProperty("text", text);
+        classification.addProperty("top_class", text.toUpperCase());
+        final MockResponse response = new MockResponse().setHeader("Content-Type", "application/json")
+            .setBody(classification.toString());
+        return "slow".equals(text) ? response.setBodyDelay(300, TimeUnit.MILLISECONDS) : response;
+      }
+    });
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  /**
+   * Test that the classifications are delivered in the input order and duplicates are sent once.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testOrderedWithDuplicates() throws Exception {
+    final CollectingSink sink = new CollectingSink();
+    final BulkClassificationResult result = new BulkClassifier.Builder(service, "foo").build()
+        .run(Arrays.asList("a", "slow", "b", "a", "c").iterator(), sink);
+
+    assertTrue(result.isSuccessful());
+    assertEquals(5, result.getClassified());
+    assertEquals(4, result.getRequests());
+    assertEquals(1, result.getDuplicates());
+    assertEquals(4, server.getRequestCount());
+    assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), sink.indexes);
+    assertEquals(Arrays.asList("A", "SLOW", "B", "A", "C"), sink.topClasses);
+  }
+
+  /**
+   * Test that an unordered run tags every classification with its position.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testUnordered() throws Exception {
+    final CollectingSink sink = new CollectingSink();
+    final BulkClassificationResult result = new BulkClassifier.Builder(service, "foo").ordered(false)
+        .deduplicationWindow(0).build().run(Arrays.asList("slow", "a", "a").iterator(), sink);
+
+    assertEquals(3, result.getClassified());
+    assertEquals(3, result.getRequests());
+    assertEquals(0, result.getDuplicates());
+    assertEquals(Long.valueOf(0), sink.indexes.get(2));
+    assertEquals("SLOW", sink.topClasses.get(2));
+  }
+
+  /**
+   * Test that throttled requests are retried and failures are reported by position.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testRetriesAndFailures() throws Exception {
+    final CollectingSink sink = new CollectingSink();
+    final BulkClassificationResult result = new BulkClassifier.Builder(service, "foo").build()
+        .run(Arrays.asList("busy", "bad", "c").iterator(), sink);
+
+    assertFalse(result.isSuccessful());
+    assertEquals(2, result.getClassified());
+    assertEquals(1, result.getFailures().size());
+    assertTrue(result.getFailures().get(1L) instanceof BadRequestException);
+    assertEquals(Arrays.asList("BUSY", "C"), sink.topClasses);
+    assertEquals(2, throttled.get());
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_classifier.v1.training;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.natural_language_classifier.v1.NaturalLanguageClassifier;
+import com.ibm.watson.developer_cloud.natural_language_classifier.v1.model.Classifier;
+
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * The Class TrainingDataTest.
+ */
+public class TrainingDataTest extends WatsonServiceUnitTest {
+  private static final String RESOURCE = "src/test/resources/natural_language_classifier/";
+
+  private NaturalLanguageClassifier service;
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.WatsonServiceTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new NaturalLanguageClassifier();
+    service.setApiKey("");
+    service.setEndPoint(getMockWebServerUrl());
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  /**
+   * Test that fields are quoted only when needed.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testCsv() throws IOException {
+    final TrainingData trainingData = new TrainingData.Builder()
+        .add("How hot is it today?", "temperature")
+        .add("Is it \"cold\", or warm?", "temperature", "conditions")
+        .build();
+
+    final Buffer csv = new Buffer();
+    trainingData.writeTo(csv);
+    assertEquals("How hot is it today?,temperature\r\n\"Is it \"\"cold\"\", or warm?\",temperature,conditions\r\n",
+        csv.readUtf8());
+    assertEquals(2, trainingData.getRows());
+  }
+
+  /**
+   * Test that the content hash ignores the order of the rows and changes with their content.
+   */
+  @Test
+  public void testContentHash() {
+    final TrainingData first = new TrainingData.Builder().add("a", "x").add("b", "y").build();
+    final TrainingData reordered = new TrainingData.Builder().add("b", "y").add("a", "x").build();
+    final TrainingData changed = new TrainingData.Builder().add("a", "x").add("b", "x").build();
+
+    assertEquals(first.getContentHash(), reordered.getContentHash());
+    assertNotEquals(first.getContentHash(), changed.getContentHash());
+  }
+
+  /**
+   * Test that the training data is uploaded as the training data part.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testCreateClassifier() throws Exception {
+    final Classifier classifier = loadFixture(RESOURCE + "classifier.json", Classifier.class);
+    final TrainingData trainingData = new TrainingData.Builder().add("How hot is it today?", "temperature").build();
+
+    server.enqueue(jsonResponse(classifier));
+    final Classifier response = service.createClassifier("foo", "en", trainingData).execute();
+    final RecordedRequest request = server.takeRequest();
+
+    assertEquals("/v1/classifiers", request.getPath());
+    assertEquals(classifier, response);
+    final String body = request.getBody().readUtf8();
+    assertTrue(body.contains("name=\"training_data\""));
+    assertTrue(body.contains("How hot is it today?,temperature\r\n"));
+    assertTrue(body.contains("{\"language\":\"en\",\"name\":\"foo\"}"));
+  }
+}
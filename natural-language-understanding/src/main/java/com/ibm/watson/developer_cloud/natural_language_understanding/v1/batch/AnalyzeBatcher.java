@@ -0,0 +1,477 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_understanding.v1.batch;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.http.ServiceCallback;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.NaturalLanguageUnderstanding;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.AnalysisResults;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.AnalyzeOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.CategoriesOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.ConceptsOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.EmotionOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.EntitiesOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.Features;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.KeywordsOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.MetadataOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.RelationsOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.SemanticRolesOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.SentimentOptions;
+import com.ibm.watson.developer_cloud.service.model.ObjectModel;
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.FutureUtils;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * Drop-in replacement for {@link NaturalLanguageUnderstanding#analyze(AnalyzeOptions)} that merges the calls made on
+ * the same document into one call with the combined {@link Features}.
+ * <p>
+ * A call joins a batch when it is executed, enqueued or turned into a future. The first call on a document opens a
+ * window of {@value #DEFAULT_WINDOW_MILLIS} ms by default; every call made during the window with the same options
+ * apart from the features is added to the batch. When the window closes, one analyze call requests all the features of
+ * the batch and each caller receives the results of the features it asked for.
+ *
+ * <pre>
+ * AnalyzeBatcher batcher = new AnalyzeBatcher.Builder(service).build();
+ * CompletableFuture&lt;AnalysisResults&gt; entities = batcher.analyze(entitiesOptions).rx();
+ * CompletableFuture&lt;AnalysisResults&gt; keywords = batcher.analyze(keywordsOptions).rx();
+ * // one round trip
+ * </pre>
+ *
+ * A call that asks for a feature already in the open batch with different options, e.g. another entity limit, is sent
+ * on its own. Every caller gets the usage of the merged call it came from.
+ */
+public class AnalyzeBatcher {
+
+  /** The default time a batch waits for more features, in milliseconds. */
+  public static final long DEFAULT_WINDOW_MILLIS = 10;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final NaturalLanguageUnderstanding service;
+    private long windowMillis = DEFAULT_WINDOW_MILLIS;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param service the service used to send the merged calls
+     */
+    public Builder(NaturalLanguageUnderstanding service) {
+      this.service = service;
+    }
+
+    /**
+     * Set how long a batch waits for more features after its first call, in milliseconds. Defaults to
+     * {@value AnalyzeBatcher#DEFAULT_WINDOW_MILLIS}.
+     *
+     * @param windowMillis the window
+     * @return the builder
+     */
+    public Builder windowMillis(long windowMillis) {
+      this.windowMillis = windowMillis;
+      return this;
+    }
+
+    /**
+     * Builds the batcher.
+     *
+     * @return the analyze batcher
+     */
+    public AnalyzeBatcher build() {
+      return new AnalyzeBatcher(this);
+    }
+  }
+
+  /**
+   * The analysis features, with how to read their options, set them and copy their results.
+   */
+  private enum Feature {
+    CATEGORIES {
+      @Override
+      ObjectModel get(Features features) {
+        return features.categories();
+      }
+
+      @Override
+      void set(Features.Builder builder, ObjectModel options) {
+        builder.categories((CategoriesOptions) options);
+      }
+
+      @Override
+      void copy(AnalysisResults from, AnalysisResults to) {
+        to.setCategories(from.getCategories());
+      }
+    },
+    CONCEPTS {
+      @Override
+      ObjectModel get(Features features) {
+        return features.concepts();
+      }
+
+      @Override
+      void set(Features.Builder builder, ObjectModel options) {
+        builder.concepts((ConceptsOptions) options);
+      }
+
+      @Override
+      void copy(AnalysisResults from, AnalysisResults to) {
+        to.setConcepts(from.getConcepts());
+      }
+    },
+    EMOTION {
+      @Override
+      ObjectModel get(Features features) {
+        return features.emotion();
+      }
+
+      @Override
+      void set(Features.Builder builder, ObjectModel options) {
+        builder.emotion((EmotionOptions) options);
+      }
+
+      @Override
+      void copy(AnalysisResults from, AnalysisResults to) {
+        to.setEmotion(from.getEmotion());
+      }
+    },
+    ENTITIES {
+      @Override
+      ObjectModel get(Features features) {
+        return features.entities();
+      }
+
+      @Override
+      void set(Features.Builder builder, ObjectModel options) {
+        builder.entities((EntitiesOptions) options);
+      }
+
+      @Override
+      void copy(AnalysisResults from, AnalysisResults to) {
+        to.setEntities(from.getEntities());
+      }
+    },
+    KEYWORDS {
+      @Override
+      ObjectModel get(Features features) {
+        return features.keywords();
+      }
+
+      @Override
+      void set(Features.Builder builder, ObjectModel options) {
+        builder.keywords((KeywordsOptions) options);
+      }
+
+      @Override
+      void copy(AnalysisResults from, AnalysisResults to) {
+        to.setKeywords(from.getKeywords());
+      }
+    },
+    METADATA {
+      @Override
+      ObjectModel get(Features features) {
+        return features.metadata();
+      }
+
+      @Override
+      void set(Features.Builder builder, ObjectModel options) {
+        builder.metadata((MetadataOptions) options);
+      }
+
+      @Override
+      void copy(AnalysisResults from, AnalysisResults to) {
+        to.setMetadata(from.getMetadata());
+      }
+    },
+    RELATIONS {
+      @Override
+      ObjectModel get(Features features) {
+        return features.relations();
+      }
+
+      @Override
+      void set(Features.Builder builder, ObjectModel options) {
+        builder.relations((RelationsOptions) options);
+      }
+
+      @Override
+      void copy(AnalysisResults from, AnalysisResults to) {
+        to.setRelations(from.getRelations());
+      }
+    },
+    SEMANTIC_ROLES {
+      @Override
+      ObjectModel get(Features features) {
+        return features.semanticRoles();
+      }
+
+      @Override
+      void set(Features.Builder builder, ObjectModel options) {
+        builder.semanticRoles((SemanticRolesOptions) options);
+      }
+
+      @Override
+      void copy(AnalysisResults from, AnalysisResults to) {
+        to.setSemanticRoles(from.getSemanticRoles());
+      }
+    },
+    SENTIMENT {
+      @Override
+      ObjectModel get(Features features) {
+        return features.sentiment();
+      }
+
+      @Override
+      void set(Features.Builder builder, ObjectModel options) {
+        builder.sentiment((SentimentOptions) options);
+      }
+
+      @Override
+      void copy(AnalysisResults from, AnalysisResults to) {
+        to.setSentiment(from.getSentiment());
+      }
+    };
+
+    /**
+     * Gets the options of the feature.
+     *
+     * @param features the features
+     * @return the options, or null if the feature is not requested
+     */
+    abstract ObjectModel get(Features features);
+
+    /**
+     * Requests the feature.
+     *
+     * @param builder the features builder
+     * @param options the options of the feature
+     */
+    abstract void set(Features.Builder builder, ObjectModel options);
+
+    /**
+     * Copies the results of the feature.
+     *
+     * @param from the merged results
+     * @param to the results of a caller
+     */
+    abstract void copy(AnalysisResults from, AnalysisResults to);
+  }
+
+  /**
+   * The features requested on a document during a window.
+   */
+  private static final class Batch {
+    private final AnalyzeOptions document;
+    private final Map<Feature, ObjectModel> features = new EnumMap<Feature, ObjectModel>(Feature.class);
+    private final CompletableFuture<AnalysisResults> results = new CompletableFuture<AnalysisResults>();
+
+    private Batch(AnalyzeOptions document) {
+      this.document = document;
+    }
+  }
+
+  private static final Features NO_FEATURES = new Features.Builder().build();
+
+  private final NaturalLanguageUnderstanding service;
+  private final long windowMillis;
+  private final ScheduledExecutorService scheduler;
+  private final Map<AnalyzeOptions, Batch> open = new HashMap<AnalyzeOptions, Batch>();
+
+  /**
+   * Instantiates a new analyze batcher.
+   *
+   * @param builder the builder
+   */
+  protected AnalyzeBatcher(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.isTrue(builder.windowMillis >= 0, "windowMillis cannot be negative");
+    service = builder.service;
+    windowMillis = builder.windowMillis;
+    scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("nlu-analyze-batcher"));
+  }
+
+  /**
+   * Analyze text, HTML, or a public webpage, see {@link NaturalLanguageUnderstanding#analyze(AnalyzeOptions)}.
+   *
+   * @param analyzeOptions the {@link AnalyzeOptions} containing the options for the call
+   * @return a {@link ServiceCall} with a response type of {@link AnalysisResults}
+   */
+  public ServiceCall<AnalysisResults> analyze(final AnalyzeOptions analyzeOptions) {
+    Validator.notNull(analyzeOptions, "analyzeOptions cannot be null");
+    final AnalyzeOptions document = analyzeOptions.newBuilder().features(NO_FEATURES).build();
+    final EnumSet<Feature> requested = EnumSet.noneOf(Feature.class);
+    for (Feature feature : Feature.values()) {
+      if (feature.get(analyzeOptions.features()) != null) {
+        requested.add(feature);
+      }
+    }
+
+    return new ServiceCall<AnalysisResults>() {
+      @Override
+      public AnalysisResults execute() {
+        try {
+          return rx().get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+          throw FutureUtils.asRuntimeException(e.getCause());
+        }
+      }
+
+      @Override
+      public void enqueue(final ServiceCallback<? super AnalysisResults> callback) {
+        rx().handle(new CompletableFuture.BiFun<AnalysisResults, Throwable, Void>() {
+          @Override
+          public Void apply(AnalysisResults response, Throwable error) {
+            if (error == null) {
+              callback.onResponse(response);
+            } else {
+              callback.onFailure(FutureUtils.asException(error));
+            }
+            return null;
+          }
+        });
+      }
+
+      @Override
+      public CompletableFuture<AnalysisResults> rx() {
+        final CompletableFuture<AnalysisResults> merged = join(document, analyzeOptions.features(), requested);
+        if (merged == null) {
+          return service.analyze(analyzeOptions).rx();
+        }
+        return merged.thenApply(new CompletableFuture.Fun<AnalysisResults, AnalysisResults>() {
+          @Override
+          public AnalysisResults apply(AnalysisResults results) {
+            return extract(results, requested);
+          }
+        });
+      }
+    };
+  }
+
+  /**
+   * Stops the batcher. The open batches are still sent when their window closes, and later calls are sent on their
+   * own.
+   */
+  public void shutdown() {
+    scheduler.shutdown();
+  }
+
+  /**
+   * Adds features to the open batch of a document, opening one if needed.
+   *
+   * @param document the options without the features, which identify the document
+   * @param features the features of the caller
+   * @param requested the features requested by the caller
+   * @return the future of the merged results, or null if the features conflict with the open batch or the batcher is
+   *         shut down
+   */
+  private CompletableFuture<AnalysisResults> join(AnalyzeOptions document, Features features,
+      EnumSet<Feature> requested) {
+    synchronized (open) {
+      Batch batch = open.get(document);
+      if (batch == null) {
+        batch = new Batch(document);
+        final Batch scheduled = batch;
+        try {
+          scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+              send(scheduled);
+            }
+          }, windowMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+          // the batcher is shut down, the caller sends its own call
+          return null;
+        }
+        open.put(document, batch);
+      }
+
+      for (Feature feature : requested) {
+        final ObjectModel options = batch.features.get(feature);
+        if ((options != null) && !options.equals(feature.get(features))) {
+          return null;
+        }
+      }
+      for (Feature feature : requested) {
+        batch.features.put(feature, feature.get(features));
+      }
+      return batch.results;
+    }
+  }
+
+  /**
+   * Closes a batch and sends its merged call.
+   *
+   * @param batch the batch
+   */
+  private void send(final Batch batch) {
+    final Features.Builder features = new Features.Builder();
+    synchronized (open) {
+      open.remove(batch.document);
+      for (Map.Entry<Feature, ObjectModel> feature : batch.features.entrySet()) {
+        feature.getKey().set(features, feature.getValue());
+      }
+    }
+
+    try {
+      service.analyze(batch.document.newBuilder().features(features.build()).build())
+          .enqueue(new ServiceCallback<AnalysisResults>() {
+            @Override
+            public void onResponse(AnalysisResults response) {
+              batch.results.complete(response);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+              batch.results.completeExceptionally(e);
+            }
+          });
+    } catch (RuntimeException e) {
+      batch.results.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Extracts the results of the features a caller asked for.
+   *
+   * @param results the merged results
+   * @param requested the features requested by the caller
+   * @return the results of the caller
+   */
+  private static AnalysisResults extract(AnalysisResults results, EnumSet<Feature> requested) {
+    final AnalysisResults part = new AnalysisResults();
+    part.setLanguage(results.getLanguage());
+    part.setAnalyzedText(results.getAnalyzedText());
+    part.setRetrievedUrl(results.getRetrievedUrl());
+    part.setUsage(results.getUsage());
+    for (Feature feature : requested) {
+      feature.copy(results, part);
+    }
+    return part;
+  }
+}
@@ -0,0 +1,483 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_understanding.v1.cache;
+
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.gson.JsonParseException;
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.http.ServiceCallback;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.NaturalLanguageUnderstanding;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.AnalysisResults;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.AnalyzeOptions;
+import com.ibm.watson.developer_cloud.util.FutureUtils;
+import com.ibm.watson.developer_cloud.util.GsonSingleton;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+import okio.Buffer;
+
+/**
+ * A cache of {@link NaturalLanguageUnderstanding#analyze(AnalyzeOptions)} results, addressed by the content and the
+ * options of the analysis, so duplicate documents are analyzed once.
+ * <p>
+ * The key is the SHA-256 of the content and of the canonical JSON of the other options, features included. By default
+ * text is normalized first: it is put in Unicode NFC form, runs of white space become a single space, and leading and
+ * trailing white space is removed, so documents that only differ in their layout share an entry. The results of such
+ * documents are the results of the first one analyzed, offsets and <code>analyzed_text</code> included.
+ * <p>
+ * Entries live in memory for {@value #DEFAULT_TTL_MILLIS} ms by default, with at most {@value #DEFAULT_MAX_ENTRIES}
+ * entries evicting the least recently used. An optional {@link AnalysisStore} keeps them across restarts. Concurrent
+ * calls on the same key share one service call, and failures are not cached.
+ *
+ * <pre>
+ * AnalysisCache cache = new AnalysisCache.Builder(service)
+ *     .store(new DirectoryAnalysisStore(new File("nlu-cache")))
+ *     .build();
+ * AnalysisResults results = cache.analyze(options).execute();
+ * </pre>
+ *
+ * Cached results are shared by every caller and should not be modified.
+ */
+public class AnalysisCache {
+
+  /** The default maximum number of entries in memory. */
+  public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+  /** The default time an entry is valid, in milliseconds. */
+  public static final long DEFAULT_TTL_MILLIS = 24L * 60 * 60 * 1000;
+
+  private static final Logger LOG = Logger.getLogger(AnalysisCache.class.getName());
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final NaturalLanguageUnderstanding service;
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long ttlMillis = DEFAULT_TTL_MILLIS;
+    private AnalysisStore store;
+    private boolean normalizeText = true;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param service the service used on cache misses
+     */
+    public Builder(NaturalLanguageUnderstanding service) {
+      this.service = service;
+    }
+
+    /**
+     * Set the maximum number of entries in memory. Defaults to {@value AnalysisCache#DEFAULT_MAX_ENTRIES}.
+     *
+     * @param maxEntries the maximum number of entries
+     * @return the builder
+     */
+    public Builder maxEntries(int maxEntries) {
+      this.maxEntries = maxEntries;
+      return this;
+    }
+
+    /**
+     * Set how long an entry is valid. Defaults to {@value AnalysisCache#DEFAULT_TTL_MILLIS} ms.
+     *
+     * @param ttl the time to live
+     * @param unit the unit of the time to live
+     * @return the builder
+     */
+    public Builder ttl(long ttl, TimeUnit unit) {
+      ttlMillis = unit.toMillis(ttl);
+      return this;
+    }
+
+    /**
+     * Set the persistent tier, checked on memory misses. None by default.
+     *
+     * @param store the store
+     * @return the builder
+     */
+    public Builder store(AnalysisStore store) {
+      this.store = store;
+      return this;
+    }
+
+    /**
+     * Set whether text is normalized before it is hashed. Defaults to true.
+     *
+     * @param normalizeText whether to normalize text
+     * @return the builder
+     */
+    public Builder normalizeText(boolean normalizeText) {
+      this.normalizeText = normalizeText;
+      return this;
+    }
+
+    /**
+     * Builds the cache.
+     *
+     * @return the analysis cache
+     */
+    public AnalysisCache build() {
+      return new AnalysisCache(this);
+    }
+  }
+
+  /**
+   * Cached results and when they expire.
+   */
+  private static final class CachedAnalysis {
+    private final AnalysisResults results;
+    private final long expiresAt;
+
+    private CachedAnalysis(AnalysisResults results, long expiresAt) {
+      this.results = results;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private final NaturalLanguageUnderstanding service;
+  private final long ttlMillis;
+  private final AnalysisStore store;
+  private final boolean normalizeText;
+  private final Map<String, CachedAnalysis> entries;
+  private final Map<String, CompletableFuture<AnalysisResults>> inFlight =
+      new HashMap<String, CompletableFuture<AnalysisResults>>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong storeHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Instantiates a new analysis cache.
+   *
+   * @param builder the builder
+   */
+  protected AnalysisCache(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.isTrue(builder.maxEntries > 0, "maxEntries must be greater than 0");
+    Validator.isTrue(builder.ttlMillis > 0, "ttl must be greater than 0");
+    service = builder.service;
+    ttlMillis = builder.ttlMillis;
+    store = builder.store;
+    normalizeText = builder.normalizeText;
+
+    final int maxEntries = builder.maxEntries;
+    entries = new LinkedHashMap<String, CachedAnalysis>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedAnalysis> eldest) {
+        if (size() > maxEntries) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Analyze text, HTML, or a public webpage, answering from the cache when the same content was analyzed with the same
+   * options. See {@link NaturalLanguageUnderstanding#analyze(AnalyzeOptions)}.
+   *
+   * @param analyzeOptions the {@link AnalyzeOptions} containing the options for the call
+   * @return a {@link ServiceCall} with a response type of {@link AnalysisResults}
+   */
+  public ServiceCall<AnalysisResults> analyze(final AnalyzeOptions analyzeOptions) {
+    Validator.notNull(analyzeOptions, "analyzeOptions cannot be null");
+    final String key = key(analyzeOptions);
+
+    return new ServiceCall<AnalysisResults>() {
+      @Override
+      public AnalysisResults execute() {
+        try {
+          return rx().get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+          throw FutureUtils.asRuntimeException(e.getCause());
+        }
+      }
+
+      @Override
+      public void enqueue(final ServiceCallback<? super AnalysisResults> callback) {
+        rx().handle(new CompletableFuture.BiFun<AnalysisResults, Throwable, Void>() {
+          @Override
+          public Void apply(AnalysisResults response, Throwable error) {
+            if (error == null) {
+              callback.onResponse(response);
+            } else {
+              callback.onFailure(FutureUtils.asException(error));
+            }
+            return null;
+          }
+        });
+      }
+
+      @Override
+      public CompletableFuture<AnalysisResults> rx() {
+        return lookup(key, analyzeOptions);
+      }
+    };
+  }
+
+  /**
+   * Gets the cache key of an analysis: the hexadecimal SHA-256 of its content and its canonical options.
+   *
+   * @param analyzeOptions the options of the analysis
+   * @return the key
+   */
+  public String key(AnalyzeOptions analyzeOptions) {
+    final Buffer buffer = new Buffer();
+    if (analyzeOptions.text() != null) {
+      buffer.writeUtf8("text\0").writeUtf8(normalizeText ? normalize(analyzeOptions.text()) : analyzeOptions.text());
+    } else if (analyzeOptions.html() != null) {
+      buffer.writeUtf8("html\0").writeUtf8(analyzeOptions.html());
+    } else if (analyzeOptions.url() != null) {
+      buffer.writeUtf8("url\0").writeUtf8(analyzeOptions.url().trim());
+    }
+    final AnalyzeOptions options = analyzeOptions.newBuilder().text(null).html(null).url(null).build();
+    buffer.writeByte(0).writeUtf8(GsonSingleton.getGsonWithoutPrettyPrinting().toJson(options));
+    return buffer.sha256().hex();
+  }
+
+  /**
+   * Removes every entry from memory. The store is left untouched.
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Gets the number of entries in memory.
+   *
+   * @return the size
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Gets the number of calls answered from memory, including the calls that shared a service call in flight.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Gets the number of calls answered from the store.
+   *
+   * @return the store hit count
+   */
+  public long getStoreHitCount() {
+    return storeHits.get();
+  }
+
+  /**
+   * Gets the number of calls sent to the service.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Gets the number of entries evicted from memory to make room for new ones.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * Answers a call from memory, from the store, from a service call in flight or from a new service call.
+   *
+   * @param key the key
+   * @param analyzeOptions the options of the analysis
+   * @return the future of the results
+   */
+  private CompletableFuture<AnalysisResults> lookup(final String key, AnalyzeOptions analyzeOptions) {
+    final CompletableFuture<AnalysisResults> future;
+    synchronized (entries) {
+      final CachedAnalysis entry = entries.get(key);
+      if ((entry != null) && (entry.expiresAt > System.currentTimeMillis())) {
+        hits.incrementAndGet();
+        future = new CompletableFuture<AnalysisResults>();
+        future.complete(entry.results);
+        return future;
+      }
+      if (entry != null) {
+        entries.remove(key);
+      }
+
+      final CompletableFuture<AnalysisResults> shared = inFlight.get(key);
+      if (shared != null) {
+        hits.incrementAndGet();
+        return shared;
+      }
+      future = new CompletableFuture<AnalysisResults>();
+      inFlight.put(key, future);
+    }
+
+    final CachedAnalysis stored = readStore(key);
+    if (stored != null) {
+      storeHits.incrementAndGet();
+      complete(key, stored);
+      return future;
+    }
+
+    misses.incrementAndGet();
+    try {
+      service.analyze(analyzeOptions).enqueue(new ServiceCallback<AnalysisResults>() {
+        @Override
+        public void onResponse(AnalysisResults response) {
+          final CachedAnalysis entry = new CachedAnalysis(response, System.currentTimeMillis() + ttlMillis);
+          writeStore(key, entry);
+          complete(key, entry);
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+          fail(key, e);
+        }
+      });
+    } catch (RuntimeException e) {
+      fail(key, e);
+    }
+    return future;
+  }
+
+  /**
+   * Caches an entry and completes the calls waiting for it.
+   *
+   * @param key the key
+   * @param entry the entry
+   */
+  private void complete(String key, CachedAnalysis entry) {
+    final CompletableFuture<AnalysisResults> future;
+    synchronized (entries) {
+      entries.put(key, entry);
+      future = inFlight.remove(key);
+    }
+    future.complete(entry.results);
+  }
+
+  /**
+   * Fails the calls waiting for a key, without caching anything.
+   *
+   * @param key the key
+   * @param error the error
+   */
+  private void fail(String key, Exception error) {
+    final CompletableFuture<AnalysisResults> future;
+    synchronized (entries) {
+      future = inFlight.remove(key);
+    }
+    future.completeExceptionally(error);
+  }
+
+  /**
+   * Reads an entry from the store. Store entries are the expiration time, a line break and the JSON of the results.
+   *
+   * @param key the key
+   * @return the entry, or null if the store has no valid entry
+   */
+  private CachedAnalysis readStore(String key) {
+    if (store == null) {
+      return null;
+    }
+    try {
+      final String value = store.get(key);
+      if (value == null) {
+        return null;
+      }
+      final int newline = value.indexOf('\n');
+      final long expiresAt = newline > 0 ? Long.parseLong(value.substring(0, newline)) : 0;
+      if (expiresAt <= System.currentTimeMillis()) {
+        store.remove(key);
+        return null;
+      }
+      final AnalysisResults results =
+          GsonSingleton.getGsonWithoutPrettyPrinting().fromJson(value.substring(newline + 1), AnalysisResults.class);
+      return results != null ? new CachedAnalysis(results, expiresAt) : null;
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Could not read " + key + " from the store", e);
+    } catch (NumberFormatException e) {
+      LOG.log(Level.WARNING, "Invalid store entry " + key, e);
+    } catch (JsonParseException e) {
+      LOG.log(Level.WARNING, "Invalid store entry " + key, e);
+    }
+    return null;
+  }
+
+  /**
+   * Writes an entry to the store.
+   *
+   * @param key the key
+   * @param entry the entry
+   */
+  private void writeStore(String key, CachedAnalysis entry) {
+    if (store == null) {
+      return;
+    }
+    try {
+      store.put(key, entry.expiresAt + "\n" + GsonSingleton.getGsonWithoutPrettyPrinting().toJson(entry.results));
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Could not write " + key + " to the store", e);
+    }
+  }
+
+  /**
+   * Puts text in Unicode NFC form, collapses runs of white space into a single space and trims it.
+   *
+   * @param text the text
+   * @return the normalized text
+   */
+  static String normalize(String text) {
+    final String composed = Normalizer.normalize(text, Normalizer.Form.NFC);
+    final StringBuilder normalized = new StringBuilder(composed.length());
+    boolean space = false;
+    for (int i = 0; i < composed.length(); i++) {
+      final char c = composed.charAt(i);
+      if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+        space = normalized.length() > 0;
+      } else {
+        if (space) {
+          normalized.append(' ');
+          space = false;
+        }
+        normalized.append(c);
+      }
+    }
+    return normalized.toString();
+  }
+}
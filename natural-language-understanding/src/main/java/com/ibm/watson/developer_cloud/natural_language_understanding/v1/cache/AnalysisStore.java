@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_understanding.v1.cache;
+
+import java.io.IOException;
+
+/**
+ * The persistent tier of an {@link AnalysisCache}, e.g. a directory or a key-value store shared by several processes.
+ * Keys are lowercase hexadecimal strings and values are opaque strings written by the cache. Implementations must be
+ * thread-safe.
+ */
+public interface AnalysisStore {
+
+  /**
+   * Gets the value of a key.
+   *
+   * @param key the key
+   * @return the value, or null if the key is not in the store
+   * @throws IOException if the store cannot be read
+   */
+  String get(String key) throws IOException;
+
+  /**
+   * Sets the value of a key.
+   *
+   * @param key the key
+   * @param value the value
+   * @throws IOException if the store cannot be written
+   */
+  void put(String key, String value) throws IOException;
+
+  /**
+   * Removes a key.
+   *
+   * @param key the key
+   * @throws IOException if the store cannot be written
+   */
+  void remove(String key) throws IOException;
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_understanding.v1.cache;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * An {@link AnalysisStore} that keeps each value in its own file of a directory, so the cache survives restarts and can
+ * be shared by the processes of a host. Files are replaced atomically, so readers never see a partial value.
+ * <p>
+ * The directory is bounded: a file older than the maximum age, {@value AnalysisCache#DEFAULT_TTL_MILLIS} ms by
+ * default, is ignored and deleted, and once there are more than {@value #DEFAULT_MAX_ENTRIES} files by default the
+ * oldest ones are deleted. The directory is swept when the store is opened and after every tenth of the maximum number
+ * of entries is written; {@link #sweep()} can also be called periodically. The maximum age should match the time to
+ * live of the cache.
+ */
+public class DirectoryAnalysisStore implements AnalysisStore {
+
+  /** The default maximum number of files in the directory. */
+  public static final int DEFAULT_MAX_ENTRIES = 100000;
+
+  private static final Logger LOG = Logger.getLogger(DirectoryAnalysisStore.class.getName());
+  private static final Pattern KEY = Pattern.compile("[0-9a-f]+");
+  private static final String SUFFIX = ".json";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final File directory;
+  private final int maxEntries;
+  private final long maxAgeMillis;
+  private final int sweepInterval;
+  private final AtomicInteger writesSinceSweep = new AtomicInteger();
+
+  /**
+   * Instantiates a new directory analysis store with the default bounds, creating the directory if needed.
+   *
+   * @param directory the directory
+   */
+  public DirectoryAnalysisStore(File directory) {
+    this(directory, DEFAULT_MAX_ENTRIES, AnalysisCache.DEFAULT_TTL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Instantiates a new directory analysis store, creating the directory if needed, and deletes the files that exceed
+   * its bounds.
+   *
+   * @param directory the directory
+   * @param maxEntries the maximum number of files
+   * @param maxAge how long a file is kept after it is written
+   * @param unit the unit of the maximum age
+   */
+  public DirectoryAnalysisStore(File directory, int maxEntries, long maxAge, TimeUnit unit) {
+    Validator.notNull(directory, "directory cannot be null");
+    Validator.isTrue(maxEntries > 0, "maxEntries must be greater than 0");
+    Validator.isTrue(maxAge > 0, "maxAge must be greater than 0");
+    Validator.notNull(unit, "unit cannot be null");
+    directory.mkdirs();
+    Validator.isTrue(directory.isDirectory(), directory + " is not a directory");
+    this.directory = directory;
+    this.maxEntries = maxEntries;
+    maxAgeMillis = unit.toMillis(maxAge);
+    sweepInterval = Math.max(1, maxEntries / 10);
+    sweep();
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.natural_language_understanding.v1.cache.AnalysisStore#get(java.lang.String)
+   */
+  @Override
+  public String get(String key) throws IOException {
+    final File file = file(key);
+    if (isExpired(file, System.currentTimeMillis())) {
+      file.delete();
+      return null;
+    }
+    final BufferedSource source;
+    try {
+      source = Okio.buffer(Okio.source(file));
+    } catch (FileNotFoundException e) {
+      return null;
+    }
+    try {
+      return source.readUtf8();
+    } finally {
+      source.close();
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.natural_language_understanding.v1.cache.AnalysisStore#put(java.lang.String,
+   * java.lang.String)
+   */
+  @Override
+  public void put(String key, String value) throws IOException {
+    final File target = file(key);
+    final File temp = File.createTempFile("tmp-" + key, TEMP_SUFFIX, directory);
+    try {
+      final BufferedSink sink = Okio.buffer(Okio.sink(temp));
+      try {
+        sink.writeUtf8(value);
+      } finally {
+        sink.close();
+      }
+      Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      temp.delete();
+    }
+    if (writesSinceSweep.incrementAndGet() >= sweepInterval) {
+      sweep();
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.natural_language_understanding.v1.cache.AnalysisStore#remove(java.lang.String)
+   */
+  @Override
+  public void remove(String key) throws IOException {
+    final File file = file(key);
+    if (!file.delete() && file.exists()) {
+      throw new IOException("Could not delete " + file);
+    }
+  }
+
+  /**
+   * Deletes the expired files, and the oldest files beyond the maximum number of entries.
+   *
+   * @return the number of files deleted
+   */
+  public int sweep() {
+    writesSinceSweep.set(0);
+    final long now = System.currentTimeMillis();
+    final File[] files = directory.listFiles();
+    if (files == null) {
+      return 0;
+    }
+    int deleted = 0;
+    final List<File> entries = new ArrayList<File>();
+    for (File file : files) {
+      final String name = file.getName();
+      if (!name.endsWith(SUFFIX) && !name.endsWith(TEMP_SUFFIX)) {
+        continue;
+      }
+      if (isExpired(file, now)) {
+        deleted += delete(file);
+      } else if (name.endsWith(SUFFIX)) {
+        entries.add(file);
+      }
+    }
+    if (entries.size() > maxEntries) {
+      final Map<File, Long> modified = new HashMap<File, Long>();
+      for (File entry : entries) {
+        modified.put(entry, entry.lastModified());
+      }
+      Collections.sort(entries, new Comparator<File>() {
+        @Override
+        public int compare(File a, File b) {
+          final int byAge = modified.get(a).compareTo(modified.get(b));
+          return (byAge != 0) ? byAge : a.getName().compareTo(b.getName());
+        }
+      });
+      for (File entry : entries.subList(0, entries.size() - maxEntries)) {
+        deleted += delete(entry);
+      }
+    }
+    return deleted;
+  }
+
+  private boolean isExpired(File file, long now) {
+    final long lastModified = file.lastModified();
+    return (lastModified != 0) && (lastModified + maxAgeMillis <= now);
+  }
+
+  private static int delete(File file) {
+    if (file.delete()) {
+      return 1;
+    }
+    if (file.exists()) {
+      LOG.warning("Could not delete " + file);
+    }
+    return 0;
+  }
+
+  private File file(String key) {
+    Validator.isTrue((key != null) && KEY.matcher(key).matches(), "invalid key: " + key);
+    return new File(directory, key + SUFFIX);
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_understanding.v1.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.http.ServiceCallback;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.NaturalLanguageUnderstanding;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.AnalysisResults;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.AnalyzeOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.EntitiesOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.Features;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.KeywordsOptions;
+import com.ibm.watson.developer_cloud.service.exception.BadRequestException;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for {@link AnalyzeBatcher}.
+ */
+public class AnalyzeBatcherTest extends WatsonServiceUnitTest {
+
+  private static final String TEXT = "IBM is an American multinational technology company";
+
+  private NaturalLanguageUnderstanding service;
+  private AnalyzeBatcher batcher;
+  private String analysis;
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new NaturalLanguageUnderstanding(NaturalLanguageUnderstanding.VERSION_DATE_2017_02_27);
+    service.setUsernameAndPassword("", "");
+    service.setEndPoint(getMockWebServerUrl());
+    batcher = new AnalyzeBatcher.Builder(service).windowMillis(200).build();
+    analysis = getStringFromInputStream(
+        getClass().getResourceAsStream("/natural_language_understanding/analyze.json"));
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    batcher.shutdown();
+    server.shutdown();
+  }
+
+  private static AnalyzeOptions options(Features features) {
+    return new AnalyzeOptions.Builder().text(TEXT).features(features).build();
+  }
+
+  private MockResponse analysisResponse() {
+    return new MockResponse().setHeader("Content-Type", "application/json").setBody(analysis);
+  }
+
+  /**
+   * Test that the features requested on the same document are sent in one call.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testMergesFeatures() throws Exception {
+    server.enqueue(analysisResponse());
+
+    final CompletableFuture<AnalysisResults> entities = batcher
+        .analyze(options(new Features.Builder().entities(new EntitiesOptions.Builder().limit(5).build()).build()))
+        .rx();
+    final AnalysisResults keywords =
+        batcher.analyze(options(new Features.Builder().keywords(new KeywordsOptions.Builder().build()).build()))
+            .execute();
+
+    assertNotNull(entities.get().getEntities());
+    assertNull(entities.get().getKeywords());
+    assertNotNull(keywords.getKeywords());
+    assertNull(keywords.getEntities());
+    assertNull(keywords.getConcepts());
+    assertEquals("en", keywords.getLanguage());
+
+    assertEquals(1, server.getRequestCount());
+    final RecordedRequest request = server.takeRequest();
+    final JsonObject body = new JsonParser().parse(request.getBody().readUtf8()).getAsJsonObject();
+    assertEquals(TEXT, body.get("text").getAsString());
+    final JsonObject features = body.getAsJsonObject("features");
+    assertEquals(5, features.getAsJsonObject("entities").get("limit").getAsInt());
+    assertNotNull(features.get("keywords"));
+    assertEquals(2, features.entrySet().size());
+  }
+
+  /**
+   * Test that a feature requested again with other options is sent on its own.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testConflictingOptions() throws Exception {
+    server.enqueue(analysisResponse());
+    server.enqueue(analysisResponse());
+
+    final CompletableFuture<AnalysisResults> first = batcher
+        .analyze(options(new Features.Builder().entities(new EntitiesOptions.Builder().limit(5).build()).build()))
+        .rx();
+    final CompletableFuture<AnalysisResults> second = batcher
+        .analyze(options(new Features.Builder().entities(new EntitiesOptions.Builder().limit(10).build()).build()))
+        .rx();
+    first.get();
+    second.get();
+
+    assertEquals(2, server.getRequestCount());
+  }
+
+  /**
+   * Test that different documents are sent in different calls.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testSeparatesDocuments() throws Exception {
+    server.enqueue(analysisResponse());
+    server.enqueue(analysisResponse());
+
+    final Features features = new Features.Builder().keywords(new KeywordsOptions.Builder().build()).build();
+    final CompletableFuture<AnalysisResults> first = batcher.analyze(options(features)).rx();
+    final CompletableFuture<AnalysisResults> second =
+        batcher.analyze(new AnalyzeOptions.Builder().url("http://www.ibm.com").features(features).build()).rx();
+    first.get();
+    second.get();
+
+    assertEquals(2, server.getRequestCount());
+  }
+
+  /**
+   * Test that calls made after the batcher is shut down are still sent.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testAfterShutdown() throws Exception {
+    server.enqueue(analysisResponse());
+    server.enqueue(analysisResponse());
+    batcher.shutdown();
+
+    final Features features = new Features.Builder().keywords(new KeywordsOptions.Builder().build()).build();
+    assertNotNull(batcher.analyze(options(features)).execute().getKeywords());
+    assertNotNull(batcher.analyze(options(features)).execute().getKeywords());
+    assertEquals(2, server.getRequestCount());
+  }
+
+  /**
+   * Test that the failure of a merged call reaches the callbacks as the exception of the service.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testFailure() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(400).setBody("{\"error\":\"unsupported text language\","
+        + "\"code\":400}"));
+
+    final BlockingQueue<Exception> failures = new LinkedBlockingQueue<Exception>();
+    batcher.analyze(options(new Features.Builder().keywords(new KeywordsOptions.Builder().build()).build()))
+        .enqueue(new ServiceCallback<AnalysisResults>() {
+          @Override
+          public void onResponse(AnalysisResults response) {
+          }
+
+          @Override
+          public void onFailure(Exception e) {
+            failures.add(e);
+          }
+        });
+
+    assertTrue(failures.poll(5, TimeUnit.SECONDS) instanceof BadRequestException);
+  }
+}
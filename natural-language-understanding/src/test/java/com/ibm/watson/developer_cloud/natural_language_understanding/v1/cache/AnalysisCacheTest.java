@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_understanding.v1.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.NaturalLanguageUnderstanding;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.AnalysisResults;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.AnalyzeOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.EntitiesOptions;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.Features;
+import com.ibm.watson.developer_cloud.natural_language_understanding.v1.model.KeywordsOptions;
+import com.ibm.watson.developer_cloud.service.exception.ServiceResponseException;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+import okhttp3.mockwebserver.MockResponse;
+
+/**
+ * Unit tests for {@link AnalysisCache}.
+ */
+public class AnalysisCacheTest extends WatsonServiceUnitTest {
+
+  private static final Features ENTITIES =
+      new Features.Builder().entities(new EntitiesOptions.Builder().limit(5).build()).build();
+
+  /** The temporary folder. */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private NaturalLanguageUnderstanding service;
+  private String analysis;
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new NaturalLanguageUnderstanding(NaturalLanguageUnderstanding.VERSION_DATE_2017_02_27);
+    service.setUsernameAndPassword("", "");
+    service.setEndPoint(getMockWebServerUrl());
+    analysis = getStringFromInputStream(
+        getClass().getResourceAsStream("/natural_language_understanding/analyze.json"));
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  private static AnalyzeOptions text(String text, Features features) {
+    return new AnalyzeOptions.Builder().text(text).features(features).build();
+  }
+
+  private MockResponse analysisResponse() {
+    return new MockResponse().setHeader("Content-Type", "application/json").setBody(analysis);
+  }
+
+  /**
+   * Test that documents which only differ in their white space are analyzed once.
+   */
+  @Test
+  public void testDuplicateText() {
+    server.enqueue(analysisResponse());
+    final AnalysisCache cache = new AnalysisCache.Builder(service).build();
+
+    final AnalysisResults first = cache.analyze(text("IBM is a  company.\n", ENTITIES)).execute();
+    final AnalysisResults second = cache.analyze(text(" IBM is a company.", ENTITIES)).execute();
+
+    assertNotNull(first.getEntities());
+    assertEquals(first, second);
+    assertEquals(1, server.getRequestCount());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.size());
+  }
+
+  /**
+   * Test that the features are part of the key.
+   */
+  @Test
+  public void testKeyIncludesFeatures() {
+    final AnalysisCache cache = new AnalysisCache.Builder(service).build();
+    final Features keywords = new Features.Builder().keywords(new KeywordsOptions.Builder().build()).build();
+    final Features otherLimit =
+        new Features.Builder().entities(new EntitiesOptions.Builder().limit(10).build()).build();
+
+    final String key = cache.key(text("IBM", ENTITIES));
+    assertEquals(key, cache.key(text("IBM", new Features.Builder()
+        .entities(new EntitiesOptions.Builder().limit(5).build()).build())));
+    assertNotEquals(key, cache.key(text("IBM", keywords)));
+    assertNotEquals(key, cache.key(text("IBM", otherLimit)));
+    assertNotEquals(key, cache.key(new AnalyzeOptions.Builder().html("IBM").features(ENTITIES).build()));
+    assertNotEquals(key, new AnalysisCache.Builder(service).normalizeText(false).build().key(text(" IBM", ENTITIES)));
+  }
+
+  /**
+   * Test that expired entries are analyzed again.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testTtl() throws Exception {
+    server.enqueue(analysisResponse());
+    server.enqueue(analysisResponse());
+    final AnalysisCache cache = new AnalysisCache.Builder(service).ttl(50, TimeUnit.MILLISECONDS).build();
+
+    cache.analyze(text("IBM", ENTITIES)).execute();
+    Thread.sleep(100);
+    cache.analyze(text("IBM", ENTITIES)).execute();
+
+    assertEquals(2, server.getRequestCount());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  /**
+   * Test that the least recently used entries are evicted.
+   */
+  @Test
+  public void testEviction() {
+    server.enqueue(analysisResponse());
+    server.enqueue(analysisResponse());
+    server.enqueue(analysisResponse());
+    final AnalysisCache cache = new AnalysisCache.Builder(service).maxEntries(1).build();
+
+    cache.analyze(text("first", ENTITIES)).execute();
+    cache.analyze(text("second", ENTITIES)).execute();
+    cache.analyze(text("first", ENTITIES)).execute();
+
+    assertEquals(3, server.getRequestCount());
+    assertEquals(2, cache.getEvictionCount());
+    assertEquals(1, cache.size());
+  }
+
+  /**
+   * Test that the store keeps the results across caches.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testStore() throws Exception {
+    server.enqueue(analysisResponse());
+    final AnalysisStore store = new DirectoryAnalysisStore(folder.newFolder("nlu"));
+
+    final AnalysisResults analyzed =
+        new AnalysisCache.Builder(service).store(store).build().analyze(text("IBM", ENTITIES)).execute();
+
+    final AnalysisCache restarted = new AnalysisCache.Builder(service).store(store).build();
+    final AnalysisResults stored = restarted.analyze(text("IBM", ENTITIES)).execute();
+
+    assertEquals(analyzed, stored);
+    assertEquals(1, server.getRequestCount());
+    assertEquals(1, restarted.getStoreHitCount());
+    assertEquals(0, restarted.getMissCount());
+  }
+
+  /**
+   * Test that concurrent calls on the same document share one service call.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testConcurrentCalls() throws Exception {
+    server.enqueue(analysisResponse().setBodyDelay(100, TimeUnit.MILLISECONDS));
+    final AnalysisCache cache = new AnalysisCache.Builder(service).build();
+
+    final CompletableFuture<AnalysisResults> first = cache.analyze(text("IBM", ENTITIES)).rx();
+    final CompletableFuture<AnalysisResults> second = cache.analyze(text("IBM", ENTITIES)).rx();
+
+    assertEquals(first.get(), second.get());
+    assertEquals(1, server.getRequestCount());
+  }
+
+  /**
+   * Test that failures are not cached.
+   */
+  @Test
+  public void testFailureNotCached() {
+    server.enqueue(new MockResponse().setResponseCode(500).setHeader("Content-Type", "application/json")
+        .setBody("{\"error\":\"internal error\",\"code\":500}"));
+    server.enqueue(analysisResponse());
+    final AnalysisCache cache = new AnalysisCache.Builder(service).build();
+
+    try {
+      cache.analyze(text("IBM", ENTITIES)).execute();
+      fail("ServiceResponseException expected");
+    } catch (ServiceResponseException e) {
+      assertEquals(500, e.getStatusCode());
+    }
+    assertNotNull(cache.analyze(text("IBM", ENTITIES)).execute().getEntities());
+    assertEquals(2, server.getRequestCount());
+  }
+}
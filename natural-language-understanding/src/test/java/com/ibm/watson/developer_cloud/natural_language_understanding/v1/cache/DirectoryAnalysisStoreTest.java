@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.natural_language_understanding.v1.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link DirectoryAnalysisStore}.
+ */
+public class DirectoryAnalysisStoreTest {
+
+  /** The temporary folder. */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static void age(File directory, String key, long millis) {
+    final File file = new File(directory, key + ".json");
+    file.setLastModified(System.currentTimeMillis() - millis);
+  }
+
+  /**
+   * Test that expired files are ignored, and deleted when a store is opened.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testExpiredEntries() throws IOException {
+    final File directory = folder.newFolder("nlu");
+    final DirectoryAnalysisStore store = new DirectoryAnalysisStore(directory, 10, 1, TimeUnit.HOURS);
+    store.put("aa", "old");
+    store.put("bb", "older");
+    store.put("cc", "new");
+    age(directory, "aa", TimeUnit.HOURS.toMillis(2));
+    age(directory, "bb", TimeUnit.HOURS.toMillis(3));
+
+    assertNull(store.get("aa"));
+    assertEquals(2, directory.list().length);
+
+    new DirectoryAnalysisStore(directory, 10, 1, TimeUnit.HOURS);
+    assertEquals(1, directory.list().length);
+    assertEquals("new", store.get("cc"));
+  }
+
+  /**
+   * Test that the oldest files are deleted beyond the maximum number of entries.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testMaxEntries() throws IOException {
+    final File directory = folder.newFolder("nlu");
+    final DirectoryAnalysisStore store = new DirectoryAnalysisStore(directory, 20, 1, TimeUnit.DAYS);
+    for (int i = 0; i < 5; i++) {
+      final String key = "a" + i;
+      store.put(key, "value " + i);
+      age(directory, key, TimeUnit.MINUTES.toMillis(10 - i));
+    }
+
+    final DirectoryAnalysisStore bounded = new DirectoryAnalysisStore(directory, 3, 1, TimeUnit.DAYS);
+    assertEquals(3, directory.list().length);
+    assertNull(bounded.get("a0"));
+    assertNull(bounded.get("a1"));
+    assertEquals("value 4", bounded.get("a4"));
+  }
+
+  /**
+   * Test that writing sweeps the directory.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testSweepOnWrite() throws IOException {
+    final File directory = folder.newFolder("nlu");
+    final DirectoryAnalysisStore store = new DirectoryAnalysisStore(directory, 5, 1, TimeUnit.DAYS);
+    for (int i = 0; i < 8; i++) {
+      final String key = "b" + i;
+      store.put(key, "value " + i);
+      age(directory, key, TimeUnit.MINUTES.toMillis(10 - i));
+    }
+    store.put("c0", "last");
+
+    assertEquals(5, directory.list().length);
+    assertEquals("last", store.get("c0"));
+  }
+}
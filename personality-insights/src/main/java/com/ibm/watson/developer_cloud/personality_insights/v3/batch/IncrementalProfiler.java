@@ -0,0 +1,430 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.personality_insights.v3.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.gson.Gson;
+import com.ibm.watson.developer_cloud.personality_insights.v3.PersonalityInsights;
+import com.ibm.watson.developer_cloud.personality_insights.v3.model.Content;
+import com.ibm.watson.developer_cloud.personality_insights.v3.model.ContentItem;
+import com.ibm.watson.developer_cloud.personality_insights.v3.model.Profile;
+import com.ibm.watson.developer_cloud.personality_insights.v3.model.ProfileOptions;
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.GsonSingleton;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * Profiles a large population of authors whose content grows over time, such as a nightly job, by profiling only the
+ * authors whose content changed since the last run.
+ * <p>
+ * For every author, the profiler fingerprints the {@link ContentItem}s and compares them with the
+ * {@link ProfileStateStore}. Authors whose content is unchanged, or grew by less than the minimum change ratio, are
+ * skipped. The content of the other authors is packed, newest items first, up to the input size of the service, and
+ * profiled concurrently. Profiles are written to a {@link ProfileSink} as CSV or JSON, and the store is updated once an
+ * author's profile has been written.
+ *
+ * <pre>
+ * ProfileStateStore store = new ProfileStateStore();
+ * store.load(stateFile);
+ * IncrementalProfiler profiler = new IncrementalProfiler.Builder(service, ProfileSinks.csv(writer))
+ *     .stateStore(store).build();
+ * for (Author author : authors) {
+ *   profiler.submit(author.getId(), author.getContentItems());
+ * }
+ * ProfileRunResult result = profiler.awaitCompletion();
+ * profiler.shutdown();
+ * store.save(stateFile);
+ * </pre>
+ *
+ * {@link #submit(String, List)} blocks while the maximum number of authors is in flight, so the caller can stream
+ * authors from a database without holding them all in memory.
+ */
+public class IncrementalProfiler {
+
+  private static final Logger LOG = Logger.getLogger(IncrementalProfiler.class.getName());
+
+  /** The default maximum number of profile requests in flight. */
+  public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+  /** The default maximum size of the content sent for an author, in bytes, under the 20 MB limit of the service. */
+  public static final int DEFAULT_MAX_CONTENT_BYTES = 19 * 1024 * 1024;
+
+  /** The size of the JSON around the content items of a request. */
+  private static final int CONTENT_OVERHEAD = 32;
+
+  /**
+   * The outcome of the authors submitted since the last {@link IncrementalProfiler#awaitCompletion()}.
+   */
+  private static final class Run {
+    private final AtomicInteger profiled = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Map<String, Exception> failures = new ConcurrentHashMap<String, Exception>();
+  }
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final PersonalityInsights service;
+    private final ProfileSink sink;
+    private ProfileStateStore stateStore;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private int maxContentBytes = DEFAULT_MAX_CONTENT_BYTES;
+    private double minChangeRatio;
+    private String contentLanguage;
+    private String acceptLanguage;
+    private Boolean rawScores;
+    private Boolean consumptionPreferences;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param service the service used to profile the authors
+     * @param sink the sink the profiles are written to
+     */
+    public Builder(PersonalityInsights service, ProfileSink sink) {
+      this.service = service;
+      this.sink = sink;
+    }
+
+    /**
+     * Set the store of the content the authors were last profiled with. Defaults to an empty store, which profiles
+     * every author.
+     *
+     * @param stateStore the state store
+     * @return the builder
+     */
+    public Builder stateStore(ProfileStateStore stateStore) {
+      this.stateStore = stateStore;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of profile requests in flight. Defaults to
+     * {@value IncrementalProfiler#DEFAULT_MAX_CONCURRENCY}.
+     *
+     * @param maxConcurrency the maximum concurrency
+     * @return the builder
+     */
+    public Builder maxConcurrency(int maxConcurrency) {
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * Set the maximum size of the content sent for an author, in UTF-8 bytes of JSON. Older content items are left out
+     * when an author has more. Defaults to {@value IncrementalProfiler#DEFAULT_MAX_CONTENT_BYTES}.
+     *
+     * @param maxContentBytes the maximum content size
+     * @return the builder
+     */
+    public Builder maxContentBytes(int maxContentBytes) {
+      this.maxContentBytes = maxContentBytes;
+      return this;
+    }
+
+    /**
+     * Set how much the content of an author must grow or shrink, relative to the content of the last profile, before
+     * the author is profiled again. Defaults to 0, which profiles an author again on any change.
+     *
+     * @param minChangeRatio the minimum change ratio, such as 0.1 for 10%
+     * @return the builder
+     */
+    public Builder minChangeRatio(double minChangeRatio) {
+      this.minChangeRatio = minChangeRatio;
+      return this;
+    }
+
+    /**
+     * Set the language of the content.
+     *
+     * @param contentLanguage the content language
+     * @return the builder
+     * @see ProfileOptions.ContentLanguage
+     */
+    public Builder contentLanguage(String contentLanguage) {
+      this.contentLanguage = contentLanguage;
+      return this;
+    }
+
+    /**
+     * Set the language of the profiles.
+     *
+     * @param acceptLanguage the accept language
+     * @return the builder
+     * @see ProfileOptions.AcceptLanguage
+     */
+    public Builder acceptLanguage(String acceptLanguage) {
+      this.acceptLanguage = acceptLanguage;
+      return this;
+    }
+
+    /**
+     * Set whether the profiles include raw scores.
+     *
+     * @param rawScores the raw scores
+     * @return the builder
+     */
+    public Builder rawScores(Boolean rawScores) {
+      this.rawScores = rawScores;
+      return this;
+    }
+
+    /**
+     * Set whether the profiles include consumption preferences.
+     *
+     * @param consumptionPreferences the consumption preferences
+     * @return the builder
+     */
+    public Builder consumptionPreferences(Boolean consumptionPreferences) {
+      this.consumptionPreferences = consumptionPreferences;
+      return this;
+    }
+
+    /**
+     * Builds the incremental profiler.
+     *
+     * @return the incremental profiler
+     */
+    public IncrementalProfiler build() {
+      return new IncrementalProfiler(this);
+    }
+  }
+
+  private final PersonalityInsights service;
+  private final ProfileSink sink;
+  private final ProfileStateStore stateStore;
+  private final int maxConcurrency;
+  private final int maxContentBytes;
+  private final double minChangeRatio;
+  private final String contentLanguage;
+  private final String acceptLanguage;
+  private final Boolean rawScores;
+  private final Boolean consumptionPreferences;
+  private final ThreadPoolExecutor executor;
+  private final Semaphore slots;
+  private volatile Run run = new Run();
+
+  /**
+   * Instantiates a new incremental profiler.
+   *
+   * @param builder the builder
+   */
+  protected IncrementalProfiler(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.notNull(builder.sink, "sink cannot be null");
+    Validator.isTrue(builder.maxConcurrency > 0, "maxConcurrency must be greater than 0");
+    Validator.isTrue(builder.maxContentBytes > CONTENT_OVERHEAD, "maxContentBytes is too small");
+    Validator.isTrue(builder.minChangeRatio >= 0, "minChangeRatio cannot be negative");
+    service = builder.service;
+    sink = builder.sink;
+    stateStore = builder.stateStore != null ? builder.stateStore : new ProfileStateStore();
+    maxConcurrency = builder.maxConcurrency;
+    maxContentBytes = builder.maxContentBytes;
+    minChangeRatio = builder.minChangeRatio;
+    contentLanguage = builder.contentLanguage;
+    acceptLanguage = builder.acceptLanguage;
+    rawScores = builder.rawScores;
+    consumptionPreferences = builder.consumptionPreferences;
+    slots = new Semaphore(maxConcurrency);
+    executor = DaemonThreadFactory.newThreadPool("personality-insights-profiler", maxConcurrency);
+  }
+
+  /**
+   * Submits the content of an author. If the content changed enough since the author was last profiled, the author is
+   * profiled in the background, otherwise the author is skipped. Blocks while the maximum number of authors is in
+   * flight.
+   *
+   * @param userId the id of the author
+   * @param contentItems all the content items of the author
+   * @return true if the author is being profiled, false if it was skipped
+   * @throws InterruptedException if the calling thread is interrupted while waiting for a free slot
+   */
+  public boolean submit(final String userId, List<ContentItem> contentItems) throws InterruptedException {
+    Validator.notNull(userId, "userId cannot be null");
+    Validator.notEmpty(contentItems, "contentItems cannot be empty");
+
+    final Gson gson = GsonSingleton.getGsonWithoutPrettyPrinting();
+    final List<Integer> sizes = new ArrayList<Integer>(contentItems.size());
+    final List<ByteString> digests = new ArrayList<ByteString>(contentItems.size());
+    long size = 0;
+    for (ContentItem item : contentItems) {
+      final ByteString encoded = ByteString.encodeUtf8(gson.toJson(item));
+      sizes.add(encoded.size());
+      digests.add(encoded.sha256());
+      size += encoded.size();
+    }
+    final ProfileStateStore.Entry entry = new ProfileStateStore.Entry(fingerprint(digests), size);
+    final Run current = run;
+    if (!hasChanged(stateStore.get(userId), entry)) {
+      current.skipped.incrementAndGet();
+      return false;
+    }
+
+    final Content content = pack(contentItems, sizes);
+    slots.acquire();
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            profile(current, userId, content, entry);
+          } finally {
+            slots.release();
+          }
+        }
+      });
+    } catch (RuntimeException e) {
+      slots.release();
+      throw e;
+    }
+    return true;
+  }
+
+  /**
+   * Waits for the authors in flight and returns the outcome of the authors submitted since the previous call, which
+   * ends the run: the authors submitted after it count towards the next result.
+   *
+   * @return the result
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public ProfileRunResult awaitCompletion() throws InterruptedException {
+    slots.acquire(maxConcurrency);
+    final Run completed = run;
+    run = new Run();
+    slots.release(maxConcurrency);
+    return new ProfileRunResult(completed.profiled.get(), completed.skipped.get(), completed.bytes.get(),
+        Collections.unmodifiableMap(new LinkedHashMap<String, Exception>(completed.failures)));
+  }
+
+  /**
+   * Stops the worker threads once the authors in flight are done.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private void profile(Run current, String userId, Content content, ProfileStateStore.Entry entry) {
+    final ProfileOptions profileOptions = new ProfileOptions.Builder().content(content)
+        .contentLanguage(contentLanguage).acceptLanguage(acceptLanguage).rawScores(rawScores)
+        .consumptionPreferences(consumptionPreferences).build();
+    try {
+      final String profile;
+      if (sink.getFormat() == ProfileSink.Format.CSV) {
+        profile = service.getProfileAsCSV(profileOptions, true).execute();
+      } else {
+        final Profile result = service.profile(profileOptions).execute();
+        profile = GsonSingleton.getGsonWithoutPrettyPrinting().toJson(result);
+      }
+      sink.write(userId, profile);
+      stateStore.put(userId, entry);
+      current.failures.remove(userId);
+      current.profiled.incrementAndGet();
+      current.bytes.addAndGet(entry.getBytes());
+    } catch (Exception e) {
+      LOG.log(Level.WARNING, "Could not profile " + userId, e);
+      current.failures.put(userId, e);
+    }
+  }
+
+  private boolean hasChanged(ProfileStateStore.Entry previous, ProfileStateStore.Entry current) {
+    if (previous == null) {
+      return true;
+    }
+    if (previous.getFingerprint().equals(current.getFingerprint())) {
+      return false;
+    }
+    return Math.abs(current.getBytes() - previous.getBytes()) >= (minChangeRatio * previous.getBytes());
+  }
+
+  /**
+   * Packs the newest content items that fit in the maximum content size, in their original order. Items with a creation
+   * time are newer than items without one and are ordered by it; ties are broken by position, later items being newer.
+   *
+   * @param contentItems the content items
+   * @param sizes the size of the JSON of each content item
+   * @return the content to send
+   */
+  private Content pack(final List<ContentItem> contentItems, List<Integer> sizes) {
+    final Integer[] newestFirst = new Integer[contentItems.size()];
+    for (int i = 0; i < newestFirst.length; i++) {
+      newestFirst[i] = i;
+    }
+    Arrays.sort(newestFirst, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer a, Integer b) {
+        final Long createdA = contentItems.get(a).created();
+        final Long createdB = contentItems.get(b).created();
+        if ((createdA == null) != (createdB == null)) {
+          return createdA == null ? 1 : -1;
+        }
+        if ((createdA != null) && !createdA.equals(createdB)) {
+          return createdB.compareTo(createdA);
+        }
+        return b.compareTo(a);
+      }
+    });
+
+    final List<Integer> selected = new ArrayList<Integer>();
+    long size = CONTENT_OVERHEAD;
+    for (Integer index : newestFirst) {
+      final int itemSize = sizes.get(index) + 1;
+      if ((size + itemSize) <= maxContentBytes) {
+        selected.add(index);
+        size += itemSize;
+      }
+    }
+    Collections.sort(selected);
+
+    final List<ContentItem> packed = new ArrayList<ContentItem>(selected.size());
+    for (Integer index : selected) {
+      packed.add(contentItems.get(index));
+    }
+    return new Content.Builder(packed).build();
+  }
+
+  /**
+   * Fingerprints a set of content items. The digests are sorted, so the fingerprint does not depend on the order of the
+   * items.
+   *
+   * @param digests the SHA-256 digest of each content item
+   * @return the fingerprint, in hex
+   */
+  private static String fingerprint(List<ByteString> digests) {
+    final List<ByteString> sorted = new ArrayList<ByteString>(digests);
+    Collections.sort(sorted);
+    final Buffer buffer = new Buffer();
+    for (ByteString digest : sorted) {
+      buffer.write(digest);
+    }
+    return buffer.readByteString().sha256().hex();
+  }
+}
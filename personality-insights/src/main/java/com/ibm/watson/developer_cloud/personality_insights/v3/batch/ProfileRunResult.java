@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.personality_insights.v3.batch;
+
+import java.util.Map;
+
+/**
+ * The outcome of an {@link IncrementalProfiler} run.
+ */
+public class ProfileRunResult {
+
+  private final int profiled;
+  private final int skipped;
+  private final long bytes;
+  private final Map<String, Exception> failures;
+
+  /**
+   * Instantiates a new profile run result.
+   *
+   * @param profiled the number of profiled authors
+   * @param skipped the number of skipped authors
+   * @param bytes the total size of the content sent to the service
+   * @param failures the failures, by author id
+   */
+  ProfileRunResult(int profiled, int skipped, long bytes, Map<String, Exception> failures) {
+    this.profiled = profiled;
+    this.skipped = skipped;
+    this.bytes = bytes;
+    this.failures = failures;
+  }
+
+  /**
+   * Gets the number of authors that were profiled and written to the sink.
+   *
+   * @return the number of profiled authors
+   */
+  public int getProfiled() {
+    return profiled;
+  }
+
+  /**
+   * Gets the number of authors that were skipped because their content did not change enough.
+   *
+   * @return the number of skipped authors
+   */
+  public int getSkipped() {
+    return skipped;
+  }
+
+  /**
+   * Gets the total size of the content sent to the service, in bytes.
+   *
+   * @return the number of bytes
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Gets the authors that could not be profiled, with the exception of each. They are profiled again on the next run.
+   *
+   * @return the failures, by author id
+   */
+  public Map<String, Exception> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Checks whether every changed author was profiled.
+   *
+   * @return true if there were no failures
+   */
+  public boolean isSuccessful() {
+    return failures.isEmpty();
+  }
+}
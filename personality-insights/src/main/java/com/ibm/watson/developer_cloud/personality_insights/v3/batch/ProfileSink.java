@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.personality_insights.v3.batch;
+
+import java.io.IOException;
+
+/**
+ * Receives the profiles computed by an {@link IncrementalProfiler}. Profiles are written from several threads, one at a
+ * time.
+ *
+ * @see ProfileSinks
+ */
+public interface ProfileSink {
+
+  /**
+   * The format of the profiles a sink receives.
+   */
+  enum Format {
+    /** The profile as returned by {@code getProfileAsCSV}, with a header line and a value line. */
+    CSV,
+    /** The profile as a JSON object. */
+    JSON
+  }
+
+  /**
+   * Gets the format of the profiles this sink receives.
+   *
+   * @return the format
+   */
+  Format getFormat();
+
+  /**
+   * Writes the profile of an author.
+   *
+   * @param userId the id of the author
+   * @param profile the profile, in the format of the sink
+   * @throws IOException if the profile cannot be written
+   */
+  void write(String userId, String profile) throws IOException;
+}
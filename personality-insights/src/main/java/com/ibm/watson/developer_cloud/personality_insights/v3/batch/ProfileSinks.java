@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.personality_insights.v3.batch;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * Factory methods for the common {@link ProfileSink}s. The sinks flush the writer after every profile, but do not close
+ * it.
+ */
+public final class ProfileSinks {
+
+  private ProfileSinks() {
+    // This is a utility class - no instantiation allowed.
+  }
+
+  /**
+   * Writes the profiles as a single CSV table, with the id of the author in the first column. The header line is
+   * written once, before the first profile.
+   *
+   * @param writer the writer
+   * @return the sink
+   */
+  public static ProfileSink csv(final Writer writer) {
+    Validator.notNull(writer, "writer cannot be null");
+    return new ProfileSink() {
+      private boolean header = true;
+
+      @Override
+      public Format getFormat() {
+        return Format.CSV;
+      }
+
+      @Override
+      public synchronized void write(String userId, String profile) throws IOException {
+        final String[] lines = profile.trim().split("\r?\n");
+        if (header && (lines.length > 1)) {
+          writer.write("user_id," + lines[0] + "\n");
+          header = false;
+        }
+        writer.write(quote(userId) + "," + lines[lines.length - 1] + "\n");
+        writer.flush();
+      }
+    };
+  }
+
+  /**
+   * Writes the profiles as JSON lines, one <code>{"user_id": ..., "profile": {...}}</code> object per line.
+   *
+   * @param writer the writer
+   * @return the sink
+   */
+  public static ProfileSink jsonLines(final Writer writer) {
+    Validator.notNull(writer, "writer cannot be null");
+    return new ProfileSink() {
+      @Override
+      public Format getFormat() {
+        return Format.JSON;
+      }
+
+      @Override
+      public synchronized void write(String userId, String profile) throws IOException {
+        final JsonObject line = new JsonObject();
+        line.addProperty("user_id", userId);
+        line.add("profile", new JsonParser().parse(profile));
+        writer.write(line.toString() + "\n");
+        writer.flush();
+      }
+    };
+  }
+
+  private static String quote(String value) {
+    if ((value.indexOf(',') < 0) && (value.indexOf('"') < 0) && (value.indexOf('\n') < 0)) {
+      return value;
+    }
+    return "\"" + value.replace("\"", "\"\"") + "\"";
+  }
+}
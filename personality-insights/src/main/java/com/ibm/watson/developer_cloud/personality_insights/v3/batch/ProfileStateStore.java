@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.personality_insights.v3.batch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * Remembers the content each author was last profiled with, so an {@link IncrementalProfiler} can skip the authors
+ * whose content did not change.
+ * <p>
+ * The store keeps one small entry per author in memory, and can be saved to and loaded from a tab separated file
+ * between runs.
+ */
+public class ProfileStateStore {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /**
+   * The content an author was last profiled with.
+   */
+  public static class Entry {
+    private final String fingerprint;
+    private final long bytes;
+
+    /**
+     * Instantiates a new entry.
+     *
+     * @param fingerprint the fingerprint of the content items
+     * @param bytes the size of the content, in UTF-8 bytes
+     */
+    public Entry(String fingerprint, long bytes) {
+      this.fingerprint = fingerprint;
+      this.bytes = bytes;
+    }
+
+    /**
+     * Gets the fingerprint of the content items.
+     *
+     * @return the fingerprint
+     */
+    public String getFingerprint() {
+      return fingerprint;
+    }
+
+    /**
+     * Gets the size of the content, in UTF-8 bytes.
+     *
+     * @return the size
+     */
+    public long getBytes() {
+      return bytes;
+    }
+  }
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+  /**
+   * Gets the entry of an author.
+   *
+   * @param userId the id of the author
+   * @return the entry, or null if the author was never profiled
+   */
+  public Entry get(String userId) {
+    return entries.get(userId);
+  }
+
+  /**
+   * Sets the entry of an author.
+   *
+   * @param userId the id of the author
+   * @param entry the entry
+   */
+  public void put(String userId, Entry entry) {
+    Validator.notNull(userId, "userId cannot be null");
+    Validator.notNull(entry, "entry cannot be null");
+    entries.put(userId, entry);
+  }
+
+  /**
+   * Gets the number of authors in the store.
+   *
+   * @return the number of authors
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Loads the entries saved with {@link #save(File)}, replacing the entries of the same authors.
+   *
+   * @param file the file
+   * @throws IOException if the file cannot be read
+   */
+  public void load(File file) throws IOException {
+    Validator.notNull(file, "file cannot be null");
+    final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        final String[] fields = line.split("\t");
+        if (fields.length == 3) {
+          entries.put(unescape(fields[0]), new Entry(fields[1], Long.parseLong(fields[2])));
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Saves the entries to a file, one tab separated line per author. Tabs, line breaks and backslashes in author ids are
+   * escaped with a backslash.
+   *
+   * @param file the file
+   * @throws IOException if the file cannot be written
+   */
+  public void save(File file) throws IOException {
+    Validator.notNull(file, "file cannot be null");
+    final Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8);
+    try {
+      for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+        writer.write(escape(entry.getKey()) + "\t" + entry.getValue().getFingerprint() + "\t"
+            + entry.getValue().getBytes() + "\n");
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  private static String escape(String userId) {
+    final StringBuilder sb = new StringBuilder(userId.length());
+    for (int i = 0; i < userId.length(); i++) {
+      final char c = userId.charAt(i);
+      if (c == '\\') {
+        sb.append("\\\\");
+      } else if (c == '\t') {
+        sb.append("\\t");
+      } else if (c == '\n') {
+        sb.append("\\n");
+      } else if (c == '\r') {
+        sb.append("\\r");
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static String unescape(String field) {
+    final StringBuilder sb = new StringBuilder(field.length());
+    for (int i = 0; i < field.length(); i++) {
+      char c = field.charAt(i);
+      if ((c == '\\') && (i + 1 < field.length())) {
+        c = field.charAt(++i);
+        if (c == 't') {
+          c = '\t';
+        } else if (c == 'n') {
+          c = '\n';
+        } else if (c == 'r') {
+          c = '\r';
+        }
+      }
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+}
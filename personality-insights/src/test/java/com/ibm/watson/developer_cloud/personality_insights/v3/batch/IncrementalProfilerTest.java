@@ -0,0 +1,273 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.personality_insights.v3.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.personality_insights.v3.PersonalityInsights;
+import com.ibm.watson.developer_cloud.personality_insights.v3.model.ContentItem;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for {@link IncrementalProfiler}.
+ */
+public class IncrementalProfilerTest extends WatsonServiceUnitTest {
+
+  /** The temporary folder. */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private PersonalityInsights service;
+  private ProfileStateStore store;
+  private StringWriter writer;
+  private IncrementalProfiler profiler;
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new PersonalityInsights("2016-10-19");
+    service.setUsernameAndPassword("", "");
+    service.setEndPoint(getMockWebServerUrl());
+    store = new ProfileStateStore();
+    writer = new StringWriter();
+
+    // answers with the number of content items, and fails for the author "broken"
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        final JsonObject body = new JsonParser().parse(request.getBody().clone().readUtf8()).getAsJsonObject();
+        final int items = body.getAsJsonArray("contentItems").size();
+        if (body.toString().contains("broken")) {
+          return new MockResponse().setResponseCode(500).setBody("{\"error\": \"broken\"}");
+        }
+        if ("text/csv".equals(request.getHeader("Accept"))) {
+          return new MockResponse().setHeader("Content-Type", "text/csv").setBody("word_count\n" + items + "\n");
+        }
+        return new MockResponse().setHeader("Content-Type", "application/json")
+            .setBody("{\"word_count\": " + items + ", \"processed_language\": \"en\"}");
+      }
+    });
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    if (profiler != null) {
+      profiler.shutdown();
+    }
+    super.tearDown();
+  }
+
+  private static List<ContentItem> items(String... texts) {
+    final List<ContentItem> items = new ArrayList<ContentItem>();
+    for (String text : texts) {
+      items.add(new ContentItem.Builder(text).build());
+    }
+    return items;
+  }
+
+  /**
+   * Test that only the authors whose content changed are profiled again, and the CSV header is written once.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testProfilesOnlyChangedAuthors() throws Exception {
+    profiler = new IncrementalProfiler.Builder(service, ProfileSinks.csv(writer)).stateStore(store)
+        .maxConcurrency(2).build();
+
+    assertTrue(profiler.submit("alice", items("one", "two")));
+    assertTrue(profiler.submit("bob", items("three")));
+    ProfileRunResult result = profiler.awaitCompletion();
+    assertEquals(2, result.getProfiled());
+    assertEquals(2, store.size());
+
+    assertFalse(profiler.submit("alice", items("two", "one")));
+    assertTrue(profiler.submit("bob", items("three", "four")));
+    result = profiler.awaitCompletion();
+    assertEquals(1, result.getProfiled());
+    assertEquals(1, result.getSkipped());
+    assertTrue(result.isSuccessful());
+    assertEquals(3, server.getRequestCount());
+
+    final List<String> lines = Arrays.asList(writer.toString().split("\n"));
+    assertEquals(4, lines.size());
+    assertEquals("user_id,word_count", lines.get(0));
+    assertTrue(lines.contains("alice,2"));
+    assertTrue(lines.contains("bob,1"));
+    assertEquals("bob,2", lines.get(3));
+  }
+
+  /**
+   * Test that small changes are skipped when a minimum change ratio is set.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testMinChangeRatio() throws Exception {
+    profiler = new IncrementalProfiler.Builder(service, ProfileSinks.jsonLines(writer)).stateStore(store)
+        .minChangeRatio(0.5).build();
+
+    profiler.submit("alice", items("a long enough post", "another long enough post"));
+    profiler.awaitCompletion();
+    assertFalse(profiler.submit("alice", items("a long enough post", "another long enough post!")));
+    assertTrue(profiler.submit("alice", items("a long enough post", "another long enough post", "more", "more")));
+    final ProfileRunResult result = profiler.awaitCompletion();
+
+    assertEquals(1, result.getProfiled());
+    assertEquals(1, result.getSkipped());
+    final JsonObject last = new JsonParser().parse(writer.toString().split("\n")[1]).getAsJsonObject();
+    assertEquals("alice", last.get("user_id").getAsString());
+    assertEquals(4, last.getAsJsonObject("profile").get("word_count").getAsInt());
+  }
+
+  /**
+   * Test that only the newest content items that fit are sent.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testPacksNewestItems() throws Exception {
+    profiler = new IncrementalProfiler.Builder(service, ProfileSinks.jsonLines(writer)).maxContentBytes(100).build();
+    final List<ContentItem> items = Arrays.asList(new ContentItem.Builder("old").created(1).build(),
+        new ContentItem.Builder("newest").created(3).build(), new ContentItem.Builder("new").created(2).build());
+
+    profiler.submit("alice", items);
+    profiler.awaitCompletion();
+
+    final String body = server.takeRequest().getBody().readUtf8();
+    assertTrue(body.indexOf("newest") < body.indexOf("\"new\""));
+    assertFalse(body.contains("old"));
+  }
+
+  /**
+   * Test that items without a creation time are left out before the items with one, whatever their position.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testPacksUndatedItemsLast() throws Exception {
+    profiler = new IncrementalProfiler.Builder(service, ProfileSinks.jsonLines(writer)).maxContentBytes(100).build();
+    final List<ContentItem> items = Arrays.asList(new ContentItem.Builder("dated").created(2).build(),
+        new ContentItem.Builder("undated").build(), new ContentItem.Builder("older").created(1).build());
+
+    profiler.submit("alice", items);
+    profiler.awaitCompletion();
+
+    final String body = server.takeRequest().getBody().readUtf8();
+    assertTrue(body.indexOf("dated") < body.indexOf("older"));
+    assertFalse(body.contains("undated"));
+  }
+
+  /**
+   * Test that failed authors are reported and profiled again on the next submission.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testFailuresAreRetried() throws Exception {
+    profiler = new IncrementalProfiler.Builder(service, ProfileSinks.csv(writer)).stateStore(store).build();
+
+    profiler.submit("alice", items("broken"));
+    profiler.submit("bob", items("fine"));
+    final ProfileRunResult result = profiler.awaitCompletion();
+
+    assertFalse(result.isSuccessful());
+    assertEquals(1, result.getProfiled());
+    assertTrue(result.getFailures().containsKey("alice"));
+    assertEquals(null, store.get("alice"));
+    assertTrue(profiler.submit("alice", items("broken")));
+    assertFalse(profiler.submit("bob", items("fine")));
+    final ProfileRunResult next = profiler.awaitCompletion();
+    assertEquals(0, next.getProfiled());
+    assertEquals(1, next.getSkipped());
+    assertEquals("[alice]", next.getFailures().keySet().toString());
+  }
+
+  /**
+   * Test that the state store survives a save and load.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testStateStoreRoundTrip() throws Exception {
+    profiler = new IncrementalProfiler.Builder(service, ProfileSinks.csv(writer)).stateStore(store).build();
+    profiler.submit("alice", items("one"));
+    profiler.awaitCompletion();
+    final File file = folder.newFile("state.tsv");
+    store.save(file);
+
+    final ProfileStateStore loaded = new ProfileStateStore();
+    loaded.load(file);
+    assertEquals(store.get("alice").getFingerprint(), loaded.get("alice").getFingerprint());
+    assertEquals(store.get("alice").getBytes(), loaded.get("alice").getBytes());
+
+    final IncrementalProfiler next = new IncrementalProfiler.Builder(service, ProfileSinks.csv(writer))
+        .stateStore(loaded).build();
+    assertFalse(next.submit("alice", items("one")));
+    next.shutdown();
+  }
+
+  /**
+   * Test that author ids with tabs, line breaks and backslashes survive a save and load.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testStateStoreEscapesUserIds() throws Exception {
+    final List<String> userIds = Arrays.asList("a\tb", "c\nd", "e\r\nf", "g\\tg", "h\\");
+    for (int i = 0; i < userIds.size(); i++) {
+      store.put(userIds.get(i), new ProfileStateStore.Entry("fingerprint" + i, i));
+    }
+    final File file = folder.newFile("state.tsv");
+    store.save(file);
+
+    final ProfileStateStore loaded = new ProfileStateStore();
+    loaded.load(file);
+    assertEquals(userIds.size(), loaded.size());
+    for (int i = 0; i < userIds.size(); i++) {
+      assertEquals("fingerprint" + i, loaded.get(userIds.get(i)).getFingerprint());
+      assertEquals(i, loaded.get(userIds.get(i)).getBytes());
+    }
+  }
+}
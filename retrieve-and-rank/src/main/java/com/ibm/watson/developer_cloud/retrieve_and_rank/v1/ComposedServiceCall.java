@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1;
+
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.http.ServiceCallback;
+import com.ibm.watson.developer_cloud.util.FutureUtils;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * Base class for a {@link ServiceCall} made of several service requests. Subclasses chain the requests in
+ * {@link #execute()} and {@link #rx()}; {@link #enqueue(ServiceCallback)} reports the outcome of {@link #rx()}.
+ *
+ * @param <T> the generic type
+ */
+abstract class ComposedServiceCall<T> implements ServiceCall<T> {
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.http.ServiceCall#enqueue(com.ibm.watson.developer_cloud.http.ServiceCallback)
+   */
+  @Override
+  public void enqueue(final ServiceCallback<? super T> callback) {
+    rx().handle(new CompletableFuture.BiFun<T, Throwable, Void>() {
+      @Override
+      public Void apply(T response, Throwable error) {
+        if (error == null) {
+          callback.onResponse(response);
+        } else {
+          callback.onFailure(FutureUtils.asException(error));
+        }
+        return null;
+      }
+    });
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1;
+
+import java.io.File;
+import java.io.InputStream;
+
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrConfigs;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.util.ZipUtils;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * A {@link ServiceCall} that uploads a Solr configuration directory unless the configuration already on the cluster
+ * has the same content hash. The result is <code>true</code> when the configuration was uploaded.
+ */
+class ConfigUploadCall extends ComposedServiceCall<Boolean> {
+
+  private final RetrieveAndRank service;
+  private final String solrClusterId;
+  private final String configName;
+  private final File configDirectory;
+
+  /**
+   * Instantiates a new config upload call.
+   *
+   * @param service the service
+   * @param solrClusterId the Solr cluster id
+   * @param configName the configuration name
+   * @param configDirectory the configuration directory
+   */
+  ConfigUploadCall(RetrieveAndRank service, String solrClusterId, String configName, File configDirectory) {
+    this.service = service;
+    this.solrClusterId = solrClusterId;
+    this.configName = configName;
+    this.configDirectory = configDirectory;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.http.ServiceCall#execute()
+   */
+  @Override
+  public Boolean execute() {
+    final String localHash = ZipUtils.hashConfigDirectory(configDirectory);
+    if (isDeployed(service.getSolrClusterConfigurations(solrClusterId).execute())
+        && matches(localHash, service.getSolrClusterConfiguration(solrClusterId, configName).execute())) {
+      return false;
+    }
+    upload().execute();
+    return true;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.http.ServiceCall#rx()
+   */
+  @Override
+  public CompletableFuture<Boolean> rx() {
+    return service.getSolrClusterConfigurations(solrClusterId).rx().thenCompose(
+        new CompletableFuture.Fun<SolrConfigs, CompletableFuture<Boolean>>() {
+          @Override
+          public CompletableFuture<Boolean> apply(SolrConfigs configs) {
+            if (!isDeployed(configs)) {
+              return uploadRx();
+            }
+            return service.getSolrClusterConfiguration(solrClusterId, configName).rx().thenCompose(
+                new CompletableFuture.Fun<InputStream, CompletableFuture<Boolean>>() {
+                  @Override
+                  public CompletableFuture<Boolean> apply(InputStream deployed) {
+                    if (matches(ZipUtils.hashConfigDirectory(configDirectory), deployed)) {
+                      return CompletableFuture.completedFuture(false);
+                    }
+                    return uploadRx();
+                  }
+                });
+          }
+        });
+  }
+
+  private ServiceCall<Void> upload() {
+    return service.uploadSolrClusterConfigurationDirectory(solrClusterId, configName, configDirectory);
+  }
+
+  private CompletableFuture<Boolean> uploadRx() {
+    return upload().rx().thenApply(new CompletableFuture.Fun<Void, Boolean>() {
+      @Override
+      public Boolean apply(Void response) {
+        return true;
+      }
+    });
+  }
+
+  private boolean isDeployed(SolrConfigs configs) {
+    return (configs.getSolrConfigs() != null) && configs.getSolrConfigs().contains(configName);
+  }
+
+  private static boolean matches(String localHash, InputStream deployed) {
+    return localHash.equals(ZipUtils.hashConfigZip(deployed));
+  }
+}
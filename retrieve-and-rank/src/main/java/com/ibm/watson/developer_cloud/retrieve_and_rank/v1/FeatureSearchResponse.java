@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.annotations.SerializedName;
+import com.ibm.watson.developer_cloud.service.model.GenericModel;
+
+/**
+ * The JSON response of the <code>/fcselect</code> Solr handler, requested with <code>returnRSInput=true</code>.
+ */
+class FeatureSearchResponse extends GenericModel {
+
+  /**
+   * The documents found by Solr.
+   */
+  static class Result {
+    private Long numFound;
+    private List<Map<String, Object>> docs;
+  }
+
+  private Result response;
+
+  /** The answer CSV for the ranker, with a header row and one row of features per document. */
+  @SerializedName("RSInput")
+  private String rankerInput;
+
+  /**
+   * Gets the number of documents that matched the query.
+   *
+   * @return the number of documents found
+   */
+  Long getNumFound() {
+    return response != null ? response.numFound : null;
+  }
+
+  /**
+   * Gets the documents.
+   *
+   * @return the documents, or <code>null</code>
+   */
+  List<Map<String, Object>> getDocs() {
+    return response != null ? response.docs : null;
+  }
+
+  /**
+   * Gets the answer CSV for the ranker.
+   *
+   * @return the ranker input
+   */
+  String getRankerInput() {
+    return rankerInput;
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.RankedSearchResponse;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SearchAndRankOptions;
+import com.ibm.watson.developer_cloud.util.FutureUtils;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * Runs {@link RetrieveAndRank#searchAndRank(SearchAndRankOptions)} calls with up to a fixed number in flight, so that
+ * the Solr search of a query overlaps the ranking of the previous ones.
+ *
+ * <pre>
+ * RankedSearchPipeline pipeline = new RankedSearchPipeline.Builder(service).maxInFlight(4).build();
+ * List&lt;RankedSearchResponse&gt; responses = pipeline.searchAll(options);
+ * </pre>
+ *
+ * Calls are sent asynchronously on the HTTP client of the service, whose dispatcher allows 5 concurrent requests per
+ * host by default.
+ */
+public class RankedSearchPipeline {
+
+  /** The default maximum number of searches in flight. */
+  public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final RetrieveAndRank service;
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param service the service used to search and rank
+     */
+    public Builder(RetrieveAndRank service) {
+      this.service = service;
+    }
+
+    /**
+     * Set the maximum number of searches in flight. Defaults to {@value RankedSearchPipeline#DEFAULT_MAX_IN_FLIGHT}.
+     *
+     * @param maxInFlight the maximum number of searches in flight
+     * @return the builder
+     */
+    public Builder maxInFlight(int maxInFlight) {
+      this.maxInFlight = maxInFlight;
+      return this;
+    }
+
+    /**
+     * Builds the pipeline.
+     *
+     * @return the ranked search pipeline
+     */
+    public RankedSearchPipeline build() {
+      return new RankedSearchPipeline(this);
+    }
+  }
+
+  private final RetrieveAndRank service;
+  private final Semaphore inFlight;
+
+  /**
+   * Instantiates a new ranked search pipeline.
+   *
+   * @param builder the builder
+   */
+  protected RankedSearchPipeline(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.isTrue(builder.maxInFlight > 0, "maxInFlight must be greater than 0");
+    service = builder.service;
+    inFlight = new Semaphore(builder.maxInFlight);
+  }
+
+  /**
+   * Starts a search, waiting first while the maximum number of searches are in flight.
+   *
+   * @param options the search and rank options
+   * @return a future completed with the ranked documents
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public CompletableFuture<RankedSearchResponse> submit(SearchAndRankOptions options) throws InterruptedException {
+    Validator.notNull(options, "options cannot be null");
+    inFlight.acquire();
+    final CompletableFuture<RankedSearchResponse> future;
+    try {
+      future = service.searchAndRank(options).rx();
+    } catch (RuntimeException e) {
+      inFlight.release();
+      throw e;
+    }
+    future.handle(new CompletableFuture.BiFun<RankedSearchResponse, Throwable, Void>() {
+      @Override
+      public Void apply(RankedSearchResponse response, Throwable error) {
+        inFlight.release();
+        return null;
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Runs the searches and waits for all of them.
+   *
+   * @param options the options of the searches
+   * @return the ranked documents of every search, in the order of the options
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   * @throws RuntimeException the exception of the first search that failed
+   */
+  public List<RankedSearchResponse> searchAll(List<SearchAndRankOptions> options) throws InterruptedException {
+    Validator.notNull(options, "options cannot be null");
+    final List<CompletableFuture<RankedSearchResponse>> futures =
+        new ArrayList<CompletableFuture<RankedSearchResponse>>(options.size());
+    for (SearchAndRankOptions search : options) {
+      futures.add(submit(search));
+    }
+
+    final List<RankedSearchResponse> responses = new ArrayList<RankedSearchResponse>(futures.size());
+    for (CompletableFuture<RankedSearchResponse> future : futures) {
+      try {
+        responses.add(future.get());
+      } catch (ExecutionException e) {
+        throw FutureUtils.asRuntimeException(e.getCause());
+      }
+    }
+    return responses;
+  }
+}
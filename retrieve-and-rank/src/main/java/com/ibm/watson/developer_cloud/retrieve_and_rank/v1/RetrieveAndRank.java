@@ -12,22 +12,24 @@
  */
 package com.ibm.watson.developer_cloud.retrieve_and_rank.v1;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.IOException;
 import java.io.InputStream;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 import com.google.gson.JsonObject;
+import com.ibm.watson.developer_cloud.http.FileChannelRequestBody;
 import com.ibm.watson.developer_cloud.http.HttpHeaders;
 import com.ibm.watson.developer_cloud.http.HttpMediaType;
 import com.ibm.watson.developer_cloud.http.RequestBuilder;
-import com.ibm.watson.developer_cloud.http.ResponseConverter;
 import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.AnswerFeatures;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.RankedSearchResponse;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.Ranker;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.Rankers;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.Ranking;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SearchAndRankOptions;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrCluster;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrClusterOptions;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrClusterResizeRequest;
@@ -35,18 +37,18 @@ import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrClusterSize
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrClusterStats;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrClusters;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrConfigs;
-import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.util.ZipUtils;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.util.AnswerCsvRequestBody;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.util.ConfigZipRequestBody;
 import com.ibm.watson.developer_cloud.service.WatsonService;
 import com.ibm.watson.developer_cloud.util.GsonSingleton;
+import com.ibm.watson.developer_cloud.util.RequestUtils;
 import com.ibm.watson.developer_cloud.util.ResponseConverterUtils;
 import com.ibm.watson.developer_cloud.util.Validator;
 
 import okhttp3.Headers;
-import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.Request;
 import okhttp3.RequestBody;
-import okhttp3.Response;
 
 /**
  * The IBM Watson Retrieve and Rank service helps users find the most relevant information for their query by using a
@@ -60,9 +62,10 @@ import okhttp3.Response;
 public class RetrieveAndRank extends WatsonService implements ClusterLifecycleManager, SolrConfigManager {
 
   private static final String ANSWERS = "answers";
-  private static final Logger LOG = Logger.getLogger(RetrieveAndRank.class.getName());
+  private static final String ID = "id";
   private static final String NAME = "name";
   private static final String PATH_CREATE_RANKER = "/v1/rankers";
+  private static final String PATH_FCSELECT = "/fcselect";
   private static final String PATH_GET_SOLR_CLUSTER = "/v1/solr_clusters/%s";
   private static final String PATH_SOLR = "/v1/solr_clusters/%s/solr";
   private static final String PATH_RANK = "/v1/rankers/%s/rank";
@@ -129,7 +132,7 @@ public class RetrieveAndRank extends WatsonService implements ClusterLifecycleMa
 
     final RequestBody body = new MultipartBody.Builder().setType(MultipartBody.FORM)
         .addPart(Headers.of(HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"training_data\""),
-            RequestBody.create(HttpMediaType.BINARY_FILE, training))
+            FileChannelRequestBody.create(HttpMediaType.BINARY_FILE, training))
         .addPart(Headers.of(HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"training_metadata\""),
             RequestBody.create(HttpMediaType.TEXT, contentJson.toString()))
         .build();
@@ -331,23 +334,12 @@ public class RetrieveAndRank extends WatsonService implements ClusterLifecycleMa
     Validator.notNull(answers, "answers file cannot be null");
     Validator.isTrue(answers.exists(), "answers file: " + answers.getAbsolutePath() + " not found");
 
-    final okhttp3.MultipartBody.Builder builder = new MultipartBody.Builder()
-        .setType(MultipartBody.FORM)
-        .addPart(Headers.of(
-            HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"answer_data\""),
-            RequestBody.create(HttpMediaType.BINARY_FILE, answers));
-
-    if (topAnswers != null) {
-      builder.addFormDataPart(ANSWERS, topAnswers.toString());
-    }
-
-    final String path = String.format(PATH_RANK, rankerID);
-    final Request request = RequestBuilder.post(path).body(builder.build()).build();
-    return createServiceCall(request, ResponseConverterUtils.getObject(Ranking.class));
+    return rank(rankerID, FileChannelRequestBody.create(HttpMediaType.BINARY_FILE, answers), topAnswers);
   }
 
   /**
-   * Gets and returns the ranked answers.
+   * Gets and returns the ranked answers. The input is streamed to the service when the call is executed, so it must
+   * stay open until then; it is closed once it has been sent.
    *
    * @param rankerID The ranker ID
    * @param answers The CSV input that contains the search results that you want to rank.
@@ -358,22 +350,41 @@ public class RetrieveAndRank extends WatsonService implements ClusterLifecycleMa
     Validator.isTrue((rankerID != null) && !rankerID.isEmpty(), "rankerID cannot be null or empty");
     Validator.notNull(answers, "answers file cannot be null");
 
-    final ByteArrayOutputStream answersBuffer = new ByteArrayOutputStream();
-    int bytesRead;
-    final byte[] data = new byte[10000];
-    try {
-      while ((bytesRead = answers.read(data, 0, data.length)) != -1) {
-        answersBuffer.write(data, 0, bytesRead);
-      }
-    } catch (final IOException e) {
-      throw new RuntimeException("Error reading search results input", e);
-    }
+    return rank(rankerID, RequestUtils.inputStreamBody(answers, HttpMediaType.BINARY_FILE.toString()), topAnswers);
+  }
 
+  /**
+   * Gets and returns the ranked answers. The CSV is written from the answers one row at a time when the call is
+   * executed, so the answers can be produced lazily by the iterator and the call can only be executed once.
+   *
+   * @param rankerID The ranker ID
+   * @param featureNames The names of the features, in the order of the values of every {@link AnswerFeatures}
+   * @param answers The search results that you want to rank, with their features
+   * @param topAnswers The number of top answers needed, default is 10
+   * @return the ranking of the answers
+   */
+  public ServiceCall<Ranking> rank(final String rankerID, final List<String> featureNames,
+      final Iterator<AnswerFeatures> answers, Integer topAnswers) {
+    Validator.isTrue((rankerID != null) && !rankerID.isEmpty(), "rankerID cannot be null or empty");
+    Validator.notEmpty(featureNames, "featureNames cannot be null or empty");
+    Validator.notNull(answers, "answers cannot be null");
+
+    return rank(rankerID, new AnswerCsvRequestBody(featureNames, answers), topAnswers);
+  }
+
+  /**
+   * Ranks the answers written by a request body.
+   *
+   * @param rankerID The ranker ID
+   * @param answers The body that writes the answer CSV
+   * @param topAnswers The number of top answers needed, default is 10
+   * @return the ranking of the answers
+   */
+  ServiceCall<Ranking> rank(final String rankerID, final RequestBody answers, Integer topAnswers) {
     final okhttp3.MultipartBody.Builder builder = new MultipartBody.Builder()
         .setType(MultipartBody.FORM)
         .addPart(Headers.of(
-            HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"answer_data\""),
-            RequestBody.create(HttpMediaType.BINARY_FILE, answersBuffer.toByteArray()));
+            HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"answer_data\""), answers);
 
     if (topAnswers != null) {
       builder.addFormDataPart(ANSWERS, topAnswers.toString());
@@ -384,6 +395,44 @@ public class RetrieveAndRank extends WatsonService implements ClusterLifecycleMa
     return createServiceCall(request, ResponseConverterUtils.getObject(Ranking.class));
   }
 
+  /**
+   * Searches a Solr collection and re-ranks the documents it found with a ranker. The search runs on the
+   * <code>/fcselect</code> handler, which returns the feature vectors of the documents along with them, and the feature
+   * vectors are sent to the ranker as they were returned, so no answer CSV needs to be built. Both requests use the
+   * HTTP client and credentials of this service. See {@link RankedSearchPipeline} to overlap several searches.
+   *
+   * @param options the search and rank options
+   * @return the documents found by Solr, in the order of the ranker
+   */
+  public ServiceCall<RankedSearchResponse> searchAndRank(SearchAndRankOptions options) {
+    Validator.notNull(options, "options cannot be null");
+
+    final List<String> returnFields = new ArrayList<String>();
+    returnFields.add(ID);
+    if (options.returnFields() != null) {
+      for (String field : options.returnFields()) {
+        if (!returnFields.contains(field)) {
+          returnFields.add(field);
+        }
+      }
+    }
+
+    final String path = String.format(PATH_SOLR, options.solrClusterId()) + "/" + options.collectionName()
+        + PATH_FCSELECT;
+    final RequestBuilder builder = RequestBuilder.get(path).query("q", options.query(), "wt", "json", "fl",
+        RequestUtils.join(returnFields, ","), "returnRSInput", true, "generateHeader", true);
+    if (options.filterQuery() != null) {
+      builder.query("fq", options.filterQuery());
+    }
+    if (options.rows() != null) {
+      builder.query("rows", options.rows());
+    }
+
+    final ServiceCall<FeatureSearchResponse> search = createServiceCall(builder.build(),
+        ResponseConverterUtils.getObject(FeatureSearchResponse.class));
+    return new SearchAndRankCall(this, options, search);
+  }
+
   /*
    * (non-Javadoc)
    *
@@ -400,19 +449,31 @@ public class RetrieveAndRank extends WatsonService implements ClusterLifecycleMa
     Validator.isTrue(directory.exists(), "directory: " + directory.getAbsolutePath() + " not found");
     Validator.isTrue(directory.isDirectory(), "directory is not a directory");
 
-    final File zipFile = ZipUtils.buildConfigZip(configName, directory);
-    final RequestBuilder requestBuilder = createUploadSolrConfigurationRequest(solrClusterId, configName, zipFile);
-    return createServiceCall(requestBuilder.build(), new ResponseConverter<Void>() {
+    final RequestBuilder requestBuilder =
+        createUploadSolrConfigurationRequest(solrClusterId, configName, new ConfigZipRequestBody(directory));
+    return createServiceCall(requestBuilder.build(), ResponseConverterUtils.getVoid());
+  }
 
-      @Override
-      public Void convert(Response response) {
-        if (!zipFile.delete()) {
-          zipFile.deleteOnExit();
-          LOG.log(Level.WARNING, "Unable to delete the Solr cluster configuration file.");
-        }
-        return null;
-      }
-    });
+  /**
+   * Uploads a Solr configuration directory unless the configuration with the same name on the Solr cluster already has
+   * the same content. The deployed configuration is downloaded and its content hash is compared with the hash of the
+   * directory; file paths and contents are compared, ZIP timestamps are not.
+   *
+   * @param solrClusterId the Solr cluster id
+   * @param configName the configuration name
+   * @param directory the configuration directory
+   * @return the service call, which returns <code>true</code> if the configuration was uploaded and <code>false</code>
+   *         if the upload was skipped
+   */
+  public ServiceCall<Boolean> uploadSolrClusterConfigurationDirectoryIfChanged(String solrClusterId, String configName,
+      File directory) {
+    Validator.isTrue((solrClusterId != null) && !solrClusterId.isEmpty(), "solrClusterId cannot be null or empty");
+    Validator.isTrue((configName != null) && !configName.isEmpty(), "configName cannot be null or empty");
+    Validator.notNull(directory, "directory cannot be null");
+    Validator.isTrue(directory.exists(), "directory: " + directory.getAbsolutePath() + " not found");
+    Validator.isTrue(directory.isDirectory(), "directory is not a directory");
+
+    return new ConfigUploadCall(this, solrClusterId, configName, directory);
   }
 
   /*
@@ -431,15 +492,16 @@ public class RetrieveAndRank extends WatsonService implements ClusterLifecycleMa
     Validator.isTrue(zippedConfig.exists(), "zippedConfig: " + zippedConfig.getAbsolutePath() + " not found");
     Validator.isTrue(zippedConfig.isFile(), "directory is not a file");
 
-    final RequestBuilder requestBuilder = createUploadSolrConfigurationRequest(solrClusterId, configName, zippedConfig);
+    final RequestBuilder requestBuilder = createUploadSolrConfigurationRequest(solrClusterId, configName,
+        RequestUtils.fileBody(zippedConfig, HttpMediaType.APPLICATION_ZIP));
     return createServiceCall(requestBuilder.build(), ResponseConverterUtils.getVoid());
   }
 
   private RequestBuilder createUploadSolrConfigurationRequest(String solrClusterId, String configName,
-      File zippedConfig) {
+      RequestBody zippedConfig) {
     final String configPath = createConfigPath(solrClusterId, configName);
     final RequestBuilder requestBuilder = RequestBuilder.post(configPath);
-    requestBuilder.body(RequestBody.create(MediaType.parse(HttpMediaType.APPLICATION_ZIP), zippedConfig));
+    requestBuilder.body(zippedConfig);
     return requestBuilder;
   }
 
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ibm.watson.developer_cloud.http.HttpMediaType;
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.RankedAnswer;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.RankedDocument;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.RankedSearchResponse;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.Ranking;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SearchAndRankOptions;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+import okhttp3.RequestBody;
+
+/**
+ * A {@link ServiceCall} that runs a Solr search and then ranks the documents it found with the feature vectors
+ * returned by the search.
+ */
+class SearchAndRankCall extends ComposedServiceCall<RankedSearchResponse> {
+
+  private static final String ID = "id";
+
+  private final RetrieveAndRank service;
+  private final SearchAndRankOptions options;
+  private final ServiceCall<FeatureSearchResponse> search;
+
+  /**
+   * Instantiates a new search and rank call.
+   *
+   * @param service the service used to rank the documents
+   * @param options the options
+   * @param search the call that searches Solr
+   */
+  SearchAndRankCall(RetrieveAndRank service, SearchAndRankOptions options, ServiceCall<FeatureSearchResponse> search) {
+    this.service = service;
+    this.options = options;
+    this.search = search;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.http.ServiceCall#execute()
+   */
+  @Override
+  public RankedSearchResponse execute() {
+    final FeatureSearchResponse found = search.execute();
+    if (isEmpty(found)) {
+      return merge(found, null);
+    }
+    return merge(found, rank(found).execute());
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.http.ServiceCall#rx()
+   */
+  @Override
+  public CompletableFuture<RankedSearchResponse> rx() {
+    return search.rx().thenCompose(
+        new CompletableFuture.Fun<FeatureSearchResponse, CompletableFuture<RankedSearchResponse>>() {
+          @Override
+          public CompletableFuture<RankedSearchResponse> apply(final FeatureSearchResponse found) {
+            if (isEmpty(found)) {
+              return CompletableFuture.completedFuture(merge(found, null));
+            }
+            return rank(found).rx().thenApply(new CompletableFuture.Fun<Ranking, RankedSearchResponse>() {
+              @Override
+              public RankedSearchResponse apply(Ranking ranking) {
+                return merge(found, ranking);
+              }
+            });
+          }
+        });
+  }
+
+  private ServiceCall<Ranking> rank(FeatureSearchResponse found) {
+    final RequestBody answers = RequestBody.create(HttpMediaType.BINARY_FILE, found.getRankerInput());
+    return service.rank(options.rankerId(), answers, options.topAnswers());
+  }
+
+  private static boolean isEmpty(FeatureSearchResponse found) {
+    return (found.getDocs() == null) || found.getDocs().isEmpty() || (found.getRankerInput() == null);
+  }
+
+  /**
+   * Orders the documents found by Solr by the ranking. Documents the ranker did not return follow in Solr order.
+   *
+   * @param found the search response
+   * @param ranking the ranking, or <code>null</code> if nothing was ranked
+   * @return the merged response
+   */
+  static RankedSearchResponse merge(FeatureSearchResponse found, Ranking ranking) {
+    final Map<String, RankedDocument> unranked = new LinkedHashMap<String, RankedDocument>();
+    if (found.getDocs() != null) {
+      for (Map<String, Object> doc : found.getDocs()) {
+        final RankedDocument document = new RankedDocument();
+        document.setId(doc.get(ID) != null ? doc.get(ID).toString() : null);
+        document.setFields(doc);
+        document.setSearchRank(unranked.size());
+        unranked.put(document.getId(), document);
+      }
+    }
+
+    final List<RankedDocument> documents = new ArrayList<RankedDocument>(unranked.size());
+    if ((ranking != null) && (ranking.getAnswers() != null)) {
+      for (RankedAnswer answer : ranking.getAnswers()) {
+        final RankedDocument document = unranked.remove(answer.getAnswerID());
+        if (document != null) {
+          document.setScore(answer.getScore());
+          document.setConfidence(answer.getConfidence());
+          documents.add(document);
+        }
+      }
+    }
+    documents.addAll(unranked.values());
+
+    final RankedSearchResponse response = new RankedSearchResponse();
+    response.setNumFound(found.getNumFound());
+    response.setDocuments(documents);
+    return response;
+  }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrCluster;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrClusterOptions;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrClusterSizeResponse;
+import com.ibm.watson.developer_cloud.util.AdaptiveConcurrencyLimiter;
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.FutureUtils;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * Provisions, resizes and configures Solr clusters asynchronously. Instead of sleeping until a cluster is
+ * {@link SolrCluster.Status#READY}, callers get a {@link CompletableFuture} that completes when it is. All the clusters
+ * of an orchestrator are polled from a single scheduler thread, with an interval that grows from the initial interval
+ * up to the maximum interval, so many clusters can be provisioned in parallel.
+ *
+ * <pre>
+ * SolrClusterOrchestrator orchestrator = new SolrClusterOrchestrator.Builder(service).build();
+ * CompletableFuture&lt;SolrCluster&gt; cluster = orchestrator.createCluster(options);
+ * CompletableFuture&lt;Boolean&gt; uploaded = orchestrator.uploadConfiguration(clusterId, configName, configDir);
+ * </pre>
+ *
+ * The polls themselves are sent asynchronously on the HTTP client of the service. A poll that fails with a
+ * {@link AdaptiveConcurrencyLimiter#isRetryable(Throwable) retryable} error is sent again at the next interval until
+ * the timeout; any other error fails the future.
+ */
+public class SolrClusterOrchestrator {
+
+  /** The default initial poll interval, in milliseconds. */
+  public static final long DEFAULT_INITIAL_INTERVAL = 5000;
+
+  /** The default maximum poll interval, in milliseconds. */
+  public static final long DEFAULT_MAX_INTERVAL = 60000;
+
+  /** The default timeout, in milliseconds. */
+  public static final long DEFAULT_TIMEOUT = 30 * 60000;
+
+  private static final double BACKOFF_MULTIPLIER = 1.5;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final RetrieveAndRank service;
+    private long initialInterval = DEFAULT_INITIAL_INTERVAL;
+    private long maxInterval = DEFAULT_MAX_INTERVAL;
+    private long timeout = DEFAULT_TIMEOUT;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param service the service used to manage the clusters
+     */
+    public Builder(RetrieveAndRank service) {
+      this.service = service;
+    }
+
+    /**
+     * Set the interval before the first poll. Defaults to {@value SolrClusterOrchestrator#DEFAULT_INITIAL_INTERVAL}
+     * milliseconds.
+     *
+     * @param interval the interval
+     * @param unit the unit of the interval
+     * @return the builder
+     */
+    public Builder initialInterval(long interval, TimeUnit unit) {
+      initialInterval = unit.toMillis(interval);
+      return this;
+    }
+
+    /**
+     * Set the maximum interval between polls. Defaults to {@value SolrClusterOrchestrator#DEFAULT_MAX_INTERVAL}
+     * milliseconds.
+     *
+     * @param interval the interval
+     * @param unit the unit of the interval
+     * @return the builder
+     */
+    public Builder maxInterval(long interval, TimeUnit unit) {
+      maxInterval = unit.toMillis(interval);
+      return this;
+    }
+
+    /**
+     * Set how long to wait for a cluster before failing the future with a {@link TimeoutException}. Defaults to
+     * {@value SolrClusterOrchestrator#DEFAULT_TIMEOUT} milliseconds.
+     *
+     * @param timeout the timeout
+     * @param unit the unit of the timeout
+     * @return the builder
+     */
+    public Builder timeout(long timeout, TimeUnit unit) {
+      this.timeout = unit.toMillis(timeout);
+      return this;
+    }
+
+    /**
+     * Builds the orchestrator.
+     *
+     * @return the Solr cluster orchestrator
+     */
+    public SolrClusterOrchestrator build() {
+      return new SolrClusterOrchestrator(this);
+    }
+  }
+
+  private final RetrieveAndRank service;
+  private final long initialInterval;
+  private final long maxInterval;
+  private final long timeout;
+  private final ScheduledThreadPoolExecutor scheduler;
+
+  /**
+   * Instantiates a new Solr cluster orchestrator.
+   *
+   * @param builder the builder
+   */
+  protected SolrClusterOrchestrator(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.isTrue(builder.initialInterval > 0, "initialInterval must be greater than 0");
+    Validator.isTrue(builder.maxInterval >= builder.initialInterval,
+        "maxInterval must not be less than initialInterval");
+    Validator.isTrue(builder.timeout > 0, "timeout must be greater than 0");
+    service = builder.service;
+    initialInterval = builder.initialInterval;
+    maxInterval = builder.maxInterval;
+    timeout = builder.timeout;
+    scheduler = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("solr-cluster-orchestrator"));
+    scheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * Creates a Solr cluster and waits until it is ready.
+   *
+   * @param options the cluster options, or <code>null</code> for a free cluster
+   * @return a future completed with the ready cluster
+   */
+  public CompletableFuture<SolrCluster> createCluster(SolrClusterOptions options) {
+    final ServiceCall<SolrCluster> create =
+        options == null ? service.createSolrCluster() : service.createSolrCluster(options);
+    return create.rx().thenCompose(new CompletableFuture.Fun<SolrCluster, CompletableFuture<SolrCluster>>() {
+      @Override
+      public CompletableFuture<SolrCluster> apply(SolrCluster cluster) {
+        return awaitReady(cluster.getId());
+      }
+    });
+  }
+
+  /**
+   * Creates several Solr clusters in parallel and waits until all of them are ready.
+   *
+   * @param options the options of each cluster
+   * @return a future completed with the ready clusters, in the order of the options
+   */
+  public CompletableFuture<List<SolrCluster>> createClusters(List<SolrClusterOptions> options) {
+    Validator.notNull(options, "options cannot be null");
+    final List<CompletableFuture<SolrCluster>> futures = new ArrayList<CompletableFuture<SolrCluster>>();
+    for (SolrClusterOptions cluster : options) {
+      futures.add(createCluster(cluster));
+    }
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(
+        new CompletableFuture.Fun<Void, List<SolrCluster>>() {
+          @Override
+          public List<SolrCluster> apply(Void done) {
+            final List<SolrCluster> clusters = new ArrayList<SolrCluster>(futures.size());
+            for (CompletableFuture<SolrCluster> future : futures) {
+              clusters.add(future.join());
+            }
+            return clusters;
+          }
+        });
+  }
+
+  /**
+   * Waits until a Solr cluster is ready.
+   *
+   * @param solrClusterId the Solr cluster id
+   * @return a future completed with the ready cluster
+   */
+  public CompletableFuture<SolrCluster> awaitReady(final String solrClusterId) {
+    Validator.isTrue((solrClusterId != null) && !solrClusterId.isEmpty(), "solrClusterId cannot be null or empty");
+    return new Poll<SolrCluster>("Solr cluster " + solrClusterId + " ready") {
+      @Override
+      ServiceCall<SolrCluster> call() {
+        return service.getSolrCluster(solrClusterId);
+      }
+
+      @Override
+      boolean isDone(SolrCluster cluster) {
+        return cluster.getStatus() == SolrCluster.Status.READY;
+      }
+    }.start(0);
+  }
+
+  /**
+   * Resizes a Solr cluster and waits until the resize is complete.
+   *
+   * @param solrClusterId the Solr cluster id
+   * @param requestedSize the requested size
+   * @return a future completed with the final resize status
+   */
+  public CompletableFuture<SolrClusterSizeResponse> resizeCluster(final String solrClusterId, int requestedSize) {
+    return service.resizeSolrCluster(solrClusterId, requestedSize).rx().thenCompose(
+        new CompletableFuture.Fun<SolrClusterSizeResponse, CompletableFuture<SolrClusterSizeResponse>>() {
+          @Override
+          public CompletableFuture<SolrClusterSizeResponse> apply(SolrClusterSizeResponse response) {
+            return awaitResize(solrClusterId);
+          }
+        });
+  }
+
+  /**
+   * Waits until the resize of a Solr cluster is complete. The future fails with an {@link IllegalStateException} if
+   * the resize fails.
+   *
+   * @param solrClusterId the Solr cluster id
+   * @return a future completed with the final resize status
+   */
+  public CompletableFuture<SolrClusterSizeResponse> awaitResize(final String solrClusterId) {
+    Validator.isTrue((solrClusterId != null) && !solrClusterId.isEmpty(), "solrClusterId cannot be null or empty");
+    return new Poll<SolrClusterSizeResponse>("Solr cluster " + solrClusterId + " resized") {
+      @Override
+      ServiceCall<SolrClusterSizeResponse> call() {
+        return service.getSolrClusterResizeStatus(solrClusterId);
+      }
+
+      @Override
+      boolean isDone(SolrClusterSizeResponse response) {
+        if (response.getStatus() == SolrClusterSizeResponse.Status.ERROR) {
+          throw new IllegalStateException("Resizing Solr cluster " + solrClusterId + " failed: "
+              + response.getMessage());
+        }
+        return response.getStatus() != SolrClusterSizeResponse.Status.RESIZING;
+      }
+    }.start(initialInterval);
+  }
+
+  /**
+   * Waits until a Solr cluster is ready and then uploads a configuration directory, unless the same configuration is
+   * already deployed.
+   *
+   * @param solrClusterId the Solr cluster id
+   * @param configName the configuration name
+   * @param configDirectory the configuration directory
+   * @return a future completed with <code>true</code> if the configuration was uploaded
+   * @see RetrieveAndRank#uploadSolrClusterConfigurationDirectoryIfChanged(String, String, File)
+   */
+  public CompletableFuture<Boolean> uploadConfiguration(final String solrClusterId, final String configName,
+      final File configDirectory) {
+    final ServiceCall<Boolean> upload =
+        service.uploadSolrClusterConfigurationDirectoryIfChanged(solrClusterId, configName, configDirectory);
+    return awaitReady(solrClusterId).thenCompose(new CompletableFuture.Fun<SolrCluster, CompletableFuture<Boolean>>() {
+      @Override
+      public CompletableFuture<Boolean> apply(SolrCluster cluster) {
+        return upload.rx();
+      }
+    });
+  }
+
+  /**
+   * Stops polling. Futures that are still waiting may never complete.
+   */
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Polls a service call on the scheduler until its response is done, backing off between polls.
+   *
+   * @param <T> the type of the response
+   */
+  private abstract class Poll<T> implements Runnable {
+    private final String description;
+    private final CompletableFuture<T> future = new CompletableFuture<T>();
+    private final long deadline;
+    private long interval = initialInterval;
+
+    Poll(String description) {
+      this.description = description;
+      deadline = System.currentTimeMillis() + timeout;
+    }
+
+    abstract ServiceCall<T> call();
+
+    abstract boolean isDone(T response);
+
+    CompletableFuture<T> start(long delay) {
+      scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+      return future;
+    }
+
+    @Override
+    public void run() {
+      try {
+        call().rx().handle(new CompletableFuture.BiFun<T, Throwable, Void>() {
+          @Override
+          public Void apply(T response, Throwable error) {
+            if (error == null) {
+              check(response);
+              return null;
+            }
+            final Throwable cause = FutureUtils.unwrap(error);
+            if (AdaptiveConcurrencyLimiter.isRetryable(cause)) {
+              reschedule(cause);
+            } else {
+              future.completeExceptionally(cause);
+            }
+            return null;
+          }
+        });
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+    private void check(T response) {
+      try {
+        if (isDone(response)) {
+          future.complete(response);
+        } else {
+          reschedule(null);
+        }
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+    /**
+     * Polls again after the interval, or fails with a timeout if the deadline would be passed.
+     *
+     * @param error the error of the last poll, or null if it succeeded
+     */
+    private void reschedule(Throwable error) {
+      if (System.currentTimeMillis() + interval > deadline) {
+        final TimeoutException timeout = new TimeoutException("Timed out waiting for " + description);
+        timeout.initCause(error);
+        future.completeExceptionally(timeout);
+        return;
+      }
+      try {
+        scheduler.schedule(this, interval, TimeUnit.MILLISECONDS);
+        interval = Math.min(maxInterval, (long) (interval * BACKOFF_MULTIPLIER));
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model;
+
+import com.ibm.watson.developer_cloud.service.model.GenericModel;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * A candidate answer and its feature values, one row of the CSV sent to a ranker.
+ *
+ * @version v1
+ */
+public class AnswerFeatures extends GenericModel {
+
+  /** The answer id. */
+  private final String answerID;
+
+  /** The feature values. */
+  private final double[] features;
+
+  /**
+   * Instantiates a new answer features row.
+   *
+   * @param answerID the answer ID
+   * @param features the feature values, in the order of the feature names passed to the ranker
+   */
+  public AnswerFeatures(String answerID, double... features) {
+    Validator.isTrue((answerID != null) && !answerID.isEmpty(), "answerID cannot be null or empty");
+    Validator.notNull(features, "features cannot be null");
+    this.answerID = answerID;
+    this.features = features;
+  }
+
+  /**
+   * Returns the answer ID.
+   *
+   * @return answerID
+   */
+  public String getAnswerID() {
+    return answerID;
+  }
+
+  /**
+   * Returns the feature values. The array is not copied.
+   *
+   * @return the features
+   */
+  public double[] getFeatures() {
+    return features;
+  }
+}
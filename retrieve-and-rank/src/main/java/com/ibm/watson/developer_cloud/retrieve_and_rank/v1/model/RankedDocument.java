@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model;
+
+import java.util.Map;
+
+import com.ibm.watson.developer_cloud.service.model.GenericModel;
+
+/**
+ * A Solr document in the order of a ranker, used by {@link RankedSearchResponse}.
+ *
+ * @version v1
+ */
+public class RankedDocument extends GenericModel {
+
+  private String id;
+  private Map<String, Object> fields;
+  private Double score;
+  private Double confidence;
+  private Integer searchRank;
+
+  /**
+   * Returns the document ID.
+   *
+   * @return the id
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Returns the fields returned by Solr.
+   *
+   * @return the fields
+   */
+  public Map<String, Object> getFields() {
+    return fields;
+  }
+
+  /**
+   * Returns the score given by the ranker, or <code>null</code> if the ranker did not return the document.
+   *
+   * @return the score
+   */
+  public Double getScore() {
+    return score;
+  }
+
+  /**
+   * Returns the confidence given by the ranker, or <code>null</code> if the ranker did not return the document.
+   *
+   * @return the confidence
+   */
+  public Double getConfidence() {
+    return confidence;
+  }
+
+  /**
+   * Returns the position of the document in the Solr results, starting at 0.
+   *
+   * @return the search rank
+   */
+  public Integer getSearchRank() {
+    return searchRank;
+  }
+
+  /**
+   * Sets the document ID.
+   *
+   * @param id the new id
+   */
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  /**
+   * Sets the fields.
+   *
+   * @param fields the new fields
+   */
+  public void setFields(Map<String, Object> fields) {
+    this.fields = fields;
+  }
+
+  /**
+   * Sets the score.
+   *
+   * @param score the new score
+   */
+  public void setScore(Double score) {
+    this.score = score;
+  }
+
+  /**
+   * Sets the confidence.
+   *
+   * @param confidence the new confidence
+   */
+  public void setConfidence(Double confidence) {
+    this.confidence = confidence;
+  }
+
+  /**
+   * Sets the search rank.
+   *
+   * @param searchRank the new search rank
+   */
+  public void setSearchRank(Integer searchRank) {
+    this.searchRank = searchRank;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model;
+
+import java.util.List;
+
+import com.ibm.watson.developer_cloud.service.model.GenericModel;
+
+/**
+ * The result of a search re-ranked by a ranker. The documents returned by the ranker come first, in the order of the
+ * ranker, followed by the other documents found by Solr, in the order of Solr.
+ *
+ * @version v1
+ */
+public class RankedSearchResponse extends GenericModel {
+
+  private Long numFound;
+  private List<RankedDocument> documents;
+
+  /**
+   * Returns the number of documents that matched the Solr query.
+   *
+   * @return the number of documents found
+   */
+  public Long getNumFound() {
+    return numFound;
+  }
+
+  /**
+   * Returns the documents.
+   *
+   * @return the documents
+   */
+  public List<RankedDocument> getDocuments() {
+    return documents;
+  }
+
+  /**
+   * Sets the number of documents found.
+   *
+   * @param numFound the new number of documents found
+   */
+  public void setNumFound(Long numFound) {
+    this.numFound = numFound;
+  }
+
+  /**
+   * Sets the documents.
+   *
+   * @param documents the new documents
+   */
+  public void setDocuments(List<RankedDocument> documents) {
+    this.documents = documents;
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ibm.watson.developer_cloud.service.model.GenericModel;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * The options of a search that is re-ranked by a ranker. The search runs on the <code>/fcselect</code> handler of a
+ * Solr collection, which also returns the feature vectors of the documents that the ranker needs.
+ */
+public class SearchAndRankOptions extends GenericModel {
+
+  private String solrClusterId;
+  private String collectionName;
+  private String rankerId;
+  private String query;
+  private String filterQuery;
+  private Integer rows;
+  private Integer topAnswers;
+  private List<String> returnFields;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private String solrClusterId;
+    private String collectionName;
+    private String rankerId;
+    private String query;
+    private String filterQuery;
+    private Integer rows;
+    private Integer topAnswers;
+    private List<String> returnFields;
+
+    private Builder(SearchAndRankOptions options) {
+      solrClusterId = options.solrClusterId;
+      collectionName = options.collectionName;
+      rankerId = options.rankerId;
+      query = options.query;
+      filterQuery = options.filterQuery;
+      rows = options.rows;
+      topAnswers = options.topAnswers;
+      returnFields = options.returnFields;
+    }
+
+    /**
+     * Instantiates a new builder.
+     */
+    public Builder() {
+    }
+
+    /**
+     * Instantiates a new builder with required properties.
+     *
+     * @param solrClusterId the Solr cluster id
+     * @param collectionName the Solr collection name
+     * @param rankerId the ranker id
+     */
+    public Builder(String solrClusterId, String collectionName, String rankerId) {
+      this.solrClusterId = solrClusterId;
+      this.collectionName = collectionName;
+      this.rankerId = rankerId;
+    }
+
+    /**
+     * Builds a SearchAndRankOptions.
+     *
+     * @return the search and rank options
+     */
+    public SearchAndRankOptions build() {
+      return new SearchAndRankOptions(this);
+    }
+
+    /**
+     * Adds a field to return for every document. The <code>id</code> field is always returned.
+     *
+     * @param returnField the return field
+     * @return the search and rank options builder
+     */
+    public Builder addReturnField(String returnField) {
+      Validator.notNull(returnField, "returnField cannot be null");
+      if (returnFields == null) {
+        returnFields = new ArrayList<String>();
+      }
+      returnFields.add(returnField);
+      return this;
+    }
+
+    /**
+     * Set the solrClusterId.
+     *
+     * @param solrClusterId the Solr cluster id
+     * @return the search and rank options builder
+     */
+    public Builder solrClusterId(String solrClusterId) {
+      this.solrClusterId = solrClusterId;
+      return this;
+    }
+
+    /**
+     * Set the collectionName.
+     *
+     * @param collectionName the Solr collection name
+     * @return the search and rank options builder
+     */
+    public Builder collectionName(String collectionName) {
+      this.collectionName = collectionName;
+      return this;
+    }
+
+    /**
+     * Set the rankerId.
+     *
+     * @param rankerId the ranker id
+     * @return the search and rank options builder
+     */
+    public Builder rankerId(String rankerId) {
+      this.rankerId = rankerId;
+      return this;
+    }
+
+    /**
+     * Set the query.
+     *
+     * @param query the Solr query (<code>q</code>)
+     * @return the search and rank options builder
+     */
+    public Builder query(String query) {
+      this.query = query;
+      return this;
+    }
+
+    /**
+     * Set the filterQuery.
+     *
+     * @param filterQuery the Solr filter query (<code>fq</code>)
+     * @return the search and rank options builder
+     */
+    public Builder filterQuery(String filterQuery) {
+      this.filterQuery = filterQuery;
+      return this;
+    }
+
+    /**
+     * Set the number of documents to retrieve from Solr and re-rank.
+     *
+     * @param rows the rows
+     * @return the search and rank options builder
+     */
+    public Builder rows(int rows) {
+      this.rows = rows;
+      return this;
+    }
+
+    /**
+     * Set the number of answers the ranker returns.
+     *
+     * @param topAnswers the top answers
+     * @return the search and rank options builder
+     */
+    public Builder topAnswers(int topAnswers) {
+      this.topAnswers = topAnswers;
+      return this;
+    }
+
+    /**
+     * Set the returnFields.
+     *
+     * @param returnFields the return fields
+     * @return the search and rank options builder
+     */
+    public Builder returnFields(List<String> returnFields) {
+      this.returnFields = returnFields;
+      return this;
+    }
+  }
+
+  private SearchAndRankOptions(Builder builder) {
+    Validator.isTrue((builder.solrClusterId != null) && !builder.solrClusterId.isEmpty(),
+        "solrClusterId cannot be null or empty");
+    Validator.isTrue((builder.collectionName != null) && !builder.collectionName.isEmpty(),
+        "collectionName cannot be null or empty");
+    Validator.isTrue((builder.rankerId != null) && !builder.rankerId.isEmpty(), "rankerId cannot be null or empty");
+    Validator.notNull(builder.query, "query cannot be null");
+    solrClusterId = builder.solrClusterId;
+    collectionName = builder.collectionName;
+    rankerId = builder.rankerId;
+    query = builder.query;
+    filterQuery = builder.filterQuery;
+    rows = builder.rows;
+    topAnswers = builder.topAnswers;
+    returnFields = builder.returnFields;
+  }
+
+  /**
+   * New builder.
+   *
+   * @return a search and rank options builder
+   */
+  public Builder newBuilder() {
+    return new Builder(this);
+  }
+
+  /**
+   * Gets the solrClusterId.
+   *
+   * @return the Solr cluster id
+   */
+  public String solrClusterId() {
+    return solrClusterId;
+  }
+
+  /**
+   * Gets the collectionName.
+   *
+   * @return the Solr collection name
+   */
+  public String collectionName() {
+    return collectionName;
+  }
+
+  /**
+   * Gets the rankerId.
+   *
+   * @return the ranker id
+   */
+  public String rankerId() {
+    return rankerId;
+  }
+
+  /**
+   * Gets the query.
+   *
+   * @return the Solr query
+   */
+  public String query() {
+    return query;
+  }
+
+  /**
+   * Gets the filterQuery.
+   *
+   * @return the Solr filter query
+   */
+  public String filterQuery() {
+    return filterQuery;
+  }
+
+  /**
+   * Gets the number of documents to retrieve from Solr and re-rank.
+   *
+   * @return the rows
+   */
+  public Integer rows() {
+    return rows;
+  }
+
+  /**
+   * Gets the number of answers the ranker returns.
+   *
+   * @return the top answers
+   */
+  public Integer topAnswers() {
+    return topAnswers;
+  }
+
+  /**
+   * Gets the returnFields.
+   *
+   * @return the return fields
+   */
+  public List<String> returnFields() {
+    return returnFields;
+  }
+}
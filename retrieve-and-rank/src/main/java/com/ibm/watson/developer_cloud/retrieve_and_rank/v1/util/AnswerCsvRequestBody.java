@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1.util;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import com.ibm.watson.developer_cloud.http.HttpMediaType;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.AnswerFeatures;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * RequestBody that writes the answer CSV of a ranker from an {@link Iterator} of {@link AnswerFeatures}, one row at a
+ * time, so the CSV is never held in memory. The iterator is consumed when the body is written, so the body can only be
+ * written once.
+ */
+public class AnswerCsvRequestBody extends RequestBody {
+
+  private static final String ANSWER_ID = "answer_id";
+
+  private final List<String> featureNames;
+  private Iterator<AnswerFeatures> answers;
+
+  /**
+   * Instantiates a new answer CSV request body.
+   *
+   * @param featureNames the names of the features, written in the header row
+   * @param answers the answers
+   */
+  public AnswerCsvRequestBody(List<String> featureNames, Iterator<AnswerFeatures> answers) {
+    Validator.notEmpty(featureNames, "featureNames cannot be null or empty");
+    Validator.notNull(answers, "answers cannot be null");
+    this.featureNames = featureNames;
+    this.answers = answers;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see okhttp3.RequestBody#contentType()
+   */
+  @Override
+  public MediaType contentType() {
+    return HttpMediaType.BINARY_FILE;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see okhttp3.RequestBody#writeTo(okio.BufferedSink)
+   */
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    final Iterator<AnswerFeatures> rows;
+    synchronized (this) {
+      rows = answers;
+      answers = null;
+    }
+    if (rows == null) {
+      throw new IOException("The answers have already been written");
+    }
+
+    sink.writeUtf8(ANSWER_ID);
+    for (String name : featureNames) {
+      sink.writeByte(',');
+      writeField(sink, name);
+    }
+    sink.writeByte('\n');
+
+    while (rows.hasNext()) {
+      final AnswerFeatures row = rows.next();
+      final double[] features = row.getFeatures();
+      if (features.length != featureNames.size()) {
+        throw new IOException("Answer " + row.getAnswerID() + " has " + features.length + " features, expected "
+            + featureNames.size());
+      }
+      writeField(sink, row.getAnswerID());
+      for (double feature : features) {
+        sink.writeByte(',');
+        if ((feature == Math.rint(feature)) && (Math.abs(feature) < Long.MAX_VALUE)) {
+          sink.writeDecimalLong((long) feature);
+        } else {
+          sink.writeUtf8(Double.toString(feature));
+        }
+      }
+      sink.writeByte('\n');
+    }
+  }
+
+  private static void writeField(BufferedSink sink, String value) throws IOException {
+    boolean quote = false;
+    for (int i = 0; (i < value.length()) && !quote; i++) {
+      final char c = value.charAt(i);
+      quote = (c == ',') || (c == '"') || (c == '\n') || (c == '\r');
+    }
+    if (quote) {
+      sink.writeByte('"').writeUtf8(value.replace("\"", "\"\"")).writeByte('"');
+    } else {
+      sink.writeUtf8(value);
+    }
+  }
+}
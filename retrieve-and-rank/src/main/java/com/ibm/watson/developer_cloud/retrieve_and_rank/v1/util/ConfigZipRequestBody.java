@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1.util;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.ibm.watson.developer_cloud.http.HttpMediaType;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * RequestBody that zips a Solr configuration directory on the fly while the request is written, so no temporary ZIP
+ * file is created and no file is held in memory. The directory is read again each time the body is written, so the
+ * body can be retried.
+ */
+public class ConfigZipRequestBody extends RequestBody {
+
+  private static final MediaType APPLICATION_ZIP = MediaType.parse(HttpMediaType.APPLICATION_ZIP);
+
+  private final File configDirectory;
+
+  /**
+   * Instantiates a new config ZIP request body.
+   *
+   * @param configDirectory the configuration directory
+   */
+  public ConfigZipRequestBody(File configDirectory) {
+    Validator.notNull(configDirectory, "configDirectory cannot be null");
+    this.configDirectory = configDirectory;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see okhttp3.RequestBody#contentType()
+   */
+  @Override
+  public MediaType contentType() {
+    return APPLICATION_ZIP;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see okhttp3.RequestBody#writeTo(okio.BufferedSink)
+   */
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    ZipUtils.writeConfigZip(configDirectory, sink.outputStream());
+  }
+}
@@ -52,7 +52,8 @@ public enum Messages implements BundleKey {
   BEFORE_DATE_3, /** The AFTE r_ dat e_3. */
   AFTER_DATE_3, /** The CHEC k_ collection s_ nul l_1. */
   CHECK_COLLECTIONS_NULL_1, /** The CHEC k_ pai r_3. */
-  CHECK_PAIR_3;
+  CHECK_PAIR_3, /** The ERRO r_ readin g_ zi p_1. */
+  ERROR_READING_ZIP_1;
 
   /**
    * Bundle name.
@@ -12,19 +12,31 @@
  */
 package com.ibm.watson.developer_cloud.retrieve_and_rank.v1.util;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
+import okio.ByteString;
+
 /**
  * Utility class to manage Solr ZIP configuration files.
  */
 public final class ZipUtils {
   private static final MessageFormatter MSGS = new MessageFormatter(Messages.bundleName());
+  private static final int BUFFER_SIZE = 8192;
+  private static final String SHA_256 = "SHA-256";
 
   private ZipUtils() {
     // This is a utility class - no instantiation allowed.
@@ -43,26 +55,100 @@ public final class ZipUtils {
     }
 
     final File zipFile = createEmptyZipFile(configName);
-    final ZipOutputStream out;
-    try {
-      out = new ZipOutputStream(new FileOutputStream(zipFile));
-    } catch (final FileNotFoundException e) {
-      throw new RuntimeException(MSGS.format(Messages.ERROR_ZIPPING_1, parentDir.toString()), e);
-    }
-
-
+    OutputStream out = null;
     try {
-      addFilesToZip(parentDir, out, parentDir);
+      out = new FileOutputStream(zipFile);
+      writeConfigZip(parentDir, out);
       return zipFile;
     } catch (final IOException e) {
       throw new RuntimeException(MSGS.format(Messages.ERROR_ZIPPING_1, parentDir.toString()), e);
     } finally {
+      closeQuietly(out);
+    }
+  }
+
+  /**
+   * Zips the configuration directory into an output stream. Files are copied into the ZIP in chunks and in a stable
+   * order, so no file is loaded whole and the same directory always yields the same entries. The output stream is
+   * left open.
+   *
+   * @param parentDir the parent directory
+   * @param out the output stream to write the ZIP to
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static void writeConfigZip(final File parentDir, final OutputStream out) throws IOException {
+    if (!parentDir.isDirectory()) {
+      throw new IOException(MSGS.format(Messages.CONFIG_NOT_DIR_1, parentDir.toString()));
+    }
+
+    final ZipOutputStream zip = new ZipOutputStream(out);
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    for (final Map.Entry<String, File> file : listFiles(parentDir).entrySet()) {
+      zip.putNextEntry(new ZipEntry(file.getKey()));
+      final InputStream in = new FileInputStream(file.getValue());
+      try {
+        copy(in, zip, buffer);
+      } finally {
+        closeQuietly(in);
+      }
+      zip.closeEntry();
+    }
+    zip.finish();
+    zip.flush();
+  }
+
+  /**
+   * Computes the content hash of a configuration directory. The hash covers the relative path and the content of every
+   * file, so it only changes when the configuration does, and it matches {@link #hashConfigZip(InputStream)} of the
+   * same configuration zipped.
+   *
+   * @param parentDir the parent directory
+   * @return the hex encoded SHA-256 content hash
+   */
+  public static String hashConfigDirectory(final File parentDir) {
+    if (!parentDir.isDirectory()) {
+      throw new RuntimeException(MSGS.format(Messages.CONFIG_NOT_DIR_1, parentDir.toString()));
+    }
+
+    final Map<String, String> digests = new TreeMap<String, String>();
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    for (final Map.Entry<String, File> file : listFiles(parentDir).entrySet()) {
+      InputStream in = null;
       try {
-        out.close();
+        in = new FileInputStream(file.getValue());
+        digests.put(file.getKey(), digest(in, buffer));
       } catch (final IOException e) {
-        // do nothing
+        throw new RuntimeException(MSGS.format(Messages.ERROR_READING_FILE_1, file.getValue().toString()), e);
+      } finally {
+        closeQuietly(in);
       }
     }
+    return combine(digests);
+  }
+
+  /**
+   * Computes the content hash of a zipped configuration, such as the one returned when a configuration is downloaded
+   * from a Solr cluster. Directory entries and entry order are ignored. The stream is read to the end and closed.
+   *
+   * @param zippedConfig the zipped configuration
+   * @return the hex encoded SHA-256 content hash
+   */
+  public static String hashConfigZip(final InputStream zippedConfig) {
+    final Map<String, String> digests = new TreeMap<String, String>();
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    final ZipInputStream zip = new ZipInputStream(zippedConfig);
+    try {
+      for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+        if (!entry.isDirectory()) {
+          digests.put(cleanName(entry.getName()), digest(zip, buffer));
+        }
+      }
+    } catch (final IOException e) {
+      throw new RuntimeException(MSGS.format(Messages.ERROR_READING_ZIP_1, zippedConfig.toString()), e);
+    } finally {
+      closeQuietly(zip);
+    }
+    return combine(digests);
   }
 
   /**
@@ -79,48 +165,74 @@ public final class ZipUtils {
     }
   }
 
-  private static void writeZipEntry(ZipOutputStream out, String name, byte[] data) throws IOException {
-    final String cleanedName;
+  private static Map<String, File> listFiles(final File globalParentDir) {
+    final Map<String, File> files = new TreeMap<String, File>();
+    addFiles(globalParentDir, files, globalParentDir);
+    return files;
+  }
 
+  private static void addFiles(final File currentParentDir, final Map<String, File> files,
+      final File globalParentDir) {
+    final File[] children = currentParentDir.listFiles();
+    if (children == null) {
+      throw new RuntimeException(MSGS.format(Messages.FAILED_TO_VISIT_1, currentParentDir.toString()));
+    }
+    Arrays.sort(children);
+    for (final File child : children) {
+      if (child.isDirectory()) {
+        addFiles(child, files, globalParentDir);
+      } else if (child.isFile()) {
+        files.put(cleanName(globalParentDir.toURI().relativize(child.toURI()).toString()), child);
+      }
+    }
+  }
+
+  private static String cleanName(String name) {
     if ((name == null) || name.isEmpty() || !name.startsWith("/")) {
-      cleanedName = name;
-    } else {
-      cleanedName = name.substring(1);
+      return name;
     }
+    return name.substring(1);
+  }
 
-    final ZipEntry entry = new ZipEntry(cleanedName);
-    out.putNextEntry(entry);
-    out.write(data, 0, data.length);
-    out.closeEntry();
+  private static void copy(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
   }
 
-  private static void addFilesToZip(final File currentParentDir, final ZipOutputStream out, final File globalParentDir)
-      throws IOException {
-    for (final File child : currentParentDir.listFiles()) {
-      if (child.isDirectory()) {
-        addFilesToZip(child, out, globalParentDir);
-      } else if (child.isFile()) {
-        writeZipEntry(out, globalParentDir.toURI().relativize(child.toURI()).toString(), readBytes(child));
-      }
+  private static String digest(InputStream in, byte[] buffer) throws IOException {
+    final MessageDigest digest = newDigest();
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      digest.update(buffer, 0, read);
+    }
+    return ByteString.of(digest.digest()).hex();
+  }
+
+  private static String combine(Map<String, String> digests) {
+    final MessageDigest digest = newDigest();
+    for (final Map.Entry<String, String> entry : digests.entrySet()) {
+      digest.update(ByteString.encodeUtf8(entry.getKey() + '\0' + entry.getValue() + '\n').toByteArray());
     }
+    return ByteString.of(digest.digest()).hex();
   }
 
-  private static byte[] readBytes(File file) {
-    FileInputStream in = null;
-    final byte[] buffer = new byte[(int) file.length()];
+  private static MessageDigest newDigest() {
     try {
-      in = new FileInputStream(file);
-      in.read(buffer);
-    } catch (final IOException e) {
-      MSGS.format(Messages.ERROR_READING_FILE_1, file.toString(), e);
+      return MessageDigest.getInstance(SHA_256);
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
     }
-    if (in != null) {
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    if (closeable != null) {
       try {
-        in.close();
+        closeable.close();
       } catch (final IOException e) {
         // fail quietly
       }
     }
-    return buffer;
   }
 }
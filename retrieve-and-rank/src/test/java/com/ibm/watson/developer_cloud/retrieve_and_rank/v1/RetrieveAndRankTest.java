@@ -13,13 +13,21 @@
 package com.ibm.watson.developer_cloud.retrieve_and_rank.v1;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -27,6 +35,7 @@ import org.junit.Test;
 import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
 import com.ibm.watson.developer_cloud.http.HttpHeaders;
 import com.ibm.watson.developer_cloud.http.HttpMediaType;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.AnswerFeatures;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.Ranker;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.Rankers;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.Ranking;
@@ -36,8 +45,11 @@ import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrClusterSize
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrClusterStats;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrClusters;
 import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrConfigs;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.util.ConfigZipRequestBody;
 
+import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
 
 /**
  * Retrieve and Rank unit test.
@@ -346,6 +358,61 @@ public class RetrieveAndRankTest extends WatsonServiceUnitTest {
     assertEquals(request.getHeader(HttpHeaders.ACCEPT), HttpMediaType.APPLICATION_JSON);
   }
 
+  /**
+   * Test upload Cluster Configuration streams the zipped directory.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testUploadClusterConfigStreamsZip() throws IOException, InterruptedException {
+    final File configDir = new File(RESOURCE_PATH + "config_dir");
+    server.enqueue(jsonResponse("{ }"));
+    service.uploadSolrClusterConfigurationDirectory(ANY_CLUSTER_ID, ANY_CONFIG_NAME, configDir).execute();
+    RecordedRequest request = server.takeRequest();
+
+    assertEquals(HttpMediaType.APPLICATION_ZIP, request.getHeader(HttpHeaders.CONTENT_TYPE));
+    final ZipInputStream zip = new ZipInputStream(request.getBody().inputStream());
+    final List<String> entries = new ArrayList<String>();
+    for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+      entries.add(entry.getName());
+    }
+    zip.close();
+    assertEquals(Arrays.asList("schema.xml", "solrconfig.xml", "words/stopwords.txt"), entries);
+  }
+
+  /**
+   * Test upload Cluster Configuration is skipped when the deployed configuration has the same content.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws InterruptedException the interrupted exception
+   * @throws ExecutionException the execution exception
+   */
+  @Test
+  public void testUploadClusterConfigIfChanged() throws IOException, InterruptedException, ExecutionException {
+    final File configDir = new File(RESOURCE_PATH + "config_dir");
+    final Buffer deployed = new Buffer();
+    new ConfigZipRequestBody(configDir).writeTo(deployed);
+    final SolrConfigs configs = new SolrConfigs(Arrays.asList(ANY_CONFIG_NAME));
+
+    server.enqueue(jsonResponse(configs));
+    server.enqueue(new MockResponse().setHeader(HttpHeaders.CONTENT_TYPE, HttpMediaType.APPLICATION_ZIP)
+        .setBody(deployed));
+    assertFalse(service.uploadSolrClusterConfigurationDirectoryIfChanged(ANY_CLUSTER_ID, ANY_CONFIG_NAME, configDir)
+        .execute());
+    assertEquals(SOLRCONFIG_URL, server.takeRequest().getPath());
+    assertEquals(SOLRCONFIGNAME_URL, server.takeRequest().getPath());
+
+    server.enqueue(jsonResponse(new SolrConfigs(Arrays.asList("OTHER_CONFIG_NAME"))));
+    server.enqueue(jsonResponse("{ }"));
+    assertTrue(service.uploadSolrClusterConfigurationDirectoryIfChanged(ANY_CLUSTER_ID, ANY_CONFIG_NAME, configDir)
+        .rx().get());
+    assertEquals("GET", server.takeRequest().getMethod());
+    final RecordedRequest upload = server.takeRequest();
+    assertEquals(SOLRCONFIGNAME_URL, upload.getPath());
+    assertEquals("POST", upload.getMethod());
+  }
+
   /**
    * Test cluster resize.
    *
@@ -542,6 +609,26 @@ public class RetrieveAndRankTest extends WatsonServiceUnitTest {
     assertEquals(request.getHeader(HttpHeaders.ACCEPT), HttpMediaType.APPLICATION_JSON);
   }
 
+  /**
+   * Test ranker rank with an iterator of feature rows.
+   *
+   * @throws FileNotFoundException the file not found exception
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testRankerRankFeatureRows() throws FileNotFoundException, InterruptedException {
+    Ranking mockResponse = loadFixture(FIXTURE3, Ranking.class);
+    server.enqueue(jsonResponse(mockResponse));
+    Ranking serviceResponse = service.rank(ANY_RANKER_ID, Arrays.asList("feature0", "feature,1"), Arrays.asList(
+        new AnswerFeatures("aid_1", 0.25, 3), new AnswerFeatures("aid_2", 0.5, -1)).iterator(), 5).execute();
+    RecordedRequest request = server.takeRequest();
+
+    String body = request.getBody().readUtf8();
+    assertEquals(RANK_URL, request.getPath());
+    assertTrue(body.contains("answer_id,feature0,\"feature,1\"\naid_1,0.25,3\naid_2,0.5,-1\n"));
+    assertEquals(mockResponse, serviceResponse);
+  }
+
   // Negative test cases start here
   /**
    * Negative - Test ranker status with null.
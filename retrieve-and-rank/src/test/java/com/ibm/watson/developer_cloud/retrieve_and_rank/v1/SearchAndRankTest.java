@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.http.ServiceCallback;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.RankedDocument;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.RankedSearchResponse;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SearchAndRankOptions;
+import com.ibm.watson.developer_cloud.service.exception.NotFoundException;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for {@link RetrieveAndRank#searchAndRank(SearchAndRankOptions)} and the {@link RankedSearchPipeline}.
+ */
+public class SearchAndRankTest extends WatsonServiceUnitTest {
+  private static final String CLUSTER_ID = "sc1234";
+  private static final String COLLECTION = "docs";
+  private static final String RANKER_ID = "ranker1";
+  private static final String RANKER_INPUT = "answer_id,f0,f1\\nd1,0.1,0.2\\nd2,0.3,0.4\\nd3,0.5,0.6\\n";
+
+  private RetrieveAndRank service;
+  private final List<String> rankBodies = new ArrayList<String>();
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new RetrieveAndRank();
+    service.setApiKey("");
+    service.setEndPoint(getMockWebServerUrl());
+
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        final String path = request.getPath();
+        if (path.contains("/fcselect") && path.contains("q=nothing")) {
+          return new MockResponse().setBody("{\"response\":{\"numFound\":0,\"start\":0,\"docs\":[]}}");
+        } else if (path.contains("/fcselect")) {
+          return new MockResponse().setBody("{\"response\":{\"numFound\":42,\"start\":0,\"docs\":["
+              + "{\"id\":\"d1\",\"title\":\"one\"},{\"id\":\"d2\",\"title\":\"two\"},"
+              + "{\"id\":\"d3\",\"title\":\"three\"}]},"
+              + "\"RSInput\":\"" + RANKER_INPUT + "\"}");
+        } else if (path.equals("/v1/rankers/" + RANKER_ID + "/rank")) {
+          synchronized (rankBodies) {
+            rankBodies.add(request.getBody().readUtf8());
+          }
+          return new MockResponse().setBody("{\"answers\":[{\"answer_id\":\"d3\",\"score\":3,\"confidence\":0.6},"
+              + "{\"answer_id\":\"d1\",\"score\":1,\"confidence\":0.3}]}");
+        }
+        return new MockResponse().setResponseCode(404).setBody("{\"error\":\"not found\",\"code\":404}");
+      }
+    });
+  }
+
+  /**
+   * Test that the documents found by Solr are ordered by the ranker.
+   *
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testSearchAndRank() throws InterruptedException {
+    final RankedSearchResponse response = service.searchAndRank(options("water").newBuilder().addReturnField("title")
+        .rows(3).topAnswers(2).build()).execute();
+
+    final RecordedRequest search = server.takeRequest();
+    assertTrue(search.getPath().startsWith("/v1/solr_clusters/" + CLUSTER_ID + "/solr/" + COLLECTION + "/fcselect?"));
+    assertTrue(search.getPath().contains("fl=id,title"));
+    assertTrue(search.getPath().contains("returnRSInput=true"));
+    assertTrue(rankBodies.get(0).contains(RANKER_INPUT.replace("\\n", "\n")));
+    assertTrue(rankBodies.get(0).contains("name=\"answers\""));
+
+    assertEquals(42, response.getNumFound().longValue());
+    assertEquals(Arrays.asList("d3", "d1", "d2"), ids(response.getDocuments()));
+    assertEquals(0.6, response.getDocuments().get(0).getConfidence(), 0);
+    assertEquals(2, response.getDocuments().get(0).getSearchRank().intValue());
+    assertEquals("three", response.getDocuments().get(0).getFields().get("title"));
+    assertNull(response.getDocuments().get(2).getScore());
+  }
+
+  /**
+   * Test that the ranker is not called when Solr finds nothing.
+   */
+  @Test
+  public void testSearchWithoutResultsSkipsRanker() {
+    final RankedSearchResponse response = service.searchAndRank(options("nothing")).rx().join();
+
+    assertTrue(response.getDocuments().isEmpty());
+    assertEquals(1, server.getRequestCount());
+  }
+
+  /**
+   * Test that the pipeline runs several searches and returns them in order.
+   *
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testPipeline() throws InterruptedException {
+    final RankedSearchPipeline pipeline = new RankedSearchPipeline.Builder(service).maxInFlight(2).build();
+
+    final List<RankedSearchResponse> responses = pipeline.searchAll(Arrays.asList(options("a"), options("nothing"),
+        options("b")));
+
+    assertEquals(3, responses.size());
+    assertEquals(Arrays.asList("d3", "d1", "d2"), ids(responses.get(0).getDocuments()));
+    assertTrue(responses.get(1).getDocuments().isEmpty());
+    assertEquals(Arrays.asList("d3", "d1", "d2"), ids(responses.get(2).getDocuments()));
+    assertEquals(2, rankBodies.size());
+  }
+
+  /**
+   * Test that a failure of the ranker reaches the callback as the exception of the service.
+   *
+   * @throws InterruptedException the interrupted exception
+   */
+  @Test
+  public void testEnqueueReportsServiceException() throws InterruptedException {
+    final BlockingQueue<Exception> failures = new LinkedBlockingQueue<Exception>();
+    service.searchAndRank(new SearchAndRankOptions.Builder(CLUSTER_ID, COLLECTION, "missing").query("water").build())
+        .enqueue(new ServiceCallback<RankedSearchResponse>() {
+          @Override
+          public void onResponse(RankedSearchResponse response) {
+          }
+
+          @Override
+          public void onFailure(Exception e) {
+            failures.add(e);
+          }
+        });
+
+    assertTrue(failures.poll(5, TimeUnit.SECONDS) instanceof NotFoundException);
+  }
+
+  private static SearchAndRankOptions options(String query) {
+    return new SearchAndRankOptions.Builder(CLUSTER_ID, COLLECTION, RANKER_ID).query(query).build();
+  }
+
+  private static List<String> ids(List<RankedDocument> documents) {
+    final List<String> ids = new ArrayList<String>();
+    for (RankedDocument document : documents) {
+      ids.add(document.getId());
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.retrieve_and_rank.v1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrCluster;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrClusterOptions;
+import com.ibm.watson.developer_cloud.retrieve_and_rank.v1.model.SolrClusterSizeResponse;
+import com.ibm.watson.developer_cloud.service.exception.NotFoundException;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for {@link SolrClusterOrchestrator}.
+ */
+public class SolrClusterOrchestratorTest extends WatsonServiceUnitTest {
+
+  private static final String CLUSTER_ID = "ANY_CLUSTER_ID";
+  private static final String CLUSTER_URL = "/v1/solr_clusters/" + CLUSTER_ID;
+
+  private RetrieveAndRank service;
+  private SolrClusterOrchestrator orchestrator;
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new RetrieveAndRank();
+    service.setApiKey("");
+    service.setEndPoint(getMockWebServerUrl());
+    orchestrator = new SolrClusterOrchestrator.Builder(service).initialInterval(1, TimeUnit.MILLISECONDS)
+        .maxInterval(5, TimeUnit.MILLISECONDS).timeout(5, TimeUnit.SECONDS).build();
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    orchestrator.shutdown();
+    super.tearDown();
+  }
+
+  private static SolrCluster cluster(SolrCluster.Status status) {
+    return new SolrCluster(CLUSTER_ID, "name", "1", status);
+  }
+
+  private static SolrClusterSizeResponse resize(SolrClusterSizeResponse.Status status) {
+    return new SolrClusterSizeResponse(CLUSTER_ID, 1, 2, status.name(), status);
+  }
+
+  /**
+   * Test that creating a cluster polls until it is ready.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testCreateClusterWaitsUntilReady() throws Exception {
+    server.enqueue(jsonResponse(cluster(SolrCluster.Status.NOT_AVAILABLE)));
+    server.enqueue(jsonResponse(cluster(SolrCluster.Status.NOT_AVAILABLE)));
+    server.enqueue(jsonResponse(cluster(SolrCluster.Status.NOT_AVAILABLE)));
+    server.enqueue(jsonResponse(cluster(SolrCluster.Status.READY)));
+
+    final SolrCluster ready = orchestrator.createCluster(new SolrClusterOptions("name", 1)).get(5, TimeUnit.SECONDS);
+
+    assertEquals(SolrCluster.Status.READY, ready.getStatus());
+    assertEquals(4, server.getRequestCount());
+    assertEquals("POST", server.takeRequest().getMethod());
+    for (int i = 0; i < 3; i++) {
+      final RecordedRequest poll = server.takeRequest();
+      assertEquals("GET", poll.getMethod());
+      assertEquals(CLUSTER_URL, poll.getPath());
+    }
+  }
+
+  /**
+   * Test that polls failing with a transient error are sent again, and other errors fail at once.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testAwaitReadyRetriesTransientErrors() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(503).setBody("{\"error\": \"unavailable\"}"));
+    server.enqueue(new MockResponse().setResponseCode(500).setBody("{\"error\": \"internal\"}"));
+    server.enqueue(jsonResponse(cluster(SolrCluster.Status.READY)));
+
+    assertEquals(SolrCluster.Status.READY, orchestrator.awaitReady(CLUSTER_ID).get(5, TimeUnit.SECONDS).getStatus());
+    assertEquals(3, server.getRequestCount());
+
+    server.enqueue(new MockResponse().setResponseCode(404).setBody("{\"error\": \"not found\"}"));
+    try {
+      orchestrator.awaitReady(CLUSTER_ID).get(5, TimeUnit.SECONDS);
+      fail("waiting for a missing cluster should have failed");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof NotFoundException);
+    }
+    assertEquals(4, server.getRequestCount());
+  }
+
+  /**
+   * Test that several clusters are created in parallel.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testCreateClusters() throws Exception {
+    for (int i = 0; i < 4; i++) {
+      server.enqueue(jsonResponse(cluster(SolrCluster.Status.READY)));
+    }
+
+    final List<SolrCluster> clusters = orchestrator.createClusters(
+        Arrays.asList(new SolrClusterOptions("one", 1), new SolrClusterOptions("two", 1))).get(5, TimeUnit.SECONDS);
+
+    assertEquals(2, clusters.size());
+    assertEquals(4, server.getRequestCount());
+  }
+
+  /**
+   * Test that a resize polls until it is no longer resizing, and fails when the resize fails.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testResizeCluster() throws Exception {
+    server.enqueue(jsonResponse(resize(SolrClusterSizeResponse.Status.RESIZING)));
+    server.enqueue(jsonResponse(resize(SolrClusterSizeResponse.Status.RESIZING)));
+    server.enqueue(jsonResponse(new SolrClusterSizeResponse(CLUSTER_ID, 2, "done")));
+
+    final SolrClusterSizeResponse resized = orchestrator.resizeCluster(CLUSTER_ID, 2).get(5, TimeUnit.SECONDS);
+    assertEquals(Integer.valueOf(2), resized.getCurrentSize());
+    assertEquals("PUT", server.takeRequest().getMethod());
+    assertEquals(CLUSTER_URL + "/cluster_size", server.takeRequest().getPath());
+
+    server.enqueue(jsonResponse(resize(SolrClusterSizeResponse.Status.ERROR)));
+    try {
+      orchestrator.awaitResize(CLUSTER_ID).get(5, TimeUnit.SECONDS);
+      fail("the resize should have failed");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  /**
+   * Test that waiting fails once the timeout has passed.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testAwaitReadyTimesOut() throws Exception {
+    orchestrator.shutdown();
+    orchestrator = new SolrClusterOrchestrator.Builder(service).initialInterval(50, TimeUnit.MILLISECONDS)
+        .timeout(10, TimeUnit.MILLISECONDS).build();
+    server.enqueue(jsonResponse(cluster(SolrCluster.Status.NOT_AVAILABLE)));
+
+    try {
+      orchestrator.awaitReady(CLUSTER_ID).get(5, TimeUnit.SECONDS);
+      fail("waiting should have timed out");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+  }
+}
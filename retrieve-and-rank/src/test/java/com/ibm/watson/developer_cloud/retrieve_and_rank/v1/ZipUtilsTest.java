@@ -13,7 +13,10 @@
 package com.ibm.watson.developer_cloud.retrieve_and_rank.v1;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -26,6 +29,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.Test;
 
@@ -67,6 +71,34 @@ public class ZipUtilsTest {
     }
   }
 
+  /**
+   * Hashes a config directory and the same config zipped alike.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void hashesConfigDirectoryAndZipAlike() throws IOException {
+    final File configDir = new File(CONFIG_PATH);
+    final String hash = ZipUtils.hashConfigDirectory(configDir);
+    assertEquals(64, hash.length());
+    assertEquals(hash, ZipUtils.hashConfigDirectory(configDir));
+
+    final File configZip = ZipUtils.buildConfigZip(CONFIG_NAME, configDir);
+    try {
+      assertEquals(hash, ZipUtils.hashConfigZip(new FileInputStream(configZip)));
+    } finally {
+      configZip.delete();
+    }
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final ZipOutputStream zip = new ZipOutputStream(out);
+    zip.putNextEntry(new ZipEntry("schema.xml"));
+    zip.write(new byte[] { 1 });
+    zip.closeEntry();
+    zip.close();
+    assertNotEquals(hash, ZipUtils.hashConfigZip(new ByteArrayInputStream(out.toByteArray())));
+  }
+
   private Map<String, String> expandZip(File zipFile) {
     final Map<String, String> fileMap = new HashMap<String, String>();
     try {
@@ -21,6 +21,7 @@ import java.util.Map;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.ibm.watson.developer_cloud.http.FileChannelRequestBody;
 import com.ibm.watson.developer_cloud.http.HttpMediaType;
 import com.ibm.watson.developer_cloud.http.RequestBuilder;
 import com.ibm.watson.developer_cloud.http.ResponseConverter;
@@ -48,11 +49,9 @@ import com.ibm.watson.developer_cloud.util.ResponseConverterUtils;
 import com.ibm.watson.developer_cloud.util.Validator;
 
 import okhttp3.HttpUrl;
-import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Request.Builder;
-import okhttp3.RequestBody;
 import okhttp3.WebSocket;
 
 /**
@@ -284,7 +283,7 @@ public class SpeechToText extends WatsonService {
       requestBuilder.query(ALLOW_OVERWRITE, allowOverwrite);
     }
 
-    requestBuilder.body(RequestBody.create(HttpMediaType.TEXT, corpusFile));
+    requestBuilder.body(FileChannelRequestBody.create(HttpMediaType.TEXT, corpusFile));
     return createServiceCall(requestBuilder.build(), ResponseConverterUtils.getVoid());
   }
 
@@ -402,7 +401,7 @@ public class SpeechToText extends WatsonService {
     buildRecognizeRequest(requestBuilder, recognizeOptions);
     buildRecognitionJobRequest(requestBuilder, recognitionJobOptions);
 
-    requestBuilder.body(RequestBody.create(MediaType.parse(contentType), audio));
+    requestBuilder.body(RequestUtils.fileBody(audio, contentType));
     return createServiceCall(requestBuilder.build(), ResponseConverterUtils.getObject(RecognitionJob.class));
   }
 
@@ -770,7 +769,7 @@ public class SpeechToText extends WatsonService {
 
     final RequestBuilder requestBuilder = RequestBuilder.post(path);
     buildRecognizeRequest(requestBuilder, options);
-    requestBuilder.body(RequestBody.create(MediaType.parse(contentType), audio));
+    requestBuilder.body(RequestUtils.fileBody(audio, contentType));
     return createServiceCall(requestBuilder.build(), ResponseConverterUtils.getObject(SpeechResults.class));
   }
 
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.tone_analyzer.v3.chat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.ibm.watson.developer_cloud.tone_analyzer.v3.model.Utterance;
+import com.ibm.watson.developer_cloud.tone_analyzer.v3.model.UtteranceAnalyses;
+import com.ibm.watson.developer_cloud.tone_analyzer.v3.model.UtteranceAnalysis;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * A conversation that is analyzed as it grows. Utterances are added as they arrive, and {@link #analyze()} sends only
+ * the utterances that were added since the last analysis.
+ * <p>
+ * This class is thread safe.
+ */
+public class Transcript {
+
+  private final TranscriptAnalyzer analyzer;
+  private final List<Utterance> pending = new ArrayList<Utterance>();
+  private final List<UtteranceAnalysis> analyses = new ArrayList<UtteranceAnalysis>();
+  private int submitted;
+  private String warning;
+
+  /**
+   * Instantiates a new transcript.
+   *
+   * @param analyzer the analyzer
+   */
+  Transcript(TranscriptAnalyzer analyzer) {
+    this.analyzer = analyzer;
+  }
+
+  /**
+   * Adds an utterance to the conversation.
+   *
+   * @param utterance the utterance
+   * @return the transcript
+   */
+  public synchronized Transcript add(Utterance utterance) {
+    Validator.notNull(utterance, "utterance cannot be null");
+    pending.add(utterance);
+    return this;
+  }
+
+  /**
+   * Analyzes the utterances added since the last analysis.
+   *
+   * @return the analyses of the whole conversation so far
+   * @throws InterruptedException if the calling thread is interrupted while waiting for the service
+   */
+  public synchronized UtteranceAnalyses analyze() throws InterruptedException {
+    if (!pending.isEmpty()) {
+      // the service may leave utterances out, so the offset counts the utterances sent rather than the analyses
+      final UtteranceAnalyses added = analyzer.analyze(pending, submitted);
+      analyses.addAll(added.getUtterancesTone());
+      submitted += pending.size();
+      pending.clear();
+      if (added.getWarning() != null) {
+        warning = added.getWarning();
+      }
+    }
+    return getAnalyses();
+  }
+
+  /**
+   * Gets the analyses of the utterances analyzed so far, without calling the service.
+   *
+   * @return the analyses
+   */
+  public synchronized UtteranceAnalyses getAnalyses() {
+    final UtteranceAnalyses result = new UtteranceAnalyses();
+    result.setUtterancesTone(Collections.unmodifiableList(new ArrayList<UtteranceAnalysis>(analyses)));
+    result.setWarning(warning);
+    return result;
+  }
+
+  /**
+   * Gets the number of utterances added and not analyzed yet.
+   *
+   * @return the number of pending utterances
+   */
+  public synchronized int getPendingCount() {
+    return pending.size();
+  }
+}
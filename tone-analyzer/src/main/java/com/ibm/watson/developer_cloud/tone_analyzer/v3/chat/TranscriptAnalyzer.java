@@ -0,0 +1,301 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.tone_analyzer.v3.chat;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import com.ibm.watson.developer_cloud.tone_analyzer.v3.ToneAnalyzer;
+import com.ibm.watson.developer_cloud.tone_analyzer.v3.model.ToneChatOptions;
+import com.ibm.watson.developer_cloud.tone_analyzer.v3.model.Utterance;
+import com.ibm.watson.developer_cloud.tone_analyzer.v3.model.UtteranceAnalyses;
+import com.ibm.watson.developer_cloud.tone_analyzer.v3.model.UtteranceAnalysis;
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.FutureUtils;
+import com.ibm.watson.developer_cloud.util.RequestUtils;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * Analyzes conversations of any length with {@link ToneAnalyzer#toneChat(ToneChatOptions)}.
+ * <p>
+ * The service analyzes at most 50 utterances and 128 KB per request. The analyzer splits a conversation into
+ * consecutive windows within those limits, sends the windows concurrently, and merges the {@link UtteranceAnalyses}
+ * back with the utterance ids renumbered to the position of each utterance in the whole conversation. Since the service
+ * scores every utterance on its own, the result is the same as analyzing the conversation in one request.
+ * <p>
+ * For a live chat, a {@link Transcript} keeps the analyses of the utterances it has already seen, so each call only
+ * sends the new ones.
+ *
+ * <pre>
+ * TranscriptAnalyzer analyzer = new TranscriptAnalyzer.Builder(service).build();
+ * UtteranceAnalyses analyses = analyzer.analyze(utterances);
+ * </pre>
+ */
+public class TranscriptAnalyzer {
+
+  /** The default maximum number of utterances in a window, the limit of the service. */
+  public static final int DEFAULT_MAX_WINDOW_UTTERANCES = 50;
+
+  /** The default maximum size of a window, in bytes, a little under the 128 KB limit of the service. */
+  public static final int DEFAULT_MAX_WINDOW_BYTES = 120 * 1024;
+
+  /** The default maximum number of requests in flight. */
+  public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /** The JSON field names and punctuation around an utterance in a request. */
+  private static final int UTTERANCE_OVERHEAD = 32;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final ToneAnalyzer service;
+    private int maxWindowUtterances = DEFAULT_MAX_WINDOW_UTTERANCES;
+    private int maxWindowBytes = DEFAULT_MAX_WINDOW_BYTES;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private String acceptLanguage;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param service the service used to analyze the windows
+     */
+    public Builder(ToneAnalyzer service) {
+      this.service = service;
+    }
+
+    /**
+     * Set the maximum number of utterances in a window. Defaults to
+     * {@value TranscriptAnalyzer#DEFAULT_MAX_WINDOW_UTTERANCES}.
+     *
+     * @param maxWindowUtterances the maximum number of utterances
+     * @return the builder
+     */
+    public Builder maxWindowUtterances(int maxWindowUtterances) {
+      this.maxWindowUtterances = maxWindowUtterances;
+      return this;
+    }
+
+    /**
+     * Set the maximum size of a window, in UTF-8 bytes. Defaults to
+     * {@value TranscriptAnalyzer#DEFAULT_MAX_WINDOW_BYTES}.
+     *
+     * @param maxWindowBytes the maximum size
+     * @return the builder
+     */
+    public Builder maxWindowBytes(int maxWindowBytes) {
+      this.maxWindowBytes = maxWindowBytes;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of windows analyzed at the same time. Defaults to
+     * {@value TranscriptAnalyzer#DEFAULT_MAX_CONCURRENCY}.
+     *
+     * @param maxConcurrency the maximum concurrency
+     * @return the builder
+     */
+    public Builder maxConcurrency(int maxConcurrency) {
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * Set the language of the tone names in the response.
+     *
+     * @param acceptLanguage the accept language
+     * @return the builder
+     * @see ToneChatOptions.AcceptLanguage
+     */
+    public Builder acceptLanguage(String acceptLanguage) {
+      this.acceptLanguage = acceptLanguage;
+      return this;
+    }
+
+    /**
+     * Builds the transcript analyzer.
+     *
+     * @return the transcript analyzer
+     */
+    public TranscriptAnalyzer build() {
+      return new TranscriptAnalyzer(this);
+    }
+  }
+
+  private final ToneAnalyzer service;
+  private final int maxWindowUtterances;
+  private final int maxWindowBytes;
+  private final String acceptLanguage;
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Instantiates a new transcript analyzer.
+   *
+   * @param builder the builder
+   */
+  protected TranscriptAnalyzer(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.isTrue(builder.maxWindowUtterances > 0, "maxWindowUtterances must be greater than 0");
+    Validator.isTrue(builder.maxWindowBytes > 0, "maxWindowBytes must be greater than 0");
+    Validator.isTrue(builder.maxConcurrency > 0, "maxConcurrency must be greater than 0");
+    service = builder.service;
+    maxWindowUtterances = builder.maxWindowUtterances;
+    maxWindowBytes = builder.maxWindowBytes;
+    acceptLanguage = builder.acceptLanguage;
+    executor = DaemonThreadFactory.newThreadPool("tone-analyzer-transcript", builder.maxConcurrency);
+  }
+
+  /**
+   * Analyzes a conversation.
+   *
+   * @param utterances the utterances of the conversation
+   * @return the analyses of the utterances, in order, with ids numbered from 0
+   * @throws InterruptedException if the calling thread is interrupted while waiting for the windows
+   * @throws RuntimeException the exception of the first window that failed
+   */
+  public UtteranceAnalyses analyze(List<Utterance> utterances) throws InterruptedException {
+    return analyze(utterances, 0);
+  }
+
+  /**
+   * Starts a transcript, which analyzes the utterances of a growing conversation incrementally.
+   *
+   * @return the transcript
+   */
+  public Transcript newTranscript() {
+    return new Transcript(this);
+  }
+
+  /**
+   * Stops the worker threads once the requests in flight are done.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  /**
+   * Analyzes utterances that start at an offset of the conversation.
+   *
+   * @param utterances the utterances
+   * @param offset the position of the first utterance in the conversation
+   * @return the analyses, with ids numbered from the offset
+   * @throws InterruptedException if the calling thread is interrupted while waiting for the windows
+   */
+  UtteranceAnalyses analyze(List<Utterance> utterances, final int offset) throws InterruptedException {
+    Validator.notNull(utterances, "utterances cannot be null");
+
+    final List<Integer> starts = windows(utterances);
+    final List<Future<UtteranceAnalyses>> futures = new ArrayList<Future<UtteranceAnalyses>>(starts.size());
+    for (int i = 0; i < starts.size(); i++) {
+      final int end = (i + 1) < starts.size() ? starts.get(i + 1) : utterances.size();
+      final ToneChatOptions.Builder options =
+          new ToneChatOptions.Builder(new ArrayList<Utterance>(utterances.subList(starts.get(i), end)));
+      if (acceptLanguage != null) {
+        options.acceptLanguage(acceptLanguage);
+      }
+      futures.add(executor.submit(new Callable<UtteranceAnalyses>() {
+        @Override
+        public UtteranceAnalyses call() {
+          return service.toneChat(options.build()).execute();
+        }
+      }));
+    }
+
+    final List<UtteranceAnalysis> analyses = new ArrayList<UtteranceAnalysis>(utterances.size());
+    final Set<String> warnings = new LinkedHashSet<String>();
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        final UtteranceAnalyses window = futures.get(i).get();
+        if (window.getWarning() != null) {
+          warnings.add(window.getWarning());
+        }
+        if (window.getUtterancesTone() == null) {
+          continue;
+        }
+        final int start = offset + starts.get(i);
+        for (int j = 0; j < window.getUtterancesTone().size(); j++) {
+          final UtteranceAnalysis analysis = window.getUtterancesTone().get(j);
+          analysis.setUtteranceId(String.valueOf(start + position(analysis.getUtteranceId(), j)));
+          analyses.add(analysis);
+        }
+      }
+    } catch (ExecutionException e) {
+      throw FutureUtils.asRuntimeException(e.getCause());
+    } finally {
+      for (Future<UtteranceAnalyses> future : futures) {
+        future.cancel(true);
+      }
+    }
+
+    final UtteranceAnalyses merged = new UtteranceAnalyses();
+    merged.setUtterancesTone(analyses);
+    if (!warnings.isEmpty()) {
+      merged.setWarning(RequestUtils.join(warnings, "; "));
+    }
+    return merged;
+  }
+
+  /**
+   * Splits utterances into consecutive windows within the limits. An utterance larger than the size limit gets a window
+   * of its own.
+   *
+   * @param utterances the utterances
+   * @return the index of the first utterance of each window
+   */
+  private List<Integer> windows(List<Utterance> utterances) {
+    final List<Integer> starts = new ArrayList<Integer>();
+    int count = 0;
+    int size = 0;
+    for (int i = 0; i < utterances.size(); i++) {
+      final Utterance utterance = utterances.get(i);
+      Validator.notNull(utterance, "utterances cannot contain null");
+      final int bytes = utterance.text().getBytes(UTF_8).length
+          + (utterance.user() != null ? utterance.user().getBytes(UTF_8).length : 0) + UTTERANCE_OVERHEAD;
+      if ((count == 0) || (count == maxWindowUtterances) || ((size + bytes) > maxWindowBytes)) {
+        starts.add(i);
+        count = 0;
+        size = 0;
+      }
+      count++;
+      size += bytes;
+    }
+    return starts;
+  }
+
+  /**
+   * Reads the position of an utterance in its window from the id returned by the service.
+   *
+   * @param utteranceId the utterance id
+   * @param index the index of the analysis in the response, used if the id is not a number
+   * @return the position
+   */
+  private static int position(String utteranceId, int index) {
+    if (utteranceId != null) {
+      try {
+        return (int) Double.parseDouble(utteranceId);
+      } catch (NumberFormatException e) {
+        // not a position, fall back to the order of the response
+      }
+    }
+    return index;
+  }
+}
@@ -0,0 +1,17 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+/**
+ * This package contains a transcript analyzer that splits long conversations into windows that fit the limits of the
+ * tone_chat method, analyzes them concurrently, and analyzes only the new utterances of a growing conversation.
+ */
+package com.ibm.watson.developer_cloud.tone_analyzer.v3.chat;
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.tone_analyzer.v3.chat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.tone_analyzer.v3.ToneAnalyzer;
+import com.ibm.watson.developer_cloud.tone_analyzer.v3.model.Utterance;
+import com.ibm.watson.developer_cloud.tone_analyzer.v3.model.UtteranceAnalyses;
+import com.ibm.watson.developer_cloud.tone_analyzer.v3.model.UtteranceAnalysis;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for {@link TranscriptAnalyzer}.
+ */
+public class TranscriptAnalyzerTest extends WatsonServiceUnitTest {
+
+  private ToneAnalyzer service;
+  private TranscriptAnalyzer analyzer;
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new ToneAnalyzer("2016-05-19");
+    service.setApiKey("");
+    service.setEndPoint(getMockWebServerUrl());
+
+    // answers every utterance with its id in the request and its text, and leaves out the utterances "..."
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        final JsonObject body = new JsonParser().parse(request.getBody().clone().readUtf8()).getAsJsonObject();
+        final JsonArray utterances = body.getAsJsonArray("utterances");
+        final JsonArray analyses = new JsonArray();
+        for (int i = 0; i < utterances.size(); i++) {
+          if ("...".equals(utterances.get(i).getAsJsonObject().get("text").getAsString())) {
+            continue;
+          }
+          final JsonObject analysis = new JsonObject();
+          analysis.addProperty("utterance_id", i);
+          analysis.add("utterance_text", utterances.get(i).getAsJsonObject().get("text"));
+          analysis.add("tones", new JsonArray());
+          analyses.add(analysis);
+        }
+        final JsonObject response = new JsonObject();
+        response.add("utterances_tone", analyses);
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(response.toString());
+      }
+    });
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    analyzer.shutdown();
+    super.tearDown();
+  }
+
+  private static List<Utterance> utterances(String... texts) {
+    final List<Utterance> utterances = new ArrayList<Utterance>();
+    for (String text : texts) {
+      utterances.add(new Utterance.Builder(text).user("customer").build());
+    }
+    return utterances;
+  }
+
+  private static void assertAnalyses(UtteranceAnalyses analyses, String... texts) {
+    assertEquals(texts.length, analyses.getUtterancesTone().size());
+    for (int i = 0; i < texts.length; i++) {
+      final UtteranceAnalysis analysis = analyses.getUtterancesTone().get(i);
+      assertEquals(String.valueOf(i), analysis.getUtteranceId());
+      assertEquals(texts[i], analysis.getUtteranceText());
+    }
+  }
+
+  /**
+   * Test that a long conversation is split into windows and merged back with conversation-wide ids.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testAnalyzeSplitsIntoWindows() throws Exception {
+    analyzer = new TranscriptAnalyzer.Builder(service).maxWindowUtterances(2).maxConcurrency(3).build();
+    final String[] texts = { "hello", "I have a problem", "sorry to hear that", "it is broken", "thanks" };
+
+    assertAnalyses(analyzer.analyze(utterances(texts)), texts);
+    assertEquals(3, server.getRequestCount());
+  }
+
+  /**
+   * Test that windows are also limited by size.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testAnalyzeLimitsWindowSize() throws Exception {
+    analyzer = new TranscriptAnalyzer.Builder(service).maxWindowBytes(120).build();
+    final String[] texts = { "short", "a somewhat longer utterance", "another longer utterance here" };
+
+    assertAnalyses(analyzer.analyze(utterances(texts)), texts);
+    assertEquals(2, server.getRequestCount());
+  }
+
+  /**
+   * Test that a transcript only sends the utterances added since the last analysis.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testTranscriptAnalyzesIncrementally() throws Exception {
+    analyzer = new TranscriptAnalyzer.Builder(service).maxWindowUtterances(2).build();
+    final Transcript transcript = analyzer.newTranscript();
+
+    for (Utterance utterance : utterances("hello", "hi", "my order is late")) {
+      transcript.add(utterance);
+    }
+    assertAnalyses(transcript.analyze(), "hello", "hi", "my order is late");
+    assertEquals(2, server.getRequestCount());
+
+    transcript.add(utterances("let me check").get(0));
+    assertEquals(1, transcript.getPendingCount());
+    assertAnalyses(transcript.analyze(), "hello", "hi", "my order is late", "let me check");
+    assertEquals(3, server.getRequestCount());
+    server.takeRequest();
+    server.takeRequest();
+    final String body = server.takeRequest().getBody().readUtf8();
+    assertTrue(body.contains("let me check"));
+    assertFalse(body.contains("hello"));
+
+    assertAnalyses(transcript.analyze(), "hello", "hi", "my order is late", "let me check");
+    assertEquals(3, server.getRequestCount());
+    assertEquals(0, transcript.getPendingCount());
+  }
+
+  /**
+   * Test that the ids of a transcript stay aligned with the conversation when the service leaves utterances out.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testTranscriptIdsWithMissingAnalyses() throws Exception {
+    analyzer = new TranscriptAnalyzer.Builder(service).build();
+    final Transcript transcript = analyzer.newTranscript();
+
+    for (Utterance utterance : utterances("hello", "...")) {
+      transcript.add(utterance);
+    }
+    transcript.analyze();
+    transcript.add(utterances("my order is late").get(0));
+    final List<UtteranceAnalysis> analyses = transcript.analyze().getUtterancesTone();
+
+    assertEquals(2, analyses.size());
+    assertEquals("0", analyses.get(0).getUtteranceId());
+    assertEquals("2", analyses.get(1).getUtteranceId());
+    assertEquals("my order is late", analyses.get(1).getUtteranceText());
+  }
+
+  /**
+   * Test that an empty conversation does not call the service.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testAnalyzeEmpty() throws Exception {
+    analyzer = new TranscriptAnalyzer.Builder(service).build();
+
+    assertEquals(0, analyzer.analyze(Arrays.<Utterance>asList()).getUtterancesTone().size());
+    assertEquals(0, server.getRequestCount());
+  }
+}
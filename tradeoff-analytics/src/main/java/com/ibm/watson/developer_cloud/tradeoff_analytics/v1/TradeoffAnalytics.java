@@ -19,6 +19,8 @@ import com.ibm.watson.developer_cloud.http.HttpMediaType;
 import com.ibm.watson.developer_cloud.http.RequestBuilder;
 import com.ibm.watson.developer_cloud.http.ServiceCall;
 import com.ibm.watson.developer_cloud.service.WatsonService;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.columnar.ColumnarProblem;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.columnar.ColumnarProblemRequestBody;
 import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Dilemma;
 import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Problem;
 import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Resolution;
@@ -152,4 +154,32 @@ public class TradeoffAnalytics extends WatsonService {
 
     return createServiceCall(requestBuilder.build(), ResponseConverterUtils.getObject(Dilemma.class));
   }
+
+  /**
+   * Returns a dilemma for a {@link ColumnarProblem}. The request JSON is written from the columns of the problem while
+   * the request is sent, which uses much less memory than a {@link Problem} for problems with many options.
+   *
+   * @param problem the decision problem
+   * @param generateVisualization if true the Dilemma contains information to generate visualization
+   * @param findPreferableOptions if true the Dilemma includes a refined subset of best candidate options
+   * that will most likely satisfy the greatest number of users.
+   * @return the decision problem
+   */
+  public ServiceCall<Dilemma> dilemmas(
+    final ColumnarProblem problem,
+    final Boolean generateVisualization,
+    final Boolean findPreferableOptions) {
+    Validator.notNull(problem, "problem was not specified");
+
+    final RequestBuilder requestBuilder =
+        RequestBuilder.post(PATH_DILEMMAS).body(new ColumnarProblemRequestBody(problem));
+    if (generateVisualization != null) {
+      requestBuilder.query(GENERATE_VISUALIZATION, generateVisualization.toString());
+    }
+    if (findPreferableOptions != null) {
+      requestBuilder.query(FIND_PREFERABLE_OPTIONS, findPreferableOptions.toString());
+    }
+
+    return createServiceCall(requestBuilder.build(), ResponseConverterUtils.getObject(Dilemma.class));
+  }
 }
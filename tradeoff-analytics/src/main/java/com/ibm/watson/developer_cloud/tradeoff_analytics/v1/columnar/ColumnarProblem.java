@@ -0,0 +1,395 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.tradeoff_analytics.v1.columnar;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.stream.JsonWriter;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Option;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Problem;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.Column;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.Column.ColumnType;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.util.ColumnTypeAdapter;
+import com.ibm.watson.developer_cloud.util.DateParser;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+/**
+ * A {@link Problem} stored by column instead of by {@link Option}, for catalogs with many options.
+ * <p>
+ * Every option value of a {@link Problem} is a boxed number or string in a {@link HashMap} of its own. A
+ * {@code ColumnarProblem} instead keeps one primitive array per column: a {@code double[]} for numeric columns, a
+ * {@code long[]} of epoch milliseconds for date columns, and an {@code int[]} of dictionary codes for categorical and
+ * text columns, so each distinct string is stored once. The request JSON is written straight from the arrays by
+ * {@link #writeTo(JsonWriter)}, without building the option maps.
+ *
+ * <pre>
+ * ColumnarProblem problem = new ColumnarProblem.Builder("phones", columns).expectedOptions(50000)
+ *     .option("1", "Galaxy S8").value("price", 799).value("brand", "Samsung")
+ *     .option("2", "iPhone 7").value("price", 649).value("brand", "Apple")
+ *     .build();
+ * Dilemma dilemma = service.dilemmas(problem, false, null).execute();
+ * </pre>
+ */
+public class ColumnarProblem {
+
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final long MISSING_DATE = Long.MIN_VALUE;
+  private static final int MISSING_CODE = -1;
+
+  /**
+   * Builder. Options are added one at a time with {@link #option(String, String)}, and the value methods set the values
+   * of the last option added.
+   */
+  public static class Builder {
+    private final String subject;
+    private final List<Column> columns;
+    private final Map<String, Integer> columnIndexes = new HashMap<String, Integer>();
+    private final double[][] numbers;
+    private final long[][] dates;
+    private final int[][] codes;
+    private final List<Map<String, Integer>> dictionaries;
+    private final List<List<String>> dictionaryValues;
+    private String[] keys;
+    private String[] names;
+    private String[] descriptions;
+    private int size;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param subject the subject of the problem
+     * @param columns the columns of the problem
+     */
+    public Builder(String subject, List<Column> columns) {
+      Validator.notEmpty(columns, "columns cannot be empty");
+      this.subject = subject;
+      this.columns = new ArrayList<Column>(columns);
+      numbers = new double[columns.size()][];
+      dates = new long[columns.size()][];
+      codes = new int[columns.size()][];
+      dictionaries = new ArrayList<Map<String, Integer>>(columns.size());
+      dictionaryValues = new ArrayList<List<String>>(columns.size());
+      for (int c = 0; c < columns.size(); c++) {
+        final Column column = columns.get(c);
+        Validator.notNull(column.getKey(), "column key cannot be null");
+        Validator.notNull(column.getType(), "column type cannot be null");
+        columnIndexes.put(column.getKey(), c);
+        final boolean dictionary =
+            (column.getType() == ColumnType.CATEGORICAL) || (column.getType() == ColumnType.TEXT);
+        dictionaries.add(dictionary ? new HashMap<String, Integer>() : null);
+        dictionaryValues.add(dictionary ? new ArrayList<String>() : null);
+      }
+      allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Set the expected number of options, to size the arrays once.
+     *
+     * @param expectedOptions the expected number of options
+     * @return the builder
+     */
+    public Builder expectedOptions(int expectedOptions) {
+      if (expectedOptions > keys.length) {
+        allocate(expectedOptions);
+      }
+      return this;
+    }
+
+    /**
+     * Adds an option. The following value methods apply to it.
+     *
+     * @param key the key of the option
+     * @param name the name of the option
+     * @return the builder
+     */
+    public Builder option(String key, String name) {
+      Validator.notNull(key, "key cannot be null");
+      if (size == keys.length) {
+        allocate(size * 2);
+      }
+      keys[size] = key;
+      names[size] = name;
+      for (int c = 0; c < columns.size(); c++) {
+        if (numbers[c] != null) {
+          numbers[c][size] = Double.NaN;
+        } else if (dates[c] != null) {
+          dates[c][size] = MISSING_DATE;
+        } else {
+          codes[c][size] = MISSING_CODE;
+        }
+      }
+      size++;
+      return this;
+    }
+
+    /**
+     * Sets the HTML description of the current option.
+     *
+     * @param descriptionHtml the HTML description
+     * @return the builder
+     */
+    public Builder descriptionHtml(String descriptionHtml) {
+      current();
+      if (descriptions == null) {
+        descriptions = new String[keys.length];
+      }
+      descriptions[size - 1] = descriptionHtml;
+      return this;
+    }
+
+    /**
+     * Sets a numeric value of the current option.
+     *
+     * @param columnKey the key of a numeric column
+     * @param value the value
+     * @return the builder
+     */
+    public Builder value(String columnKey, double value) {
+      final int c = column(columnKey, ColumnType.NUMERIC);
+      numbers[c][current()] = value;
+      return this;
+    }
+
+    /**
+     * Sets a date value of the current option.
+     *
+     * @param columnKey the key of a date column
+     * @param value the value
+     * @return the builder
+     */
+    public Builder value(String columnKey, Date value) {
+      Validator.notNull(value, "value cannot be null");
+      final int c = column(columnKey, ColumnType.DATETIME);
+      dates[c][current()] = value.getTime();
+      return this;
+    }
+
+    /**
+     * Sets a categorical or text value of the current option.
+     *
+     * @param columnKey the key of a categorical or text column
+     * @param value the value
+     * @return the builder
+     */
+    public Builder value(String columnKey, String value) {
+      Validator.notNull(value, "value cannot be null");
+      final Integer c = columnIndexes.get(columnKey);
+      Validator.isTrue((c != null) && (codes[c] != null), columnKey + " is not a categorical or text column");
+      Integer code = dictionaries.get(c).get(value);
+      if (code == null) {
+        code = dictionaryValues.get(c).size();
+        dictionaries.get(c).put(value, code);
+        dictionaryValues.get(c).add(value);
+      }
+      codes[c][current()] = code;
+      return this;
+    }
+
+    /**
+     * Builds the columnar problem.
+     *
+     * @return the columnar problem
+     */
+    public ColumnarProblem build() {
+      return new ColumnarProblem(this);
+    }
+
+    private int current() {
+      Validator.isTrue(size > 0, "option must be called before setting values");
+      return size - 1;
+    }
+
+    private int column(String columnKey, ColumnType type) {
+      final Integer c = columnIndexes.get(columnKey);
+      Validator.isTrue((c != null) && (columns.get(c).getType() == type), columnKey + " is not a " + type + " column");
+      return c;
+    }
+
+    private void allocate(int capacity) {
+      keys = keys == null ? new String[capacity] : Arrays.copyOf(keys, capacity);
+      names = names == null ? new String[capacity] : Arrays.copyOf(names, capacity);
+      if (descriptions != null) {
+        descriptions = Arrays.copyOf(descriptions, capacity);
+      }
+      for (int c = 0; c < columns.size(); c++) {
+        final ColumnType type = columns.get(c).getType();
+        if (type == ColumnType.NUMERIC) {
+          numbers[c] = numbers[c] == null ? new double[capacity] : Arrays.copyOf(numbers[c], capacity);
+        } else if (type == ColumnType.DATETIME) {
+          dates[c] = dates[c] == null ? new long[capacity] : Arrays.copyOf(dates[c], capacity);
+        } else {
+          codes[c] = codes[c] == null ? new int[capacity] : Arrays.copyOf(codes[c], capacity);
+        }
+      }
+    }
+  }
+
+  private final String subject;
+  private final List<Column> columns;
+  private final int size;
+  private final String[] keys;
+  private final String[] names;
+  private final String[] descriptions;
+  private final double[][] numbers;
+  private final long[][] dates;
+  private final int[][] codes;
+  private final String[][] dictionaries;
+
+  /**
+   * Instantiates a new columnar problem. The arrays of the builder are trimmed, so the builder must not be used again.
+   *
+   * @param builder the builder
+   */
+  protected ColumnarProblem(Builder builder) {
+    subject = builder.subject;
+    columns = builder.columns;
+    size = builder.size;
+    keys = Arrays.copyOf(builder.keys, size);
+    names = Arrays.copyOf(builder.names, size);
+    descriptions = builder.descriptions != null ? Arrays.copyOf(builder.descriptions, size) : null;
+    numbers = new double[columns.size()][];
+    dates = new long[columns.size()][];
+    codes = new int[columns.size()][];
+    dictionaries = new String[columns.size()][];
+    for (int c = 0; c < columns.size(); c++) {
+      if (builder.numbers[c] != null) {
+        numbers[c] = Arrays.copyOf(builder.numbers[c], size);
+      } else if (builder.dates[c] != null) {
+        dates[c] = Arrays.copyOf(builder.dates[c], size);
+      } else {
+        codes[c] = Arrays.copyOf(builder.codes[c], size);
+        dictionaries[c] = builder.dictionaryValues.get(c).toArray(new String[0]);
+      }
+    }
+  }
+
+  /**
+   * Gets the subject.
+   *
+   * @return the subject
+   */
+  public String getSubject() {
+    return subject;
+  }
+
+  /**
+   * Gets the columns.
+   *
+   * @return the columns
+   */
+  public List<Column> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Gets the number of options.
+   *
+   * @return the number of options
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Writes the problem as the JSON of a {@link Problem}. Dates are written as <code>yyyy-MM-dd'T'HH:mm:ss'Z'</code>
+   * in UTC, and missing values are left out.
+   *
+   * @param writer the writer
+   * @throws IOException if the JSON cannot be written
+   */
+  public void writeTo(JsonWriter writer) throws IOException {
+    final ColumnTypeAdapter columnAdapter = new ColumnTypeAdapter();
+    writer.beginObject();
+    if (subject != null) {
+      writer.name("subject").value(subject);
+    }
+    writer.name("columns").beginArray();
+    for (Column column : columns) {
+      columnAdapter.write(writer, column);
+    }
+    writer.endArray();
+
+    writer.name("options").beginArray();
+    for (int i = 0; i < size; i++) {
+      writer.beginObject();
+      writer.name("key").value(keys[i]);
+      if (names[i] != null) {
+        writer.name("name").value(names[i]);
+      }
+      if ((descriptions != null) && (descriptions[i] != null)) {
+        writer.name("description_html").value(descriptions[i]);
+      }
+      writer.name("values").beginObject();
+      for (int c = 0; c < columns.size(); c++) {
+        if (numbers[c] != null) {
+          if (!Double.isNaN(numbers[c][i])) {
+            writer.name(columns.get(c).getKey()).value(numbers[c][i]);
+          }
+        } else if (dates[c] != null) {
+          if (dates[c][i] != MISSING_DATE) {
+            writer.name(columns.get(c).getKey()).value(
+                DateParser.format(new Date(dates[c][i]), DateParser.Style.ISO_UTC));
+          }
+        } else if (codes[c][i] != MISSING_CODE) {
+          writer.name(columns.get(c).getKey()).value(dictionaries[c][codes[c][i]]);
+        }
+      }
+      writer.endObject();
+      writer.endObject();
+    }
+    writer.endArray();
+    writer.endObject();
+  }
+
+  /**
+   * Converts the problem to a {@link Problem}, for the APIs that need one. This creates the option maps the columnar
+   * layout avoids, so it should only be used for small problems.
+   *
+   * @return the problem
+   */
+  public Problem toProblem() {
+    final List<Option> options = new ArrayList<Option>(size);
+    for (int i = 0; i < size; i++) {
+      final Option option = new Option(keys[i], names[i]);
+      if (descriptions != null) {
+        option.setDescriptionHtml(descriptions[i]);
+      }
+      option.setValues(new HashMap<String, Object>());
+      for (int c = 0; c < columns.size(); c++) {
+        final String key = columns.get(c).getKey();
+        if (numbers[c] != null) {
+          if (!Double.isNaN(numbers[c][i])) {
+            option.value(key, numbers[c][i]);
+          }
+        } else if (dates[c] != null) {
+          if (dates[c][i] != MISSING_DATE) {
+            option.value(key, DateParser.format(new Date(dates[c][i]), DateParser.Style.ISO_UTC));
+          }
+        } else if (codes[c][i] != MISSING_CODE) {
+          option.value(key, dictionaries[c][codes[c][i]]);
+        }
+      }
+      options.add(option);
+    }
+    final Problem problem = new Problem(subject);
+    problem.setColumns(columns);
+    problem.setOptions(options);
+    return problem;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.tradeoff_analytics.v1.columnar;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+
+import com.google.gson.stream.JsonWriter;
+import com.ibm.watson.developer_cloud.http.HttpMediaType;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * RequestBody that writes a {@link ColumnarProblem} as JSON while the request is sent, so the request JSON is never
+ * held in memory as a string.
+ */
+public class ColumnarProblemRequestBody extends RequestBody {
+
+  private static final MediaType APPLICATION_JSON = MediaType.parse(HttpMediaType.APPLICATION_JSON);
+
+  private final ColumnarProblem problem;
+
+  /**
+   * Instantiates a new columnar problem request body.
+   *
+   * @param problem the problem
+   */
+  public ColumnarProblemRequestBody(ColumnarProblem problem) {
+    Validator.notNull(problem, "problem cannot be null");
+    this.problem = problem;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see okhttp3.RequestBody#contentType()
+   */
+  @Override
+  public MediaType contentType() {
+    return APPLICATION_JSON;
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see okhttp3.RequestBody#writeTo(okio.BufferedSink)
+   */
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    final JsonWriter writer =
+        new JsonWriter(new OutputStreamWriter(sink.outputStream(), Charset.forName("UTF-8")));
+    problem.writeTo(writer);
+    writer.flush();
+  }
+}
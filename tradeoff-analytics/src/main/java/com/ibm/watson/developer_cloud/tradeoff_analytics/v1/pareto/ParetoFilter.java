@@ -0,0 +1,394 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.tradeoff_analytics.v1.pareto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ibm.watson.developer_cloud.http.ServiceCall;
+import com.ibm.watson.developer_cloud.http.ServiceCallback;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.TradeoffAnalytics;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Dilemma;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.DominatingOption;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.ObjectiveDominationData;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Option;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Problem;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Resolution;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Solution;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.CategoricalColumn;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.Column;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.Column.ColumnType;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.Column.Goal;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.DateColumn;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.NumericColumn;
+import com.ibm.watson.developer_cloud.util.DateParser;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * Removes the dominated options of a {@link Problem} before it is sent to {@link TradeoffAnalytics}, and adds them
+ * back to the {@link Dilemma} as excluded solutions.
+ * <p>
+ * An option is dominated when another option is at least as good on every objective and better on at least one. A
+ * dominated option can never be on the front of the {@link Resolution}, so for large catalogs most of the options do
+ * not need to be sent. Objectives are compared with the goal of their column: numbers and dates by value, and
+ * categories by their position in the preference list of the column, or its range when there is no preference.
+ * <p>
+ * The filter is conservative: options the service may judge differently are always sent and never used to exclude
+ * others. Those are options with a missing or unparsable objective value, a value outside the range of its column, or
+ * a category that is not in the preference list. If an objective is a text column or has no goal, no option is
+ * removed.
+ * <p>
+ * The objective values are copied into one primitive array per objective, oriented so that higher is better, and the
+ * frontier is computed with the sort-filter-skyline algorithm: options are sorted by their sum of normalized values,
+ * which an option dominating another always exceeds, so each option only needs to be compared with the frontier found
+ * so far.
+ *
+ * <pre>
+ * ParetoFilter filter = new ParetoFilter(problem);
+ * Dilemma dilemma = filter.dilemmas(service, false, null).execute();
+ * </pre>
+ */
+public class ParetoFilter {
+
+  /** The status of the solutions the service excluded because another option dominates them. */
+  public static final String STATUS_EXCLUDED = "EXCLUDED";
+
+  private final Problem problem;
+  private final Problem filteredProblem;
+  private final List<Column> objectives = new ArrayList<Column>();
+
+  /** The objective values of the comparable options, one array per objective, higher is better. */
+  private double[][] values;
+
+  /** For every option, the index of the option that dominates it, or -1. */
+  private final int[] dominatedBy;
+  private int prunedCount;
+
+  /**
+   * Computes the Pareto frontier of a problem.
+   *
+   * @param problem the problem
+   */
+  public ParetoFilter(Problem problem) {
+    Validator.notNull(problem, "problem cannot be null");
+    Validator.notNull(problem.getOptions(), "problem options cannot be null");
+    this.problem = problem;
+
+    final List<Option> options = problem.getOptions();
+    dominatedBy = new int[options.size()];
+    Arrays.fill(dominatedBy, -1);
+    if (collectObjectives()) {
+      computeFrontier(options);
+    }
+
+    final List<Option> kept = new ArrayList<Option>(options.size() - prunedCount);
+    for (int i = 0; i < options.size(); i++) {
+      if (dominatedBy[i] < 0) {
+        kept.add(options.get(i));
+      }
+    }
+    filteredProblem = new Problem(problem.getSubject());
+    filteredProblem.setColumns(problem.getColumns());
+    filteredProblem.setOptions(kept);
+  }
+
+  /**
+   * Gets the problem with only the options that are not dominated.
+   *
+   * @return the filtered problem
+   */
+  public Problem getFilteredProblem() {
+    return filteredProblem;
+  }
+
+  /**
+   * Gets the number of options that were removed because another option dominates them.
+   *
+   * @return the number of removed options
+   */
+  public int getPrunedCount() {
+    return prunedCount;
+  }
+
+  /**
+   * Adds the removed options back to a dilemma computed for the filtered problem. The dilemma gets the original
+   * problem, and the resolution gets an {@link #STATUS_EXCLUDED} solution for every removed option, in the order of
+   * the options, with the option that dominates it and the objectives on which that option is better.
+   *
+   * @param dilemma the dilemma of the filtered problem
+   * @return the same dilemma, for the original problem
+   */
+  public Dilemma merge(Dilemma dilemma) {
+    Validator.notNull(dilemma, "dilemma cannot be null");
+    dilemma.setProblem(problem);
+    if (prunedCount == 0) {
+      return dilemma;
+    }
+    Resolution resolution = dilemma.getResolution();
+    if (resolution == null) {
+      resolution = new Resolution();
+      dilemma.setResolution(resolution);
+    }
+
+    final Map<String, Solution> returned = new HashMap<String, Solution>();
+    if (resolution.getSolutions() != null) {
+      for (Solution solution : resolution.getSolutions()) {
+        returned.put(solution.getSolutionRef(), solution);
+      }
+    }
+    final List<Option> options = problem.getOptions();
+    final List<Solution> solutions = new ArrayList<Solution>(options.size());
+    for (int i = 0; i < options.size(); i++) {
+      final Solution solution =
+          dominatedBy[i] < 0 ? returned.remove(options.get(i).getKey()) : excludedSolution(options, i);
+      if (solution != null) {
+        solutions.add(solution);
+      }
+    }
+    // solutions the service returned for keys it does not share with an option are kept at the end
+    solutions.addAll(returned.values());
+    resolution.setSolutions(solutions);
+    return dilemma;
+  }
+
+  /**
+   * Sends the filtered problem to the service, and {@link #merge(Dilemma) merges} the removed options back into the
+   * response.
+   *
+   * @param service the service
+   * @param generateVisualization if true the Dilemma contains information to generate visualization
+   * @param findPreferableOptions if true the Dilemma includes a refined subset of best candidate options
+   * @return the dilemma of the original problem
+   */
+  public ServiceCall<Dilemma> dilemmas(TradeoffAnalytics service, Boolean generateVisualization,
+      Boolean findPreferableOptions) {
+    Validator.notNull(service, "service cannot be null");
+    final ServiceCall<Dilemma> call = service.dilemmas(filteredProblem, generateVisualization, findPreferableOptions);
+    return new ServiceCall<Dilemma>() {
+      @Override
+      public Dilemma execute() {
+        return merge(call.execute());
+      }
+
+      @Override
+      public void enqueue(final ServiceCallback<? super Dilemma> callback) {
+        call.enqueue(new ServiceCallback<Dilemma>() {
+          @Override
+          public void onResponse(Dilemma response) {
+            callback.onResponse(merge(response));
+          }
+
+          @Override
+          public void onFailure(Exception e) {
+            callback.onFailure(e);
+          }
+        });
+      }
+
+      @Override
+      public CompletableFuture<Dilemma> rx() {
+        return call.rx().thenApply(new CompletableFuture.Fun<Dilemma, Dilemma>() {
+          @Override
+          public Dilemma apply(Dilemma response) {
+            return merge(response);
+          }
+        });
+      }
+    };
+  }
+
+  /**
+   * Collects the objective columns.
+   *
+   * @return false if an objective cannot be compared locally
+   */
+  private boolean collectObjectives() {
+    if (problem.getColumns() == null) {
+      return false;
+    }
+    for (Column column : problem.getColumns()) {
+      if (!Boolean.TRUE.equals(column.isObjective())) {
+        continue;
+      }
+      if ((column.getGoal() == null) || (column.getKey() == null) || (column.getType() == null)
+          || (column.getType() == ColumnType.TEXT)) {
+        return false;
+      }
+      objectives.add(column);
+    }
+    return !objectives.isEmpty();
+  }
+
+  private void computeFrontier(List<Option> options) {
+    final int objectiveCount = objectives.size();
+    values = new double[objectiveCount][options.size()];
+    final List<Integer> comparable = new ArrayList<Integer>(options.size());
+    for (int i = 0; i < options.size(); i++) {
+      if (readValues(options.get(i), i)) {
+        comparable.add(i);
+      }
+    }
+
+    // the sum of the values normalized to [0, 1] orders any dominating option before the options it dominates
+    final double[] score = new double[options.size()];
+    for (int o = 0; o < objectiveCount; o++) {
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int i : comparable) {
+        min = Math.min(min, values[o][i]);
+        max = Math.max(max, values[o][i]);
+      }
+      final double span = max > min ? max - min : 1;
+      for (int i : comparable) {
+        score[i] += (values[o][i] - min) / span;
+      }
+    }
+    Collections.sort(comparable, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer a, Integer b) {
+        return Double.compare(score[b], score[a]);
+      }
+    });
+
+    final int[] frontier = new int[comparable.size()];
+    int frontierSize = 0;
+    for (int candidate : comparable) {
+      int dominator = -1;
+      for (int f = 0; (f < frontierSize) && (dominator < 0); f++) {
+        if (dominates(frontier[f], candidate)) {
+          dominator = frontier[f];
+        }
+      }
+      if (dominator < 0) {
+        frontier[frontierSize++] = candidate;
+      } else {
+        dominatedBy[candidate] = dominator;
+        prunedCount++;
+      }
+    }
+  }
+
+  private boolean dominates(int a, int b) {
+    boolean better = false;
+    for (double[] objective : values) {
+      if (objective[a] < objective[b]) {
+        return false;
+      }
+      better |= objective[a] > objective[b];
+    }
+    return better;
+  }
+
+  /**
+   * Reads the objective values of an option, oriented so that higher is better.
+   *
+   * @return false if a value is missing, out of range or cannot be compared
+   */
+  private boolean readValues(Option option, int index) {
+    final Map<String, Object> optionValues = option.getValues();
+    if ((optionValues == null) || (option.getKey() == null)) {
+      return false;
+    }
+    for (int o = 0; o < objectives.size(); o++) {
+      final Column column = objectives.get(o);
+      final double value = readValue(column, optionValues.get(column.getKey()));
+      if (Double.isNaN(value)) {
+        return false;
+      }
+      values[o][index] = column.getGoal() == Goal.MAX ? value : -value;
+    }
+    return true;
+  }
+
+  /**
+   * Reads an objective value.
+   *
+   * @return the value, or NaN if it is missing, out of range or cannot be compared
+   */
+  private static double readValue(Column column, Object value) {
+    if (value == null) {
+      return Double.NaN;
+    }
+    if (column instanceof CategoricalColumn) {
+      final CategoricalColumn categorical = (CategoricalColumn) column;
+      if ((categorical.getRange() != null) && !categorical.getRange().contains(value)) {
+        return Double.NaN;
+      }
+      final List<String> order =
+          categorical.getPreference() != null ? categorical.getPreference() : categorical.getRange();
+      final int position = order != null ? order.indexOf(value) : -1;
+      return position < 0 ? Double.NaN : position;
+    }
+    if (column instanceof DateColumn) {
+      final DateColumn dateColumn = (DateColumn) column;
+      final Date date = value instanceof Date ? (Date) value : value instanceof Number
+          ? new Date(((Number) value).longValue()) : DateParser.parse(value.toString());
+      if ((date == null) || ((dateColumn.getLow() != null) && date.before(dateColumn.getLow()))
+          || ((dateColumn.getHigh() != null) && date.after(dateColumn.getHigh()))) {
+        return Double.NaN;
+      }
+      return date.getTime();
+    }
+    final double number = toDouble(value);
+    if (column instanceof NumericColumn) {
+      final NumericColumn numeric = (NumericColumn) column;
+      if (((numeric.getLow() != null) && (number < numeric.getLow()))
+          || ((numeric.getHigh() != null) && (number > numeric.getHigh()))) {
+        return Double.NaN;
+      }
+    }
+    return number;
+  }
+
+  private static double toDouble(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    try {
+      return Double.parseDouble(value.toString());
+    } catch (NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
+  private Solution excludedSolution(List<Option> options, int index) {
+    final int dominator = dominatedBy[index];
+    final List<ObjectiveDominationData> better = new ArrayList<ObjectiveDominationData>();
+    for (int o = 0; o < objectives.size(); o++) {
+      final double difference = values[o][dominator] - values[o][index];
+      if (difference > 0) {
+        final ObjectiveDominationData data = new ObjectiveDominationData();
+        data.setObjectiveKey(objectives.get(o).getKey());
+        data.setDifference(difference);
+        better.add(data);
+      }
+    }
+    final DominatingOption dominatingOption = new DominatingOption();
+    dominatingOption.setSolutionKey(options.get(dominator).getKey());
+    dominatingOption.setObjectives(better);
+
+    final Solution solution = new Solution();
+    solution.setSolutionRef(options.get(index).getKey());
+    solution.setStatus(STATUS_EXCLUDED);
+    solution.setExcludedBy(Collections.singletonList(dominatingOption));
+    return solution;
+  }
+}
@@ -13,10 +13,8 @@
 package com.ibm.watson.developer_cloud.tradeoff_analytics.v1.util;
 
 import java.io.IOException;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -32,13 +30,13 @@ import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.Column.
 import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.DateColumn;
 import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.NumericColumn;
 import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.TextColumn;
+import com.ibm.watson.developer_cloud.util.DateParser;
 
 /**
  * Type adapter to transform JSON into a {@link Column} and vice versa.
  */
 public class ColumnTypeAdapter extends TypeAdapter<Column> {
 
-  private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
   private static final String DESCRIPTION = "description";
   private static final String FORMAT = "format";
   private static final String FULL_NAME = "full_name";
@@ -54,7 +52,6 @@ public class ColumnTypeAdapter extends TypeAdapter<Column> {
   private static final String SIGNIFICANT_GAIN = "significant_gain";
   private static final String SIGNIFICANT_LOSS = "significant_loss";
   private static final String TYPE2 = "type";
-  private static final DateFormat DATE_FORMATTER = new SimpleDateFormat(DATE_FORMAT);
 
   /**
    * Write categorical column.
@@ -94,8 +91,8 @@ public class ColumnTypeAdapter extends TypeAdapter<Column> {
   private void writeDateColumn(DateColumn dateCol, JsonWriter writer) throws IOException {
     if (dateCol.getLow() != null) {
       writer.name(RANGE).beginObject();
-      writer.name(LOW).value(DATE_FORMATTER.format(dateCol.getLow()));
-      writer.name(HIGH).value(DATE_FORMATTER.format(dateCol.getHigh()));
+      writer.name(LOW).value(DateParser.format(dateCol.getLow(), DateParser.Style.ISO_UTC));
+      writer.name(HIGH).value(DateParser.format(dateCol.getHigh(), DateParser.Style.ISO_UTC));
       writer.endObject();
     }
   }
@@ -210,10 +207,12 @@ public class ColumnTypeAdapter extends TypeAdapter<Column> {
     } else if (type == ColumnType.DATETIME) {
       column = new DateColumn();
       if (low != null) {
-        try {
-          ((DateColumn) column).withRange(DATE_FORMATTER.parse(low), DATE_FORMATTER.parse(high));
-        } catch (final ParseException e) {
-          LOG.log(Level.SEVERE, "Error parsing the date", e);
+        final Date lowDate = DateParser.parse(low);
+        final Date highDate = DateParser.parse(high);
+        if ((lowDate != null) && (highDate != null)) {
+          ((DateColumn) column).withRange(lowDate, highDate);
+        } else {
+          LOG.log(Level.SEVERE, "Error parsing the date range " + low + " - " + high);
         }
       }
     } else if (type == ColumnType.NUMERIC) {
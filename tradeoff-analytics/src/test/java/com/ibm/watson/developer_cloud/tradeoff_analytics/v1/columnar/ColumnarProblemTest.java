@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.tradeoff_analytics.v1.columnar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.TradeoffAnalytics;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Dilemma;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Option;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Problem;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.CategoricalColumn;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.Column;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.Column.Goal;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.DateColumn;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.NumericColumn;
+import com.ibm.watson.developer_cloud.util.GsonSingleton;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for {@link ColumnarProblem}.
+ */
+public class ColumnarProblemTest extends WatsonServiceUnitTest {
+
+  private List<Column> columns;
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    final NumericColumn price = new NumericColumn();
+    price.key("price").goal(Goal.MIN).objective(true);
+    final CategoricalColumn brand = new CategoricalColumn();
+    brand.key("brand").goal(Goal.MIN).objective(true);
+    brand.range(Arrays.asList("Samsung", "Apple"));
+    final DateColumn released = new DateColumn();
+    released.key("released").goal(Goal.MAX).objective(false);
+    columns = Arrays.<Column>asList(price, brand, released);
+  }
+
+  private ColumnarProblem build(int options) {
+    final ColumnarProblem.Builder builder = new ColumnarProblem.Builder("phones", columns);
+    for (int i = 0; i < options; i++) {
+      builder.option(String.valueOf(i), "phone " + i).value("price", 100 + i)
+          .value("brand", i % 2 == 0 ? "Samsung" : "Apple");
+      if (i % 3 == 0) {
+        builder.value("released", new Date(1492974586000L));
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Test that the JSON is read back as the same problem as {@link ColumnarProblem#toProblem()}.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testWriteTo() throws Exception {
+    final ColumnarProblem columnar = build(100);
+    final StringWriter json = new StringWriter();
+    columnar.writeTo(new JsonWriter(json));
+
+    final Problem problem = GsonSingleton.getGson().fromJson(json.toString(), Problem.class);
+
+    assertEquals(100, columnar.size());
+    assertEquals("phones", problem.getSubject());
+    assertEquals(3, problem.getColumns().size());
+    assertEquals(100, problem.getOptions().size());
+    final Option first = problem.getOptions().get(0);
+    assertEquals("0", first.getKey());
+    assertEquals(100.0, first.getValues().get("price"));
+    assertEquals("Samsung", first.getValues().get("brand"));
+    assertEquals("2017-04-23T19:09:46Z", first.getValues().get("released"));
+    assertFalse(problem.getOptions().get(1).getValues().containsKey("released"));
+    assertEquals(columnar.toProblem().getOptions().get(99).getValues(), problem.getOptions().get(99).getValues());
+  }
+
+  /**
+   * Test that a value of the wrong type is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongColumnType() {
+    new ColumnarProblem.Builder("phones", columns).option("1", "one").value("brand", 1);
+  }
+
+  /**
+   * Test that values cannot be set before an option is added.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testValueBeforeOption() {
+    new ColumnarProblem.Builder("phones", columns).value("price", 1);
+  }
+
+  /**
+   * Test that the service streams the columnar problem as the request body.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testDilemmas() throws Exception {
+    final TradeoffAnalytics service = new TradeoffAnalytics("", "");
+    service.setEndPoint(getMockWebServerUrl());
+    server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody("{\"resolution\": {}}"));
+
+    final Dilemma dilemma = service.dilemmas(build(3), true, null).execute();
+    final RecordedRequest request = server.takeRequest();
+
+    assertNotNull(dilemma.getResolution());
+    assertEquals("/v1/dilemmas?generate_visualization=true", request.getPath());
+    final JsonObject body = new JsonParser().parse(request.getBody().readUtf8()).getAsJsonObject();
+    assertEquals(3, body.getAsJsonArray("options").size());
+    assertEquals("Apple", body.getAsJsonArray("options").get(1).getAsJsonObject().getAsJsonObject("values")
+        .get("brand").getAsString());
+  }
+}
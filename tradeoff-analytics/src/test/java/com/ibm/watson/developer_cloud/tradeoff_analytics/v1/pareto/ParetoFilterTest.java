@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.tradeoff_analytics.v1.pareto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.TradeoffAnalytics;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Dilemma;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Option;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Problem;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.Solution;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.CategoricalColumn;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.Column;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.Column.Goal;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.DateColumn;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.NumericColumn;
+import com.ibm.watson.developer_cloud.tradeoff_analytics.v1.model.column.TextColumn;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Unit tests for {@link ParetoFilter}.
+ */
+public class ParetoFilterTest extends WatsonServiceUnitTest {
+
+  private TradeoffAnalytics service;
+
+  /*
+   * (non-Javadoc)
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new TradeoffAnalytics("", "");
+    service.setEndPoint(getMockWebServerUrl());
+
+    // puts every option it receives on the front
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        final JsonObject problem = new JsonParser().parse(request.getBody().clone().readUtf8()).getAsJsonObject();
+        final JsonArray solutions = new JsonArray();
+        for (JsonElement option : problem.getAsJsonArray("options")) {
+          final JsonObject solution = new JsonObject();
+          solution.add("solution_ref", option.getAsJsonObject().get("key"));
+          solution.addProperty("status", "FRONT");
+          solutions.add(solution);
+        }
+        final JsonObject resolution = new JsonObject();
+        resolution.add("solutions", solutions);
+        final JsonObject dilemma = new JsonObject();
+        dilemma.add("problem", problem);
+        dilemma.add("resolution", resolution);
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(dilemma.toString());
+      }
+    });
+  }
+
+  private static Problem problem(List<Column> columns, Option... options) {
+    final Problem problem = new Problem("phones");
+    problem.setColumns(columns);
+    problem.setOptions(new ArrayList<Option>(Arrays.asList(options)));
+    return problem;
+  }
+
+  private static List<Column> priceAndRating() {
+    final NumericColumn price = new NumericColumn();
+    price.key("price").goal(Goal.MIN).objective(true);
+    final NumericColumn rating = new NumericColumn();
+    rating.key("rating").goal(Goal.MAX).objective(true);
+    rating.range(0, 5);
+    final NumericColumn weight = new NumericColumn();
+    weight.key("weight").goal(Goal.MIN).objective(false);
+    return Arrays.<Column>asList(price, rating, weight);
+  }
+
+  private static Option option(String key, Object price, Object rating) {
+    final Option option = new Option(key, key).value("weight", 100);
+    if (price != null) {
+      option.value("price", price);
+    }
+    if (rating != null) {
+      option.value("rating", rating);
+    }
+    return option;
+  }
+
+  private static List<String> keys(Problem problem) {
+    final List<String> keys = new ArrayList<String>();
+    for (Option option : problem.getOptions()) {
+      keys.add(option.getKey());
+    }
+    return keys;
+  }
+
+  /**
+   * Test that dominated options are removed, and that options the service may judge differently are kept.
+   */
+  @Test
+  public void testRemovesDominatedOptions() {
+    final Problem problem = problem(priceAndRating(), option("a", 10, 4), option("b", 12, 4), option("c", 8, 3),
+        option("d", 20, 2), option("e", 9, null), option("f", 5, 7), option("g", 10, 4), option("h", 30, 1.0));
+
+    final ParetoFilter filter = new ParetoFilter(problem);
+
+    assertEquals(Arrays.asList("a", "c", "e", "f", "g"), keys(filter.getFilteredProblem()));
+    assertEquals(3, filter.getPrunedCount());
+    assertEquals(8, problem.getOptions().size());
+  }
+
+  /**
+   * Test categorical preferences and dates.
+   */
+  @Test
+  public void testCategoriesAndDates() {
+    final CategoricalColumn brand = new CategoricalColumn();
+    brand.key("brand").goal(Goal.MIN).objective(true);
+    brand.setPreference(Arrays.asList("Samsung", "Apple", "LG"));
+    final DateColumn released = new DateColumn();
+    released.key("released").goal(Goal.MAX).objective(true);
+    final List<Column> columns = Arrays.<Column>asList(brand, released);
+
+    final Problem problem = problem(columns,
+        new Option("a", "a").value("brand", "Apple").value("released", "2016-01-01T00:00:00Z"),
+        new Option("b", "b").value("brand", "LG").value("released", "2015-06-01T00:00:00Z"),
+        new Option("c", "c").value("brand", "Samsung").value("released", "2015-01-01T00:00:00Z"),
+        new Option("d", "d").value("brand", "Nokia").value("released", "2014-01-01T00:00:00Z"));
+
+    final ParetoFilter filter = new ParetoFilter(problem);
+
+    assertEquals(Arrays.asList("a", "c", "d"), keys(filter.getFilteredProblem()));
+  }
+
+  /**
+   * Test that nothing is removed when an objective cannot be compared locally.
+   */
+  @Test
+  public void testTextObjectiveKeepsEverything() {
+    final TextColumn text = new TextColumn();
+    text.key("color").goal(Goal.MAX).objective(true);
+    final List<Column> columns = new ArrayList<Column>(priceAndRating());
+    columns.add(text);
+
+    final ParetoFilter filter = new ParetoFilter(problem(columns, option("a", 10, 4), option("b", 12, 4)));
+
+    assertEquals(0, filter.getPrunedCount());
+    assertEquals(2, filter.getFilteredProblem().getOptions().size());
+  }
+
+  /**
+   * Test that only the frontier is sent and the removed options come back as excluded solutions.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testDilemmasMergesExcludedOptions() throws Exception {
+    final Problem problem = problem(priceAndRating(), option("a", 10, 4), option("b", 12, 4), option("c", 8, 3),
+        option("d", 20, 2));
+    final ParetoFilter filter = new ParetoFilter(problem);
+
+    final Dilemma dilemma = filter.dilemmas(service, false, null).execute();
+
+    final String body = server.takeRequest().getBody().readUtf8();
+    assertTrue(body.contains("\"a\""));
+    assertFalse(body.contains("\"b\""));
+    assertEquals(problem, dilemma.getProblem());
+    final List<Solution> solutions = dilemma.getResolution().getSolutions();
+    assertEquals(4, solutions.size());
+    assertEquals("FRONT", solutions.get(0).getStatus());
+    assertEquals("b", solutions.get(1).getSolutionRef());
+    assertEquals(ParetoFilter.STATUS_EXCLUDED, solutions.get(1).getStatus());
+    assertEquals("a", solutions.get(1).getExcludedBy().get(0).getSolutionKey());
+    assertEquals("price", solutions.get(1).getExcludedBy().get(0).getObjectives().get(0).getObjectiveKey());
+    assertEquals(2.0, solutions.get(1).getExcludedBy().get(0).getObjectives().get(0).getDifference(), 0);
+    assertEquals("FRONT", solutions.get(2).getStatus());
+    assertEquals(ParetoFilter.STATUS_EXCLUDED, solutions.get(3).getStatus());
+
+    final Dilemma async = filter.dilemmas(service, false, null).rx().get();
+    assertEquals(4, async.getResolution().getSolutions().size());
+  }
+}
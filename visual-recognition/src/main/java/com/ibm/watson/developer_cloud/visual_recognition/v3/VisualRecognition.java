@@ -29,10 +29,14 @@ import com.ibm.watson.developer_cloud.visual_recognition.v3.model.DetectedFaces;
 import com.ibm.watson.developer_cloud.visual_recognition.v3.model.GetClassifierOptions;
 import com.ibm.watson.developer_cloud.visual_recognition.v3.model.ListClassifiersOptions;
 import com.ibm.watson.developer_cloud.visual_recognition.v3.model.UpdateClassifierOptions;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.training.ClassifierTrainingSet;
+import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
+import okio.BufferedSink;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * **Important**: As of September 8, 2017, the beta period for Similarity Search is closed. For more information, see
@@ -197,6 +201,31 @@ public class VisualRecognition extends WatsonService {
     return createServiceCall(builder.build(), ResponseConverterUtils.getObject(Classifier.class));
   }
 
+  /**
+   * Create a classifier from a training set. The zip of each class is written while the request is sent; compare the
+   * {@link ClassifierTrainingSet#getContentHash() content hash} of the set with the hash of the set an existing
+   * classifier was trained with to avoid retraining on unchanged images.
+   *
+   * @param name the name of the new classifier
+   * @param trainingSet the training set, with at least two classes or one class and negative examples
+   * @return the {@link Classifier} with the response
+   */
+  public ServiceCall<Classifier> createClassifier(String name, ClassifierTrainingSet trainingSet) {
+    Validator.isTrue((name != null) && !name.isEmpty(), "name cannot be null or empty");
+    Validator.notNull(trainingSet, "trainingSet cannot be null");
+    Validator.isTrue((trainingSet.getClassNames().size() > 1)
+        || (!trainingSet.getClassNames().isEmpty() && trainingSet.hasNegativeExamples()),
+        "trainingSet must have at least two classes or one class and negative examples");
+    RequestBuilder builder = RequestBuilder.post("/v3/classifiers");
+    builder.query(VERSION, versionDate);
+    MultipartBody.Builder multipartBuilder = new MultipartBody.Builder();
+    multipartBuilder.setType(MultipartBody.FORM);
+    multipartBuilder.addFormDataPart("name", name);
+    addTrainingSet(multipartBuilder, trainingSet);
+    builder.body(multipartBuilder.build());
+    return createServiceCall(builder.build(), ResponseConverterUtils.getObject(Classifier.class));
+  }
+
   /**
    * Delete a custom classifier.
    *
@@ -272,4 +301,65 @@ public class VisualRecognition extends WatsonService {
     return createServiceCall(builder.build(), ResponseConverterUtils.getObject(Classifier.class));
   }
 
+  /**
+   * Update a classifier from a training set. The zip of each class is written while the request is sent.
+   *
+   * @param classifierId the ID of the classifier
+   * @param trainingSet the training set
+   * @return the {@link Classifier} with the response
+   */
+  public ServiceCall<Classifier> updateClassifier(String classifierId, ClassifierTrainingSet trainingSet) {
+    Validator.isTrue((classifierId != null) && !classifierId.isEmpty(), "classifierId cannot be null or empty");
+    Validator.notNull(trainingSet, "trainingSet cannot be null");
+    RequestBuilder builder = RequestBuilder.post(String.format("/v3/classifiers/%s", classifierId));
+    builder.query(VERSION, versionDate);
+    MultipartBody.Builder multipartBuilder = new MultipartBody.Builder();
+    multipartBuilder.setType(MultipartBody.FORM);
+    addTrainingSet(multipartBuilder, trainingSet);
+    builder.body(multipartBuilder.build());
+    return createServiceCall(builder.build(), ResponseConverterUtils.getObject(Classifier.class));
+  }
+
+  /**
+   * Adds a zip part per class of a training set, and one for its negative examples.
+   *
+   * @param multipartBuilder the multipart builder
+   * @param trainingSet the training set
+   */
+  private void addTrainingSet(MultipartBody.Builder multipartBuilder, final ClassifierTrainingSet trainingSet) {
+    for (final String className : trainingSet.getClassNames()) {
+      multipartBuilder.addFormDataPart(className + "_positive_examples", className + ".zip", new ZipRequestBody() {
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+          trainingSet.writePositiveExamples(className, sink.outputStream());
+        }
+      });
+    }
+    if (trainingSet.hasNegativeExamples()) {
+      multipartBuilder.addFormDataPart("negative_examples", "negative_examples.zip", new ZipRequestBody() {
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+          trainingSet.writeNegativeExamples(sink.outputStream());
+        }
+      });
+    }
+  }
+
+  /**
+   * A zip written while the request is sent, whose length is not known in advance.
+   */
+  private abstract static class ZipRequestBody extends RequestBody {
+    private static final MediaType APPLICATION_ZIP = MediaType.parse("application/zip");
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see okhttp3.RequestBody#contentType()
+     */
+    @Override
+    public MediaType contentType() {
+      return APPLICATION_ZIP;
+    }
+  }
+
 }
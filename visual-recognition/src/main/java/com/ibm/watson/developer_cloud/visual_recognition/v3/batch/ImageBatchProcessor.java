@@ -0,0 +1,650 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.visual_recognition.v3.batch;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.ibm.watson.developer_cloud.service.exception.TooManyRequestsException;
+import com.ibm.watson.developer_cloud.util.AdaptiveConcurrencyLimiter;
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.FutureUtils;
+import com.ibm.watson.developer_cloud.util.Validator;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.VisualRecognition;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.image.ImageResizer;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.image.ResizedImage;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.model.ClassifiedImage;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.model.ClassifiedImages;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.model.ClassifyOptions;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.model.DetectFacesOptions;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.model.DetectedFaces;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.model.ImageWithFaces;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * Classifies, or detects faces in, any number of images with {@link VisualRecognition#classify(ClassifyOptions)} and
+ * {@link VisualRecognition#detectFaces(DetectFacesOptions)}, streaming the result of each image to an
+ * {@link ImageSink}.
+ * <p>
+ * Images are read from an iterator and zipped in memory into batches that respect the limits of the service, at most
+ * {@value #DEFAULT_MAX_BATCH_IMAGES} images ({@value #MAX_FACES_BATCH_IMAGES} to detect faces) and
+ * {@value #DEFAULT_MAX_BATCH_BYTES} bytes by default. Images are already compressed, so they are stored without
+ * compression. Each batch is sent with {@link com.ibm.watson.developer_cloud.http.ServiceCall#rx()} as soon as it is
+ * full; the number of batches in flight is adapted with an {@link AdaptiveConcurrencyLimiter}, and batches that fail
+ * with a {@link AdaptiveConcurrencyLimiter#isRetryable(Throwable) retryable} error are retried with a backoff. At most
+ * {@value #DEFAULT_MAX_CONCURRENCY} batches by default are held in memory besides the one being filled.
+ * <p>
+ * Images can be downscaled before they are zipped by setting an {@link ImageResizer} on the builder; they are resized
+ * on the threads of the resizer while the previous images are zipped and sent.
+ * <p>
+ * Every image is stored under a name made unique by its position in the input, which maps the images of the response
+ * back to their source whatever order the service answers in.
+ *
+ * <pre>
+ * ImageBatchProcessor processor = new ImageBatchProcessor.Builder(service).build();
+ * ImageBatchResult result = processor.classify(images, null, new ImageSink&lt;ClassifiedImage&gt;() {
+ *   public void accept(long index, ImageSource image, ClassifiedImage result) {
+ *     classifications.put(image.getFile(), result.getClassifiers());
+ *   }
+ * });
+ * </pre>
+ */
+public class ImageBatchProcessor {
+
+  /** The default maximum number of images in a batch, which is the limit of the service to classify images. */
+  public static final int DEFAULT_MAX_BATCH_IMAGES = 20;
+
+  /** The maximum number of images in a batch to detect faces, which is the limit of the service. */
+  public static final int MAX_FACES_BATCH_IMAGES = 15;
+
+  /** The default maximum size of the zip of a batch, in bytes, which is the limit of the service. */
+  public static final long DEFAULT_MAX_BATCH_BYTES = 5 * 1024 * 1024;
+
+  /** The default number of concurrent batches at the start of a run. */
+  public static final int DEFAULT_INITIAL_CONCURRENCY = 2;
+
+  /** The default maximum number of concurrent batches. */
+  public static final int DEFAULT_MAX_CONCURRENCY = 5;
+
+  /** The default number of retries of a batch that failed with a retryable error. */
+  public static final int DEFAULT_MAX_RETRIES = 3;
+
+  private static final Logger LOG = Logger.getLogger(ImageBatchProcessor.class.getName());
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String ZIP_FILENAME = "images.zip";
+  private static final String ZIP_CONTENT_TYPE = "application/zip";
+
+  /** The size of the headers of a zip entry, without its name, and of the end of the central directory. */
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final VisualRecognition service;
+    private int maxBatchImages = DEFAULT_MAX_BATCH_IMAGES;
+    private long maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+    private int initialConcurrency = DEFAULT_INITIAL_CONCURRENCY;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private ImageResizer resizer;
+
+    /**
+     * Instantiates a new builder.
+     *
+     * @param service the service used to process the images
+     */
+    public Builder(VisualRecognition service) {
+      this.service = service;
+    }
+
+    /**
+     * Set the maximum number of images in a batch. Defaults to {@value ImageBatchProcessor#DEFAULT_MAX_BATCH_IMAGES};
+     * batches to detect faces never hold more than {@value ImageBatchProcessor#MAX_FACES_BATCH_IMAGES} images.
+     *
+     * @param maxBatchImages the maximum number of images
+     * @return the builder
+     */
+    public Builder maxBatchImages(int maxBatchImages) {
+      this.maxBatchImages = maxBatchImages;
+      return this;
+    }
+
+    /**
+     * Set the maximum size of the zip of a batch, in bytes. A larger image fails. Defaults to
+     * {@value ImageBatchProcessor#DEFAULT_MAX_BATCH_BYTES}.
+     *
+     * @param maxBatchBytes the maximum size
+     * @return the builder
+     */
+    public Builder maxBatchBytes(long maxBatchBytes) {
+      this.maxBatchBytes = maxBatchBytes;
+      return this;
+    }
+
+    /**
+     * Set the number of concurrent batches at the start of a run. Defaults to
+     * {@value ImageBatchProcessor#DEFAULT_INITIAL_CONCURRENCY}.
+     *
+     * @param initialConcurrency the initial concurrency
+     * @return the builder
+     */
+    public Builder initialConcurrency(int initialConcurrency) {
+      this.initialConcurrency = initialConcurrency;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of concurrent batches. Defaults to {@value ImageBatchProcessor#DEFAULT_MAX_CONCURRENCY}.
+     *
+     * @param maxConcurrency the maximum concurrency
+     * @return the builder
+     */
+    public Builder maxConcurrency(int maxConcurrency) {
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * Set how many times a batch that failed with a retryable error is retried. Defaults to
+     * {@value ImageBatchProcessor#DEFAULT_MAX_RETRIES}.
+     *
+     * @param maxRetries the maximum number of retries
+     * @return the builder
+     */
+    public Builder maxRetries(int maxRetries) {
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    /**
+     * Set the resizer that downscales the images before they are zipped, in parallel with the zipping and sending of
+     * the batches. Images are not resized by default.
+     *
+     * @param resizer the resizer
+     * @return the builder
+     */
+    public Builder resizer(ImageResizer resizer) {
+      this.resizer = resizer;
+      return this;
+    }
+
+    /**
+     * Builds the image batch processor.
+     *
+     * @return the image batch processor
+     */
+    public ImageBatchProcessor build() {
+      return new ImageBatchProcessor(this);
+    }
+  }
+
+  private final VisualRecognition service;
+  private final int maxBatchImages;
+  private final long maxBatchBytes;
+  private final int initialConcurrency;
+  private final int maxConcurrency;
+  private final int maxRetries;
+  private final ImageResizer resizer;
+
+  /**
+   * Instantiates a new image batch processor.
+   *
+   * @param builder the builder
+   */
+  protected ImageBatchProcessor(Builder builder) {
+    Validator.notNull(builder.service, "service cannot be null");
+    Validator.isTrue(builder.maxBatchImages > 0, "maxBatchImages must be greater than 0");
+    Validator.isTrue(builder.maxBatchBytes > 0, "maxBatchBytes must be greater than 0");
+    Validator.isTrue(builder.initialConcurrency > 0, "initialConcurrency must be greater than 0");
+    Validator.isTrue(builder.maxConcurrency >= builder.initialConcurrency,
+        "maxConcurrency must be greater than or equal to initialConcurrency");
+    Validator.isTrue(builder.maxRetries >= 0, "maxRetries cannot be negative");
+    service = builder.service;
+    maxBatchImages = builder.maxBatchImages;
+    maxBatchBytes = builder.maxBatchBytes;
+    initialConcurrency = builder.initialConcurrency;
+    maxConcurrency = builder.maxConcurrency;
+    maxRetries = builder.maxRetries;
+    resizer = builder.resizer;
+  }
+
+  /**
+   * Classifies every image of the input and waits until the sink received all of the results.
+   *
+   * @param images the images to classify
+   * @param options the parameters and language of the classification, or null; its images file is ignored
+   * @param sink the sink that receives the classified images
+   * @return the result of the run
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public ImageBatchResult classify(Iterator<ImageSource> images, ClassifyOptions options,
+      ImageSink<ClassifiedImage> sink) throws InterruptedException {
+    Validator.notNull(images, "images cannot be null");
+    Validator.notNull(sink, "sink cannot be null");
+    final ClassifyOptions template = (options != null) ? options : new ClassifyOptions.Builder().build();
+    return new Run<ClassifiedImage>(sink, maxBatchImages) {
+      @Override
+      CompletableFuture<List<ClassifiedImage>> send(ByteString zip) {
+        final ClassifyOptions batchOptions = template.newBuilder().imagesFile(new Buffer().write(zip).inputStream())
+            .imagesFilename(ZIP_FILENAME).imagesFileContentType(ZIP_CONTENT_TYPE).build();
+        return service.classify(batchOptions).rx()
+            .thenApply(new CompletableFuture.Fun<ClassifiedImages, List<ClassifiedImage>>() {
+              @Override
+              public List<ClassifiedImage> apply(ClassifiedImages response) {
+                return response.getImages();
+              }
+            });
+      }
+
+      @Override
+      String imageName(ClassifiedImage result) {
+        return result.getImage();
+      }
+    }.execute(images);
+  }
+
+  /**
+   * Detects faces in every image of the input and waits until the sink received all of the results.
+   *
+   * @param images the images
+   * @param sink the sink that receives the images with their faces
+   * @return the result of the run
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public ImageBatchResult detectFaces(Iterator<ImageSource> images, ImageSink<ImageWithFaces> sink)
+      throws InterruptedException {
+    Validator.notNull(images, "images cannot be null");
+    Validator.notNull(sink, "sink cannot be null");
+    return new Run<ImageWithFaces>(sink, Math.min(maxBatchImages, MAX_FACES_BATCH_IMAGES)) {
+      @Override
+      CompletableFuture<List<ImageWithFaces>> send(ByteString zip) {
+        final DetectFacesOptions options = new DetectFacesOptions.Builder()
+            .imagesFile(new Buffer().write(zip).inputStream()).imagesFilename(ZIP_FILENAME)
+            .imagesFileContentType(ZIP_CONTENT_TYPE).build();
+        return service.detectFaces(options).rx()
+            .thenApply(new CompletableFuture.Fun<DetectedFaces, List<ImageWithFaces>>() {
+              @Override
+              public List<ImageWithFaces> apply(DetectedFaces response) {
+                return response.getImages();
+              }
+            });
+      }
+
+      @Override
+      String imageName(ImageWithFaces result) {
+        return result.getImage();
+      }
+    }.execute(images);
+  }
+
+  /**
+   * An image read from the input, and resized if the processor has a resizer.
+   */
+  private final class Prepared {
+    private final long index;
+    private final ImageSource source;
+    private String filename;
+    private ByteString data;
+    private Future<ResizedImage> resized;
+    private IOException error;
+
+    /**
+     * Reads an image and submits it to the resizer.
+     */
+    Prepared(long index, ImageSource source) throws InterruptedException {
+      this.index = index;
+      this.source = source;
+      filename = source.getFilename();
+      try {
+        data = source.read((resizer != null) ? resizer.getMaxSourceBytes() : maxBatchBytes);
+        if (resizer != null) {
+          resized = resizer.submit(filename, data);
+          data = null;
+        }
+      } catch (IOException e) {
+        error = e;
+      }
+    }
+
+    /**
+     * Waits for the resized image.
+     */
+    void resolve() throws IOException, InterruptedException {
+      if (error != null) {
+        throw error;
+      }
+      if (resized != null) {
+        final ResizedImage image;
+        try {
+          image = resized.get();
+        } catch (ExecutionException e) {
+          throw new IOException("Could not resize " + source, e.getCause());
+        }
+        filename = image.getFilename();
+        data = new Buffer().readFrom(image.getInputStream()).readByteString();
+      }
+    }
+  }
+
+  /**
+   * The images of a batch and their zip.
+   */
+  private static final class Batch {
+    private final List<Long> indexes = new ArrayList<Long>();
+    private final List<ImageSource> images = new ArrayList<ImageSource>();
+    private final Map<String, Integer> positions = new HashMap<String, Integer>();
+    private final Buffer buffer = new Buffer();
+    private final ZipOutputStream zip = new ZipOutputStream(buffer.outputStream());
+    private long centralDirectorySize = END_OF_CENTRAL_DIRECTORY_SIZE;
+
+    Batch() {
+      zip.setMethod(ZipOutputStream.STORED);
+    }
+
+    int size() {
+      return images.size();
+    }
+
+    /**
+     * Gets the size of the zip if an image was added to it.
+     */
+    long sizeWith(String name, ByteString image) {
+      final int nameLength = name.getBytes(UTF_8).length;
+      return buffer.size() + LOCAL_HEADER_SIZE + nameLength + image.size() + centralDirectorySize
+          + CENTRAL_HEADER_SIZE + nameLength;
+    }
+
+    void add(long index, ImageSource source, String name, ByteString image) throws IOException {
+      final byte[] bytes = image.toByteArray();
+      final CRC32 crc = new CRC32();
+      crc.update(bytes);
+      final ZipEntry entry = new ZipEntry(name);
+      entry.setSize(bytes.length);
+      entry.setCompressedSize(bytes.length);
+      entry.setCrc(crc.getValue());
+      zip.putNextEntry(entry);
+      zip.write(bytes);
+      zip.closeEntry();
+
+      centralDirectorySize += CENTRAL_HEADER_SIZE + name.getBytes(UTF_8).length;
+      positions.put(name, images.size());
+      indexes.add(index);
+      images.add(source);
+    }
+
+    ByteString finish() throws IOException {
+      // closing the buffer stream does nothing, but it releases the deflater of the zip
+      zip.close();
+      return buffer.readByteString();
+    }
+  }
+
+  /**
+   * The state of a single run.
+   *
+   * @param <T> the type of the result of an image
+   */
+  private abstract class Run<T> {
+    private final ImageSink<T> sink;
+    private final int batchImages;
+    private final AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(initialConcurrency, maxConcurrency);
+    private final Semaphore inFlight = new Semaphore(maxConcurrency);
+    private final ScheduledExecutorService retries =
+        Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("visual-recognition-batch-retry"));
+
+    private final Object lock = new Object();
+    private long processed;
+    private long batches;
+    private final SortedMap<Long, Exception> failures = new TreeMap<Long, Exception>();
+
+    Run(ImageSink<T> sink, int batchImages) {
+      this.sink = sink;
+      this.batchImages = batchImages;
+    }
+
+    /**
+     * Sends a batch to the service.
+     */
+    abstract CompletableFuture<List<T>> send(ByteString zip);
+
+    /**
+     * Gets the name of the image of a result.
+     */
+    abstract String imageName(T result);
+
+    ImageBatchResult execute(Iterator<ImageSource> images) throws InterruptedException {
+      try {
+        // with a resizer, the images after the current one are resized while it is zipped
+        final int readAhead = (resizer != null) ? 2 * resizer.getThreads() : 1;
+        final Deque<Prepared> prepared = new ArrayDeque<Prepared>();
+        Batch batch = new Batch();
+        long next = 0;
+        while (true) {
+          while (images.hasNext() && (prepared.size() < readAhead)) {
+            prepared.add(new Prepared(next++, images.next()));
+          }
+          final Prepared image = prepared.poll();
+          if (image == null) {
+            break;
+          }
+          try {
+            image.resolve();
+            final String name = image.index + "_" + baseName(image.filename);
+            if ((batch.size() > 0)
+                && ((batch.size() >= batchImages) || (batch.sizeWith(name, image.data) > maxBatchBytes))) {
+              submit(batch);
+              batch = new Batch();
+            }
+            if (batch.sizeWith(name, image.data) > maxBatchBytes) {
+              throw new IOException(image.source + " does not fit in a batch of " + maxBatchBytes + " bytes");
+            }
+            batch.add(image.index, image.source, name, image.data);
+          } catch (IOException e) {
+            fail(image.index, e);
+          }
+        }
+        if (batch.size() > 0) {
+          submit(batch);
+        }
+        // wait until every batch was delivered
+        inFlight.acquire(maxConcurrency);
+        inFlight.release(maxConcurrency);
+      } finally {
+        retries.shutdownNow();
+      }
+      synchronized (lock) {
+        return new ImageBatchResult(processed, batches,
+            Collections.unmodifiableSortedMap(new TreeMap<Long, Exception>(failures)));
+      }
+    }
+
+    private void fail(long index, Exception e) {
+      synchronized (lock) {
+        failures.put(index, e);
+      }
+    }
+
+    /**
+     * Closes a batch and sends it once the number of batches in flight allows it.
+     */
+    private void submit(Batch batch) throws InterruptedException {
+      final ByteString zip;
+      try {
+        zip = batch.finish();
+      } catch (IOException e) {
+        deliver(batch, null, e);
+        return;
+      }
+      inFlight.acquire();
+      synchronized (lock) {
+        batches++;
+      }
+      limiter.acquire();
+      send(batch, zip, 0);
+    }
+
+    /**
+     * Sends a batch. Called with a permit of the limiter already acquired.
+     */
+    private void send(final Batch batch, final ByteString zip, final int attempt) {
+      final CompletableFuture<List<T>> call;
+      try {
+        call = send(zip);
+      } catch (RuntimeException e) {
+        limiter.onFailure();
+        complete(batch, null, e);
+        return;
+      }
+      call.handle(new CompletableFuture.BiFun<List<T>, Throwable, Void>() {
+        @Override
+        public Void apply(List<T> results, Throwable error) {
+          if (error == null) {
+            limiter.onSuccess();
+            complete(batch, results, null);
+            return null;
+          }
+          final Throwable cause = FutureUtils.unwrap(error);
+          if (cause instanceof TooManyRequestsException) {
+            limiter.onThrottled();
+          } else {
+            limiter.onFailure();
+          }
+          if (!AdaptiveConcurrencyLimiter.isRetryable(cause) || (attempt >= maxRetries)
+              || !retry(batch, zip, attempt, cause)) {
+            complete(batch, null, FutureUtils.asException(cause));
+          }
+          return null;
+        }
+      });
+    }
+
+    /**
+     * Schedules a new attempt after the backoff delay.
+     *
+     * @return false if the run is over
+     */
+    private boolean retry(final Batch batch, final ByteString zip, final int attempt, Throwable e) {
+      try {
+        retries.schedule(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              limiter.acquire();
+            } catch (InterruptedException ie) {
+              complete(batch, null, ie);
+              return;
+            }
+            send(batch, zip, attempt + 1);
+          }
+        }, AdaptiveConcurrencyLimiter.backoffMillis(e, attempt), TimeUnit.MILLISECONDS);
+        return true;
+      } catch (RejectedExecutionException ree) {
+        return false;
+      }
+    }
+
+    /**
+     * Delivers the outcome of a batch that was sent, and makes room for another one.
+     */
+    private void complete(Batch batch, List<T> results, Exception error) {
+      try {
+        deliver(batch, results, error);
+      } finally {
+        inFlight.release();
+      }
+    }
+
+    /**
+     * Hands the result of each image of a batch to the sink, or records why there is none.
+     */
+    private void deliver(Batch batch, List<T> results, Exception error) {
+      synchronized (lock) {
+        final boolean[] delivered = new boolean[batch.size()];
+        if (results != null) {
+          for (T result : results) {
+            final Integer position = batch.positions.get(baseName(imageName(result)));
+            if ((position == null) || delivered[position]) {
+              LOG.warning("Ignoring the result of an unknown image " + imageName(result));
+              continue;
+            }
+            delivered[position] = true;
+            accept(batch.indexes.get(position), batch.images.get(position), result);
+          }
+        }
+        for (int i = 0; i < delivered.length; i++) {
+          if (!delivered[i]) {
+            failures.put(batch.indexes.get(i),
+                (error != null) ? error : new IllegalStateException("The service returned no result for " + batch
+                    .images.get(i)));
+          }
+        }
+      }
+    }
+
+    /**
+     * Hands a result to the sink. Called while holding the lock.
+     */
+    private void accept(long index, ImageSource image, T result) {
+      try {
+        sink.accept(index, image, result);
+        processed++;
+      } catch (IOException e) {
+        LOG.log(Level.WARNING, "The sink could not accept image " + index, e);
+        failures.put(index, e);
+      } catch (RuntimeException e) {
+        LOG.log(Level.WARNING, "The sink could not accept image " + index, e);
+        failures.put(index, e);
+      }
+    }
+  }
+
+  /**
+   * Gets the last segment of a path, as the service names the images of a zip after the zip and their entry.
+   */
+  private static String baseName(String path) {
+    if (path == null) {
+      return null;
+    }
+    final int separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+    return path.substring(separator + 1);
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.visual_recognition.v3.batch;
+
+import java.util.SortedMap;
+
+/**
+ * The outcome of an {@link ImageBatchProcessor} run.
+ */
+public class ImageBatchResult {
+
+  private final long processed;
+  private final long batches;
+  private final SortedMap<Long, Exception> failures;
+
+  /**
+   * Instantiates a new image batch result.
+   *
+   * @param processed the number of images accepted by the sink
+   * @param batches the number of batches sent to the service
+   * @param failures the failures by position in the input
+   */
+  ImageBatchResult(long processed, long batches, SortedMap<Long, Exception> failures) {
+    this.processed = processed;
+    this.batches = batches;
+    this.failures = failures;
+  }
+
+  /**
+   * Gets the number of images whose result was accepted by the sink.
+   *
+   * @return the number of processed images
+   */
+  public long getProcessed() {
+    return processed;
+  }
+
+  /**
+   * Gets the number of batches sent to the service, not counting retries.
+   *
+   * @return the number of batches
+   */
+  public long getBatches() {
+    return batches;
+  }
+
+  /**
+   * Gets the images that could not be read, sent or delivered, by position in the input.
+   *
+   * @return the failures
+   */
+  public SortedMap<Long, Exception> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Checks whether every image was processed.
+   *
+   * @return true if there were no failures
+   */
+  public boolean isSuccessful() {
+    return failures.isEmpty();
+  }
+}
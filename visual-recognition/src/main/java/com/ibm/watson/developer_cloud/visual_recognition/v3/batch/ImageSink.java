@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.visual_recognition.v3.batch;
+
+import java.io.IOException;
+
+/**
+ * Receives the result of each image processed by an {@link ImageBatchProcessor}. The processor never calls a sink
+ * from two threads at once, so it does not need to be thread safe.
+ *
+ * @param <T> the type of the result, a
+ *          {@link com.ibm.watson.developer_cloud.visual_recognition.v3.model.ClassifiedImage} or an
+ *          {@link com.ibm.watson.developer_cloud.visual_recognition.v3.model.ImageWithFaces}
+ */
+public interface ImageSink<T> {
+
+  /**
+   * Receives the result of an image. Results arrive batch by batch, in the order the batches complete. The result
+   * carries the error of the service when the image itself could not be processed. An image is recorded as failed if
+   * this method throws.
+   *
+   * @param index the position of the image in the input, starting at 0
+   * @param image the image
+   * @param result the result
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  void accept(long index, ImageSource image, T result) throws IOException;
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.visual_recognition.v3.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okio.Buffer;
+import okio.ByteString;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * An image read by an {@link ImageBatchProcessor}, from a file or from a stream. The stream of an image is read when
+ * the image is added to a batch, and closed.
+ */
+public final class ImageSource {
+
+  private final String filename;
+  private final File file;
+  private final InputStream stream;
+
+  private ImageSource(String filename, File file, InputStream stream) {
+    this.filename = filename;
+    this.file = file;
+    this.stream = stream;
+  }
+
+  /**
+   * Creates the source of an image file.
+   *
+   * @param file the image file (.jpg, .png)
+   * @return the image source
+   */
+  public static ImageSource of(File file) {
+    Validator.notNull(file, "file cannot be null");
+    return new ImageSource(file.getName(), file, null);
+  }
+
+  /**
+   * Creates the source of an image stream.
+   *
+   * @param filename the filename of the image, with the extension that tells its format (.jpg, .png)
+   * @param stream the image stream
+   * @return the image source
+   */
+  public static ImageSource of(String filename, InputStream stream) {
+    Validator.isTrue((filename != null) && !filename.isEmpty(), "filename cannot be null or empty");
+    Validator.notNull(stream, "stream cannot be null");
+    return new ImageSource(filename, null, stream);
+  }
+
+  /**
+   * Gets the filename.
+   *
+   * @return the filename
+   */
+  public String getFilename() {
+    return filename;
+  }
+
+  /**
+   * Gets the file.
+   *
+   * @return the file, or null if the image is read from a stream
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Reads the image.
+   *
+   * @param maxBytes the maximum size of the image
+   * @return the image
+   * @throws IOException if the image cannot be read or is larger than the maximum size
+   */
+  ByteString read(long maxBytes) throws IOException {
+    if ((file != null) && (file.length() > maxBytes)) {
+      throw new IOException(filename + " is larger than " + maxBytes + " bytes");
+    }
+    final Source source = (file != null) ? Okio.source(file) : Okio.source(stream);
+    final Buffer image = new Buffer();
+    try {
+      while (source.read(image, 8192) != -1) {
+        if (image.size() > maxBytes) {
+          throw new IOException(filename + " is larger than " + maxBytes + " bytes");
+        }
+      }
+    } finally {
+      source.close();
+    }
+    return image.readByteString();
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return (file != null) ? file.getPath() : filename;
+  }
+}
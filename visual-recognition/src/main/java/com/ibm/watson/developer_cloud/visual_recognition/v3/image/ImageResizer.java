@@ -0,0 +1,513 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.visual_recognition.v3.image;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import com.ibm.watson.developer_cloud.util.DaemonThreadFactory;
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okio.Buffer;
+import okio.ByteString;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Downscales images before they are uploaded to Visual Recognition, which does not need the resolution of a camera to
+ * classify an image or detect faces in it.
+ * <p>
+ * An image larger than {@value #DEFAULT_MAX_DIMENSION} pixels by default on its longest side is decoded with
+ * <code>javax.imageio</code>, scaled down to that size and re-encoded as a JPEG of quality {@value #DEFAULT_QUALITY},
+ * or as a PNG when it has transparency. Large images are subsampled while they are decoded, so the full resolution
+ * image is never held in memory. The original image is kept when it is small enough, when it cannot be decoded, or
+ * when re-encoding it would not make it smaller. Metadata is not copied, so the EXIF orientation of a JPEG is applied
+ * to the pixels of the resized image instead.
+ * <p>
+ * Images can be resized in parallel with {@link #submit(String, ByteString)}, which runs on one thread per core by
+ * default and blocks once twice that many images are waiting, so memory stays bounded. The resizer counts the bytes
+ * saved across all of its images. An
+ * {@link com.ibm.watson.developer_cloud.visual_recognition.v3.batch.ImageBatchProcessor} resizes its images with the
+ * resizer set on its builder.
+ *
+ * <pre>
+ * ImageResizer resizer = new ImageResizer.Builder().maxDimension(800).build();
+ * ResizedImage image = resizer.resize(new File("camera.jpg"));
+ * ClassifyOptions options = new ClassifyOptions.Builder().imagesFile(image.getInputStream())
+ *     .imagesFilename(image.getFilename()).build();
+ * </pre>
+ */
+public class ImageResizer {
+
+  /** The default maximum width and height of an image, in pixels. */
+  public static final int DEFAULT_MAX_DIMENSION = 1024;
+
+  /** The default quality of the JPEG encoding, between 0 and 1. */
+  public static final float DEFAULT_QUALITY = 0.85f;
+
+  /** The EXIF orientation of an image that is stored upright. */
+  private static final int ORIENTATION_NORMAL = 1;
+
+  /** The EXIF tag of the orientation. */
+  private static final int TAG_ORIENTATION = 0x0112;
+
+  /** The default maximum size of an image to resize, in bytes. */
+  public static final long DEFAULT_MAX_SOURCE_BYTES = 64 * 1024 * 1024;
+
+  private static final Logger LOG = Logger.getLogger(ImageResizer.class.getName());
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private int maxDimension = DEFAULT_MAX_DIMENSION;
+    private float quality = DEFAULT_QUALITY;
+    private long maxSourceBytes = DEFAULT_MAX_SOURCE_BYTES;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Set the maximum width and height of an image, in pixels. Defaults to
+     * {@value ImageResizer#DEFAULT_MAX_DIMENSION}.
+     *
+     * @param maxDimension the maximum dimension
+     * @return the builder
+     */
+    public Builder maxDimension(int maxDimension) {
+      this.maxDimension = maxDimension;
+      return this;
+    }
+
+    /**
+     * Set the quality of the JPEG encoding, between 0 and 1. Defaults to {@value ImageResizer#DEFAULT_QUALITY}.
+     *
+     * @param quality the quality
+     * @return the builder
+     */
+    public Builder quality(float quality) {
+      this.quality = quality;
+      return this;
+    }
+
+    /**
+     * Set the maximum size of an image to resize, in bytes. Reading a larger image fails. Defaults to
+     * {@value ImageResizer#DEFAULT_MAX_SOURCE_BYTES}.
+     *
+     * @param maxSourceBytes the maximum size
+     * @return the builder
+     */
+    public Builder maxSourceBytes(long maxSourceBytes) {
+      this.maxSourceBytes = maxSourceBytes;
+      return this;
+    }
+
+    /**
+     * Set the number of threads that resize images submitted with {@link ImageResizer#submit(String, ByteString)}.
+     * Defaults to the number of available processors.
+     *
+     * @param threads the number of threads
+     * @return the builder
+     */
+    public Builder threads(int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * Builds the image resizer.
+     *
+     * @return the image resizer
+     */
+    public ImageResizer build() {
+      return new ImageResizer(this);
+    }
+  }
+
+  private final int maxDimension;
+  private final float quality;
+  private final long maxSourceBytes;
+  private final int threads;
+  private final ExecutorService executor;
+  private final Semaphore queued;
+
+  private final AtomicLong images = new AtomicLong();
+  private final AtomicLong resized = new AtomicLong();
+  private final AtomicLong bytesSaved = new AtomicLong();
+
+  /**
+   * Instantiates a new image resizer.
+   *
+   * @param builder the builder
+   */
+  protected ImageResizer(Builder builder) {
+    Validator.isTrue(builder.maxDimension > 0, "maxDimension must be greater than 0");
+    Validator.isTrue((builder.quality > 0) && (builder.quality <= 1), "quality must be between 0 and 1");
+    Validator.isTrue(builder.maxSourceBytes > 0, "maxSourceBytes must be greater than 0");
+    Validator.isTrue(builder.threads > 0, "threads must be greater than 0");
+    maxDimension = builder.maxDimension;
+    quality = builder.quality;
+    maxSourceBytes = builder.maxSourceBytes;
+    threads = builder.threads;
+    executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("visual-recognition-resizer"));
+    queued = new Semaphore(2 * threads);
+  }
+
+  /**
+   * Resizes an image file.
+   *
+   * @param file the image file
+   * @return the resized image
+   * @throws IOException if the file cannot be read or is larger than the maximum size
+   */
+  public ResizedImage resize(File file) throws IOException {
+    Validator.notNull(file, "file cannot be null");
+    return resize(file.getName(), read(file.getName(), Okio.source(file)));
+  }
+
+  /**
+   * Resizes an image read from a stream, which is closed.
+   *
+   * @param filename the filename of the image, with the extension that tells its format
+   * @param stream the image stream
+   * @return the resized image
+   * @throws IOException if the stream cannot be read or is larger than the maximum size
+   */
+  public ResizedImage resize(String filename, InputStream stream) throws IOException {
+    Validator.notNull(stream, "stream cannot be null");
+    return resize(filename, read(filename, Okio.source(stream)));
+  }
+
+  /**
+   * Resizes an image.
+   *
+   * @param filename the filename of the image, with the extension that tells its format
+   * @param image the image
+   * @return the resized image, or the original one if it is small enough or cannot be made smaller
+   */
+  public ResizedImage resize(String filename, ByteString image) {
+    Validator.isTrue((filename != null) && !filename.isEmpty(), "filename cannot be null or empty");
+    Validator.notNull(image, "image cannot be null");
+    images.incrementAndGet();
+
+    ResizedImage result;
+    try {
+      result = downscale(filename, image);
+    } catch (IOException e) {
+      LOG.log(Level.FINE, "Could not resize " + filename + ", keeping the original", e);
+      result = null;
+    } catch (RuntimeException e) {
+      LOG.log(Level.FINE, "Could not resize " + filename + ", keeping the original", e);
+      result = null;
+    }
+    if ((result == null) || (result.getSize() >= image.size())) {
+      return new ResizedImage(filename, image, image.size());
+    }
+    resized.incrementAndGet();
+    bytesSaved.addAndGet(image.size() - result.getSize());
+    return result;
+  }
+
+  /**
+   * Resizes an image on one of the threads of the resizer. Blocks while twice as many images as threads are waiting
+   * to be resized.
+   *
+   * @param filename the filename of the image, with the extension that tells its format
+   * @param image the image
+   * @return the future resized image
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public Future<ResizedImage> submit(final String filename, final ByteString image) throws InterruptedException {
+    queued.acquire();
+    try {
+      return executor.submit(new Callable<ResizedImage>() {
+        @Override
+        public ResizedImage call() {
+          try {
+            return resize(filename, image);
+          } finally {
+            queued.release();
+          }
+        }
+      });
+    } catch (RuntimeException e) {
+      queued.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Gets the number of threads that resize submitted images.
+   *
+   * @return the number of threads
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Gets the maximum size of an image to resize, in bytes.
+   *
+   * @return the maximum size
+   */
+  public long getMaxSourceBytes() {
+    return maxSourceBytes;
+  }
+
+  /**
+   * Gets the number of images processed by the resizer.
+   *
+   * @return the number of images
+   */
+  public long getImageCount() {
+    return images.get();
+  }
+
+  /**
+   * Gets the number of images that were downscaled.
+   *
+   * @return the number of resized images
+   */
+  public long getResizedCount() {
+    return resized.get();
+  }
+
+  /**
+   * Gets the number of bytes saved by downscaling images.
+   *
+   * @return the bytes saved
+   */
+  public long getBytesSaved() {
+    return bytesSaved.get();
+  }
+
+  /**
+   * Stops the threads of the resizer. Images already submitted are still resized.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private ByteString read(String filename, Source source) throws IOException {
+    final Buffer image = new Buffer();
+    try {
+      while (source.read(image, 8192) != -1) {
+        if (image.size() > maxSourceBytes) {
+          throw new IOException(filename + " is larger than " + maxSourceBytes + " bytes");
+        }
+      }
+    } finally {
+      source.close();
+    }
+    return image.readByteString();
+  }
+
+  /**
+   * Decodes, scales and encodes an image.
+   *
+   * @return the resized image, or null if the image is small enough or its format is unknown
+   */
+  private ResizedImage downscale(String filename, ByteString image) throws IOException {
+    final BufferedImage decoded;
+    final ImageInputStream in = new MemoryCacheImageInputStream(new Buffer().write(image).inputStream());
+    try {
+      final Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+      if (!readers.hasNext()) {
+        return null;
+      }
+      final ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        final int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+        if (longest <= maxDimension) {
+          return null;
+        }
+        // decode at no less than the target size, skipping the pixels that would be scaled away
+        final ImageReadParam param = reader.getDefaultReadParam();
+        final int subsampling = longest / maxDimension;
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        decoded = reader.read(0, param);
+      } finally {
+        reader.dispose();
+      }
+    } finally {
+      in.close();
+    }
+
+    final double scale = (double) maxDimension / Math.max(decoded.getWidth(), decoded.getHeight());
+    final int width = Math.max(1, (int) Math.round(decoded.getWidth() * scale));
+    final int height = Math.max(1, (int) Math.round(decoded.getHeight() * scale));
+    final boolean alpha = decoded.getColorModel().hasAlpha();
+    final BufferedImage scaled =
+        new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+    final Graphics2D graphics = scaled.createGraphics();
+    try {
+      graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.drawImage(decoded, 0, 0, width, height, null);
+    } finally {
+      graphics.dispose();
+    }
+
+    final BufferedImage oriented = orient(scaled, orientation(image));
+
+    final String format = alpha ? "png" : "jpeg";
+    final ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+    final Buffer encoded = new Buffer();
+    final ImageOutputStream out = new MemoryCacheImageOutputStream(encoded.outputStream());
+    try {
+      final ImageWriteParam param = writer.getDefaultWriteParam();
+      if (!alpha) {
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+      }
+      writer.setOutput(out);
+      writer.write(null, new IIOImage(oriented, null, null), param);
+    } finally {
+      writer.dispose();
+      out.close();
+    }
+    return new ResizedImage(rename(filename, alpha ? ".png" : ".jpg"), encoded.readByteString(), image.size());
+  }
+
+  /**
+   * Reads the EXIF orientation of a JPEG, from the first IFD of its APP1 segment.
+   *
+   * @return the orientation, from 1 to 8, or 1 if the image is not a JPEG or has no valid orientation
+   */
+  static int orientation(ByteString image) {
+    try {
+      if ((image.size() < 4) || (u16(image, 0, false) != 0xFFD8)) {
+        return ORIENTATION_NORMAL;
+      }
+      int position = 2;
+      while (((position + 4) <= image.size()) && ((image.getByte(position) & 0xff) == 0xFF)) {
+        final int marker = image.getByte(position + 1) & 0xff;
+        if ((marker == 0xDA) || (marker == 0xD9)) {
+          // start of scan or end of image: the metadata segments are over
+          break;
+        }
+        final int length = u16(image, position + 2, false);
+        if ((marker == 0xE1) && image.rangeEquals(position + 4, ByteString.encodeUtf8("Exif\0\0"), 0, 6)) {
+          final int tiff = position + 10;
+          final boolean littleEndian = image.getByte(tiff) == 'I';
+          final int ifd = tiff + u32(image, tiff + 4, littleEndian);
+          final int entries = u16(image, ifd, littleEndian);
+          for (int i = 0; i < entries; i++) {
+            final int entry = ifd + 2 + (i * 12);
+            if (u16(image, entry, littleEndian) == TAG_ORIENTATION) {
+              final int orientation = u16(image, entry + 8, littleEndian);
+              return (orientation >= 1) && (orientation <= 8) ? orientation : ORIENTATION_NORMAL;
+            }
+          }
+          return ORIENTATION_NORMAL;
+        }
+        position += 2 + length;
+      }
+    } catch (IndexOutOfBoundsException e) {
+      // a truncated segment, ignore the orientation
+    }
+    return ORIENTATION_NORMAL;
+  }
+
+  /**
+   * Turns an image upright according to its EXIF orientation.
+   */
+  private static BufferedImage orient(BufferedImage image, int orientation) {
+    final int w = image.getWidth();
+    final int h = image.getHeight();
+    final AffineTransform transform;
+    switch (orientation) {
+      case 2: // mirrored horizontally
+        transform = new AffineTransform(-1, 0, 0, 1, w, 0);
+        break;
+      case 3: // rotated by 180 degrees
+        transform = new AffineTransform(-1, 0, 0, -1, w, h);
+        break;
+      case 4: // mirrored vertically
+        transform = new AffineTransform(1, 0, 0, -1, 0, h);
+        break;
+      case 5: // mirrored along the top-left to bottom-right diagonal
+        transform = new AffineTransform(0, 1, 1, 0, 0, 0);
+        break;
+      case 6: // to be rotated by 90 degrees clockwise
+        transform = new AffineTransform(0, 1, -1, 0, h, 0);
+        break;
+      case 7: // mirrored along the top-right to bottom-left diagonal
+        transform = new AffineTransform(0, -1, -1, 0, h, w);
+        break;
+      case 8: // to be rotated by 90 degrees counterclockwise
+        transform = new AffineTransform(0, -1, 1, 0, 0, w);
+        break;
+      default:
+        return image;
+    }
+    final boolean transposed = orientation >= 5;
+    final BufferedImage oriented = new BufferedImage(transposed ? h : w, transposed ? w : h, image.getType());
+    final Graphics2D graphics = oriented.createGraphics();
+    try {
+      graphics.drawImage(image, transform, null);
+    } finally {
+      graphics.dispose();
+    }
+    return oriented;
+  }
+
+  private static int u16(ByteString bytes, int offset, boolean littleEndian) {
+    final int first = bytes.getByte(offset) & 0xff;
+    final int second = bytes.getByte(offset + 1) & 0xff;
+    return littleEndian ? ((second << 8) | first) : ((first << 8) | second);
+  }
+
+  private static int u32(ByteString bytes, int offset, boolean littleEndian) {
+    final int high = u16(bytes, littleEndian ? offset + 2 : offset, littleEndian);
+    final int low = u16(bytes, littleEndian ? offset : offset + 2, littleEndian);
+    return (high << 16) | low;
+  }
+
+  /**
+   * Gives a filename the extension of the format of the image, unless it already has an extension of that format.
+   */
+  private static String rename(String filename, String extension) {
+    final String lowerCase = filename.toLowerCase(Locale.ENGLISH);
+    if (lowerCase.endsWith(extension) || (".jpg".equals(extension) && lowerCase.endsWith(".jpeg"))) {
+      return filename;
+    }
+    final int dot = filename.lastIndexOf('.');
+    return ((dot > 0) ? filename.substring(0, dot) : filename) + extension;
+  }
+}
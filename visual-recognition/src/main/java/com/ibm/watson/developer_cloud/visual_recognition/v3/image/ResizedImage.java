@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.visual_recognition.v3.image;
+
+import java.io.InputStream;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * An image prepared by an {@link ImageResizer}: either the downscaled image or, when downscaling would not make it
+ * smaller, the original one.
+ */
+public class ResizedImage {
+
+  private final String filename;
+  private final ByteString data;
+  private final long originalSize;
+
+  /**
+   * Instantiates a new resized image.
+   *
+   * @param filename the filename, whose extension matches the format of the data
+   * @param data the image
+   * @param originalSize the size of the original image
+   */
+  ResizedImage(String filename, ByteString data, long originalSize) {
+    this.filename = filename;
+    this.data = data;
+    this.originalSize = originalSize;
+  }
+
+  /**
+   * Gets the filename. It has the extension of the format the image was re-encoded in, if any.
+   *
+   * @return the filename
+   */
+  public String getFilename() {
+    return filename;
+  }
+
+  /**
+   * Gets the size of the image, in bytes.
+   *
+   * @return the size
+   */
+  public long getSize() {
+    return data.size();
+  }
+
+  /**
+   * Gets the size of the original image, in bytes.
+   *
+   * @return the original size
+   */
+  public long getOriginalSize() {
+    return originalSize;
+  }
+
+  /**
+   * Checks whether the image was downscaled.
+   *
+   * @return true if the image differs from the original
+   */
+  public boolean isResized() {
+    return data.size() != originalSize;
+  }
+
+  /**
+   * Opens the image, for example for <code>ClassifyOptions.Builder.imagesFile(InputStream)</code>.
+   *
+   * @return the input stream
+   */
+  public InputStream getInputStream() {
+    return new Buffer().write(data).inputStream();
+  }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.visual_recognition.v3.training;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.ibm.watson.developer_cloud.util.Validator;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * The positive examples of each class and the negative examples used to create or update a custom classifier with
+ * {@link com.ibm.watson.developer_cloud.visual_recognition.v3.VisualRecognition#createClassifier(String,
+ * ClassifierTrainingSet)}.
+ * <p>
+ * Instead of preparing a zip file per class on disk, images are added from files or from memory and each zip is
+ * written while the request is being sent. Images are already compressed, so they are stored in the zips without
+ * compression. Each image is hashed when it is added; the {@link #getContentHash() content hash} combines the hashes
+ * of the images and their classes regardless of order and file names, so a classifier only needs to be retrained when
+ * the hash differs from the hash of the set it was trained with.
+ * <p>
+ * Files are read again when the zips are written, and the upload fails if a file changed after it was added.
+ */
+public class ClassifierTrainingSet {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  /** Fixed modification time of the zip entries, so the same set always produces the same zips. */
+  private static final long ENTRY_TIME = 315619200000L;
+
+  /**
+   * An image of the training set.
+   */
+  private static final class Example {
+    private final String name;
+    private final File file;
+    private final byte[] data;
+    private final long size;
+    private final long crc;
+    private final ByteString sha256;
+
+    /**
+     * Instantiates a new example, reading it once to compute its checksums.
+     *
+     * @param name the entry name
+     * @param file the file, or null
+     * @param data the image, or null
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private Example(String name, File file, byte[] data) throws IOException {
+      this.name = name;
+      this.file = file;
+      this.data = data;
+
+      final MessageDigest digest = sha256();
+      final CRC32 checksum = new CRC32();
+      final InputStream in = open();
+      long length = 0;
+      try {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+          digest.update(buffer, 0, read);
+          checksum.update(buffer, 0, read);
+          length += read;
+        }
+      } finally {
+        in.close();
+      }
+      size = length;
+      crc = checksum.getValue();
+      sha256 = ByteString.of(digest.digest());
+    }
+
+    /**
+     * Opens the image.
+     *
+     * @return the input stream
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private InputStream open() throws IOException {
+      return (file != null) ? new FileInputStream(file) : new Buffer().write(data).inputStream();
+    }
+  }
+
+  /**
+   * Builder.
+   */
+  public static class Builder {
+    private final Map<String, List<Example>> positiveExamples = new LinkedHashMap<String, List<Example>>();
+    private final List<Example> negativeExamples = new ArrayList<Example>();
+
+    /**
+     * Adds an image file as a positive example of a class.
+     *
+     * @param className the class name
+     * @param image the image file
+     * @return the builder
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public Builder addPositiveExample(String className, File image) throws IOException {
+      Validator.notNull(image, "image cannot be null");
+      return addPositiveExample(className, image.getName(), image, null);
+    }
+
+    /**
+     * Adds an image as a positive example of a class.
+     *
+     * @param className the class name
+     * @param filename the filename of the image, with its extension
+     * @param image the image
+     * @return the builder
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public Builder addPositiveExample(String className, String filename, byte[] image) throws IOException {
+      Validator.notNull(image, "image cannot be null");
+      return addPositiveExample(className, filename, null, image);
+    }
+
+    /**
+     * Adds an image file as a negative example.
+     *
+     * @param image the image file
+     * @return the builder
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public Builder addNegativeExample(File image) throws IOException {
+      Validator.notNull(image, "image cannot be null");
+      negativeExamples.add(new Example(entryName(negativeExamples, image.getName()), image, null));
+      return this;
+    }
+
+    /**
+     * Adds an image as a negative example.
+     *
+     * @param filename the filename of the image, with its extension
+     * @param image the image
+     * @return the builder
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public Builder addNegativeExample(String filename, byte[] image) throws IOException {
+      Validator.notNull(image, "image cannot be null");
+      negativeExamples.add(new Example(entryName(negativeExamples, filename), null, image));
+      return this;
+    }
+
+    /**
+     * Builds the training set.
+     *
+     * @return the training set
+     */
+    public ClassifierTrainingSet build() {
+      Validator.isTrue(!positiveExamples.isEmpty() || !negativeExamples.isEmpty(), "training set cannot be empty");
+      return new ClassifierTrainingSet(this);
+    }
+
+    private Builder addPositiveExample(String className, String filename, File file, byte[] data)
+        throws IOException {
+      Validator.isTrue((className != null) && !className.isEmpty(), "className cannot be null or empty");
+      List<Example> examples = positiveExamples.get(className);
+      if (examples == null) {
+        examples = new ArrayList<Example>();
+        positiveExamples.put(className, examples);
+      }
+      examples.add(new Example(entryName(examples, filename), file, data));
+      return this;
+    }
+
+    /**
+     * Returns a name for a new zip entry, prefixed with its index when another entry already has the filename.
+     *
+     * @param examples the examples of the zip
+     * @param filename the filename
+     * @return the entry name
+     */
+    private static String entryName(List<Example> examples, String filename) {
+      Validator.isTrue((filename != null) && !filename.isEmpty(), "filename cannot be null or empty");
+      final Set<String> names = new HashSet<String>();
+      for (Example example : examples) {
+        names.add(example.name);
+      }
+      String name = filename;
+      for (int i = examples.size(); names.contains(name); i++) {
+        name = i + "_" + filename;
+      }
+      return name;
+    }
+  }
+
+  private final Map<String, List<Example>> positiveExamples;
+  private final List<Example> negativeExamples;
+  private final String contentHash;
+
+  /**
+   * Instantiates a new training set.
+   *
+   * @param builder the builder
+   */
+  private ClassifierTrainingSet(Builder builder) {
+    positiveExamples = new LinkedHashMap<String, List<Example>>();
+    for (Map.Entry<String, List<Example>> entry : builder.positiveExamples.entrySet()) {
+      positiveExamples.put(entry.getKey(), new ArrayList<Example>(entry.getValue()));
+    }
+    negativeExamples = new ArrayList<Example>(builder.negativeExamples);
+
+    final List<ByteString> hashes = new ArrayList<ByteString>();
+    for (Map.Entry<String, List<Example>> entry : positiveExamples.entrySet()) {
+      for (Example example : entry.getValue()) {
+        hashes.add(new Buffer().writeUtf8("+").writeUtf8(entry.getKey()).writeByte(0).write(example.sha256)
+            .sha256());
+      }
+    }
+    for (Example example : negativeExamples) {
+      hashes.add(new Buffer().writeUtf8("-").writeByte(0).write(example.sha256).sha256());
+    }
+    Collections.sort(hashes);
+    final Buffer combined = new Buffer();
+    for (ByteString hash : hashes) {
+      combined.write(hash);
+    }
+    contentHash = combined.sha256().hex();
+  }
+
+  /**
+   * Gets the names of the classes with positive examples, in the order they were added.
+   *
+   * @return the class names
+   */
+  public List<String> getClassNames() {
+    return new ArrayList<String>(positiveExamples.keySet());
+  }
+
+  /**
+   * Checks for negative examples.
+   *
+   * @return true, if the set has negative examples
+   */
+  public boolean hasNegativeExamples() {
+    return !negativeExamples.isEmpty();
+  }
+
+  /**
+   * Gets the number of images in the set.
+   *
+   * @return the number of images
+   */
+  public int getImageCount() {
+    int count = negativeExamples.size();
+    for (List<Example> examples : positiveExamples.values()) {
+      count += examples.size();
+    }
+    return count;
+  }
+
+  /**
+   * Gets the hexadecimal SHA-256 of the images and their classes, which does not depend on the order or the file
+   * names of the images.
+   *
+   * @return the content hash
+   */
+  public String getContentHash() {
+    return contentHash;
+  }
+
+  /**
+   * Writes the zip of the positive examples of a class. The stream is not closed.
+   *
+   * @param className the class name
+   * @param out the output stream
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void writePositiveExamples(String className, OutputStream out) throws IOException {
+    final List<Example> examples = positiveExamples.get(className);
+    Validator.notNull(examples, "no positive examples of " + className);
+    writeZip(examples, out);
+  }
+
+  /**
+   * Writes the zip of the negative examples. The stream is not closed.
+   *
+   * @param out the output stream
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void writeNegativeExamples(OutputStream out) throws IOException {
+    Validator.isTrue(hasNegativeExamples(), "no negative examples");
+    writeZip(negativeExamples, out);
+  }
+
+  private static void writeZip(List<Example> examples, OutputStream out) throws IOException {
+    // closing the zip releases its deflater, but the output belongs to the caller
+    final ZipOutputStream zip = new ZipOutputStream(new FilterOutputStream(out) {
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+      }
+
+      @Override
+      public void close() throws IOException {
+        flush();
+      }
+    });
+    try {
+      zip.setMethod(ZipOutputStream.STORED);
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      for (Example example : examples) {
+        final ZipEntry entry = new ZipEntry(example.name);
+        entry.setSize(example.size);
+        entry.setCompressedSize(example.size);
+        entry.setCrc(example.crc);
+        entry.setTime(ENTRY_TIME);
+        zip.putNextEntry(entry);
+
+        final InputStream in = example.open();
+        try {
+          int read;
+          while ((read = in.read(buffer)) != -1) {
+            zip.write(buffer, 0, read);
+          }
+        } finally {
+          in.close();
+        }
+        zip.closeEntry();
+      }
+    } finally {
+      zip.close();
+    }
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.visual_recognition.v3.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.VisualRecognition;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.image.ImageResizer;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.image.ImageResizerTest;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.model.ClassifiedImage;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.model.ClassifiedImages;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.model.DetectedFaces;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.model.ImageWithFaces;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * The Class ImageBatchProcessorTest.
+ */
+public class ImageBatchProcessorTest extends WatsonServiceUnitTest {
+
+  private VisualRecognition service;
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new VisualRecognition(VisualRecognition.VERSION_DATE_2016_05_20);
+    service.setApiKey("");
+    service.setEndPoint(getMockWebServerUrl());
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  /**
+   * Gets the names of the entries of the zip uploaded by a request.
+   */
+  private static List<String> entries(RecordedRequest request) throws IOException {
+    final Buffer body = request.getBody().clone();
+    final long start = body.indexOf(ByteString.encodeUtf8("PK\u0003\u0004"));
+    body.skip(start);
+    final ZipInputStream zip = new ZipInputStream(body.inputStream());
+    final List<String> names = new ArrayList<String>();
+    ZipEntry entry;
+    while ((entry = zip.getNextEntry()) != null) {
+      names.add(entry.getName());
+    }
+    return names;
+  }
+
+  private static List<ImageSource> images(String... names) {
+    final List<ImageSource> images = new ArrayList<ImageSource>();
+    for (String name : names) {
+      images.add(ImageSource.of(name, new Buffer().writeUtf8("image " + name).inputStream()));
+    }
+    return images;
+  }
+
+  /**
+   * Test that images are split in batches and their results mapped back to their source, whatever their order.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testClassify() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        try {
+          final List<String> names = entries(request);
+          Collections.reverse(names);
+          final List<ClassifiedImage> images = new ArrayList<ClassifiedImage>();
+          for (String name : names) {
+            final ClassifiedImage image = new ClassifiedImage();
+            image.setImage("images.zip/" + name);
+            images.add(image);
+          }
+          final ClassifiedImages response = new ClassifiedImages();
+          response.setImages(images);
+          return new MockResponse().setBody(response.toString());
+        } catch (IOException e) {
+          return new MockResponse().setResponseCode(500);
+        }
+      }
+    });
+
+    final ImageBatchProcessor processor = new ImageBatchProcessor.Builder(service).maxBatchImages(2).build();
+    final Map<Long, String> results = new TreeMap<Long, String>();
+    final ImageBatchResult result = processor.classify(images("a.jpg", "b.jpg", "a.jpg", "c.png", "d.png").iterator(),
+        null, new ImageSink<ClassifiedImage>() {
+          @Override
+          public void accept(long index, ImageSource image, ClassifiedImage classifiedImage) {
+            assertTrue(classifiedImage.getImage().endsWith(index + "_" + image.getFilename()));
+            results.put(index, image.getFilename());
+          }
+        });
+
+    assertTrue(result.isSuccessful());
+    assertEquals(5, result.getProcessed());
+    assertEquals(3, result.getBatches());
+    assertEquals("{0=a.jpg, 1=b.jpg, 2=a.jpg, 3=c.png, 4=d.png}", results.toString());
+  }
+
+  /**
+   * Test that a batch throttled by the service is sent again after the delay of its <code>Retry-After</code> header.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testClassifyRetried() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      private int requests;
+
+      @Override
+      public synchronized MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        if (requests++ == 0) {
+          return new MockResponse().setResponseCode(429).addHeader("Retry-After", "0")
+              .setBody("{\"error\": \"Too many requests\"}");
+        }
+        try {
+          final List<ClassifiedImage> images = new ArrayList<ClassifiedImage>();
+          for (String name : entries(request)) {
+            final ClassifiedImage image = new ClassifiedImage();
+            image.setImage(name);
+            images.add(image);
+          }
+          final ClassifiedImages response = new ClassifiedImages();
+          response.setImages(images);
+          return new MockResponse().setBody(response.toString());
+        } catch (IOException e) {
+          return new MockResponse().setResponseCode(500);
+        }
+      }
+    });
+
+    final ImageBatchProcessor processor = new ImageBatchProcessor.Builder(service).maxRetries(1).build();
+    final List<Long> processed = new ArrayList<Long>();
+    final ImageBatchResult result = processor.classify(images("a.jpg", "b.jpg").iterator(), null,
+        new ImageSink<ClassifiedImage>() {
+          @Override
+          public void accept(long index, ImageSource image, ClassifiedImage classifiedImage) {
+            processed.add(index);
+          }
+        });
+
+    assertTrue(result.isSuccessful());
+    assertEquals(2, result.getProcessed());
+    assertEquals("[0, 1]", processed.toString());
+    assertEquals(2, server.getRequestCount());
+  }
+
+  /**
+   * Test that images are resized before they are zipped.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testClassifyResized() throws Exception {
+    final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        try {
+          final List<String> names = entries(request);
+          batches.add(names);
+          final List<ClassifiedImage> images = new ArrayList<ClassifiedImage>();
+          for (String name : names) {
+            final ClassifiedImage image = new ClassifiedImage();
+            image.setImage(name);
+            images.add(image);
+          }
+          final ClassifiedImages response = new ClassifiedImages();
+          response.setImages(images);
+          return new MockResponse().setBody(response.toString());
+        } catch (IOException e) {
+          return new MockResponse().setResponseCode(500);
+        }
+      }
+    });
+
+    final ImageResizer resizer = new ImageResizer.Builder().maxDimension(64).threads(2).build();
+    final ImageBatchProcessor processor = new ImageBatchProcessor.Builder(service).resizer(resizer).build();
+    final List<ImageSource> images = new ArrayList<ImageSource>();
+    for (int i = 0; i < 3; i++) {
+      images.add(ImageSource.of("photo.png", new Buffer().write(ImageResizerTest.png(256, 256, false)).inputStream()));
+    }
+    final ImageBatchResult result = processor.classify(images.iterator(), null, new ImageSink<ClassifiedImage>() {
+      @Override
+      public void accept(long index, ImageSource image, ClassifiedImage classifiedImage) {
+      }
+    });
+    resizer.shutdown();
+
+    assertTrue(result.isSuccessful());
+    assertEquals(3, result.getProcessed());
+    assertEquals("[[0_photo.jpg, 1_photo.jpg, 2_photo.jpg]]", batches.toString());
+    assertEquals(3, resizer.getResizedCount());
+    assertTrue(resizer.getBytesSaved() > 0);
+  }
+
+  /**
+   * Test that an image too large for a batch and an image missing from the response fail on their own.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testDetectFacesFailures() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        try {
+          final List<String> names = entries(request);
+          final List<ImageWithFaces> images = new ArrayList<ImageWithFaces>();
+          for (String name : names) {
+            if (!name.endsWith("missing.jpg")) {
+              final ImageWithFaces image = new ImageWithFaces();
+              image.setImage(name);
+              images.add(image);
+            }
+          }
+          final DetectedFaces response = new DetectedFaces();
+          response.setImages(images);
+          return new MockResponse().setBody(response.toString());
+        } catch (IOException e) {
+          return new MockResponse().setResponseCode(500);
+        }
+      }
+    });
+
+    final List<ImageSource> images = images("a.jpg", "missing.jpg");
+    final StringBuilder large = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      large.append("0123456789");
+    }
+    images.add(1, ImageSource.of("large.jpg", new Buffer().writeUtf8(large.toString()).inputStream()));
+
+    final ImageBatchProcessor processor = new ImageBatchProcessor.Builder(service).maxBatchBytes(1000).build();
+    final List<Long> processed = new ArrayList<Long>();
+    final ImageBatchResult result = processor.detectFaces(images.iterator(), new ImageSink<ImageWithFaces>() {
+      @Override
+      public void accept(long index, ImageSource image, ImageWithFaces imageWithFaces) {
+        processed.add(index);
+      }
+    });
+
+    assertFalse(result.isSuccessful());
+    assertEquals(1, result.getBatches());
+    assertEquals("[0]", processed.toString());
+    assertEquals("[1, 2]", result.getFailures().keySet().toString());
+    assertTrue(result.getFailures().get(1L) instanceof IOException);
+    assertTrue(result.getFailures().get(2L) instanceof IllegalStateException);
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.visual_recognition.v3.image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * The Class ImageResizerTest.
+ */
+public class ImageResizerTest {
+
+  /**
+   * Creates a PNG of noisy gradients, which compresses poorly.
+   */
+  public static ByteString png(int width, int height, boolean alpha) throws IOException {
+    final Random random = new Random(width);
+    final BufferedImage image =
+        new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        final int gray = ((x + y) & 0xff) ^ random.nextInt(16);
+        image.setRGB(x, y, 0x80000000 | (gray << 16) | (gray << 8) | (255 - gray));
+      }
+    }
+    final Buffer buffer = new Buffer();
+    ImageIO.write(image, "png", buffer.outputStream());
+    return buffer.readByteString();
+  }
+
+  /**
+   * Creates a JPEG with a red left half and a blue right half, stored with an EXIF orientation.
+   */
+  private static ByteString jpeg(int width, int height, int orientation) throws IOException {
+    final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, x < (width / 2) ? 0xff0000 : 0x0000ff);
+      }
+    }
+    final Buffer encoded = new Buffer();
+    ImageIO.write(image, "jpeg", encoded.outputStream());
+
+    // a big-endian TIFF header followed by an IFD with the orientation only
+    final Buffer exif = new Buffer().writeUtf8("Exif\0\0MM").writeShort(42).writeInt(8).writeShort(1)
+        .writeShort(0x0112).writeShort(3).writeInt(1).writeShort(orientation).writeShort(0).writeInt(0);
+    final Buffer jpeg = new Buffer().write(encoded.readByteString(2)).writeShort(0xFFE1)
+        .writeShort((int) exif.size() + 2);
+    jpeg.writeAll(exif);
+    jpeg.writeAll(encoded);
+    return jpeg.readByteString();
+  }
+
+  private static BufferedImage decode(ResizedImage image) throws IOException {
+    return ImageIO.read(image.getInputStream());
+  }
+
+  /**
+   * Test that a large image is downscaled to the maximum dimension and re-encoded as a JPEG.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testResize() throws IOException {
+    final ImageResizer resizer = new ImageResizer.Builder().maxDimension(200).build();
+    final ByteString original = png(1000, 500, false);
+
+    final ResizedImage image = resizer.resize("photo.png", original);
+
+    assertTrue(image.isResized());
+    assertEquals("photo.jpg", image.getFilename());
+    final BufferedImage decoded = decode(image);
+    assertEquals(200, decoded.getWidth());
+    assertEquals(100, decoded.getHeight());
+    assertEquals(original.size(), image.getOriginalSize());
+    assertEquals(1, resizer.getResizedCount());
+    assertEquals(original.size() - image.getSize(), resizer.getBytesSaved());
+  }
+
+  /**
+   * Test that the EXIF orientation of a JPEG is applied to the pixels of the resized image, which has no metadata.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testResizeOriented() throws IOException {
+    final ImageResizer resizer = new ImageResizer.Builder().maxDimension(64).build();
+    final ByteString original = jpeg(512, 256, 6);
+    assertEquals(6, ImageResizer.orientation(original));
+    assertEquals(1, ImageResizer.orientation(png(10, 10, false)));
+
+    final ResizedImage image = resizer.resize("camera.jpg", original);
+
+    assertTrue(image.isResized());
+    final BufferedImage decoded = decode(image);
+    assertEquals(32, decoded.getWidth());
+    assertEquals(64, decoded.getHeight());
+    // rotated clockwise, the left half of the stored image is now the top half
+    assertTrue(((decoded.getRGB(16, 8) >> 16) & 0xff) > 200);
+    assertTrue((decoded.getRGB(16, 56) & 0xff) > 200);
+  }
+
+  /**
+   * Test that an image with transparency stays a PNG.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testResizeTransparent() throws IOException {
+    final ImageResizer resizer = new ImageResizer.Builder().maxDimension(100).build();
+
+    final ResizedImage image = resizer.resize("logo.png", png(400, 400, true));
+
+    assertEquals("logo.png", image.getFilename());
+    assertEquals(100, decode(image).getWidth());
+  }
+
+  /**
+   * Test that small images and unknown formats are kept as they are.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testKeepOriginal() throws IOException {
+    final ImageResizer resizer = new ImageResizer.Builder().maxDimension(200).build();
+    final ByteString small = png(100, 50, false);
+    final ByteString unknown = ByteString.encodeUtf8("not an image");
+
+    final ResizedImage kept = resizer.resize("small.png", small);
+    final ResizedImage notImage = resizer.resize("data.bin", unknown);
+
+    assertFalse(kept.isResized());
+    assertEquals("small.png", kept.getFilename());
+    assertEquals(small, new Buffer().readFrom(kept.getInputStream()).readByteString());
+    assertFalse(notImage.isResized());
+    assertEquals(2, resizer.getImageCount());
+    assertEquals(0, resizer.getBytesSaved());
+  }
+
+  /**
+   * Test that submitted images are resized on the threads of the resizer.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testSubmit() throws Exception {
+    final ImageResizer resizer = new ImageResizer.Builder().maxDimension(50).threads(2).build();
+    try {
+      final ByteString original = png(300, 300, false);
+      final Future<ResizedImage> first = resizer.submit("a.png", original);
+      final Future<ResizedImage> second = resizer.submit("b.png", original);
+
+      assertEquals("a.jpg", first.get().getFilename());
+      assertEquals("b.jpg", second.get().getFilename());
+      assertEquals(2, resizer.getResizedCount());
+    } finally {
+      resizer.shutdown();
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.ibm.watson.developer_cloud.visual_recognition.v3.training;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.watson.developer_cloud.WatsonServiceUnitTest;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.VisualRecognition;
+import com.ibm.watson.developer_cloud.visual_recognition.v3.model.Classifier;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.Okio;
+
+/**
+ * The Class ClassifierTrainingSetTest.
+ */
+public class ClassifierTrainingSetTest extends WatsonServiceUnitTest {
+  private static final String FIXTURE_CLASSIFIER = "src/test/resources/visual_recognition/visual_classifier.json";
+  private static final File CAR = new File("src/test/resources/visual_recognition/car.png");
+  private static final File TOWER = new File("src/test/resources/visual_recognition/eiffel-tower.jpg");
+
+  private VisualRecognition service;
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#setUp()
+   */
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+    service = new VisualRecognition(VisualRecognition.VERSION_DATE_2016_05_20);
+    service.setApiKey("");
+    service.setEndPoint(getMockWebServerUrl());
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see com.ibm.watson.developer_cloud.WatsonServiceUnitTest#tearDown()
+   */
+  @Override
+  @After
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  /**
+   * Test that the zip of a class contains its images, renaming duplicates.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testWritePositiveExamples() throws IOException {
+    final byte[] car = Okio.buffer(Okio.source(CAR)).readByteArray();
+    final ClassifierTrainingSet trainingSet = new ClassifierTrainingSet.Builder()
+        .addPositiveExample("car", CAR)
+        .addPositiveExample("car", "car.png", car)
+        .build();
+
+    final Buffer zip = new Buffer();
+    trainingSet.writePositiveExamples("car", zip.outputStream());
+
+    final ZipInputStream in = new ZipInputStream(zip.inputStream());
+    ZipEntry entry = in.getNextEntry();
+    assertEquals("car.png", entry.getName());
+    assertArrayEquals(car, Okio.buffer(Okio.source(in)).readByteArray());
+    entry = in.getNextEntry();
+    assertEquals("1_car.png", entry.getName());
+    assertArrayEquals(car, Okio.buffer(Okio.source(in)).readByteArray());
+    assertNull(in.getNextEntry());
+
+    assertEquals(Arrays.asList("car"), trainingSet.getClassNames());
+    assertFalse(trainingSet.hasNegativeExamples());
+    assertEquals(2, trainingSet.getImageCount());
+  }
+
+  /**
+   * Test that writing a zip leaves the output stream of the caller open.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testWriteDoesNotCloseOutput() throws IOException {
+    final ClassifierTrainingSet trainingSet = new ClassifierTrainingSet.Builder().addPositiveExample("car", CAR)
+        .build();
+    final AtomicBoolean closed = new AtomicBoolean();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream() {
+      @Override
+      public void close() throws IOException {
+        closed.set(true);
+        super.close();
+      }
+    };
+    trainingSet.writePositiveExamples("car", out);
+
+    assertFalse(closed.get());
+    final ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals("car.png", in.getNextEntry().getName());
+  }
+
+  /**
+   * Test that the content hash ignores the order and names of the images and changes with their classes.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test
+  public void testContentHash() throws IOException {
+    final byte[] car = Okio.buffer(Okio.source(CAR)).readByteArray();
+    final ClassifierTrainingSet first = new ClassifierTrainingSet.Builder()
+        .addPositiveExample("car", CAR)
+        .addNegativeExample(TOWER)
+        .build();
+    final ClassifierTrainingSet reordered = new ClassifierTrainingSet.Builder()
+        .addNegativeExample(TOWER)
+        .addPositiveExample("car", "renamed.png", car)
+        .build();
+    final ClassifierTrainingSet changed = new ClassifierTrainingSet.Builder()
+        .addPositiveExample("vehicle", CAR)
+        .addNegativeExample(TOWER)
+        .build();
+
+    assertEquals(first.getContentHash(), reordered.getContentHash());
+    assertNotEquals(first.getContentHash(), changed.getContentHash());
+  }
+
+  /**
+   * Test that a classifier is created with a zip part per class.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testCreateClassifier() throws Exception {
+    final Classifier classifier = loadFixture(FIXTURE_CLASSIFIER, Classifier.class);
+    server.enqueue(new MockResponse().setBody(classifier.toString()));
+
+    final ClassifierTrainingSet trainingSet = new ClassifierTrainingSet.Builder()
+        .addPositiveExample("car", CAR)
+        .addNegativeExample(TOWER)
+        .build();
+    final Classifier response = service.createClassifier("vehicles", trainingSet).execute();
+    final RecordedRequest request = server.takeRequest();
+
+    assertTrue(request.getPath().startsWith("/v3/classifiers?"));
+    assertEquals(classifier, response);
+    final String body = request.getBody().readUtf8();
+    assertTrue(body.contains("name=\"car_positive_examples\"; filename=\"car.zip\""));
+    assertTrue(body.contains("name=\"negative_examples\"; filename=\"negative_examples.zip\""));
+    assertTrue(body.contains("Content-Type: application/zip"));
+  }
+}